@@ -0,0 +1,24 @@
+package com.example.demo.analytics;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "app.analytics")
+public class AnalyticsProperties {
+
+    /**
+     * Days of rollups held in memory and the longest range the analytics endpoint serves.
+     */
+    private int windowDays = 90;
+
+    /**
+     * Product-days the in-memory table is sized for before it first grows.
+     */
+    private int initialCapacity = 4096;
+
+    /**
+     * Recently counted orders remembered so a redelivered event is not counted twice.
+     */
+    private int recentOrders = 100_000;
+}
@@ -0,0 +1,53 @@
+package com.example.demo.analytics;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+@Component
+@RequiredArgsConstructor
+public class JdbcRollupLedger implements RollupLedger {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public List<RollupRow> loadSince(LocalDate from) {
+        return jdbcTemplate.query("""
+                        SELECT seller_id, product_id, sale_date, units, revenue, discount
+                        FROM seller_daily_rollups WHERE sale_date >= ?
+                        """,
+                (rs, rowNum) -> new RollupRow(rs.getLong("seller_id"), rs.getLong("product_id"),
+                        rs.getDate("sale_date").toLocalDate(), rs.getLong("units"),
+                        rs.getBigDecimal("revenue").movePointRight(2).longValueExact(),
+                        rs.getBigDecimal("discount").movePointRight(2).longValueExact()),
+                Date.valueOf(from));
+    }
+
+    @Override
+    @Transactional
+    public void apply(List<RollupRow> increments) {
+        List<Object[]> args = new ArrayList<>(increments.size());
+        // Sorted so concurrent flushes from several nodes lock rows in the same order
+        increments.stream()
+                .sorted(Comparator.comparingLong(RollupRow::sellerId).thenComparingLong(RollupRow::productId)
+                        .thenComparing(RollupRow::saleDate))
+                .forEach(r -> args.add(new Object[]{r.sellerId(), r.productId(), Date.valueOf(r.saleDate()), r.units(),
+                        BigDecimal.valueOf(r.revenueCents(), 2), BigDecimal.valueOf(r.discountCents(), 2)}));
+        jdbcTemplate.batchUpdate("""
+                INSERT INTO seller_daily_rollups (seller_id, product_id, sale_date, units, revenue, discount)
+                VALUES (?, ?, ?, ?, ?, ?)
+                ON CONFLICT (seller_id, product_id, sale_date) DO UPDATE SET
+                    units = seller_daily_rollups.units + excluded.units,
+                    revenue = seller_daily_rollups.revenue + excluded.revenue,
+                    discount = seller_daily_rollups.discount + excluded.discount
+                """, args);
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.demo.analytics;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Durable daily rollups the analytics engine loads and writes its increments behind to.
+ */
+public interface RollupLedger {
+
+    List<RollupRow> loadSince(LocalDate from);
+
+    /**
+     * Adds each increment to its product-day, creating the row if needed.
+     */
+    void apply(List<RollupRow> increments);
+}
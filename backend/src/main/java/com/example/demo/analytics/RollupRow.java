@@ -0,0 +1,10 @@
+package com.example.demo.analytics;
+
+import java.time.LocalDate;
+
+/**
+ * Sales of one product on one day, or an increment to them. Amounts are in cents.
+ */
+public record RollupRow(long sellerId, long productId, LocalDate saleDate, long units, long revenueCents,
+                        long discountCents) {
+}
@@ -0,0 +1,215 @@
+package com.example.demo.analytics;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per product-day sales held in parallel primitive arrays, found through an open-addressing hash on product and
+ * day, with every seller's slots listed so a seller's figures are read without touching anyone else's. Each
+ * slot keeps its totals and the part of them not yet written to the database. Not thread-safe.
+ */
+final class RollupTable {
+
+    private static final long EMPTY = 0;
+
+    private long[] productIds;
+    private int[] days;
+    private long[] sellerIds;
+    private long[] units;
+    private long[] revenue;
+    private long[] discount;
+    private long[] pendingUnits;
+    private long[] pendingRevenue;
+    private long[] pendingDiscount;
+    private boolean[] dirty;
+    private int size;
+
+    private final Map<Long, SlotList> bySeller = new HashMap<>();
+    private final SlotList dirtySlots = new SlotList();
+
+    @FunctionalInterface
+    interface CellVisitor {
+        void visit(long productId, int epochDay, long units, long revenueCents, long discountCents);
+    }
+
+    RollupTable(int expectedCells) {
+        allocate(Integer.highestOneBit(Math.max(16, expectedCells * 2 - 1)) << 1);
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Adds to a product-day's totals; {@code pending} amounts are also kept to be written behind.
+     */
+    void add(long sellerId, long productId, int epochDay, long units, long revenueCents, long discountCents,
+             boolean pending) {
+        int slot = slotOf(sellerId, productId, epochDay);
+        this.units[slot] += units;
+        this.revenue[slot] += revenueCents;
+        this.discount[slot] += discountCents;
+        if (pending) {
+            addPending(slot, units, revenueCents, discountCents);
+        }
+    }
+
+    /**
+     * Returns the amounts not yet written and forgets them; they count as pending again only if added back.
+     */
+    List<RollupRow> drainPending() {
+        List<RollupRow> rows = new ArrayList<>(dirtySlots.size);
+        for (int i = 0; i < dirtySlots.size; i++) {
+            int slot = dirtySlots.slots[i];
+            rows.add(new RollupRow(sellerIds[slot], productIds[slot], LocalDate.ofEpochDay(days[slot]),
+                    pendingUnits[slot], pendingRevenue[slot], pendingDiscount[slot]));
+            pendingUnits[slot] = 0;
+            pendingRevenue[slot] = 0;
+            pendingDiscount[slot] = 0;
+            dirty[slot] = false;
+        }
+        dirtySlots.size = 0;
+        return rows;
+    }
+
+    /**
+     * Puts drained amounts back after a failed write; the totals already include them.
+     */
+    void restorePending(List<RollupRow> rows) {
+        for (RollupRow r : rows) {
+            int slot = slotOf(r.sellerId(), r.productId(), (int) r.saleDate().toEpochDay());
+            addPending(slot, r.units(), r.revenueCents(), r.discountCents());
+        }
+    }
+
+    /**
+     * Amounts not yet written, left in place.
+     */
+    List<RollupRow> pending() {
+        List<RollupRow> rows = new ArrayList<>(dirtySlots.size);
+        for (int i = 0; i < dirtySlots.size; i++) {
+            int slot = dirtySlots.slots[i];
+            rows.add(new RollupRow(sellerIds[slot], productIds[slot], LocalDate.ofEpochDay(days[slot]),
+                    pendingUnits[slot], pendingRevenue[slot], pendingDiscount[slot]));
+        }
+        return rows;
+    }
+
+    /**
+     * Visits the seller's product-days from {@code fromDay} on; takes time in the number of those, not of orders.
+     */
+    void forEachOfSeller(long sellerId, int fromDay, CellVisitor visitor) {
+        SlotList slots = bySeller.get(sellerId);
+        if (slots == null) {
+            return;
+        }
+        for (int i = 0; i < slots.size; i++) {
+            int slot = slots.slots[i];
+            if (days[slot] >= fromDay) {
+                visitor.visit(productIds[slot], days[slot], units[slot], revenue[slot], discount[slot]);
+            }
+        }
+    }
+
+    private void addPending(int slot, long units, long revenueCents, long discountCents) {
+        pendingUnits[slot] += units;
+        pendingRevenue[slot] += revenueCents;
+        pendingDiscount[slot] += discountCents;
+        if (!dirty[slot]) {
+            dirty[slot] = true;
+            dirtySlots.add(slot);
+        }
+    }
+
+    private int slotOf(long sellerId, long productId, int epochDay) {
+        int mask = productIds.length - 1;
+        int slot = hash(productId, epochDay) & mask;
+        while (productIds[slot] != EMPTY) {
+            if (productIds[slot] == productId && days[slot] == epochDay) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        if ((size + 1) * 2 > productIds.length) {
+            grow();
+            return slotOf(sellerId, productId, epochDay);
+        }
+        productIds[slot] = productId;
+        days[slot] = epochDay;
+        sellerIds[slot] = sellerId;
+        bySeller.computeIfAbsent(sellerId, id -> new SlotList()).add(slot);
+        size++;
+        return slot;
+    }
+
+    private void grow() {
+        long[] oldProductIds = productIds;
+        int[] oldDays = days;
+        long[] oldSellerIds = sellerIds;
+        long[] oldUnits = units;
+        long[] oldRevenue = revenue;
+        long[] oldDiscount = discount;
+        long[] oldPendingUnits = pendingUnits;
+        long[] oldPendingRevenue = pendingRevenue;
+        long[] oldPendingDiscount = pendingDiscount;
+        boolean[] oldDirty = dirty;
+
+        allocate(oldProductIds.length * 2);
+        bySeller.clear();
+        dirtySlots.size = 0;
+        size = 0;
+        for (int old = 0; old < oldProductIds.length; old++) {
+            if (oldProductIds[old] == EMPTY) {
+                continue;
+            }
+            int slot = slotOf(oldSellerIds[old], oldProductIds[old], oldDays[old]);
+            units[slot] = oldUnits[old];
+            revenue[slot] = oldRevenue[old];
+            discount[slot] = oldDiscount[old];
+            pendingUnits[slot] = oldPendingUnits[old];
+            pendingRevenue[slot] = oldPendingRevenue[old];
+            pendingDiscount[slot] = oldPendingDiscount[old];
+            if (oldDirty[old]) {
+                dirty[slot] = true;
+                dirtySlots.add(slot);
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        productIds = new long[capacity];
+        days = new int[capacity];
+        sellerIds = new long[capacity];
+        units = new long[capacity];
+        revenue = new long[capacity];
+        discount = new long[capacity];
+        pendingUnits = new long[capacity];
+        pendingRevenue = new long[capacity];
+        pendingDiscount = new long[capacity];
+        dirty = new boolean[capacity];
+    }
+
+    private static int hash(long productId, int epochDay) {
+        long h = productId * 0x9E3779B97F4A7C15L + epochDay;
+        h ^= h >>> 32;
+        h *= 0xD6E8FEB86659FD93L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private static final class SlotList {
+        int[] slots = new int[8];
+        int size;
+
+        void add(int slot) {
+            if (size == slots.length) {
+                slots = Arrays.copyOf(slots, size * 2);
+            }
+            slots[size++] = slot;
+        }
+    }
+}
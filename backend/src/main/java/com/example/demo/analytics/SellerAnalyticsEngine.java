@@ -0,0 +1,255 @@
+package com.example.demo.analytics;
+
+import com.example.demo.dto.SellerAnalytics;
+import com.example.demo.outbox.OrderEventHandler;
+import com.example.demo.outbox.OrderPlaced;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Keeps per seller, product and day sales counters in memory so seller dashboards are served without reading
+ * orders.
+ * <p>
+ * Placed orders arrive from the outbox after checkout has committed and are added to a {@link RollupTable}.
+ * Increments are written behind to {@code seller_daily_rollups} in coalesced upserts, and the table is rebuilt
+ * from the database every so often to pick up what other nodes wrote and to drop days that left the window.
+ * A recently counted order that is delivered again is skipped; increments not yet written are lost if the
+ * process dies, as with the coupon engine's write-behind.
+ */
+@Slf4j
+@Component
+@EnableConfigurationProperties(AnalyticsProperties.class)
+public class SellerAnalyticsEngine implements OrderEventHandler {
+
+    private final RollupLedger ledger;
+    private final AnalyticsProperties properties;
+
+    // Guards the table and the recent orders; held only for in-memory work
+    private final ReentrantLock tableLock = new ReentrantLock();
+    // Held while writing increments or reloading, so a reload never misses increments that are mid-flush
+    private final ReentrantLock ledgerLock = new ReentrantLock();
+
+    private RollupTable table;
+    private final Map<Long, Boolean> recentOrders;
+
+    public SellerAnalyticsEngine(RollupLedger ledger, AnalyticsProperties properties) {
+        this.ledger = ledger;
+        this.properties = properties;
+        this.table = new RollupTable(properties.getInitialCapacity());
+        int recentLimit = properties.getRecentOrders();
+        this.recentOrders = new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Boolean> eldest) {
+                return size() > recentLimit;
+            }
+        };
+    }
+
+    @Override
+    public void onOrderPlaced(OrderPlaced event) {
+        List<OrderPlaced.Line> lines = event.lines();
+        long[] lineRevenue = new long[lines.size()];
+        // Revenue of the lines the discount applies to, so a product coupon is charged only to that product's seller
+        long[] discountedRevenue = new long[lines.size()];
+        long orderDiscountedRevenue = 0;
+        for (int i = 0; i < lines.size(); i++) {
+            OrderPlaced.Line line = lines.get(i);
+            lineRevenue[i] = cents(line.unitPrice().multiply(BigDecimal.valueOf(line.quantity())));
+            if (!Boolean.FALSE.equals(line.discounted())) {
+                discountedRevenue[i] = lineRevenue[i];
+                orderDiscountedRevenue += lineRevenue[i];
+            }
+        }
+        long[] lineDiscount = shareDiscount(event.discount() != null ? cents(event.discount()) : 0, discountedRevenue,
+                orderDiscountedRevenue);
+        int day = (int) event.placedAt().toLocalDate().toEpochDay();
+
+        tableLock.lock();
+        try {
+            if (recentOrders.putIfAbsent(event.orderId(), Boolean.TRUE) != null) {
+                return;
+            }
+            for (int i = 0; i < lines.size(); i++) {
+                OrderPlaced.Line line = lines.get(i);
+                table.add(line.sellerId(), line.productId(), day, line.quantity(), lineRevenue[i], lineDiscount[i],
+                        true);
+            }
+        } finally {
+            tableLock.unlock();
+        }
+    }
+
+    /**
+     * The seller's figures for the last {@code days} days, today included.
+     *
+     * @throws RuntimeException when {@code days} is outside 1 to the configured window
+     */
+    public SellerAnalytics analytics(Long sellerId, int days) {
+        if (days < 1 || days > properties.getWindowDays()) {
+            throw new RuntimeException("Days must be between 1 and " + properties.getWindowDays());
+        }
+        LocalDate to = LocalDate.now();
+        LocalDate from = to.minusDays(days - 1);
+        int fromDay = (int) from.toEpochDay();
+
+        // units, revenue and discount per day, then per product, then in total
+        long[] daily = new long[days * 3];
+        Map<Long, long[]> byProduct = new HashMap<>();
+        tableLock.lock();
+        try {
+            table.forEachOfSeller(sellerId, fromDay, (productId, epochDay, units, revenue, discount) -> {
+                int offset = (epochDay - fromDay) * 3;
+                if (offset >= daily.length) {
+                    return;
+                }
+                daily[offset] += units;
+                daily[offset + 1] += revenue;
+                daily[offset + 2] += discount;
+                long[] product = byProduct.computeIfAbsent(productId, id -> new long[3]);
+                product[0] += units;
+                product[1] += revenue;
+                product[2] += discount;
+            });
+        } finally {
+            tableLock.unlock();
+        }
+
+        long[] totals = new long[3];
+        List<SellerAnalytics.Day> dayList = new ArrayList<>(days);
+        for (int i = 0; i < days; i++) {
+            int offset = i * 3;
+            totals[0] += daily[offset];
+            totals[1] += daily[offset + 1];
+            totals[2] += daily[offset + 2];
+            dayList.add(new SellerAnalytics.Day(from.plusDays(i),
+                    figures(daily[offset], daily[offset + 1], daily[offset + 2])));
+        }
+        List<SellerAnalytics.ProductFigures> products = byProduct.entrySet().stream()
+                .sorted(Comparator.comparingLong((Map.Entry<Long, long[]> e) -> e.getValue()[1]).reversed()
+                        .thenComparing(Map.Entry::getKey))
+                .map(e -> new SellerAnalytics.ProductFigures(e.getKey(),
+                        figures(e.getValue()[0], e.getValue()[1], e.getValue()[2])))
+                .toList();
+        return new SellerAnalytics(from, to, figures(totals[0], totals[1], totals[2]), dayList, products);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        reload();
+    }
+
+    /**
+     * Rebuilds the table from the database, keeping increments not yet written.
+     */
+    @Scheduled(initialDelayString = "${app.analytics.reload-interval-ms:60000}",
+            fixedDelayString = "${app.analytics.reload-interval-ms:60000}")
+    public void reload() {
+        ledgerLock.lock();
+        try {
+            List<RollupRow> rows = ledger.loadSince(LocalDate.now().minusDays(properties.getWindowDays() - 1));
+            RollupTable loaded = new RollupTable(Math.max(properties.getInitialCapacity(), rows.size()));
+            rows.forEach(r -> loaded.add(r.sellerId(), r.productId(), (int) r.saleDate().toEpochDay(), r.units(),
+                    r.revenueCents(), r.discountCents(), false));
+
+            tableLock.lock();
+            try {
+                table.pending().forEach(r -> loaded.add(r.sellerId(), r.productId(), (int) r.saleDate().toEpochDay(),
+                        r.units(), r.revenueCents(), r.discountCents(), true));
+                table = loaded;
+            } finally {
+                tableLock.unlock();
+            }
+            log.debug("Loaded {} seller product-days", loaded.size());
+        } finally {
+            ledgerLock.unlock();
+        }
+    }
+
+    /**
+     * Writes increments counted since the last flush, one upsert per product-day.
+     */
+    @Scheduled(fixedDelayString = "${app.analytics.flush-interval-ms:1000}")
+    public void flush() {
+        ledgerLock.lock();
+        try {
+            List<RollupRow> increments;
+            tableLock.lock();
+            try {
+                increments = table.drainPending();
+            } finally {
+                tableLock.unlock();
+            }
+            if (increments.isEmpty()) {
+                return;
+            }
+
+            try {
+                ledger.apply(increments);
+            } catch (RuntimeException e) {
+                log.warn("Analytics write-behind failed for {} product-days, retrying next cycle", increments.size(), e);
+                tableLock.lock();
+                try {
+                    table.restorePending(increments);
+                } finally {
+                    tableLock.unlock();
+                }
+            }
+        } finally {
+            ledgerLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    /**
+     * Splits an order discount over its lines in proportion to their revenue, giving the cents lost to rounding
+     * to the first lines so the shares add up to the discount. Lines given no revenue get no share.
+     */
+    static long[] shareDiscount(long discount, long[] lineRevenue, long orderRevenue) {
+        long[] shares = new long[lineRevenue.length];
+        if (discount <= 0 || orderRevenue <= 0) {
+            return shares;
+        }
+        long capped = Math.min(discount, orderRevenue);
+        long remaining = capped;
+        for (int i = 0; i < lineRevenue.length; i++) {
+            shares[i] = Math.multiplyExact(capped, lineRevenue[i]) / orderRevenue;
+            remaining -= shares[i];
+        }
+        for (int i = 0; remaining > 0 && i < shares.length; i++) {
+            if (shares[i] < lineRevenue[i]) {
+                shares[i]++;
+                remaining--;
+            }
+        }
+        return shares;
+    }
+
+    private static long cents(BigDecimal amount) {
+        return amount.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+
+    private static SellerAnalytics.Figures figures(long units, long revenueCents, long discountCents) {
+        return new SellerAnalytics.Figures(units, BigDecimal.valueOf(revenueCents, 2),
+                BigDecimal.valueOf(discountCents, 2), BigDecimal.valueOf(revenueCents - discountCents, 2));
+    }
+}
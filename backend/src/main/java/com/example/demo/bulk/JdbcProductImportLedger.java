@@ -0,0 +1,66 @@
+package com.example.demo.bulk;
+
+import com.example.demo.dto.ProductRequest;
+import com.example.demo.dto.ProductSummary;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+@Component
+@RequiredArgsConstructor
+public class JdbcProductImportLedger implements ProductImportLedger {
+
+    // Must match the allocationSize of Product's sequence generator
+    private static final int ID_BLOCK_SIZE = 50;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public List<ProductSummary> insert(Long sellerId, List<ProductRequest> products) {
+        List<Long> ids = allocateIds(products.size());
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        Timestamp timestamp = Timestamp.valueOf(now);
+
+        List<Object[]> args = new ArrayList<>(products.size());
+        List<ProductSummary> stored = new ArrayList<>(products.size());
+        for (int i = 0; i < products.size(); i++) {
+            ProductRequest p = products.get(i);
+            // Rounded as the numeric(10, 2) column would, so the summary matches the row
+            BigDecimal price = p.getPrice().setScale(2, RoundingMode.HALF_UP);
+            args.add(new Object[]{ids.get(i), p.getName(), p.getDescription(), price, p.getStock(),
+                    p.getImageUrl(), sellerId, timestamp, timestamp});
+            stored.add(new ProductSummary(ids.get(i), p.getName(), price, p.getStock(), p.getImageUrl(),
+                    sellerId, now));
+        }
+        jdbcTemplate.batchUpdate("""
+                INSERT INTO products (id, name, description, price, stock, image_url, seller_id, created_at, updated_at)
+                VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)
+                """, args);
+        return stored;
+    }
+
+    /**
+     * Takes whole blocks from the products sequence the way Hibernate's pooled-lo optimizer does, so the ids
+     * never collide with blocks Hibernate hands out.
+     */
+    private List<Long> allocateIds(int count) {
+        int blocks = (count + ID_BLOCK_SIZE - 1) / ID_BLOCK_SIZE;
+        List<Long> starts = jdbcTemplate.queryForList(
+                "SELECT nextval('products_seq') FROM generate_series(1, ?)", Long.class, blocks);
+        List<Long> ids = new ArrayList<>(count);
+        for (Long start : starts) {
+            for (int i = 0; i < ID_BLOCK_SIZE && ids.size() < count; i++) {
+                ids.add(start + i);
+            }
+        }
+        return ids;
+    }
+}
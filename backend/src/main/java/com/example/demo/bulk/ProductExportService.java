@@ -0,0 +1,81 @@
+package com.example.demo.bulk;
+
+import com.example.demo.entity.Product;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+
+/**
+ * Writes a seller's catalog as CSV or NDJSON straight from a server-side cursor, one product at a time, in a
+ * form {@link ProductImportService} reads back.
+ */
+@Service
+@RequiredArgsConstructor
+public class ProductExportService {
+
+    private static final int FETCH_SIZE = 500;
+    private static final String[] CSV_COLUMNS =
+            {"id", "name", "description", "price", "stock", "imageUrl", "createdAt", "updatedAt"};
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JsonMapper jsonMapper;
+
+    /**
+     * Must run in a transaction, without which the Postgres driver reads every row before returning the first.
+     */
+    @Transactional(readOnly = true)
+    public void export(Long sellerId, ProductFileFormat format, OutputStream out) {
+        StringBuilder line = new StringBuilder(256);
+        if (format == ProductFileFormat.CSV) {
+            Csv.appendRecord(line, (Object[]) CSV_COLUMNS);
+            write(out, line);
+        }
+
+        jdbcTemplate.query(con -> {
+            PreparedStatement statement = con.prepareStatement("""
+                    SELECT id, name, description, price, stock, image_url, seller_id, created_at, updated_at
+                    FROM products WHERE seller_id = ? ORDER BY id
+                    """);
+            statement.setFetchSize(FETCH_SIZE);
+            statement.setLong(1, sellerId);
+            return statement;
+        }, (RowCallbackHandler) rs -> {
+            Product product = product(rs);
+            if (format == ProductFileFormat.CSV) {
+                Csv.appendRecord(line, product.getId(), product.getName(), product.getDescription(),
+                        product.getPrice().toPlainString(), product.getStock(), product.getImageUrl(),
+                        product.getCreatedAt(), product.getUpdatedAt());
+            } else {
+                line.append(jsonMapper.writeValueAsString(product)).append('\n');
+            }
+            write(out, line);
+        });
+    }
+
+    private static void write(OutputStream out, StringBuilder line) {
+        try {
+            out.write(line.toString().getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        line.setLength(0);
+    }
+
+    private static Product product(ResultSet rs) throws SQLException {
+        return new Product(rs.getLong("id"), rs.getString("name"), rs.getString("description"),
+                rs.getBigDecimal("price"), rs.getInt("stock"), rs.getString("image_url"), rs.getLong("seller_id"),
+                rs.getObject("created_at", LocalDateTime.class), rs.getObject("updated_at", LocalDateTime.class));
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.demo.bulk;
+
+import org.springframework.http.MediaType;
+
+import java.util.Locale;
+
+/**
+ * File formats products are imported from and exported to. CSV has a header row naming the columns; NDJSON
+ * has one product object per line.
+ */
+public enum ProductFileFormat {
+
+    CSV(MediaType.parseMediaType("text/csv"), ".csv"),
+    NDJSON(MediaType.parseMediaType("application/x-ndjson"), ".ndjson");
+
+    private final MediaType mediaType;
+    private final String extension;
+
+    ProductFileFormat(MediaType mediaType, String extension) {
+        this.mediaType = mediaType;
+        this.extension = extension;
+    }
+
+    public MediaType mediaType() {
+        return mediaType;
+    }
+
+    public String extension() {
+        return extension;
+    }
+
+    /**
+     * The format named by {@code format}, or else the one the file name or content type indicates.
+     *
+     * @throws RuntimeException when no format can be told
+     */
+    public static ProductFileFormat of(String format, String fileName, String contentType) {
+        if (format != null && !format.isBlank()) {
+            try {
+                return valueOf(format.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new RuntimeException("Unsupported format: " + format + "; use csv or ndjson");
+            }
+        }
+        String name = fileName == null ? "" : fileName.toLowerCase(Locale.ROOT);
+        for (ProductFileFormat candidate : values()) {
+            if (name.endsWith(candidate.extension)
+                    || (contentType != null && contentType.startsWith(candidate.mediaType.toString()))) {
+                return candidate;
+            }
+        }
+        if (name.endsWith(".jsonl")) {
+            return NDJSON;
+        }
+        throw new RuntimeException("Cannot tell the file format; name the file .csv or .ndjson or pass format");
+    }
+}
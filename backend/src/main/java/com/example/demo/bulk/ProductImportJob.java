@@ -0,0 +1,69 @@
+package com.example.demo.bulk;
+
+import com.example.demo.dto.ProductImportStatus;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Live progress of one import, written by the job's thread and read by status polls.
+ */
+final class ProductImportJob {
+
+    final UUID id = UUID.randomUUID();
+    final Long sellerId;
+    final String fileName;
+    final ProductFileFormat format;
+    final long totalBytes;
+    final LocalDateTime startedAt = LocalDateTime.now();
+
+    final AtomicLong bytesRead = new AtomicLong();
+    final AtomicLong rowsRead = new AtomicLong();
+    final AtomicLong imported = new AtomicLong();
+    final AtomicLong rejected = new AtomicLong();
+
+    private final int maxReportedErrors;
+    private final List<ProductImportStatus.RowError> errors = new ArrayList<>();
+    private volatile ProductImportStatus.State state = ProductImportStatus.State.RUNNING;
+    private volatile String message;
+    private volatile LocalDateTime finishedAt;
+
+    ProductImportJob(Long sellerId, String fileName, ProductFileFormat format, long totalBytes, int maxReportedErrors) {
+        this.sellerId = sellerId;
+        this.fileName = fileName;
+        this.format = format;
+        this.totalBytes = totalBytes;
+        this.maxReportedErrors = maxReportedErrors;
+    }
+
+    void reject(long row, String error) {
+        rejected.incrementAndGet();
+        synchronized (errors) {
+            if (errors.size() < maxReportedErrors) {
+                errors.add(new ProductImportStatus.RowError(row, error));
+            }
+        }
+    }
+
+    void finish(ProductImportStatus.State state, String message) {
+        this.message = message;
+        this.finishedAt = LocalDateTime.now();
+        this.state = state;
+    }
+
+    LocalDateTime finishedAt() {
+        return finishedAt;
+    }
+
+    ProductImportStatus status() {
+        List<ProductImportStatus.RowError> reported;
+        synchronized (errors) {
+            reported = List.copyOf(errors);
+        }
+        return new ProductImportStatus(id, state, fileName, format.name(), totalBytes, bytesRead.get(), rowsRead.get(),
+                imported.get(), rejected.get(), reported, message, startedAt, finishedAt);
+    }
+}
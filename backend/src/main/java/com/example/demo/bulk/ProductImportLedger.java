@@ -0,0 +1,17 @@
+package com.example.demo.bulk;
+
+import com.example.demo.dto.ProductRequest;
+import com.example.demo.dto.ProductSummary;
+
+import java.util.List;
+
+/**
+ * Where imported products are written.
+ */
+public interface ProductImportLedger {
+
+    /**
+     * Inserts the products for the seller in one batch, in the caller's transaction, returning them as stored.
+     */
+    List<ProductSummary> insert(Long sellerId, List<ProductRequest> products);
+}
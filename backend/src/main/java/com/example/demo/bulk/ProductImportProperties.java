@@ -0,0 +1,31 @@
+package com.example.demo.bulk;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "app.product-import")
+public class ProductImportProperties {
+
+    /**
+     * Products inserted per JDBC batch and transaction.
+     */
+    private int batchSize = 500;
+
+    /**
+     * Rejected rows listed in a job's status; rows beyond this are only counted.
+     */
+    private int maxReportedErrors = 1000;
+
+    /**
+     * Imports running at once on this node; further uploads are refused until one finishes.
+     */
+    private int maxRunningJobs = 4;
+
+    /**
+     * How long the status of a finished import stays available for polling.
+     */
+    private Duration jobRetention = Duration.ofHours(1);
+}
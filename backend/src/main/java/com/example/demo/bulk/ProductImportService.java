@@ -0,0 +1,247 @@
+package com.example.demo.bulk;
+
+import com.example.demo.cache.ProductsCreatedEvent;
+import com.example.demo.dto.ProductImportStatus;
+import com.example.demo.dto.ProductRequest;
+import com.example.demo.dto.ProductSummary;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Collectors;
+
+/**
+ * Imports a seller's products from an uploaded CSV or NDJSON file in the background.
+ * <p>
+ * The upload is copied to a temporary file and read as a stream, so the file is never held in memory. Rows
+ * are checked against the {@link ProductRequest} constraints and inserted in JDBC batches, each batch in its
+ * own transaction. A rejected row is counted and reported with its number and does not stop the import; when
+ * the database refuses a batch, its rows are inserted one at a time so only the offending rows are lost.
+ * Batches committed before a failure or shutdown stay imported. Jobs live in this node's memory, so their
+ * status must be polled on the node that took the upload.
+ */
+@Slf4j
+@Service
+@EnableConfigurationProperties(ProductImportProperties.class)
+public class ProductImportService {
+
+    private final ProductImportLedger ledger;
+    private final JsonMapper jsonMapper;
+    private final Validator validator;
+    private final TransactionOperations transaction;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ProductImportProperties properties;
+
+    private final Map<UUID, ProductImportJob> jobs = new ConcurrentHashMap<>();
+    private final Semaphore runningJobs;
+    private final ExecutorService executor =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("product-import-", 0).factory());
+
+    @Autowired
+    public ProductImportService(ProductImportLedger ledger, JsonMapper jsonMapper, Validator validator,
+                                PlatformTransactionManager transactionManager, ApplicationEventPublisher eventPublisher,
+                                ProductImportProperties properties) {
+        this(ledger, jsonMapper, validator, new TransactionTemplate(transactionManager), eventPublisher, properties);
+    }
+
+    ProductImportService(ProductImportLedger ledger, JsonMapper jsonMapper, Validator validator,
+                         TransactionOperations transaction, ApplicationEventPublisher eventPublisher,
+                         ProductImportProperties properties) {
+        this.ledger = ledger;
+        this.jsonMapper = jsonMapper;
+        this.validator = validator;
+        this.transaction = transaction;
+        this.eventPublisher = eventPublisher;
+        this.properties = properties;
+        this.runningJobs = new Semaphore(properties.getMaxRunningJobs());
+    }
+
+    /**
+     * Starts importing the file for the seller and returns the job's first status.
+     *
+     * @param format csv or ndjson; null to tell from the file name or content type
+     * @throws RuntimeException when the format is unknown, the file is empty or too many imports are running
+     */
+    public ProductImportStatus start(Long sellerId, MultipartFile file, String format) {
+        ProductFileFormat fileFormat = ProductFileFormat.of(format, file.getOriginalFilename(), file.getContentType());
+        if (file.isEmpty()) {
+            throw new RuntimeException("The file is empty");
+        }
+        if (!runningJobs.tryAcquire()) {
+            throw new RuntimeException("Too many imports are running; try again shortly");
+        }
+
+        Path copy;
+        try {
+            // The upload's own file is deleted when the request ends
+            copy = Files.createTempFile("product-import-", fileFormat.extension());
+            file.transferTo(copy);
+        } catch (IOException e) {
+            runningJobs.release();
+            throw new RuntimeException("Could not store the uploaded file", e);
+        }
+
+        ProductImportJob job = new ProductImportJob(sellerId, file.getOriginalFilename(), fileFormat, file.getSize(),
+                properties.getMaxReportedErrors());
+        jobs.put(job.id, job);
+        executor.execute(() -> {
+            try {
+                run(job, copy);
+            } finally {
+                runningJobs.release();
+            }
+        });
+        return job.status();
+    }
+
+    /**
+     * @throws RuntimeException when the seller has no such import, or its status has expired
+     */
+    public ProductImportStatus status(Long sellerId, UUID jobId) {
+        ProductImportJob job = jobs.get(jobId);
+        if (job == null || !job.sellerId.equals(sellerId)) {
+            throw new RuntimeException("Import not found");
+        }
+        return job.status();
+    }
+
+    @Scheduled(fixedDelayString = "${app.product-import.cleanup-interval-ms:600000}")
+    public void forgetFinishedJobs() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(properties.getJobRetention());
+        jobs.values().removeIf(job -> job.finishedAt() != null && job.finishedAt().isBefore(cutoff));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    void run(ProductImportJob job, Path file) {
+        try (InputStream in = countingStream(Files.newInputStream(file), job);
+             ProductRowReader rows = ProductRowReader.open(job.format, in, jsonMapper)) {
+            List<ProductRowReader.Row> batch = new ArrayList<>(properties.getBatchSize());
+            ProductRowReader.Row row;
+            while ((row = rows.next()) != null) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new IOException("Import interrupted by shutdown");
+                }
+                job.rowsRead.incrementAndGet();
+                String error = row.error() != null ? row.error() : violations(row.product());
+                if (error != null) {
+                    job.reject(row.number(), error);
+                    continue;
+                }
+                batch.add(row);
+                if (batch.size() == properties.getBatchSize()) {
+                    importBatch(job, batch);
+                    batch.clear();
+                }
+            }
+            importBatch(job, batch);
+            job.finish(ProductImportStatus.State.COMPLETED, null);
+            log.info("Imported {} products for seller {} from {}, {} rows rejected",
+                    job.imported.get(), job.sellerId, job.fileName, job.rejected.get());
+        } catch (IOException | RuntimeException e) {
+            log.warn("Product import {} for seller {} failed after {} rows", job.id, job.sellerId, job.rowsRead.get(), e);
+            job.finish(ProductImportStatus.State.FAILED, e.getMessage());
+        } finally {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                log.warn("Could not delete import file {}", file, e);
+            }
+        }
+    }
+
+    private void importBatch(ProductImportJob job, List<ProductRowReader.Row> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            insert(job.sellerId, batch.stream().map(ProductRowReader.Row::product).toList());
+            job.imported.addAndGet(batch.size());
+        } catch (RuntimeException batchError) {
+            for (ProductRowReader.Row row : batch) {
+                try {
+                    insert(job.sellerId, List.of(row.product()));
+                    job.imported.incrementAndGet();
+                } catch (RuntimeException e) {
+                    job.reject(row.number(), firstLine(NestedExceptionUtils.getMostSpecificCause(e).getMessage()));
+                }
+            }
+        }
+    }
+
+    private void insert(Long sellerId, List<ProductRequest> products) {
+        transaction.executeWithoutResult(status -> {
+            List<ProductSummary> stored = ledger.insert(sellerId, products);
+            // Caches and the search index take the batch as one change once it commits
+            eventPublisher.publishEvent(ProductsCreatedEvent.of(stored,
+                    products.stream().map(ProductRequest::getDescription).toList()));
+        });
+    }
+
+    private String violations(ProductRequest product) {
+        var violations = validator.validate(product);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream().map(ConstraintViolation::getMessage).sorted().collect(Collectors.joining("; "));
+    }
+
+    private static String firstLine(String message) {
+        if (message == null) {
+            return "Rejected by the database";
+        }
+        int end = message.indexOf('\n');
+        return end < 0 ? message : message.substring(0, end);
+    }
+
+    private static InputStream countingStream(InputStream in, ProductImportJob job) {
+        return new FilterInputStream(in) {
+            @Override
+            public int read() throws IOException {
+                int b = super.read();
+                if (b != -1) {
+                    job.bytesRead.incrementAndGet();
+                }
+                return b;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                int n = super.read(buffer, offset, length);
+                if (n > 0) {
+                    job.bytesRead.addAndGet(n);
+                }
+                return n;
+            }
+        };
+    }
+}
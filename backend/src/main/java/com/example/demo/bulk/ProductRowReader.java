@@ -0,0 +1,150 @@
+package com.example.demo.bulk;
+
+import com.example.demo.dto.ProductRequest;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Reads an import file one product at a time. A row that cannot be read into a {@link ProductRequest} comes
+ * back with an error instead, and reading carries on with the next row.
+ */
+abstract class ProductRowReader implements Closeable {
+
+    /**
+     * A data row, numbered from 1 not counting a CSV header; exactly one of {@code product} and {@code error}
+     * is set.
+     */
+    record Row(long number, ProductRequest product, String error) {
+    }
+
+    protected final BufferedReader in;
+    protected long rowNumber;
+
+    private ProductRowReader(InputStream in) {
+        this.in = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+    }
+
+    static ProductRowReader open(ProductFileFormat format, InputStream in, JsonMapper jsonMapper) throws IOException {
+        return switch (format) {
+            case CSV -> new CsvRows(in);
+            case NDJSON -> new NdjsonRows(in, jsonMapper);
+        };
+    }
+
+    /**
+     * The next row, or null at the end of the file; blank lines are skipped.
+     */
+    abstract Row next() throws IOException;
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private static final class CsvRows extends ProductRowReader {
+
+        private final Map<String, Integer> columns = new HashMap<>();
+        private final int width;
+
+        CsvRows(InputStream in) throws IOException {
+            super(in);
+            List<String> header = Csv.readRecord(this.in);
+            if (header == null) {
+                throw new IOException("The file is empty");
+            }
+            for (int i = 0; i < header.size(); i++) {
+                String column = header.get(i).strip().toLowerCase(Locale.ROOT).replace("_", "");
+                columns.putIfAbsent(i == 0 ? column.replace("\uFEFF", "") : column, i); // byte order mark
+            }
+            for (String required : List.of("name", "price", "stock")) {
+                if (!columns.containsKey(required)) {
+                    throw new IOException("The CSV header has no " + required + " column");
+                }
+            }
+            width = header.size();
+        }
+
+        @Override
+        Row next() throws IOException {
+            List<String> fields;
+            do {
+                fields = Csv.readRecord(in);
+                if (fields == null) {
+                    return null;
+                }
+            } while (fields.size() == 1 && fields.getFirst().isBlank());
+
+            long number = ++rowNumber;
+            if (fields.size() != width) {
+                return new Row(number, null, "Expected " + width + " fields but found " + fields.size());
+            }
+            ProductRequest product = new ProductRequest();
+            product.setName(field(fields, "name"));
+            product.setDescription(field(fields, "description"));
+            product.setImageUrl(field(fields, "imageurl"));
+            String price = field(fields, "price");
+            String stock = field(fields, "stock");
+            try {
+                product.setPrice(price == null ? null : new BigDecimal(price.strip()));
+            } catch (NumberFormatException e) {
+                return new Row(number, null, "Price is not a number: " + price);
+            }
+            try {
+                product.setStock(stock == null ? null : Integer.valueOf(stock.strip()));
+            } catch (NumberFormatException e) {
+                return new Row(number, null, "Stock is not a whole number: " + stock);
+            }
+            return new Row(number, product, null);
+        }
+
+        private String field(List<String> fields, String column) {
+            Integer index = columns.get(column);
+            if (index == null) {
+                return null;
+            }
+            String value = fields.get(index);
+            return value.isEmpty() ? null : value;
+        }
+    }
+
+    private static final class NdjsonRows extends ProductRowReader {
+
+        private final JsonMapper jsonMapper;
+
+        NdjsonRows(InputStream in, JsonMapper jsonMapper) {
+            super(in);
+            this.jsonMapper = jsonMapper;
+        }
+
+        @Override
+        Row next() throws IOException {
+            String line;
+            do {
+                line = in.readLine();
+                if (line == null) {
+                    return null;
+                }
+            } while (line.isBlank());
+
+            long number = ++rowNumber;
+            try {
+                ProductRequest product = jsonMapper.readValue(line, ProductRequest.class);
+                return product != null ? new Row(number, product, null) : new Row(number, null, "Expected a JSON object");
+            } catch (JacksonException e) {
+                return new Row(number, null, "Invalid JSON: " + e.getOriginalMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.demo.cache;
+
+/**
+ * Carries product changes to the caches of every node once the change is committed.
+ */
+public interface CacheInvalidationBus {
+
+    interface Listener {
+
+        void productChanged(ProductChangedEvent event);
+
+        void productsCreated(ProductsCreatedEvent event);
+
+        /**
+         * Changes may have been missed, for example while the bus was reconnecting; drop everything.
+         */
+        void resync();
+    }
+
+    /**
+     * Delivers the event to local listeners before returning, then to other nodes.
+     */
+    void publish(ProductChangedEvent event);
+
+    /**
+     * Delivers the batch to local listeners before returning, then its ids to other nodes.
+     */
+    void publish(ProductsCreatedEvent event);
+
+    void subscribe(Listener listener);
+}
@@ -0,0 +1,36 @@
+package com.example.demo.cache;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "app.cache")
+public class CacheProperties {
+
+    /**
+     * Product entities kept in memory for detail reads.
+     */
+    private long productsMaxSize = 10_000;
+
+    /**
+     * Catalog pages kept in memory, one per distinct query and cursor.
+     */
+    private long pagesMaxSize = 2_000;
+
+    /**
+     * Upper bound on staleness should an invalidation ever be lost.
+     */
+    private Duration expireAfterWrite = Duration.ofMinutes(10);
+
+    /**
+     * How invalidations reach other nodes: {@code loopback} for a single node, {@code postgres} for LISTEN/NOTIFY.
+     */
+    private String bus = "loopback";
+
+    /**
+     * Postgres notification channel used by the {@code postgres} bus.
+     */
+    private String channel = "product_cache";
+}
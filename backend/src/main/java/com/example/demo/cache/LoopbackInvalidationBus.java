@@ -0,0 +1,32 @@
+package com.example.demo.cache;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Single-node bus: events only reach listeners in this JVM.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.cache", name = "bus", havingValue = "loopback", matchIfMissing = true)
+public class LoopbackInvalidationBus implements CacheInvalidationBus {
+
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(ProductChangedEvent event) {
+        listeners.forEach(listener -> listener.productChanged(event));
+    }
+
+    @Override
+    public void publish(ProductsCreatedEvent event) {
+        listeners.forEach(listener -> listener.productsCreated(event));
+    }
+
+    @Override
+    public void subscribe(Listener listener) {
+        listeners.add(listener);
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.demo.cache;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import tools.jackson.databind.json.JsonMapper;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Multi-node bus over Postgres LISTEN/NOTIFY, so no broker is needed beyond the database every node already
+ * shares. Each payload is {@code <nodeId> <event json>}, or {@code <nodeId> created <ids json>} for a batch of
+ * created products, split so each stays under the 8000-byte notification limit; a node skips its own
+ * notifications because it already applied the event locally when publishing.
+ * <p>
+ * One pooled connection stays checked out for listening. Notifications sent while that connection is down
+ * are lost, so listeners are told to resync whenever it is re-established.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "app.cache", name = "bus", havingValue = "postgres")
+public class PostgresInvalidationBus implements CacheInvalidationBus {
+
+    private static final int POLL_TIMEOUT_MS = 1000;
+    private static final String CREATED = "created ";
+    // Ids of up to 19 digits and a comma, plus the node id and the JSON around them, stay under 8000 bytes
+    private static final int IDS_PER_NOTIFICATION = 350;
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final JsonMapper jsonMapper;
+    private final String channel;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    private volatile boolean running;
+    private Thread listenerThread;
+
+    public PostgresInvalidationBus(DataSource dataSource, JsonMapper jsonMapper, CacheProperties properties) {
+        this.dataSource = dataSource;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jsonMapper = jsonMapper;
+        this.channel = properties.getChannel();
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        listenerThread = Thread.ofPlatform().daemon().name("product-cache-listener").start(this::listen);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        listenerThread.join(POLL_TIMEOUT_MS * 2L);
+    }
+
+    @Override
+    public void publish(ProductChangedEvent event) {
+        listeners.forEach(listener -> listener.productChanged(event));
+        try {
+            String payload = nodeId + " " + jsonMapper.writeValueAsString(event);
+            jdbcTemplate.query("SELECT pg_notify(?, ?)", rs -> null, channel, payload);
+        } catch (RuntimeException e) {
+            log.warn("Could not notify other nodes about product {}; their caches expire it on their own", event.productId(), e);
+        }
+    }
+
+    @Override
+    public void publish(ProductsCreatedEvent event) {
+        listeners.forEach(listener -> listener.productsCreated(event));
+        List<Long> ids = event.productIds();
+        try {
+            for (int from = 0; from < ids.size(); from += IDS_PER_NOTIFICATION) {
+                List<Long> chunk = ids.subList(from, Math.min(ids.size(), from + IDS_PER_NOTIFICATION));
+                String payload = nodeId + " " + CREATED + jsonMapper.writeValueAsString(ProductsCreatedEvent.ofIds(chunk));
+                jdbcTemplate.query("SELECT pg_notify(?, ?)", rs -> null, channel, payload);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not notify other nodes about {} created products; their caches expire them on their own",
+                    ids.size(), e);
+        }
+    }
+
+    @Override
+    public void subscribe(Listener listener) {
+        listeners.add(listener);
+    }
+
+    private void listen() {
+        boolean reconnecting = false;
+        while (running) {
+            try (Connection connection = dataSource.getConnection()) {
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN \"" + channel + "\"");
+                }
+                if (reconnecting) {
+                    log.info("Product cache listener reconnected, dropping cached products");
+                    listeners.forEach(Listener::resync);
+                    reconnecting = false;
+                }
+
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(POLL_TIMEOUT_MS);
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            receive(notification.getParameter());
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                if (running) {
+                    log.warn("Product cache listener lost its connection, retrying", e);
+                    reconnecting = true;
+                    sleepBeforeRetry();
+                }
+            }
+        }
+    }
+
+    private void receive(String payload) {
+        int separator = payload.indexOf(' ');
+        if (separator < 0 || payload.startsWith(nodeId)) {
+            return;
+        }
+        try {
+            String body = payload.substring(separator + 1);
+            if (body.startsWith(CREATED)) {
+                ProductsCreatedEvent event = jsonMapper.readValue(body.substring(CREATED.length()),
+                        ProductsCreatedEvent.class);
+                listeners.forEach(listener -> listener.productsCreated(ProductsCreatedEvent.ofIds(event.productIds())));
+                return;
+            }
+            ProductChangedEvent event = jsonMapper.readValue(body, ProductChangedEvent.class);
+            listeners.forEach(listener -> listener.productChanged(event));
+        } catch (RuntimeException e) {
+            log.warn("Ignoring malformed product cache notification: {}", payload, e);
+        }
+    }
+
+    private void sleepBeforeRetry() {
+        try {
+            Thread.sleep(POLL_TIMEOUT_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+}
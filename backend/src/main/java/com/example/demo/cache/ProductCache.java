@@ -0,0 +1,203 @@
+package com.example.demo.cache;
+
+import com.example.demo.dto.CursorPage;
+import com.example.demo.dto.ProductCatalogQuery;
+import com.example.demo.dto.ProductSummary;
+import com.example.demo.entity.Product;
+import com.example.demo.repository.ProductCatalogRepository;
+import com.example.demo.repository.ProductRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.Collectors;
+
+/**
+ * Read-through cache for product detail and catalog pages, bounded by size with Caffeine's W-TinyLFU eviction.
+ * Hit, miss and eviction counts are published as {@code cache.*} meters tagged {@code products} and
+ * {@code product-pages}.
+ * <p>
+ * Services publish a {@link ProductChangedEvent} inside their transaction; after commit it goes out on the
+ * {@link CacheInvalidationBus}, and every node drops the product and only the cached pages it appears in,
+ * before or after the change. Stock changes, which come with every checkout, find the pages listing the
+ * product through a reverse index instead of scanning every cached page.
+ * <p>
+ * Cached products are shared instances: callers must treat them as read-only and load from the repository
+ * when they intend to modify one.
+ */
+@Component
+@EnableConfigurationProperties(CacheProperties.class)
+public class ProductCache implements CacheInvalidationBus.Listener {
+
+    private static final int STOCK_SLOTS = 4096;
+
+    private final ProductRepository productRepository;
+    private final ProductCatalogRepository catalogRepository;
+    private final CacheInvalidationBus bus;
+
+    private final Cache<Long, Product> products;
+    private final Cache<ProductCatalogQuery, CursorPage<ProductSummary>> pages;
+
+    // Cached pages by the products they list; an entry may outlive its page, which only costs a no-op invalidation
+    private final Map<Long, Set<ProductCatalogQuery>> pagesByProduct = new ConcurrentHashMap<>();
+
+    // Bumped before pages are invalidated, so a page load that overlapped an invalidation can tell it may be stale
+    private final AtomicLong pageGeneration = new AtomicLong();
+    // The same for stock changes, per slot of product ids, so one only spoils loads of pages that list its slot
+    private final AtomicLong stockChanges = new AtomicLong();
+    private final AtomicLongArray stockChangedAt = new AtomicLongArray(STOCK_SLOTS);
+
+    public ProductCache(ProductRepository productRepository, ProductCatalogRepository catalogRepository,
+                        CacheInvalidationBus bus, CacheProperties properties, MeterRegistry meterRegistry) {
+        this.productRepository = productRepository;
+        this.catalogRepository = catalogRepository;
+        this.bus = bus;
+
+        this.products = Caffeine.newBuilder()
+                .maximumSize(properties.getProductsMaxSize())
+                .expireAfterWrite(properties.getExpireAfterWrite())
+                .recordStats()
+                .build();
+        this.pages = Caffeine.newBuilder()
+                .maximumSize(properties.getPagesMaxSize())
+                .expireAfterWrite(properties.getExpireAfterWrite())
+                .recordStats()
+                .removalListener((ProductCatalogQuery query, CursorPage<ProductSummary> page, RemovalCause cause) ->
+                        unindex(query, page))
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, products, "products");
+        CaffeineCacheMetrics.monitor(meterRegistry, pages, "product-pages");
+
+        bus.subscribe(this);
+    }
+
+    public Optional<Product> findProduct(Long id) {
+        // A missing product is not cached; invalidating a key waits for its in-flight load
+        return Optional.ofNullable(products.get(id, key -> productRepository.findById(key).orElse(null)));
+    }
+
+    public CursorPage<ProductSummary> getPage(ProductCatalogQuery query) {
+        CursorPage<ProductSummary> page = pages.getIfPresent(query);
+        if (page != null) {
+            return page;
+        }
+
+        long generation = pageGeneration.get();
+        long stockChange = stockChanges.get();
+        page = catalogRepository.findPage(query);
+        pages.put(query, page);
+        index(query, page);
+        // Either the invalidation's scan or lookup saw this entry, or its generation bump or stock stamp is visible here
+        if (pageGeneration.get() != generation || stockChangedSince(page, stockChange)) {
+            pages.invalidate(query);
+        }
+        return page;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        bus.publish(event);
+    }
+
+    @Override
+    public void productChanged(ProductChangedEvent event) {
+        products.invalidate(event.productId());
+        if (event.stockOnly()) {
+            // Stock only changes what a listed card shows, or drops the product from in-stock listings it was in
+            stockChangedAt.set(slot(event.productId()), stockChanges.incrementAndGet());
+            Set<ProductCatalogQuery> listing = pagesByProduct.get(event.productId());
+            if (listing != null) {
+                pages.invalidateAll(listing);
+            }
+            return;
+        }
+        pageGeneration.incrementAndGet();
+        pages.asMap().entrySet().removeIf(entry -> affects(event, entry.getKey(), entry.getValue()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductsCreated(ProductsCreatedEvent event) {
+        bus.publish(event);
+    }
+
+    /**
+     * Drops, in one pass, the pages that may list any of the new products: every page not filtered to another
+     * seller, or every page when the batch came from another node by id alone.
+     */
+    @Override
+    public void productsCreated(ProductsCreatedEvent event) {
+        products.invalidateAll(event.productIds());
+        pageGeneration.incrementAndGet();
+        if (event.idsOnly()) {
+            pages.invalidateAll();
+            return;
+        }
+        Set<Long> sellers = event.products().stream().map(ProductSummary::sellerId).collect(Collectors.toSet());
+        pages.asMap().keySet().removeIf(query -> query.getSellerId() == null || sellers.contains(query.getSellerId()));
+    }
+
+    @Override
+    public void resync() {
+        products.invalidateAll();
+        pageGeneration.incrementAndGet();
+        pages.invalidateAll();
+    }
+
+    private void index(ProductCatalogQuery query, CursorPage<ProductSummary> page) {
+        for (ProductSummary item : page.items()) {
+            pagesByProduct.compute(item.id(), (id, queries) -> {
+                Set<ProductCatalogQuery> listing = queries != null ? queries : ConcurrentHashMap.newKeySet();
+                listing.add(query);
+                return listing;
+            });
+        }
+    }
+
+    /**
+     * Forgets a removed page, keeping an entry the query's current page still needs; checked inside the same
+     * per-product update as {@link #index}, so a reload of the query is never left unindexed.
+     */
+    private void unindex(ProductCatalogQuery query, CursorPage<ProductSummary> page) {
+        if (query == null || page == null) {
+            return;
+        }
+        for (ProductSummary item : page.items()) {
+            pagesByProduct.computeIfPresent(item.id(), (id, queries) -> {
+                CursorPage<ProductSummary> current = pages.getIfPresent(query);
+                if (current == null || current.items().stream().noneMatch(listed -> listed.id().equals(id))) {
+                    queries.remove(query);
+                }
+                return queries.isEmpty() ? null : queries;
+            });
+        }
+    }
+
+    private boolean stockChangedSince(CursorPage<ProductSummary> page, long stockChange) {
+        for (ProductSummary item : page.items()) {
+            if (stockChangedAt.get(slot(item.id())) > stockChange) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int slot(Long productId) {
+        return Long.hashCode(productId) & (STOCK_SLOTS - 1);
+    }
+
+    private static boolean affects(ProductChangedEvent event, ProductCatalogQuery query, CursorPage<ProductSummary> page) {
+        return event.before() != null && ProductCatalogRepository.covers(query, page, event.before())
+                || event.after() != null && ProductCatalogRepository.covers(query, page, event.after());
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.demo.cache;
+
+import com.example.demo.dto.ProductSummary;
+
+/**
+ * A product was created, edited, deleted or had its stock changed. {@code before} and {@code after} are the
+ * catalog rows on either side of the change and are null where the product did not exist; both are null
+ * for a stock change, which never moves a product within a listing.
+ */
+public record ProductChangedEvent(Long productId, ProductSummary before, ProductSummary after) {
+
+    public static ProductChangedEvent created(ProductSummary after) {
+        return new ProductChangedEvent(after.id(), null, after);
+    }
+
+    public static ProductChangedEvent updated(ProductSummary before, ProductSummary after) {
+        return new ProductChangedEvent(after.id(), before, after);
+    }
+
+    public static ProductChangedEvent deleted(ProductSummary before) {
+        return new ProductChangedEvent(before.id(), before, null);
+    }
+
+    public static ProductChangedEvent stockChanged(Long productId) {
+        return new ProductChangedEvent(productId, null, null);
+    }
+
+    public boolean stockOnly() {
+        return before == null && after == null;
+    }
+}
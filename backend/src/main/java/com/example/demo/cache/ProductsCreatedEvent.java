@@ -0,0 +1,28 @@
+package com.example.demo.cache;
+
+import com.example.demo.dto.ProductSummary;
+
+import java.util.List;
+
+/**
+ * Products created in one transaction, such as one batch of a bulk import, which listeners apply as a single
+ * change instead of one {@link ProductChangedEvent} per product. {@code descriptions} are the products'
+ * descriptions, index for index.
+ * <p>
+ * A whole batch does not fit in a notification, so other nodes hear of it by id alone; there
+ * {@code products} and {@code descriptions} are null and listeners read what they need themselves.
+ */
+public record ProductsCreatedEvent(List<Long> productIds, List<ProductSummary> products, List<String> descriptions) {
+
+    public static ProductsCreatedEvent of(List<ProductSummary> products, List<String> descriptions) {
+        return new ProductsCreatedEvent(products.stream().map(ProductSummary::id).toList(), products, descriptions);
+    }
+
+    public static ProductsCreatedEvent ofIds(List<Long> productIds) {
+        return new ProductsCreatedEvent(productIds, null, null);
+    }
+
+    public boolean idsOnly() {
+        return products == null;
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.demo.cart;
+
+import com.example.demo.dto.CartLine;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Durable carts the in-memory store reads on first access and writes behind to.
+ */
+public interface CartLedger {
+
+    List<CartLine> load(Long userId);
+
+    /**
+     * Replaces each given user's persisted cart with the given lines; an empty list deletes the cart.
+     */
+    void replaceCarts(Map<Long, List<CartLine>> carts);
+}
@@ -0,0 +1,27 @@
+package com.example.demo.cart;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "app.cart")
+public class CartProperties {
+
+    /**
+     * Where carts live: {@code memory} keeps them in this JVM and writes behind to {@code cart_items},
+     * {@code jdbc} reads and writes {@code cart_items} on every request.
+     */
+    private String store = "memory";
+
+    /**
+     * Lock shards for the in-memory store; users hash onto one, so more shards mean less contention.
+     */
+    private int shards = 64;
+
+    /**
+     * Carts untouched for this long are dropped from memory once their changes are flushed.
+     */
+    private Duration idleEviction = Duration.ofMinutes(30);
+}
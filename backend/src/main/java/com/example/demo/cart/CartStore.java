@@ -0,0 +1,32 @@
+package com.example.demo.cart;
+
+import com.example.demo.dto.CartLine;
+
+import java.util.List;
+
+/**
+ * A buyer's cart, one line per product. Lines keep the order products were first added in.
+ */
+public interface CartStore {
+
+    List<CartLine> getLines(Long userId);
+
+    /**
+     * Adds to the line for the product, creating it if needed.
+     *
+     * @return the line's quantity after the change
+     */
+    int addQuantity(Long userId, Long productId, int quantity);
+
+    /**
+     * @return {@code false} if the cart has no line for the product
+     */
+    boolean setQuantity(Long userId, Long productId, int quantity);
+
+    /**
+     * @return {@code false} if the cart has no line for the product
+     */
+    boolean remove(Long userId, Long productId);
+
+    void clear(Long userId);
+}
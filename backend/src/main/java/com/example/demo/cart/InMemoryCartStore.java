@@ -0,0 +1,234 @@
+package com.example.demo.cart;
+
+import com.example.demo.dto.CartLine;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Keeps carts in memory, split across lock shards by user, so cart traffic costs the database one read per
+ * buyer session instead of several statements per click.
+ * <p>
+ * A cart is loaded from the {@link CartLedger} on first access. Changed carts are marked dirty and written
+ * behind as whole-cart replacements, so any number of edits to a cart between flushes cost one write.
+ * Changes made since the last flush are lost if the process dies, and a buyer must keep reaching the same
+ * node; use the {@code jdbc} store when either is unacceptable.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "app.cart", name = "store", havingValue = "memory", matchIfMissing = true)
+@EnableConfigurationProperties(CartProperties.class)
+public class InMemoryCartStore implements CartStore {
+
+    private final CartLedger ledger;
+    private final long idleEvictionNanos;
+    private final Shard[] shards;
+
+    // Held by the single flush in progress, so a failed batch is re-marked before the next one starts
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    public InMemoryCartStore(CartLedger ledger, CartProperties properties) {
+        this.ledger = ledger;
+        this.idleEvictionNanos = properties.getIdleEviction().toNanos();
+        this.shards = new Shard[properties.getShards()];
+        for (int i = 0; i < shards.length; i++) {
+            shards[i] = new Shard();
+        }
+    }
+
+    @Override
+    public List<CartLine> getLines(Long userId) {
+        Shard shard = shardFor(userId);
+        UserCart cart = lockCart(shard, userId);
+        try {
+            return cart.snapshot();
+        } finally {
+            shard.lock.unlock();
+        }
+    }
+
+    @Override
+    public int addQuantity(Long userId, Long productId, int quantity) {
+        Shard shard = shardFor(userId);
+        UserCart cart = lockCart(shard, userId);
+        try {
+            shard.dirty.add(userId);
+            return cart.lines.merge(productId, quantity, Integer::sum);
+        } finally {
+            shard.lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean setQuantity(Long userId, Long productId, int quantity) {
+        Shard shard = shardFor(userId);
+        UserCart cart = lockCart(shard, userId);
+        try {
+            if (cart.lines.replace(productId, quantity) == null) {
+                return false;
+            }
+            shard.dirty.add(userId);
+            return true;
+        } finally {
+            shard.lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean remove(Long userId, Long productId) {
+        Shard shard = shardFor(userId);
+        UserCart cart = lockCart(shard, userId);
+        try {
+            if (cart.lines.remove(productId) == null) {
+                return false;
+            }
+            shard.dirty.add(userId);
+            return true;
+        } finally {
+            shard.lock.unlock();
+        }
+    }
+
+    @Override
+    public void clear(Long userId) {
+        // No need to load what is about to be thrown away
+        Shard shard = shardFor(userId);
+        shard.lock.lock();
+        try {
+            shard.carts.put(userId, new UserCart(List.of()));
+            shard.dirty.add(userId);
+        } finally {
+            shard.lock.unlock();
+        }
+    }
+
+    /**
+     * Writes every cart changed since the last flush in one batch, then drops carts that have gone idle.
+     */
+    @Scheduled(fixedDelayString = "${app.cart.flush-interval-ms:500}")
+    public void flush() {
+        flushLock.lock();
+        try {
+            Map<Long, List<CartLine>> batch = new HashMap<>();
+            for (Shard shard : shards) {
+                shard.lock.lock();
+                try {
+                    shard.dirty.forEach(userId -> batch.put(userId, shard.carts.get(userId).snapshot()));
+                    shard.dirty.clear();
+                } finally {
+                    shard.lock.unlock();
+                }
+            }
+
+            if (!batch.isEmpty()) {
+                try {
+                    ledger.replaceCarts(batch);
+                } catch (RuntimeException e) {
+                    log.warn("Cart write-behind failed for {} carts, retrying next cycle", batch.size(), e);
+                    batch.keySet().forEach(userId -> {
+                        Shard shard = shardFor(userId);
+                        shard.lock.lock();
+                        try {
+                            shard.dirty.add(userId);
+                        } finally {
+                            shard.lock.unlock();
+                        }
+                    });
+                    return;
+                }
+            }
+            evictIdle();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    /**
+     * Number of carts currently held in memory.
+     */
+    public int residentCarts() {
+        int resident = 0;
+        for (Shard shard : shards) {
+            shard.lock.lock();
+            try {
+                resident += shard.carts.size();
+            } finally {
+                shard.lock.unlock();
+            }
+        }
+        return resident;
+    }
+
+    /**
+     * Returns the user's cart with its shard locked, loading it first if it is not in memory.
+     */
+    private UserCart lockCart(Shard shard, Long userId) {
+        shard.lock.lock();
+        UserCart cart = shard.carts.get(userId);
+        if (cart == null) {
+            // Read the database without holding up every other user on the shard
+            shard.lock.unlock();
+            List<CartLine> persisted = ledger.load(userId);
+            shard.lock.lock();
+            cart = shard.carts.computeIfAbsent(userId, id -> new UserCart(persisted));
+        }
+        cart.lastAccess = System.nanoTime();
+        return cart;
+    }
+
+    // Only called from flush, after the batch was written, so an evicted cart is never newer than its rows
+    private void evictIdle() {
+        long now = System.nanoTime();
+        for (Shard shard : shards) {
+            shard.lock.lock();
+            try {
+                shard.carts.entrySet().removeIf(entry -> !shard.dirty.contains(entry.getKey())
+                        && now - entry.getValue().lastAccess > idleEvictionNanos);
+            } finally {
+                shard.lock.unlock();
+            }
+        }
+    }
+
+    private Shard shardFor(Long userId) {
+        return shards[(int) Math.floorMod(userId, (long) shards.length)];
+    }
+
+    private static final class Shard {
+        final ReentrantLock lock = new ReentrantLock();
+        final Map<Long, UserCart> carts = new HashMap<>();
+        final Set<Long> dirty = new HashSet<>();
+    }
+
+    private static final class UserCart {
+        final LinkedHashMap<Long, Integer> lines = new LinkedHashMap<>();
+        long lastAccess = System.nanoTime();
+
+        UserCart(List<CartLine> persisted) {
+            persisted.forEach(line -> lines.put(line.productId(), line.quantity()));
+        }
+
+        List<CartLine> snapshot() {
+            List<CartLine> snapshot = new ArrayList<>(lines.size());
+            lines.forEach((productId, quantity) -> snapshot.add(new CartLine(productId, quantity)));
+            return snapshot;
+        }
+    }
+}
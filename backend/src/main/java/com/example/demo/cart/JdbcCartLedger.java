@@ -0,0 +1,45 @@
+package com.example.demo.cart;
+
+import com.example.demo.dto.CartLine;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+@Component
+@RequiredArgsConstructor
+public class JdbcCartLedger implements CartLedger {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public List<CartLine> load(Long userId) {
+        return jdbcTemplate.query("SELECT product_id, quantity FROM cart_items WHERE user_id = ? ORDER BY id",
+                (rs, rowNum) -> new CartLine(rs.getLong("product_id"), rs.getInt("quantity")), userId);
+    }
+
+    @Override
+    @Transactional
+    public void replaceCarts(Map<Long, List<CartLine>> carts) {
+        // Sorted so a flush and a checkout on another node lock cart rows in the same order
+        Long[] userIds = carts.keySet().stream().sorted().toArray(Long[]::new);
+        jdbcTemplate.update(con -> {
+            PreparedStatement ps = con.prepareStatement("DELETE FROM cart_items WHERE user_id = ANY (?)");
+            ps.setArray(1, con.createArrayOf("bigint", userIds));
+            return ps;
+        });
+
+        List<Object[]> rows = new ArrayList<>();
+        for (Long userId : userIds) {
+            carts.get(userId).forEach(line -> rows.add(new Object[]{userId, line.productId(), line.quantity()}));
+        }
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate("INSERT INTO cart_items (user_id, product_id, quantity) VALUES (?, ?, ?)", rows);
+        }
+    }
+}
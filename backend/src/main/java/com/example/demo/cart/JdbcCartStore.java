@@ -0,0 +1,55 @@
+package com.example.demo.cart;
+
+import com.example.demo.dto.CartLine;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Carts kept only in {@code cart_items}, one statement per change. Every node sees every change at once,
+ * so this store suits deployments that cannot route a buyer to the same node.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "app.cart", name = "store", havingValue = "jdbc")
+@EnableConfigurationProperties(CartProperties.class)
+public class JdbcCartStore implements CartStore {
+
+    private static final String ADD_QUANTITY =
+            "INSERT INTO cart_items (user_id, product_id, quantity) VALUES (?, ?, ?) " +
+            "ON CONFLICT (user_id, product_id) DO UPDATE SET quantity = cart_items.quantity + EXCLUDED.quantity " +
+            "RETURNING quantity";
+
+    private final CartLedger ledger;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public List<CartLine> getLines(Long userId) {
+        return ledger.load(userId);
+    }
+
+    @Override
+    public int addQuantity(Long userId, Long productId, int quantity) {
+        return jdbcTemplate.queryForObject(ADD_QUANTITY, Integer.class, userId, productId, quantity);
+    }
+
+    @Override
+    public boolean setQuantity(Long userId, Long productId, int quantity) {
+        return jdbcTemplate.update("UPDATE cart_items SET quantity = ? WHERE user_id = ? AND product_id = ?",
+                quantity, userId, productId) > 0;
+    }
+
+    @Override
+    public boolean remove(Long userId, Long productId) {
+        return jdbcTemplate.update("DELETE FROM cart_items WHERE user_id = ? AND product_id = ?", userId, productId) > 0;
+    }
+
+    @Override
+    public void clear(Long userId) {
+        jdbcTemplate.update("DELETE FROM cart_items WHERE user_id = ?", userId);
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.demo.concurrency;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * Request threads follow {@code spring.threads.virtual.enabled}: when it is on, Tomcat, {@code @Async} and
+ * {@code @Scheduled} work all run on virtual threads. The database limiter is switched on separately, since
+ * with virtual threads the pool rather than the thread count becomes the limit on concurrent queries.
+ */
+@Configuration
+@EnableConfigurationProperties(DatabaseLimiterProperties.class)
+public class ConcurrencyConfig {
+
+    @Bean
+    @ConditionalOnProperty(prefix = "app.db-limiter", name = "enabled", havingValue = "true")
+    static BeanPostProcessor databaseConcurrencyLimiterPostProcessor(ObjectProvider<DatabaseLimiterProperties> properties,
+                                                                     ObjectProvider<MeterRegistry> meterRegistry) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof ConcurrencyLimitedDataSource)) {
+                    DatabaseConcurrencyLimiter limiter =
+                            new DatabaseConcurrencyLimiter(properties.getObject(), meterRegistry.getObject());
+                    return new ConcurrencyLimitedDataSource(dataSource, limiter);
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.demo.concurrency;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fair semaphore in front of the connection pool. Waiting on it parks a virtual thread without holding a
+ * carrier, and the wait queue is bounded so an overload turns into fast failures instead of a backlog that
+ * only drains after every caller has timed out.
+ * <p>
+ * Publishes {@code db.limiter.active}, {@code db.limiter.waiting} and {@code db.limiter.rejected}.
+ */
+public class DatabaseConcurrencyLimiter {
+
+    private final Semaphore permits;
+    private final int maxConcurrency;
+    private final int maxWaiting;
+    private final long acquireTimeoutNanos;
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final Counter rejected;
+
+    public DatabaseConcurrencyLimiter(DatabaseLimiterProperties properties, MeterRegistry meterRegistry) {
+        this.maxConcurrency = properties.getMaxConcurrency();
+        this.permits = new Semaphore(maxConcurrency, true);
+        this.maxWaiting = properties.getMaxWaiting();
+        this.acquireTimeoutNanos = properties.getAcquireTimeout().toNanos();
+
+        Gauge.builder("db.limiter.active", this, DatabaseConcurrencyLimiter::active)
+                .description("Connections checked out through the limiter")
+                .register(meterRegistry);
+        Gauge.builder("db.limiter.waiting", waiting, AtomicInteger::get)
+                .description("Callers waiting for a connection permit")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("db.limiter.rejected")
+                .description("Connection requests refused because the wait queue was full or the wait timed out")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Takes a permit, waiting up to the configured timeout.
+     *
+     * @throws SQLTransientConnectionException when the wait queue is full or no permit frees up in time
+     */
+    public void acquire() throws SQLTransientConnectionException {
+        if (permits.tryAcquire()) {
+            return;
+        }
+        if (waiting.incrementAndGet() > maxWaiting) {
+            waiting.decrementAndGet();
+            rejected.increment();
+            throw new SQLTransientConnectionException("Database busy: " + maxWaiting + " requests already waiting");
+        }
+        try {
+            if (!permits.tryAcquire(acquireTimeoutNanos, TimeUnit.NANOSECONDS)) {
+                rejected.increment();
+                throw new SQLTransientConnectionException("Database busy: no connection within "
+                        + TimeUnit.NANOSECONDS.toMillis(acquireTimeoutNanos) + " ms");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrupted while waiting for a connection", e);
+        } finally {
+            waiting.decrementAndGet();
+        }
+    }
+
+    public void release() {
+        permits.release();
+    }
+
+    public int active() {
+        return maxConcurrency - permits.availablePermits();
+    }
+
+    public int waiting() {
+        return waiting.get();
+    }
+}
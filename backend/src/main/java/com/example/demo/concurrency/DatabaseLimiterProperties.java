@@ -0,0 +1,32 @@
+package com.example.demo.concurrency;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "app.db-limiter")
+public class DatabaseLimiterProperties {
+
+    /**
+     * Gate every connection checkout behind a semaphore, so thousands of virtual threads queue in memory
+     * instead of piling onto the connection pool.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Connections that may be checked out at once; keep it at or below the pool size.
+     */
+    private int maxConcurrency = 10;
+
+    /**
+     * Callers allowed to wait for a permit; beyond this they fail at once instead of queueing.
+     */
+    private int maxWaiting = 2_000;
+
+    /**
+     * How long a caller waits for a permit before giving up.
+     */
+    private Duration acquireTimeout = Duration.ofSeconds(5);
+}
@@ -0,0 +1,114 @@
+package com.example.demo.concurrency;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * A non-negative count of something handed out under contention, such as units of one product or remaining
+ * uses of a coupon, spread over several CAS-updated stripes so concurrent takers mostly touch different cache
+ * lines instead of all spinning on one counter.
+ */
+public class StripedCounter {
+
+    // 16 ints = 64 bytes, one stripe per cache line
+    private static final int PADDING = 16;
+
+    private final int stripes;
+    private final AtomicIntegerArray cells;
+
+    public StripedCounter(int stripes, int available) {
+        this.stripes = stripes;
+        this.cells = new AtomicIntegerArray(stripes * PADDING);
+        int share = available / stripes;
+        int remainder = available % stripes;
+        for (int i = 0; i < stripes; i++) {
+            cells.set(i * PADDING, share + (i < remainder ? 1 : 0));
+        }
+    }
+
+    /**
+     * Takes {@code quantity} units, starting at the caller's home stripe and borrowing from the others.
+     * Either all units are taken or none are.
+     */
+    public boolean tryAcquire(int quantity) {
+        int home = homeStripe();
+        int needed = quantity;
+        int[] taken = null;
+
+        for (int n = 0; n < stripes && needed > 0; n++) {
+            int stripe = (home + n) % stripes;
+            int index = stripe * PADDING;
+            while (true) {
+                int current = cells.get(index);
+                if (current <= 0) {
+                    break;
+                }
+                int take = Math.min(current, needed);
+                if (cells.compareAndSet(index, current, current - take)) {
+                    if (take < quantity) {
+                        if (taken == null) {
+                            taken = new int[stripes];
+                        }
+                        taken[stripe] += take;
+                    }
+                    needed -= take;
+                    break;
+                }
+            }
+        }
+
+        if (needed == 0) {
+            return true;
+        }
+        // Not enough in total: hand back what was borrowed
+        if (taken != null) {
+            for (int stripe = 0; stripe < stripes; stripe++) {
+                if (taken[stripe] > 0) {
+                    cells.addAndGet(stripe * PADDING, taken[stripe]);
+                }
+            }
+        }
+        return false;
+    }
+
+    public void release(int quantity) {
+        cells.addAndGet(homeStripe() * PADDING, quantity);
+    }
+
+    /**
+     * Adds {@code delta} units, or for a negative delta takes that many, or all there are when fewer.
+     */
+    public void adjust(int delta) {
+        if (delta >= 0) {
+            release(delta);
+            return;
+        }
+        int needed = -delta;
+        for (int stripe = 0; stripe < stripes && needed > 0; stripe++) {
+            int index = stripe * PADDING;
+            while (true) {
+                int current = cells.get(index);
+                int take = Math.min(current, needed);
+                if (take <= 0) {
+                    break;
+                }
+                if (cells.compareAndSet(index, current, current - take)) {
+                    needed -= take;
+                    break;
+                }
+            }
+        }
+    }
+
+    public int available() {
+        int sum = 0;
+        for (int i = 0; i < stripes; i++) {
+            sum += cells.get(i * PADDING);
+        }
+        return sum;
+    }
+
+    private int homeStripe() {
+        long id = Thread.currentThread().threadId();
+        return (int) ((id ^ (id >>> 16)) & Integer.MAX_VALUE) % stripes;
+    }
+}
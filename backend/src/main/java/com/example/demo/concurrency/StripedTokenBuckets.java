@@ -0,0 +1,104 @@
+package com.example.demo.concurrency;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Token buckets keyed by string, such as a username or client address, spread over independently locked
+ * stripes so unrelated keys rarely wait on each other. A bucket holds up to {@code capacity} tokens and gains
+ * one every {@code refillPeriod}; a key seen for the first time starts full.
+ * <p>
+ * Each stripe keeps at most {@code maxKeysPerStripe} buckets and drops the least recently used one beyond
+ * that. A dropped bucket comes back full, so the bound trades exactness for memory when very many keys are
+ * active at once.
+ */
+public class StripedTokenBuckets {
+
+    private final int capacity;
+    private final long refillNanos;
+    private final Stripe[] stripes;
+
+    public StripedTokenBuckets(int capacity, Duration refillPeriod, int stripes, int maxKeysPerStripe) {
+        if (capacity < 1 || refillPeriod.isNegative() || refillPeriod.isZero()) {
+            throw new IllegalArgumentException("Capacity and refill period must be positive");
+        }
+        this.capacity = capacity;
+        this.refillNanos = refillPeriod.toNanos();
+        this.stripes = new Stripe[Integer.highestOneBit(Math.max(1, stripes - 1)) << 1];
+        for (int i = 0; i < this.stripes.length; i++) {
+            this.stripes[i] = new Stripe(maxKeysPerStripe);
+        }
+    }
+
+    /**
+     * Takes a token for the key if one is left.
+     *
+     * @param nowNanos the current {@link System#nanoTime()}
+     * @return 0 when a token was taken, otherwise the nanoseconds until the next token
+     */
+    public long tryAcquire(String key, long nowNanos) {
+        Stripe stripe = stripes[spread(key.hashCode()) & (stripes.length - 1)];
+        stripe.lock.lock();
+        try {
+            Bucket bucket = stripe.buckets.get(key);
+            if (bucket == null) {
+                bucket = new Bucket(capacity, nowNanos);
+                stripe.buckets.put(key, bucket);
+            } else {
+                refill(bucket, nowNanos);
+            }
+            if (bucket.tokens > 0) {
+                bucket.tokens--;
+                return 0;
+            }
+            return Math.max(1, refillNanos - (nowNanos - bucket.refilledAt));
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    private void refill(Bucket bucket, long nowNanos) {
+        long periods = (nowNanos - bucket.refilledAt) / refillNanos;
+        if (periods <= 0) {
+            return;
+        }
+        if (periods >= capacity - bucket.tokens) {
+            bucket.tokens = capacity;
+            bucket.refilledAt = nowNanos;
+        } else {
+            bucket.tokens += (int) periods;
+            // Keep the part of a period already elapsed toward the next token
+            bucket.refilledAt += periods * refillNanos;
+        }
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private static final class Bucket {
+        int tokens;
+        long refilledAt;
+
+        Bucket(int tokens, long refilledAt) {
+            this.tokens = tokens;
+            this.refilledAt = refilledAt;
+        }
+    }
+
+    private static final class Stripe {
+        final ReentrantLock lock = new ReentrantLock();
+        final Map<String, Bucket> buckets;
+
+        Stripe(int maxKeys) {
+            this.buckets = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Bucket> eldest) {
+                    return size() > maxKeys;
+                }
+            };
+        }
+    }
+}
@@ -10,15 +10,19 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 
 @Configuration
 @Slf4j
 public class DataInitializerConfig {
 
     @Bean
+    @Order(Ordered.HIGHEST_PRECEDENCE) // demo users and coupons come before any seed data
     public CommandLineRunner initData(UserRepository userRepository,
                                       ProductRepository productRepository,
                                       CouponRepository couponRepository,
@@ -92,10 +96,30 @@ public class DataInitializerConfig {
                 coupon2.setActive(true);
                 couponRepository.save(coupon2);
 
+                Coupon coupon3 = new Coupon();
+                coupon3.setCode("TAKE15");
+                coupon3.setType(Coupon.DiscountType.PERCENTAGE);
+                coupon3.setPercentOff(new BigDecimal("15.00"));
+                coupon3.setMaxDiscount(new BigDecimal("100.00"));
+                coupon3.setMinSpend(new BigDecimal("50.00"));
+                coupon3.setActive(true);
+                couponRepository.save(coupon3);
+
+                Coupon coupon4 = new Coupon();
+                coupon4.setCode("KEYS20");
+                coupon4.setType(Coupon.DiscountType.PERCENTAGE);
+                coupon4.setPercentOff(new BigDecimal("20.00"));
+                coupon4.setProductId(product3.getId());
+                coupon4.setUsageLimit(100);
+                coupon4.setEndsAt(LocalDateTime.now().plusDays(30));
+                coupon4.setActive(true);
+                couponRepository.save(coupon4);
+
                 log.info("Test data initialized successfully!");
                 log.info("Buyer credentials: username=buyer, password=password");
                 log.info("Seller credentials: username=seller, password=password");
-                log.info("Coupon codes: SAVE10 ($10 off), SAVE50 ($50 off)");
+                log.info("Coupon codes: SAVE10 ($10 off), SAVE50 ($50 off), TAKE15 (15% off $50+, up to $100), "
+                        + "KEYS20 (20% off keyboards, first 100 uses within 30 days)");
             }
         };
     }
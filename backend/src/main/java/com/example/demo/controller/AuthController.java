@@ -2,10 +2,12 @@ package com.example.demo.controller;
 
 import com.example.demo.dto.AuthResponse;
 import com.example.demo.dto.LoginRequest;
+import com.example.demo.dto.RefreshRequest;
 import com.example.demo.dto.RegisterRequest;
 import com.example.demo.service.AuthService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
@@ -26,8 +28,26 @@ public class AuthController {
     }
     
     @PostMapping("/login")
-    @Operation(summary = "Login user")
-    public ResponseEntity<AuthResponse> login(@Valid @RequestBody LoginRequest request) {
-        return ResponseEntity.ok(authService.login(request));
+    @Operation(summary = "Login user",
+            description = "Attempts are rate limited per username and per client address (429), and refused "
+                    + "with 503 while password checking is saturated; both carry Retry-After")
+    public ResponseEntity<AuthResponse> login(@Valid @RequestBody LoginRequest request,
+                                              HttpServletRequest httpRequest) {
+        // The client behind any trusted proxies (server.forward-headers-strategy)
+        return ResponseEntity.ok(authService.login(request, httpRequest.getRemoteAddr()));
+    }
+    
+    @PostMapping("/refresh")
+    @Operation(summary = "Exchange a refresh token for new tokens",
+            description = "Each refresh token works once; presenting a used one again signs the session out")
+    public ResponseEntity<AuthResponse> refresh(@Valid @RequestBody RefreshRequest request) {
+        return ResponseEntity.ok(authService.refresh(request));
+    }
+    
+    @PostMapping("/logout")
+    @Operation(summary = "Sign out", description = "Revokes the session's refresh token and its access tokens")
+    public ResponseEntity<Void> logout(@Valid @RequestBody RefreshRequest request) {
+        authService.logout(request);
+        return ResponseEntity.noContent().build();
     }
 }
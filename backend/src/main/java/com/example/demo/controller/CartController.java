@@ -1,7 +1,7 @@
 package com.example.demo.controller;
 
+import com.example.demo.dto.CartEntry;
 import com.example.demo.dto.CartRequest;
-import com.example.demo.entity.CartItem;
 import com.example.demo.service.CartService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
@@ -27,35 +27,35 @@ public class CartController {
     
     @GetMapping
     @Operation(summary = "Get user's cart")
-    public ResponseEntity<List<CartItem>> getCart(HttpServletRequest request) {
+    public ResponseEntity<List<CartEntry>> getCart(HttpServletRequest request) {
         Long userId = (Long) request.getAttribute("userId");
         return ResponseEntity.ok(cartService.getCart(userId));
     }
     
     @PostMapping
     @Operation(summary = "Add item to cart")
-    public ResponseEntity<CartItem> addToCart(
+    public ResponseEntity<CartEntry> addToCart(
             @Valid @RequestBody CartRequest cartRequest,
             HttpServletRequest request) {
         Long userId = (Long) request.getAttribute("userId");
         return ResponseEntity.ok(cartService.addToCart(userId, cartRequest));
     }
     
-    @PutMapping("/{id}")
+    @PutMapping("/{productId}")
     @Operation(summary = "Update cart item quantity")
-    public ResponseEntity<CartItem> updateQuantity(
-            @PathVariable Long id,
+    public ResponseEntity<CartEntry> updateQuantity(
+            @PathVariable Long productId,
             @RequestParam Integer quantity,
             HttpServletRequest request) {
         Long userId = (Long) request.getAttribute("userId");
-        return ResponseEntity.ok(cartService.updateQuantity(id, quantity, userId));
+        return ResponseEntity.ok(cartService.updateQuantity(productId, quantity, userId));
     }
     
-    @DeleteMapping("/{id}")
+    @DeleteMapping("/{productId}")
     @Operation(summary = "Remove item from cart")
-    public ResponseEntity<Void> removeFromCart(@PathVariable Long id, HttpServletRequest request) {
+    public ResponseEntity<Void> removeFromCart(@PathVariable Long productId, HttpServletRequest request) {
         Long userId = (Long) request.getAttribute("userId");
-        cartService.removeFromCart(id, userId);
+        cartService.removeFromCart(productId, userId);
         return ResponseEntity.noContent().build();
     }
 }
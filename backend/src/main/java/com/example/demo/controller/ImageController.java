@@ -1,57 +1,46 @@
 package com.example.demo.controller;
 
-import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
-import org.springframework.http.HttpHeaders;
+import com.example.demo.image.ImageStorage;
+import com.example.demo.image.ImageVariantGenerator;
+import com.example.demo.image.StoredImage;
+import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
-import java.io.IOException;
-import java.net.MalformedURLException;
-import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.UUID;
 
 @RestController
 @RequestMapping("/api/images")
+@RequiredArgsConstructor
 public class ImageController {
 
-    private final Path fileStorageLocation;
-
-    public ImageController() {
-        this.fileStorageLocation = Paths.get("uploads").toAbsolutePath().normalize();
-        try {
-            Files.createDirectories(this.fileStorageLocation);
-        } catch (Exception ex) {
-            throw new RuntimeException("Could not create the directory where the uploaded files will be stored.", ex);
-        }
-    }
+    private final ImageStorage imageStorage;
+    private final ImageVariantGenerator variantGenerator;
 
+    /**
+     * Stores the original and returns at once; each variant URL starts resolving when its rendering finishes.
+     */
     @PostMapping
     public ResponseEntity<Map<String, String>> uploadFile(@RequestParam("file") MultipartFile file) {
-        String fileName = UUID.randomUUID().toString() + "_" + file.getOriginalFilename();
-
-        try {
-            // Copy file to the target location (Replacing existing file with the same name)
-            Path targetLocation = this.fileStorageLocation.resolve(fileName);
-            Files.copy(file.getInputStream(), targetLocation);
-
-            String fileDownloadUri = ServletUriComponentsBuilder.fromCurrentContextPath()
-                    .path("/uploads/")
-                    .path(fileName)
-                    .toUriString();
-
-            Map<String, String> response = new HashMap<>();
-            response.put("url", fileDownloadUri);
-
-            return ResponseEntity.ok(response);
-        } catch (IOException ex) {
-            throw new RuntimeException("Could not store file " + fileName + ". Please try again!", ex);
+        StoredImage image = imageStorage.store(file);
+        variantGenerator.generate(image);
+
+        Map<String, String> response = new LinkedHashMap<>();
+        response.put("url", url(image.path()));
+        response.put("hash", image.hash());
+        for (String variant : variantGenerator.variantNames()) {
+            response.put(variant + "Url", url(image.variantPath(variant)));
         }
+        return ResponseEntity.ok(response);
+    }
+
+    private String url(Path file) {
+        return ServletUriComponentsBuilder.fromCurrentContextPath()
+                .path(imageStorage.publicPath(file))
+                .toUriString();
     }
 }
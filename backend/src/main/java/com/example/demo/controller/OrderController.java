@@ -1,18 +1,31 @@
 package com.example.demo.controller;
 
 import com.example.demo.dto.CheckoutRequest;
+import com.example.demo.dto.CursorPage;
+import com.example.demo.dto.OrderHistoryQuery;
+import com.example.demo.dto.OrderSummary;
 import com.example.demo.entity.Order;
+import com.example.demo.idempotency.IdempotencyStore;
 import com.example.demo.service.OrderService;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import tools.jackson.databind.json.JsonMapper;
 
-import java.util.List;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Objects;
 
 @RestController
 @RequestMapping("/api/orders")
@@ -23,21 +36,56 @@ import java.util.List;
 public class OrderController {
     
     private final OrderService orderService;
+    private final JsonMapper jsonMapper;
+    private final IdempotencyStore idempotencyStore;
     
     @PostMapping("/checkout")
-    @Operation(summary = "Checkout and create order")
-    public ResponseEntity<Order> checkout(
+    @Operation(summary = "Checkout and create order",
+            description = "Send an Idempotency-Key to make retries safe: a repeated key returns the order "
+                    + "created by the first request, with an Idempotent-Replayed: true header, and places no new order")
+    @ApiResponse(responseCode = "200", content = @Content(schema = @Schema(implementation = Order.class)))
+    public ResponseEntity<?> checkout(
             @RequestBody CheckoutRequest request,
+            @RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey,
             HttpServletRequest httpRequest) {
         Long userId = (Long) httpRequest.getAttribute("userId");
-        return ResponseEntity.ok(orderService.checkout(userId, request));
+        if (idempotencyKey == null) {
+            return ResponseEntity.ok(orderService.checkout(userId, request));
+        }
+        
+        IdempotencyStore.Result result = idempotencyStore.execute(userId, idempotencyKey,
+                "checkout:" + Objects.toString(request.getCouponCode(), ""),
+                () -> jsonMapper.writeValueAsBytes(orderService.checkout(userId, request)));
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .header("Idempotent-Replayed", String.valueOf(result.replayed()))
+                .body(result.body());
     }
     
     @GetMapping
-    @Operation(summary = "Get order history")
-    public ResponseEntity<List<Order>> getOrderHistory(HttpServletRequest request) {
+    @Operation(summary = "Get order history, newest first, one page at a time")
+    public ResponseEntity<CursorPage<OrderSummary>> getOrderHistory(
+            @Valid @ModelAttribute OrderHistoryQuery query,
+            HttpServletRequest request) {
         Long userId = (Long) request.getAttribute("userId");
-        return ResponseEntity.ok(orderService.getOrderHistory(userId));
+        return ResponseEntity.ok(orderService.getOrderHistory(userId, query));
+    }
+    
+    @GetMapping(value = "/stream", produces = "application/x-ndjson")
+    @Operation(summary = "Stream the full order history as newline-delimited JSON")
+    public ResponseEntity<StreamingResponseBody> streamOrderHistory(HttpServletRequest request) {
+        Long userId = (Long) request.getAttribute("userId");
+        StreamingResponseBody body = out -> orderService.streamOrderHistory(userId, order -> {
+            try {
+                out.write(jsonMapper.writeValueAsBytes(order));
+                out.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(body);
     }
     
     @GetMapping("/{id}")
@@ -0,0 +1,69 @@
+package com.example.demo.controller;
+
+import com.example.demo.bulk.ProductExportService;
+import com.example.demo.bulk.ProductFileFormat;
+import com.example.demo.bulk.ProductImportService;
+import com.example.demo.dto.ProductImportStatus;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.net.URI;
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/products/seller")
+@RequiredArgsConstructor
+@PreAuthorize("hasRole('SELLER')")
+@SecurityRequirement(name = "Bearer Authentication")
+@Tag(name = "Product import and export", description = "Bulk catalog transfer (Seller only)")
+public class ProductBulkController {
+    
+    private final ProductImportService importService;
+    private final ProductExportService exportService;
+    
+    @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @Operation(summary = "Start importing products from a CSV or NDJSON file",
+            description = "CSV needs a header row with name, price and stock columns, and may have description "
+                    + "and imageUrl; NDJSON has one product object per line. The import runs in the background: "
+                    + "poll the returned Location for progress and rejected rows")
+    public ResponseEntity<ProductImportStatus> startImport(@RequestParam("file") MultipartFile file,
+                                                           @RequestParam(required = false) String format,
+                                                           HttpServletRequest request) {
+        Long sellerId = (Long) request.getAttribute("userId");
+        ProductImportStatus status = importService.start(sellerId, file, format);
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/products/seller/import/" + status.id()))
+                .body(status);
+    }
+    
+    @GetMapping("/import/{jobId}")
+    @Operation(summary = "Get the progress of an import")
+    public ResponseEntity<ProductImportStatus> getImport(@PathVariable UUID jobId, HttpServletRequest request) {
+        Long sellerId = (Long) request.getAttribute("userId");
+        return ResponseEntity.ok(importService.status(sellerId, jobId));
+    }
+    
+    @GetMapping("/export")
+    @Operation(summary = "Download the seller's catalog as CSV or NDJSON, streamed as it is read")
+    public ResponseEntity<StreamingResponseBody> export(@RequestParam(defaultValue = "csv") String format,
+                                                        HttpServletRequest request) {
+        Long sellerId = (Long) request.getAttribute("userId");
+        ProductFileFormat fileFormat = ProductFileFormat.of(format, null, null);
+        StreamingResponseBody body = out -> exportService.export(sellerId, fileFormat, out);
+        return ResponseEntity.ok()
+                .contentType(fileFormat.mediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"products" + fileFormat.extension() + "\"")
+                .body(body);
+    }
+}
@@ -1,7 +1,13 @@
 package com.example.demo.controller;
 
+import com.example.demo.dto.CursorPage;
+import com.example.demo.dto.ProductCatalogQuery;
 import com.example.demo.dto.ProductRequest;
+import com.example.demo.dto.ProductSearchQuery;
+import com.example.demo.dto.ProductSearchResult;
+import com.example.demo.dto.ProductSummary;
 import com.example.demo.entity.Product;
+import com.example.demo.search.ProductSearchService;
 import com.example.demo.service.ProductService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
@@ -22,11 +28,25 @@ import java.util.List;
 public class ProductController {
     
     private final ProductService productService;
+    private final ProductSearchService productSearchService;
     
     @GetMapping
-    @Operation(summary = "Get all products")
-    public ResponseEntity<List<Product>> getAllProducts() {
-        return ResponseEntity.ok(productService.getAllProducts());
+    @Operation(summary = "Browse products, newest first or by price, one cursor page at a time")
+    public ResponseEntity<CursorPage<ProductSummary>> getProducts(@Valid @ModelAttribute ProductCatalogQuery query) {
+        return ResponseEntity.ok(productService.getCatalogPage(query));
+    }
+    
+    @GetMapping("/search")
+    @Operation(summary = "Search products by name and description, ranked by relevance, with price facets")
+    public ResponseEntity<ProductSearchResult> searchProducts(@Valid @ModelAttribute ProductSearchQuery query) {
+        return ResponseEntity.ok(productSearchService.search(query));
+    }
+    
+    @GetMapping("/search/suggest")
+    @Operation(summary = "Complete a partly typed search word")
+    public ResponseEntity<List<String>> suggest(@RequestParam String prefix,
+                                                @RequestParam(defaultValue = "8") int limit) {
+        return ResponseEntity.ok(productSearchService.suggest(prefix, limit));
     }
     
     @GetMapping("/{id}")
@@ -0,0 +1,32 @@
+package com.example.demo.controller;
+
+import com.example.demo.analytics.SellerAnalyticsEngine;
+import com.example.demo.dto.SellerAnalytics;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/seller/analytics")
+@RequiredArgsConstructor
+@PreAuthorize("hasRole('SELLER')")
+@SecurityRequirement(name = "Bearer Authentication")
+@Tag(name = "Seller analytics", description = "Sales figures of the signed-in seller (Seller only)")
+public class SellerAnalyticsController {
+    
+    private final SellerAnalyticsEngine analyticsEngine;
+    
+    @GetMapping
+    @Operation(summary = "Units, revenue and discounts for the last days, per day and per product",
+            description = "Served from in-memory rollups; orders appear shortly after checkout")
+    public ResponseEntity<SellerAnalytics> getAnalytics(@RequestParam(defaultValue = "30") int days,
+                                                        HttpServletRequest request) {
+        Long sellerId = (Long) request.getAttribute("userId");
+        return ResponseEntity.ok(analyticsEngine.analytics(sellerId, days));
+    }
+}
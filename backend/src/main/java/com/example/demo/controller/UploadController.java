@@ -0,0 +1,29 @@
+package com.example.demo.controller;
+
+import com.example.demo.image.ImageFileServer;
+import io.swagger.v3.oas.annotations.Hidden;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+
+/**
+ * Uploaded images: content-addressed files live one directory deep, files from before content addressing at the top.
+ */
+@Hidden
+@RestController
+@RequiredArgsConstructor
+public class UploadController {
+
+    private final ImageFileServer imageFileServer;
+
+    @GetMapping({"/uploads/{name}", "/uploads/{directory}/{name}"})
+    public void serve(@PathVariable(required = false) String directory, @PathVariable String name,
+                      HttpServletRequest request, HttpServletResponse response) throws IOException {
+        imageFileServer.serve(directory == null ? name : directory + "/" + name, request, response);
+    }
+}
@@ -0,0 +1,243 @@
+package com.example.demo.coupon;
+
+import com.example.demo.concurrency.StripedCounter;
+import com.example.demo.entity.Coupon;
+import com.example.demo.entity.OrderItem;
+import com.example.demo.metrics.HotPathMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Evaluates coupon codes at checkout against an in-memory index of the active coupons, so applying a coupon
+ * costs no database round trip.
+ * <p>
+ * The index is an immutable map swapped in whole whenever the {@link CouponLedger#fingerprint() fingerprint}
+ * of the coupons table changes, which is polled every few seconds. Remaining uses of usage-limited coupons are
+ * held in {@link StripedCounter}s; a use is taken at checkout, then committed when the order transaction
+ * commits or given back when it rolls back. Committed uses are written behind to {@code coupons.times_used} in
+ * coalesced batches. Uses not yet written are lost if the process dies, and every node enforces the limit
+ * against its own counters, so limits are exact only for a single node.
+ */
+@Slf4j
+@Component
+@EnableConfigurationProperties(CouponProperties.class)
+public class CouponEngine {
+
+    private final CouponLedger ledger;
+    private final CouponProperties properties;
+    private final HotPathMetrics metrics;
+
+    private volatile Index index;
+    private final ConcurrentHashMap<Long, Usage> usages = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<CouponRedemption> committed = new ConcurrentLinkedQueue<>();
+
+    // Held while loading the index or writing a batch, so a load never misses uses that are mid-flush
+    private final ReentrantLock ledgerLock = new ReentrantLock();
+
+    public CouponEngine(CouponLedger ledger, CouponProperties properties, HotPathMetrics metrics) {
+        this.ledger = ledger;
+        this.properties = properties;
+        this.metrics = metrics;
+    }
+
+    private record Index(String fingerprint, Map<String, CouponRule> rules) {
+    }
+
+    /**
+     * Remaining uses of one coupon, with the limit and persisted count the counter was last based on. A reload
+     * moves the counter by however far those have changed, so it never has to account for uses in flight.
+     */
+    private static final class Usage {
+        final StripedCounter remaining;
+        // Guarded by ledgerLock
+        int limit;
+        int timesUsed;
+
+        Usage(StripedCounter remaining, int limit, int timesUsed) {
+            this.remaining = remaining;
+            this.limit = limit;
+            this.timesUsed = timesUsed;
+        }
+    }
+
+    /**
+     * Applies a coupon to an order and, for usage-limited coupons, takes one use of it.
+     *
+     * @throws RuntimeException when the code is unknown or the order does not meet the coupon's conditions
+     */
+    public CouponRedemption redeem(String code, List<OrderItem> items, BigDecimal total) {
+        CouponRule rule = index().rules().get(code);
+        if (rule == null) {
+            metrics.couponLookup(false);
+            throw new RuntimeException("Invalid or inactive coupon code");
+        }
+
+        BigDecimal discount;
+        try {
+            discount = rule.evaluate(items, total, LocalDateTime.now());
+        } catch (RuntimeException e) {
+            metrics.couponLookup(false);
+            throw e;
+        }
+        if (rule.limited() && !takeUse(rule.id())) {
+            metrics.couponLookup(false);
+            throw new RuntimeException("Coupon usage limit reached");
+        }
+        metrics.couponLookup(true);
+        return new CouponRedemption(rule.id(), rule.code(), discount, rule.productId(), rule.limited());
+    }
+
+    /**
+     * Makes the use permanent and queues it for the next write-behind batch.
+     */
+    public void commit(CouponRedemption redemption) {
+        committed.add(redemption);
+    }
+
+    public void release(CouponRedemption redemption) {
+        if (redemption.limited()) {
+            usageOf(redemption.couponId()).remaining.release(1);
+        }
+    }
+
+    /**
+     * Uses left of a usage-limited coupon, or -1 for an unknown or unlimited one.
+     */
+    public int remainingUses(String code) {
+        CouponRule rule = index().rules().get(code);
+        if (rule == null || !rule.limited()) {
+            return -1;
+        }
+        return usageOf(rule.id()).remaining.available();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        refresh();
+    }
+
+    /**
+     * Reloads the index if any coupon was added, removed or edited since it was built.
+     */
+    @Scheduled(fixedDelayString = "${app.coupons.refresh-interval-ms:5000}")
+    public void refresh() {
+        ledgerLock.lock();
+        try {
+            String fingerprint = ledger.fingerprint();
+            Index current = index;
+            if (current == null || !current.fingerprint().equals(fingerprint)) {
+                index = load(fingerprint);
+            }
+        } finally {
+            ledgerLock.unlock();
+        }
+    }
+
+    /**
+     * Writes committed uses to the database, one coalesced increment per coupon.
+     */
+    @Scheduled(fixedDelayString = "${app.coupons.flush-interval-ms:200}")
+    public void flush() {
+        ledgerLock.lock();
+        try {
+            List<CouponRedemption> batch = new ArrayList<>();
+            CouponRedemption next;
+            while ((next = committed.poll()) != null) {
+                batch.add(next);
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+
+            Map<Long, Integer> redemptions = new HashMap<>();
+            batch.forEach(r -> redemptions.merge(r.couponId(), 1, Integer::sum));
+
+            try {
+                ledger.applyRedemptions(redemptions);
+            } catch (RuntimeException e) {
+                log.warn("Coupon write-behind failed for {} coupons, retrying next cycle", redemptions.size(), e);
+                committed.addAll(batch);
+                return;
+            }
+            redemptions.forEach((id, uses) -> {
+                Usage usage = usages.get(id);
+                if (usage != null) {
+                    usage.timesUsed += uses;
+                }
+            });
+        } finally {
+            ledgerLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private Index index() {
+        Index current = index;
+        if (current == null) {
+            refresh();
+            current = index;
+        }
+        return current;
+    }
+
+    private boolean takeUse(Long couponId) {
+        return usageOf(couponId).remaining.tryAcquire(1);
+    }
+
+    private Usage usageOf(Long couponId) {
+        return usages.get(couponId);
+    }
+
+    // Called with ledgerLock held
+    private Index load(String fingerprint) {
+        Map<Long, Integer> unflushed = new HashMap<>();
+        committed.forEach(r -> unflushed.merge(r.couponId(), 1, Integer::sum));
+
+        Map<String, CouponRule> rules = new HashMap<>();
+        for (Coupon coupon : ledger.loadActive()) {
+            CouponRule rule;
+            try {
+                rule = CouponRule.from(coupon);
+            } catch (IllegalArgumentException e) {
+                log.warn("Skipping coupon: {}", e.getMessage());
+                continue;
+            }
+            rules.put(rule.code(), rule);
+
+            if (rule.limited()) {
+                Usage usage = usages.get(rule.id());
+                if (usage == null) {
+                    int used = coupon.getTimesUsed() + unflushed.getOrDefault(rule.id(), 0);
+                    usages.put(rule.id(), new Usage(new StripedCounter(properties.getStripes(),
+                            Math.max(0, rule.usageLimit() - used)), rule.usageLimit(), coupon.getTimesUsed()));
+                } else {
+                    // Kept in place, since checkouts may be taking or giving back uses on it right now
+                    usage.remaining.adjust(rule.usageLimit() - usage.limit - (coupon.getTimesUsed() - usage.timesUsed));
+                    usage.limit = rule.usageLimit();
+                    usage.timesUsed = coupon.getTimesUsed();
+                }
+            }
+        }
+        log.info("Loaded {} active coupons", rules.size());
+        return new Index(fingerprint, Map.copyOf(rules));
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.demo.coupon;
+
+import com.example.demo.entity.Coupon;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Durable coupons the engine indexes and writes redemption counts behind to.
+ */
+public interface CouponLedger {
+
+    /**
+     * Changes whenever a coupon is added, removed or edited; redemption counts are not part of it.
+     */
+    String fingerprint();
+
+    List<Coupon> loadActive();
+
+    /**
+     * Adds the given redemptions to each coupon's use count, one coalesced amount per coupon.
+     */
+    void applyRedemptions(Map<Long, Integer> redemptions);
+}
@@ -0,0 +1,14 @@
+package com.example.demo.coupon;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "app.coupons")
+public class CouponProperties {
+
+    /**
+     * Counter stripes per usage-limited coupon; more stripes spread contention during a promotion.
+     */
+    private int stripes = 8;
+}
@@ -0,0 +1,11 @@
+package com.example.demo.coupon;
+
+import java.math.BigDecimal;
+
+/**
+ * A coupon applied to one checkout, holding one use of it until the order commits or rolls back.
+ *
+ * @param productId the only product the discount applies to, or null when it applies to the whole order
+ */
+public record CouponRedemption(Long couponId, String code, BigDecimal discount, Long productId, boolean limited) {
+}
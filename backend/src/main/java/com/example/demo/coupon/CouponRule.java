@@ -0,0 +1,78 @@
+package com.example.demo.coupon;
+
+import com.example.demo.entity.Coupon;
+import com.example.demo.entity.OrderItem;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * The immutable, checked form of an active {@link Coupon} that the engine evaluates at checkout.
+ */
+record CouponRule(
+        Long id,
+        String code,
+        Coupon.DiscountType type,
+        BigDecimal amount,
+        BigDecimal percentOff,
+        BigDecimal maxDiscount,
+        BigDecimal minSpend,
+        Long productId,
+        Integer usageLimit,
+        LocalDateTime startsAt,
+        LocalDateTime endsAt) {
+
+    private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+
+    static CouponRule from(Coupon coupon) {
+        Coupon.DiscountType type = coupon.getType() != null ? coupon.getType() : Coupon.DiscountType.FIXED;
+        BigDecimal value = type == Coupon.DiscountType.FIXED ? coupon.getDiscountAmount() : coupon.getPercentOff();
+        if (value == null || value.signum() < 0) {
+            throw new IllegalArgumentException("Coupon " + coupon.getCode() + " has no valid " + type + " discount");
+        }
+        return new CouponRule(coupon.getId(), coupon.getCode(), type, coupon.getDiscountAmount(),
+                coupon.getPercentOff(), coupon.getMaxDiscount(), coupon.getMinSpend(), coupon.getProductId(),
+                coupon.getUsageLimit(), coupon.getStartsAt(), coupon.getEndsAt());
+    }
+
+    boolean limited() {
+        return usageLimit != null;
+    }
+
+    /**
+     * Returns the discount for an order, at most the amount it applies to.
+     *
+     * @throws RuntimeException when the order does not meet the coupon's conditions
+     */
+    BigDecimal evaluate(List<OrderItem> items, BigDecimal total, LocalDateTime now) {
+        if ((startsAt != null && now.isBefore(startsAt)) || (endsAt != null && !now.isBefore(endsAt))) {
+            throw new RuntimeException("Coupon is not valid at this time");
+        }
+        if (minSpend != null && total.compareTo(minSpend) < 0) {
+            throw new RuntimeException("Coupon requires a minimum spend of " + minSpend);
+        }
+
+        BigDecimal eligible = total;
+        if (productId != null) {
+            eligible = BigDecimal.ZERO;
+            for (OrderItem item : items) {
+                if (productId.equals(item.getProductId())) {
+                    eligible = eligible.add(item.getPriceAtPurchase().multiply(BigDecimal.valueOf(item.getQuantity())));
+                }
+            }
+            if (eligible.signum() == 0) {
+                throw new RuntimeException("Coupon does not apply to any item in the cart");
+            }
+        }
+
+        BigDecimal discount = type == Coupon.DiscountType.PERCENTAGE
+                ? eligible.multiply(percentOff).divide(HUNDRED, 2, RoundingMode.HALF_UP)
+                : amount;
+        if (maxDiscount != null) {
+            discount = discount.min(maxDiscount);
+        }
+        return discount.min(eligible);
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.demo.coupon;
+
+import com.example.demo.entity.Coupon;
+import com.example.demo.repository.CouponRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+@Component
+@RequiredArgsConstructor
+public class JdbcCouponLedger implements CouponLedger {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CouponRepository couponRepository;
+
+    @Override
+    public String fingerprint() {
+        return jdbcTemplate.queryForObject(
+                "SELECT count(*) || ':' || coalesce(max(updated_at)::text, '') FROM coupons", String.class);
+    }
+
+    @Override
+    public List<Coupon> loadActive() {
+        return couponRepository.findAllByActiveTrue();
+    }
+
+    @Override
+    @Transactional
+    public void applyRedemptions(Map<Long, Integer> redemptions) {
+        List<Object[]> args = new ArrayList<>(redemptions.size());
+        // Sorted so concurrent flushes from several nodes lock rows in the same order
+        redemptions.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .forEach(e -> args.add(new Object[]{e.getValue(), e.getKey()}));
+
+        // updated_at is left alone so counting uses does not make every node reload its index
+        jdbcTemplate.batchUpdate("UPDATE coupons SET times_used = times_used + ? WHERE id = ?", args);
+    }
+}
@@ -7,6 +7,9 @@ import lombok.Data;
 @AllArgsConstructor
 public class AuthResponse {
     private String token;
+    private String refreshToken;
+    // Seconds until the access token expires
+    private long expiresIn;
     private Long userId;
     private String username;
     private String role;
@@ -0,0 +1,8 @@
+package com.example.demo.dto;
+
+/**
+ * A cart line as the cart page shows it. Lines are addressed by product id; {@code product} is {@code null}
+ * once the product has been deleted.
+ */
+public record CartEntry(Long productId, Integer quantity, ProductSummary product) {
+}
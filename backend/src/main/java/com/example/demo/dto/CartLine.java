@@ -0,0 +1,7 @@
+package com.example.demo.dto;
+
+/**
+ * One product and its quantity in a buyer's cart.
+ */
+public record CartLine(Long productId, Integer quantity) {
+}
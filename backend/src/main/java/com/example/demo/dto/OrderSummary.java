@@ -0,0 +1,25 @@
+package com.example.demo.dto;
+
+import com.example.demo.entity.Order;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Order history row: the order's amounts and status with its items, read without loading entities.
+ */
+public record OrderSummary(
+        Long id,
+        BigDecimal totalAmount,
+        String couponCode,
+        BigDecimal discount,
+        BigDecimal finalAmount,
+        Order.OrderStatus status,
+        LocalDateTime createdAt,
+        List<Item> items
+) {
+
+    public record Item(Long productId, String productName, Integer quantity, BigDecimal priceAtPurchase) {
+    }
+}
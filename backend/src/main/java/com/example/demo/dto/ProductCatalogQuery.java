@@ -0,0 +1,34 @@
+package com.example.demo.dto;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.PositiveOrZero;
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+@Data
+public class ProductCatalogQuery {
+
+    public enum Sort {
+        NEWEST, PRICE_ASC, PRICE_DESC
+    }
+
+    private String cursor;
+
+    @Min(value = 1, message = "Limit must be at least 1")
+    @Max(value = 100, message = "Limit must be at most 100")
+    private Integer limit = 20;
+
+    @PositiveOrZero(message = "Minimum price must not be negative")
+    private BigDecimal minPrice;
+
+    @PositiveOrZero(message = "Maximum price must not be negative")
+    private BigDecimal maxPrice;
+
+    private Long sellerId;
+
+    private Boolean inStock;
+
+    private Sort sort = Sort.NEWEST;
+}
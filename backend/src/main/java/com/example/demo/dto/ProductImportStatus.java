@@ -0,0 +1,34 @@
+package com.example.demo.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Progress of a bulk product import. {@code bytesRead} of {@code totalBytes} tells how far through the file the
+ * job is; rows are counted as they are read, and rejected rows are listed up to a limit with their numbers
+ * from the file.
+ */
+public record ProductImportStatus(
+        UUID id,
+        State state,
+        String fileName,
+        String format,
+        long totalBytes,
+        long bytesRead,
+        long rowsRead,
+        long imported,
+        long rejected,
+        List<RowError> errors,
+        String message,
+        LocalDateTime startedAt,
+        LocalDateTime finishedAt
+) {
+
+    public enum State {
+        RUNNING, COMPLETED, FAILED
+    }
+
+    public record RowError(long row, String message) {
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.demo.dto;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.PositiveOrZero;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+@Data
+public class ProductSearchQuery {
+
+    @NotBlank(message = "Search text is required")
+    @Size(max = 200, message = "Search text must be at most 200 characters")
+    private String q;
+
+    /**
+     * Treat the last word as a prefix, for results that update while the user types.
+     */
+    private boolean typeahead;
+
+    @PositiveOrZero(message = "Minimum price must not be negative")
+    private BigDecimal minPrice;
+
+    @PositiveOrZero(message = "Maximum price must not be negative")
+    private BigDecimal maxPrice;
+
+    @Min(value = 1, message = "Limit must be at least 1")
+    @Max(value = 100, message = "Limit must be at most 100")
+    private Integer limit = 20;
+}
@@ -0,0 +1,20 @@
+package com.example.demo.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Best-ranked matches, how many products matched in total, and match counts per price band.
+ * Facet counts ignore the price filter so every band stays selectable.
+ */
+public record ProductSearchResult(List<Hit> items, int total, List<PriceFacet> priceFacets) {
+
+    public record Hit(Long id, String name, BigDecimal price, String imageUrl, double score) {
+    }
+
+    /**
+     * Products priced from {@code from} (inclusive) up to {@code to} (exclusive, null when open-ended).
+     */
+    public record PriceFacet(BigDecimal from, BigDecimal to, int count) {
+    }
+}
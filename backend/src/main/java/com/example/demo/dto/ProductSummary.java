@@ -0,0 +1,30 @@
+package com.example.demo.dto;
+
+import com.example.demo.entity.Product;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Catalog list row: everything a product card shows, without the description.
+ */
+public record ProductSummary(
+        Long id,
+        String name,
+        BigDecimal price,
+        Integer stock,
+        String imageUrl,
+        Long sellerId,
+        LocalDateTime createdAt
+) {
+
+    public static ProductSummary from(Product product) {
+        // Postgres rounds timestamps to microseconds; do the same so in-memory comparisons agree with the database
+        LocalDateTime createdAt = product.getCreatedAt() == null
+                ? null
+                : product.getCreatedAt().plusNanos(500).truncatedTo(ChronoUnit.MICROS);
+        return new ProductSummary(product.getId(), product.getName(), product.getPrice(), product.getStock(),
+                product.getImageUrl(), product.getSellerId(), createdAt);
+    }
+}
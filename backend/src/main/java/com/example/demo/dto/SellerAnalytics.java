@@ -0,0 +1,27 @@
+package com.example.demo.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * A seller's sales over a range of days: totals, one entry per day, and one per product sold in the range.
+ * Revenue is before discounts; discount is the share of order discounts that fell on the seller's lines.
+ */
+public record SellerAnalytics(
+        LocalDate from,
+        LocalDate to,
+        Figures totals,
+        List<Day> days,
+        List<ProductFigures> products
+) {
+
+    public record Figures(long units, BigDecimal revenue, BigDecimal discount, BigDecimal netRevenue) {
+    }
+
+    public record Day(LocalDate date, Figures figures) {
+    }
+
+    public record ProductFigures(Long productId, Figures figures) {
+    }
+}
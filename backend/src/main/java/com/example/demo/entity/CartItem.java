@@ -5,8 +5,13 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+/**
+ * Persisted cart line. Rows are read and written by the {@code CartStore} over JDBC, never through Hibernate,
+ * so the id stays an identity column the database fills in; the unique key also serves lookups by user.
+ */
 @Entity
-@Table(name = "cart_items")
+@Table(name = "cart_items", uniqueConstraints =
+        @UniqueConstraint(name = "uk_cart_items_user_product", columnNames = {"userId", "productId"}))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -24,8 +29,4 @@ public class CartItem {
     
     @Column(nullable = false)
     private Integer quantity;
-    
-    @ManyToOne(fetch = FetchType.EAGER)
-    @JoinColumn(name = "productId", insertable = false, updatable = false)
-    private Product product;
 }
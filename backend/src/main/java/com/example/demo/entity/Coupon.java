@@ -4,26 +4,72 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.UpdateTimestamp;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 
+/**
+ * A coupon and the rules it applies under. Checkout evaluates coupons from the in-memory index kept by
+ * {@code CouponEngine}, which reloads when the count of coupons or the latest {@code updatedAt} changes, so
+ * edits made with plain SQL must also set {@code updated_at}.
+ */
 @Entity
 @Table(name = "coupons")
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Coupon {
-    
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "coupons_seq")
+    @SequenceGenerator(name = "coupons_seq", sequenceName = "coupons_seq", allocationSize = 50)
     private Long id;
-    
+
     @Column(unique = true, nullable = false)
     private String code;
-    
-    @Column(nullable = false, precision = 10, scale = 2)
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private DiscountType type = DiscountType.FIXED;
+
+    // Amount off for FIXED coupons
+    @Column(precision = 10, scale = 2)
     private BigDecimal discountAmount;
-    
+
+    // Percentage off for PERCENTAGE coupons, e.g. 15.00
+    @Column(precision = 5, scale = 2)
+    private BigDecimal percentOff;
+
+    // Upper bound on a PERCENTAGE discount; null for none
+    @Column(precision = 10, scale = 2)
+    private BigDecimal maxDiscount;
+
+    // Order total needed before the coupon applies; null for none
+    @Column(precision = 10, scale = 2)
+    private BigDecimal minSpend;
+
+    // Restricts the discount to lines of this product; null for the whole order
+    private Long productId;
+
+    // Redemptions allowed in total; null for unlimited
+    private Integer usageLimit;
+
+    // Owned by the engine's write-behind; saving a stale entity must not roll it back
+    @Column(nullable = false, updatable = false)
+    private Integer timesUsed = 0;
+
+    private LocalDateTime startsAt;
+
+    private LocalDateTime endsAt;
+
     @Column(nullable = false)
     private Boolean active = true;
+
+    @UpdateTimestamp
+    private LocalDateTime updatedAt;
+
+    public enum DiscountType {
+        FIXED, PERCENTAGE
+    }
 }
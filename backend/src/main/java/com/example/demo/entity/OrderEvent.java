@@ -0,0 +1,67 @@
+package com.example.demo.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.LocalDateTime;
+
+/**
+ * Outbox row written in the same transaction as the change it describes, then delivered to handlers by the
+ * {@code OutboxRelay}. Rows are claimed and settled by the relay over JDBC.
+ */
+@Entity
+@Table(name = "order_events", indexes =
+        @Index(name = "idx_order_events_status_next_attempt_at", columnList = "status, nextAttemptAt"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_events_seq")
+    @SequenceGenerator(name = "order_events_seq", sequenceName = "order_events_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long orderId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Type type;
+
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(nullable = false)
+    private String payload;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Status status = Status.PENDING;
+
+    // Deliveries started so far, including one still in progress
+    @Column(nullable = false)
+    private Integer attempts = 0;
+
+    // Due time of the next delivery; pushed out by a lease while a relay holds the event
+    @Column(nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    private LocalDateTime processedAt;
+
+    @Column(length = 1000)
+    private String lastError;
+
+    public enum Type {
+        ORDER_PLACED
+    }
+
+    public enum Status {
+        PENDING, PROCESSED, FAILED
+    }
+}
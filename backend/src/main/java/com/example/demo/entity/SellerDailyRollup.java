@@ -0,0 +1,53 @@
+package com.example.demo.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Sales of one product on one day, kept up to date by {@code SellerAnalyticsEngine} from order events. Amounts
+ * are added to with upserts, so the row is written over JDBC rather than through this entity.
+ */
+@Entity
+@Table(name = "seller_daily_rollups", indexes =
+        @Index(name = "idx_seller_daily_rollups_sale_date", columnList = "saleDate"))
+@IdClass(SellerDailyRollup.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SellerDailyRollup {
+
+    @Id
+    private Long sellerId;
+
+    @Id
+    private Long productId;
+
+    @Id
+    private LocalDate saleDate;
+
+    @Column(nullable = false)
+    private Long units;
+
+    // Quantity times price at purchase, before the order's discount
+    @Column(nullable = false, precision = 14, scale = 2)
+    private BigDecimal revenue;
+
+    // The share of order discounts that fell on this product's lines
+    @Column(nullable = false, precision = 14, scale = 2)
+    private BigDecimal discount;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long sellerId;
+        private Long productId;
+        private LocalDate saleDate;
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.demo.idempotency;
+
+import lombok.Getter;
+import org.springframework.http.HttpStatus;
+
+/**
+ * A request that cannot run under the key it was sent with: 409 while the first request with the key is
+ * still running, 422 when the key was already used for a different request.
+ */
+@Getter
+public class IdempotencyKeyException extends RuntimeException {
+
+    private final HttpStatus status;
+
+    public IdempotencyKeyException(HttpStatus status, String message) {
+        super(message);
+        this.status = status;
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.demo.idempotency;
+
+import java.time.Instant;
+
+/**
+ * Durable keys, shared by every node. Each method runs in the caller's transaction.
+ */
+public interface IdempotencyLedger {
+
+    /**
+     * Records the key for a request about to run, taking over the key if it has expired. Waits while another
+     * transaction holds the same key.
+     *
+     * @return {@code false} if the key is already taken
+     */
+    boolean claim(Long userId, String key, String requestHash, Instant now, Instant expiresAt);
+
+    /**
+     * Returns what is stored under a key, or {@code null} if nothing is.
+     */
+    StoredResponse find(Long userId, String key);
+
+    void complete(Long userId, String key, byte[] response);
+
+    int deleteExpired(Instant now);
+}
@@ -0,0 +1,27 @@
+package com.example.demo.idempotency;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "app.idempotency")
+public class IdempotencyProperties {
+
+    /**
+     * How long a completed key keeps answering retries with its stored response.
+     */
+    private Duration ttl = Duration.ofHours(24);
+
+    /**
+     * Heap budget for responses of recently completed keys; older ones are read back from the database.
+     */
+    private DataSize cacheMaxSize = DataSize.ofMegabytes(32);
+
+    /**
+     * How long a duplicate waits for the request already running under its key before giving up with 409.
+     */
+    private Duration waitTimeout = Duration.ofSeconds(10);
+}
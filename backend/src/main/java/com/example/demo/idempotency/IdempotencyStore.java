@@ -0,0 +1,177 @@
+package com.example.demo.idempotency;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Runs a request at most once per {@code Idempotency-Key} and answers retries with the response of the first
+ * run.
+ * <p>
+ * Responses of recently completed keys are kept in memory, so a retry storm is served from a map lookup. A
+ * duplicate that arrives while the first request is still running on this node waits for its result instead
+ * of starting another transaction. The key is also claimed in {@code idempotency_keys} inside the request's
+ * transaction and the response stored there before commit: the key and the work it guards commit or roll back
+ * together, duplicates on other nodes wait on the row, and retries after a restart find the stored response.
+ * Failed requests store nothing, so a retry runs again.
+ */
+@Slf4j
+@Component
+@EnableConfigurationProperties(IdempotencyProperties.class)
+public class IdempotencyStore {
+
+    private final IdempotencyLedger ledger;
+    private final TransactionOperations transactions;
+    private final IdempotencyProperties properties;
+
+    private final Cache<Scope, StoredResponse> completed;
+    private final ConcurrentHashMap<Scope, CompletableFuture<StoredResponse>> running = new ConcurrentHashMap<>();
+
+    @Autowired
+    public IdempotencyStore(IdempotencyLedger ledger, PlatformTransactionManager transactionManager,
+                            IdempotencyProperties properties, MeterRegistry meterRegistry) {
+        this(ledger, new TransactionTemplate(transactionManager), properties);
+        CaffeineCacheMetrics.monitor(meterRegistry, completed, "idempotency-keys");
+    }
+
+    IdempotencyStore(IdempotencyLedger ledger, TransactionOperations transactions, IdempotencyProperties properties) {
+        this.ledger = ledger;
+        this.transactions = transactions;
+        this.properties = properties;
+        this.completed = Caffeine.newBuilder()
+                .maximumWeight(properties.getCacheMaxSize().toBytes())
+                .weigher((Scope scope, StoredResponse response) -> scope.key().length() + response.body().length + 96)
+                .expireAfterWrite(properties.getTtl())
+                .recordStats()
+                .build();
+    }
+
+    private record Scope(Long userId, String key) {
+    }
+
+    /**
+     * The response body and whether it was replayed from an earlier run.
+     */
+    public record Result(byte[] body, boolean replayed) {
+    }
+
+    /**
+     * Runs {@code action} in a transaction unless {@code key} was already used by this user, in which case the
+     * stored response is returned without running it.
+     *
+     * @param request identifies the operation and its parameters; a key reused with a different one is refused
+     * @param action  does the work and returns the serialized response; joins the transaction started here
+     */
+    public Result execute(Long userId, String key, String request, Supplier<byte[]> action) {
+        if (key.isBlank() || key.length() > 255) {
+            throw new RuntimeException("Idempotency-Key must be between 1 and 255 characters");
+        }
+        Scope scope = new Scope(userId, key);
+        String requestHash = sha256(request);
+
+        StoredResponse stored = completed.getIfPresent(scope);
+        if (stored != null) {
+            return replay(stored, requestHash);
+        }
+
+        CompletableFuture<StoredResponse> mine = new CompletableFuture<>();
+        CompletableFuture<StoredResponse> first = running.putIfAbsent(scope, mine);
+        if (first != null) {
+            return replay(awaitFirst(first), requestHash);
+        }
+
+        try {
+            Result result = transactions.execute(status -> run(scope, requestHash, action));
+            // Cached before the key leaves the running map, so a newcomer always finds it in one or the other
+            completed.put(scope, new StoredResponse(requestHash, result.body()));
+            mine.complete(new StoredResponse(requestHash, result.body()));
+            return result;
+        } catch (RuntimeException | Error e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            running.remove(scope, mine);
+        }
+    }
+
+    private Result run(Scope scope, String requestHash, Supplier<byte[]> action) {
+        Instant now = Instant.now();
+        if (!ledger.claim(scope.userId(), scope.key(), requestHash, now, now.plus(properties.getTtl()))) {
+            // Completed earlier, by this node before a restart or by another node
+            StoredResponse stored = ledger.find(scope.userId(), scope.key());
+            if (stored == null || stored.body() == null) {
+                throw new IdempotencyKeyException(HttpStatus.CONFLICT,
+                        "A request with this Idempotency-Key is still in progress");
+            }
+            return replay(stored, requestHash);
+        }
+        byte[] body = action.get();
+        ledger.complete(scope.userId(), scope.key(), body);
+        return new Result(body, false);
+    }
+
+    private StoredResponse awaitFirst(CompletableFuture<StoredResponse> first) {
+        try {
+            return first.get(properties.getWaitTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new IdempotencyKeyException(HttpStatus.CONFLICT,
+                    "A request with this Idempotency-Key is still in progress");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IdempotencyKeyException(HttpStatus.CONFLICT,
+                    "A request with this Idempotency-Key is still in progress");
+        } catch (ExecutionException e) {
+            // The first run failed and stored nothing; the duplicate gets the same answer
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private static Result replay(StoredResponse stored, String requestHash) {
+        if (!stored.requestHash().equals(requestHash)) {
+            throw new IdempotencyKeyException(HttpStatus.UNPROCESSABLE_CONTENT,
+                    "Idempotency-Key was already used for a different request");
+        }
+        return new Result(stored.body(), true);
+    }
+
+    @Scheduled(fixedDelayString = "${app.idempotency.cleanup-interval-ms:3600000}")
+    public void deleteExpired() {
+        int deleted = ledger.deleteExpired(Instant.now());
+        if (deleted > 0) {
+            log.info("Deleted {} expired idempotency keys", deleted);
+        }
+    }
+
+    private static String sha256(String value) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
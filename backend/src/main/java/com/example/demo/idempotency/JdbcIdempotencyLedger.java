@@ -0,0 +1,49 @@
+package com.example.demo.idempotency;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+
+@Component
+@RequiredArgsConstructor
+public class JdbcIdempotencyLedger implements IdempotencyLedger {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public boolean claim(Long userId, String key, String requestHash, Instant now, Instant expiresAt) {
+        // A conflicting row of a transaction still in flight makes this wait for it to commit or roll back
+        return jdbcTemplate.update("""
+                INSERT INTO idempotency_keys (user_id, idem_key, request_hash, created_at, expires_at)
+                VALUES (?, ?, ?, ?, ?)
+                ON CONFLICT (user_id, idem_key) DO UPDATE
+                    SET request_hash = excluded.request_hash, response = NULL,
+                        created_at = excluded.created_at, expires_at = excluded.expires_at
+                    WHERE idempotency_keys.expires_at < excluded.created_at
+                """, userId, key, requestHash, Timestamp.from(now), Timestamp.from(expiresAt)) == 1;
+    }
+
+    @Override
+    public StoredResponse find(Long userId, String key) {
+        List<StoredResponse> found = jdbcTemplate.query(
+                "SELECT request_hash, response FROM idempotency_keys WHERE user_id = ? AND idem_key = ?",
+                (rs, rowNum) -> new StoredResponse(rs.getString("request_hash"), rs.getBytes("response")),
+                userId, key);
+        return found.isEmpty() ? null : found.get(0);
+    }
+
+    @Override
+    public void complete(Long userId, String key, byte[] response) {
+        jdbcTemplate.update("UPDATE idempotency_keys SET response = ? WHERE user_id = ? AND idem_key = ?",
+                response, userId, key);
+    }
+
+    @Override
+    public int deleteExpired(Instant now) {
+        return jdbcTemplate.update("DELETE FROM idempotency_keys WHERE expires_at < ?", Timestamp.from(now));
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.demo.idempotency;
+
+/**
+ * The response body recorded for a key, with the hash of the request that produced it.
+ */
+public record StoredResponse(String requestHash, byte[] body) {
+}
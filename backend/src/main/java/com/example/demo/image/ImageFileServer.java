@@ -0,0 +1,253 @@
+package com.example.demo.image;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Serves files under the upload directory. Small files are answered from a heap cache bounded by total bytes;
+ * larger ones are handed to Tomcat's sendfile, which copies them from the page cache to the socket without
+ * passing through the JVM. Content-addressed files never change, so they get their hash as a strong ETag and
+ * are cached by browsers for a year without revalidation. Files under other names may be replaced in place, so
+ * their cached entry is checked against the file's size and modification time on every hit. Single byte ranges
+ * are honored.
+ */
+@Component
+public class ImageFileServer {
+
+    private static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    // <hash[0..2]>/<hash>[-<variant>].<ext>, as written by ImageStorage and ImageVariantGenerator
+    private static final Pattern CONTENT_ADDRESSED = Pattern.compile("[0-9a-f]{2}/([0-9a-f]{64}(?:-[a-z]+)?)\\.[a-z]+");
+    private static final String IMMUTABLE = "public, max-age=31536000, immutable";
+    private static final String REVALIDATE = "public, max-age=3600";
+    private static final Pattern BYTE_RANGE = Pattern.compile("bytes=(\\d*)-(\\d*)");
+    private static final int ENTRY_OVERHEAD = 256;
+
+    private final Path root;
+    private final long cacheMaxFileSize;
+    private final Cache<String, ImageFile> files;
+
+    public ImageFileServer(ImageProperties properties, MeterRegistry meterRegistry) {
+        this.root = Paths.get(properties.getStorageDir()).toAbsolutePath().normalize();
+        this.cacheMaxFileSize = properties.getCacheMaxFileSize().toBytes();
+        this.files = Caffeine.newBuilder()
+                .maximumWeight(properties.getCacheMaxSize().toBytes())
+                .weigher((String path, ImageFile file) -> ENTRY_OVERHEAD + (file.content() == null ? 0 : file.content().length))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, files, "image-files");
+    }
+
+    public void serve(String relativePath, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        ImageFile file = lookup(relativePath);
+        if (file == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        response.setHeader(HttpHeaders.ETAG, file.etag());
+        response.setHeader(HttpHeaders.CACHE_CONTROL, file.immutable() ? IMMUTABLE : REVALIDATE);
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, file.lastModified());
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        if (matchesAny(request.getHeader(HttpHeaders.IF_NONE_MATCH), file.etag())) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        response.setContentType(file.contentType());
+        response.setHeader("X-Content-Type-Options", "nosniff");
+        if (!file.contentType().startsWith("image/")) {
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment");
+        }
+
+        Range range = Range.of(request.getHeader(HttpHeaders.RANGE), request.getHeader(HttpHeaders.IF_RANGE), file);
+        if (range == null) {
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + file.length());
+            response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+            return;
+        }
+        if (range.partial()) {
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setHeader(HttpHeaders.CONTENT_RANGE,
+                    "bytes " + range.start() + "-" + (range.end() - 1) + "/" + file.length());
+        }
+        response.setContentLengthLong(range.length());
+        if ("HEAD".equals(request.getMethod())) {
+            return;
+        }
+        write(file, range, request, response);
+    }
+
+    private void write(ImageFile file, Range range, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        if (file.content() != null) {
+            response.getOutputStream().write(file.content(), (int) range.start(), (int) range.length());
+            return;
+        }
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED))) {
+            request.setAttribute(SENDFILE_FILENAME, file.path().toString());
+            request.setAttribute(SENDFILE_START, range.start());
+            request.setAttribute(SENDFILE_END, range.end());
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file.path(), StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = range.start();
+            while (position < range.end()) {
+                long sent = channel.transferTo(position, range.end() - position, out);
+                if (sent <= 0) {
+                    break;
+                }
+                position += sent;
+            }
+        }
+    }
+
+    private ImageFile lookup(String relativePath) throws IOException {
+        ImageFile cached = files.getIfPresent(relativePath);
+        if (cached != null) {
+            if (cached.immutable() || unchanged(cached)) {
+                return cached;
+            }
+            files.invalidate(relativePath);
+        }
+
+        Path path = root.resolve(relativePath).normalize();
+        if (!path.startsWith(root) || path.equals(root) || isHidden(root.relativize(path))) {
+            return null;
+        }
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (IOException e) {
+            return null;
+        }
+        if (!attributes.isRegularFile()) {
+            return null;
+        }
+
+        Matcher contentAddressed = CONTENT_ADDRESSED.matcher(relativePath);
+        boolean immutable = contentAddressed.matches();
+        String etag = immutable
+                ? "\"" + contentAddressed.group(1) + "\""
+                : "\"" + Long.toHexString(attributes.size()) + "-" + Long.toHexString(attributes.lastModifiedTime().toMillis()) + "\"";
+        String contentType = MediaTypeFactory.getMediaType(path.getFileName().toString())
+                .orElse(MediaType.APPLICATION_OCTET_STREAM)
+                .toString();
+        byte[] content = attributes.size() <= cacheMaxFileSize ? Files.readAllBytes(path) : null;
+
+        ImageFile file = new ImageFile(path, attributes.size(), attributes.lastModifiedTime().toMillis(),
+                etag, contentType, immutable, content);
+        files.put(relativePath, file);
+        return file;
+    }
+
+    private static boolean unchanged(ImageFile file) {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(file.path(), BasicFileAttributes.class);
+            return attributes.isRegularFile() && attributes.size() == file.length()
+                    && attributes.lastModifiedTime().toMillis() == file.lastModified();
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static boolean isHidden(Path relative) {
+        for (Path segment : relative) {
+            if (segment.toString().startsWith(".")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean matchesAny(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Metadata of a served file, with its bytes when small enough to keep in memory.
+     */
+    private record ImageFile(Path path, long length, long lastModified, String etag, String contentType,
+                             boolean immutable, byte[] content) {
+    }
+
+    /**
+     * Bytes {@code [start, end)} of a file to send.
+     */
+    private record Range(long start, long end, boolean partial) {
+
+        long length() {
+            return end - start;
+        }
+
+        /**
+         * The requested single range, the whole file when the header is absent, malformed, stale per
+         * {@code If-Range} or asks for several ranges, or {@code null} when it lies outside the file.
+         */
+        static Range of(String header, String ifRange, ImageFile file) {
+            Range whole = new Range(0, file.length(), false);
+            if (header == null || (ifRange != null && !ifRange.equals(file.etag()))) {
+                return whole;
+            }
+            Matcher spec = BYTE_RANGE.matcher(header.trim());
+            if (!spec.matches() || (spec.group(1).isEmpty() && spec.group(2).isEmpty())) {
+                return whole;
+            }
+            try {
+                long length = file.length();
+                if (spec.group(1).isEmpty()) {
+                    long suffix = Long.parseLong(spec.group(2));
+                    return suffix == 0 ? null : new Range(Math.max(0, length - suffix), length, true);
+                }
+                long start = Long.parseLong(spec.group(1));
+                long end = length;
+                if (!spec.group(2).isEmpty()) {
+                    long last = Long.parseLong(spec.group(2));
+                    if (last < start) {
+                        return whole;
+                    }
+                    end = Math.min(last + 1, length);
+                }
+                return start >= length ? null : new Range(start, end, true);
+            } catch (NumberFormatException e) {
+                return whole;
+            }
+        }
+    }
+}
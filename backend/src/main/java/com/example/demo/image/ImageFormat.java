@@ -0,0 +1,59 @@
+package com.example.demo.image;
+
+import java.util.Optional;
+
+/**
+ * Accepted upload formats, recognized by their leading bytes rather than the client's file name or content type.
+ */
+public enum ImageFormat {
+
+    PNG("png", "png"),
+    JPEG("jpg", "jpg"),
+    GIF("gif", "png");
+
+    static final int SIGNATURE_LENGTH = 8;
+
+    private final String extension;
+    private final String variantExtension;
+
+    ImageFormat(String extension, String variantExtension) {
+        this.extension = extension;
+        this.variantExtension = variantExtension;
+    }
+
+    public String extension() {
+        return extension;
+    }
+
+    /**
+     * Variants keep transparency as PNG and photos as JPEG; GIF animation is not carried over.
+     */
+    public String variantExtension() {
+        return variantExtension;
+    }
+
+    static Optional<ImageFormat> detect(byte[] header, int length) {
+        if (startsWith(header, length, 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n')) {
+            return Optional.of(PNG);
+        }
+        if (startsWith(header, length, 0xFF, 0xD8, 0xFF)) {
+            return Optional.of(JPEG);
+        }
+        if (startsWith(header, length, 'G', 'I', 'F', '8')) {
+            return Optional.of(GIF);
+        }
+        return Optional.empty();
+    }
+
+    private static boolean startsWith(byte[] header, int length, int... signature) {
+        if (length < signature.length) {
+            return false;
+        }
+        for (int i = 0; i < signature.length; i++) {
+            if ((header[i] & 0xFF) != signature[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
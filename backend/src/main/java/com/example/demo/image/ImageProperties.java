@@ -0,0 +1,50 @@
+package com.example.demo.image;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Data
+@ConfigurationProperties(prefix = "app.images")
+public class ImageProperties {
+
+    /**
+     * Directory served under /uploads; originals and variants live in subdirectories named by hash prefix.
+     */
+    private String storageDir = "uploads";
+
+    /**
+     * Threads rendering variants in the background.
+     */
+    private int workers = 2;
+
+    /**
+     * Uploads waiting for variants beyond this are served from their original only.
+     */
+    private int queueCapacity = 256;
+
+    /**
+     * Heap budget for the bytes of hot images served from memory.
+     */
+    private DataSize cacheMaxSize = DataSize.ofMegabytes(64);
+
+    /**
+     * Files up to this size are kept in memory once requested; larger ones are always sent from disk.
+     */
+    private DataSize cacheMaxFileSize = DataSize.ofKilobytes(256);
+
+    /**
+     * Variants rendered for every upload, by name, as the longest edge in pixels.
+     */
+    private Map<String, Integer> variants = defaultVariants();
+
+    private static Map<String, Integer> defaultVariants() {
+        Map<String, Integer> variants = new LinkedHashMap<>();
+        variants.put("thumbnail", 200);
+        variants.put("medium", 600);
+        return variants;
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.demo.image;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Content-addressed store for uploaded originals. An upload is written once, hashing as it goes, to a temporary
+ * file which is then moved to {@code <hash[0..2]>/<hash>.<ext>}; uploading the same bytes again keeps the
+ * existing file and discards the new copy.
+ */
+@Component
+@EnableConfigurationProperties(ImageProperties.class)
+public class ImageStorage {
+
+    private static final long TRANSFER_CHUNK = 1 << 20;
+
+    private final Path root;
+    private final Path incoming;
+
+    public ImageStorage(ImageProperties properties) {
+        this.root = Paths.get(properties.getStorageDir()).toAbsolutePath().normalize();
+        this.incoming = root.resolve(".incoming");
+        try {
+            Files.createDirectories(incoming);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not create the image storage directory " + root, e);
+        }
+    }
+
+    public StoredImage store(MultipartFile file) {
+        if (file.isEmpty()) {
+            throw new RuntimeException("Image file is empty");
+        }
+        try {
+            Path temp = Files.createTempFile(incoming, "upload-", ".part");
+            try {
+                String hash = write(file, temp);
+                ImageFormat format = detectFormat(temp);
+                Path target = root.resolve(hash.substring(0, 2)).resolve(hash + "." + format.extension());
+                moveIntoPlace(temp, target);
+                return new StoredImage(hash, format, target);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not store the uploaded image", e);
+        }
+    }
+
+    /**
+     * Path of a stored file relative to the /uploads mapping, with forward slashes.
+     */
+    public String publicPath(Path file) {
+        return "/uploads/" + root.relativize(file).toString().replace('\\', '/');
+    }
+
+    private String write(MultipartFile file, Path temp) throws IOException {
+        MessageDigest digest = sha256();
+        try (InputStream in = new DigestInputStream(file.getInputStream(), digest);
+             ReadableByteChannel source = Channels.newChannel(in);
+             FileChannel target = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+            long position = 0;
+            long transferred;
+            while ((transferred = target.transferFrom(source, position, TRANSFER_CHUNK)) > 0) {
+                position += transferred;
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static ImageFormat detectFormat(Path file) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(ImageFormat.SIGNATURE_LENGTH);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (header.hasRemaining() && channel.read(header) > 0) {
+                // keep reading until the signature is complete or the file ends
+            }
+        }
+        return ImageFormat.detect(header.array(), header.position())
+                .orElseThrow(() -> new RuntimeException("Unsupported image type; upload a PNG, JPEG or GIF"));
+    }
+
+    private static void moveIntoPlace(Path temp, Path target) throws IOException {
+        if (Files.exists(target)) {
+            return;
+        }
+        Files.createDirectories(target.getParent());
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException e) {
+            // the same content arrived concurrently; either copy is the original
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.demo.image;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Renders the configured size variants of stored images on a small fixed pool with a bounded queue, so uploads
+ * return as soon as the original is on disk. Each variant appears atomically under its final name once written;
+ * until then, and for uploads rejected by a full queue, only the original exists.
+ */
+@Slf4j
+@Component
+public class ImageVariantGenerator {
+
+    private final Map<String, Integer> variants;
+    private final int largestVariant;
+    private final ThreadPoolExecutor executor;
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+
+    public ImageVariantGenerator(ImageProperties properties) {
+        this.variants = Collections.unmodifiableMap(new LinkedHashMap<>(properties.getVariants()));
+        this.largestVariant = variants.isEmpty() ? 0 : Collections.max(variants.values());
+        this.executor = new ThreadPoolExecutor(properties.getWorkers(), properties.getWorkers(),
+                0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(properties.getQueueCapacity()),
+                Thread.ofPlatform().name("image-variants-", 0).daemon().factory());
+    }
+
+    public Set<String> variantNames() {
+        return variants.keySet();
+    }
+
+    /**
+     * Queues rendering of any missing variants; a no-op when they all exist or are already being rendered.
+     */
+    public void generate(StoredImage image) {
+        if (variants.keySet().stream().allMatch(name -> Files.exists(image.variantPath(name)))
+                || !pending.add(image.hash())) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    render(image);
+                } catch (Exception e) {
+                    log.warn("Could not render variants of image {}", image.hash(), e);
+                } finally {
+                    pending.remove(image.hash());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            pending.remove(image.hash());
+            log.warn("Variant queue full; image {} is served at its original size only", image.hash());
+        }
+    }
+
+    void render(StoredImage image) throws IOException {
+        BufferedImage source = read(image.path());
+        for (Map.Entry<String, Integer> variant : variants.entrySet()) {
+            Path target = image.variantPath(variant.getKey());
+            if (Files.exists(target)) {
+                continue;
+            }
+            BufferedImage scaled = scale(source, variant.getValue(), image.format() == ImageFormat.JPEG);
+            Path temp = Files.createTempFile(target.getParent(), ".variant-", ".part");
+            try {
+                ImageIO.write(scaled, image.format().variantExtension().equals("jpg") ? "jpeg" : "png", temp.toFile());
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        }
+    }
+
+    /**
+     * Decodes the original, skipping pixels that even the largest variant would not use.
+     */
+    private BufferedImage read(Path file) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(file.toFile())) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                throw new IOException("No decoder for " + file);
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int longestEdge = Math.max(reader.getWidth(0), reader.getHeight(0));
+                int subsampling = Math.max(1, longestEdge / Math.max(1, largestVariant * 2));
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Fits the image within a square of {@code size}, halving first for large reductions so bilinear filtering
+     * keeps detail. Never enlarges.
+     */
+    static BufferedImage scale(BufferedImage source, int size, boolean opaque) {
+        double ratio = Math.min(1.0, (double) size / Math.max(source.getWidth(), source.getHeight()));
+        int width = Math.max(1, (int) Math.round(source.getWidth() * ratio));
+        int height = Math.max(1, (int) Math.round(source.getHeight() * ratio));
+        int type = opaque ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB;
+
+        BufferedImage current = source;
+        do {
+            int stepWidth = Math.max(width, current.getWidth() / 2);
+            int stepHeight = Math.max(height, current.getHeight() / 2);
+            BufferedImage step = new BufferedImage(stepWidth, stepHeight, type);
+            Graphics2D graphics = step.createGraphics();
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                graphics.drawImage(current, 0, 0, stepWidth, stepHeight, null);
+            } finally {
+                graphics.dispose();
+            }
+            current = step;
+        } while (current.getWidth() != width || current.getHeight() != height);
+        return current;
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+}
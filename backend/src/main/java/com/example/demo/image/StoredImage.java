@@ -0,0 +1,13 @@
+package com.example.demo.image;
+
+import java.nio.file.Path;
+
+/**
+ * An original upload, named by the SHA-256 of its content.
+ */
+public record StoredImage(String hash, ImageFormat format, Path path) {
+
+    public Path variantPath(String variant) {
+        return path.resolveSibling(hash + "-" + variant + "." + format.variantExtension());
+    }
+}
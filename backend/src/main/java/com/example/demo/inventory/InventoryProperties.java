@@ -0,0 +1,48 @@
+package com.example.demo.inventory;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "app.inventory")
+public class InventoryProperties {
+
+    /**
+     * Serve checkout stock from the in-memory reservation engine instead of locking product rows.
+     */
+    private boolean reservationsEnabled = false;
+
+    /**
+     * Counter stripes per product; more stripes spread contention on hot SKUs.
+     */
+    private int stripes = 8;
+
+    /**
+     * Reservations not committed or released within this time give their units back.
+     */
+    private Duration reservationTtl = Duration.ofMinutes(5);
+
+    /**
+     * Milliseconds between sweeps that release expired reservations; read by the scheduler.
+     */
+    private long expiryCheckMs = 1000;
+
+    /**
+     * Milliseconds between write-behind batches of committed units; read by the scheduler.
+     */
+    private long flushIntervalMs = 200;
+
+    /**
+     * Append-only log used to rebuild reservations after a restart.
+     */
+    private String journalPath = "data/stock-reservations.journal";
+
+    /**
+     * After a write-behind batch, a journal larger than this is rewritten with only the reservations still live.
+     */
+    private DataSize journalCompactionThreshold = DataSize.ofMegabytes(16);
+}
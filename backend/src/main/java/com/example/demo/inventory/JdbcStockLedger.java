@@ -0,0 +1,52 @@
+package com.example.demo.inventory;
+
+import com.example.demo.cache.ProductChangedEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@Component
+@RequiredArgsConstructor
+public class JdbcStockLedger implements StockLedger {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Override
+    public int loadStock(Long productId) {
+        List<Integer> stock = jdbcTemplate.queryForList("SELECT stock FROM products WHERE id = ?", Integer.class, productId);
+        return stock.isEmpty() ? 0 : stock.get(0);
+    }
+
+    @Override
+    @Transactional
+    public void applyDecrements(Map<Long, Integer> decrements) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> args = new ArrayList<>(decrements.size());
+        // Sorted so concurrent flushes from several nodes lock rows in the same order
+        decrements.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .forEach(e -> args.add(new Object[]{e.getValue(), now, e.getKey()}));
+
+        // Stock was already enforced in memory; the floor only guards against a concurrent seller edit
+        jdbcTemplate.batchUpdate("UPDATE products SET stock = GREATEST(stock - ?, 0), updated_at = ? WHERE id = ?", args);
+        decrements.keySet().forEach(id -> eventPublisher.publishEvent(ProductChangedEvent.stockChanged(id)));
+    }
+
+    @Override
+    public Set<Long> writtenOrders(Collection<Long> orderIds) {
+        return new HashSet<>(jdbcTemplate.queryForList("SELECT id FROM orders WHERE id = ANY(?)", Long.class,
+                (Object) orderIds.toArray(Long[]::new)));
+    }
+}
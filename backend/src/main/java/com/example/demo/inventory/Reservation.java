@@ -0,0 +1,10 @@
+package com.example.demo.inventory;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Units of one product held for a checkout until they are committed, released or expire.
+ */
+public record Reservation(UUID id, Long productId, int quantity, Instant expiresAt) {
+}
@@ -0,0 +1,309 @@
+package com.example.demo.inventory;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Append-only record of reservation state changes, one line per event:
+ * <pre>
+ * R &lt;id&gt; &lt;productId&gt; &lt;quantity&gt; &lt;expiresAtMillis&gt;             reserved
+ * P &lt;id&gt; &lt;productId&gt; &lt;quantity&gt; &lt;expiresAtMillis&gt; &lt;orderId&gt;   order transaction about to commit
+ * C &lt;id&gt;                                                        committed, decrement not yet in the database
+ * X &lt;id&gt;                                                        released or expired
+ * F &lt;id&gt;                                                        decrement written to the database
+ * </pre>
+ * Events are queued without locking and written in groups, one write call for everything queued. A prepare is
+ * forced to disk before the order transaction commits, so a committed order always leaves a record of its
+ * units; one without a later commit or release is settled at recovery by whether its order was written.
+ * Commits and flushes write the queue before they return, so they survive a process crash, and reservations
+ * and releases ride along with the next of those or with {@link #writePending()}. A crash can lose a
+ * reservation whose checkout died with the process, or a release, which then lapses at its expiry.
+ * {@link #sync()} forces the writes to disk, once for every caller whose events it covers.
+ * <p>
+ * The file is rewritten with only the live reservations at startup, and by {@link #compact} once it has grown
+ * past a threshold. Guarded by a {@link ReentrantLock} rather than {@code synchronized} so virtual threads do
+ * not pin on the write.
+ */
+class ReservationJournal implements Closeable {
+
+    record Recovered(List<Reservation> active, List<Prepared> prepared, List<Reservation> committed) {
+    }
+
+    /**
+     * A reservation whose order, {@code orderId}, was being committed.
+     */
+    record Prepared(Reservation reservation, Long orderId) {
+    }
+
+    private final Path path;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ConcurrentLinkedQueue<String> pending = new ConcurrentLinkedQueue<>();
+    private FileChannel channel;
+    // Written since the last force; guarded by the lock
+    private boolean unsynced;
+
+    ReservationJournal(Path path) {
+        this.path = path;
+    }
+
+    /**
+     * Reads the journal, then rewrites it with only the reservations that are still live. A prepared reservation
+     * that was neither committed nor released counts as committed if its order is among those
+     * {@code writtenOrders} returns, and as released otherwise.
+     */
+    Recovered recover(Function<Collection<Long>, Set<Long>> writtenOrders) {
+        Map<UUID, Reservation> reserved = new LinkedHashMap<>();
+        Map<UUID, Prepared> prepared = new LinkedHashMap<>();
+        Map<UUID, Reservation> committed = new LinkedHashMap<>();
+
+        if (Files.exists(path)) {
+            try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    String[] parts = line.split(" ");
+                    UUID id = parseId(parts);
+                    if (id == null) {
+                        continue; // torn last line after a crash
+                    }
+                    switch (parts[0]) {
+                        case "R" -> {
+                            if (parts.length == 5) {
+                                reserved.put(id, parseReservation(id, parts));
+                            }
+                        }
+                        case "P" -> {
+                            if (parts.length == 6) {
+                                prepared.put(id, new Prepared(parseReservation(id, parts), Long.parseLong(parts[5])));
+                            }
+                        }
+                        case "C" -> {
+                            Reservation reservation = reserved.remove(id);
+                            Prepared prepare = prepared.remove(id);
+                            if (reservation == null && prepare != null) {
+                                // Expired before its order committed, then taken again
+                                reservation = prepare.reservation();
+                            }
+                            if (reservation != null) {
+                                committed.put(id, reservation);
+                            }
+                        }
+                        case "X" -> reserved.remove(id);
+                        case "F" -> committed.remove(id);
+                        default -> {
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not read reservation journal " + path, e);
+            }
+        }
+
+        if (!prepared.isEmpty()) {
+            Set<Long> written = writtenOrders.apply(prepared.values().stream().map(Prepared::orderId).toList());
+            for (Prepared prepare : prepared.values()) {
+                reserved.remove(prepare.reservation().id());
+                if (written.contains(prepare.orderId())) {
+                    committed.put(prepare.reservation().id(), prepare.reservation());
+                }
+            }
+        }
+
+        Recovered recovered = new Recovered(new ArrayList<>(reserved.values()), List.of(),
+                new ArrayList<>(committed.values()));
+        lock.lock();
+        try {
+            rewrite(recovered);
+        } finally {
+            lock.unlock();
+        }
+        return recovered;
+    }
+
+    private static Reservation parseReservation(UUID id, String[] parts) {
+        return new Reservation(id, Long.parseLong(parts[2]), Integer.parseInt(parts[3]),
+                Instant.ofEpochMilli(Long.parseLong(parts[4])));
+    }
+
+    private static UUID parseId(String[] parts) {
+        if (parts.length < 2) {
+            return null;
+        }
+        try {
+            return UUID.fromString(parts[1]);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private void rewrite(Recovered state) {
+        try {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            Path compacted = path.resolveSibling(path.getFileName() + ".tmp");
+            StringBuilder content = new StringBuilder();
+            state.active().forEach(r -> content.append(reservedLine(r)));
+            state.prepared().forEach(p -> content.append(preparedLine(p.reservation(), p.orderId())));
+            state.committed().forEach(r -> content.append(reservedLine(r)).append("C ").append(r.id()).append('\n'));
+            try (FileChannel out = FileChannel.open(compacted, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                write(out, content.toString());
+                out.force(false);
+            }
+            Files.move(compacted, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            closeChannel();
+            channel = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            unsynced = false;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not compact reservation journal " + path, e);
+        }
+    }
+
+    void reserved(Reservation reservation) {
+        pending.add(reservedLine(reservation));
+    }
+
+    /**
+     * Writes and forces the prepares before returning.
+     */
+    void prepared(Collection<Reservation> reservations, Long orderId) {
+        reservations.forEach(r -> pending.add(preparedLine(r, orderId)));
+        sync();
+    }
+
+    void committed(Collection<Reservation> reservations) {
+        reservations.forEach(r -> pending.add("C " + r.id() + "\n"));
+        writePending();
+    }
+
+    void released(UUID id) {
+        pending.add("X " + id + "\n");
+    }
+
+    void flushed(Collection<Reservation> reservations) {
+        reservations.forEach(r -> pending.add("F " + r.id() + "\n"));
+        writePending();
+    }
+
+    /**
+     * Writes every queued event in one call; a caller finding its events already written by another returns
+     * without a write.
+     */
+    void writePending() {
+        lock.lock();
+        try {
+            writePendingLocked();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not append to reservation journal " + path, e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Rewrites the journal with {@code state}, the reservations still live, once it is larger than
+     * {@code threshold} bytes. Events queued while the state is read are appended after it; one that repeats
+     * what the state already holds replays harmlessly.
+     */
+    boolean compact(long threshold, Supplier<Recovered> state) {
+        lock.lock();
+        try {
+            writePendingLocked();
+            if (channel.size() <= threshold) {
+                return false;
+            }
+            rewrite(state.get());
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not compact reservation journal " + path, e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Writes what is queued and forces it to disk, unless another caller's force already covered it.
+     */
+    void sync() {
+        lock.lock();
+        try {
+            writePendingLocked();
+            if (unsynced) {
+                channel.force(false);
+                unsynced = false;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not sync reservation journal " + path, e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static String reservedLine(Reservation r) {
+        return "R " + r.id() + " " + r.productId() + " " + r.quantity() + " " + r.expiresAt().toEpochMilli() + "\n";
+    }
+
+    private static String preparedLine(Reservation r, Long orderId) {
+        return "P " + r.id() + " " + r.productId() + " " + r.quantity() + " " + r.expiresAt().toEpochMilli()
+                + " " + orderId + "\n";
+    }
+
+    private void writePendingLocked() throws IOException {
+        StringBuilder lines = new StringBuilder();
+        String line;
+        while ((line = pending.poll()) != null) {
+            lines.append(line);
+        }
+        if (!lines.isEmpty()) {
+            write(channel, lines.toString());
+            unsynced = true;
+        }
+    }
+
+    private static void write(FileChannel channel, String lines) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(lines.getBytes(StandardCharsets.UTF_8));
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private void closeChannel() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            writePendingLocked();
+            closeChannel();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.demo.inventory;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Durable stock the reservation engine reads on first access and writes behind to.
+ */
+public interface StockLedger {
+
+    /**
+     * Returns the persisted stock of a product, or 0 if it does not exist.
+     */
+    int loadStock(Long productId);
+
+    /**
+     * Subtracts the given quantities, one coalesced amount per product.
+     */
+    void applyDecrements(Map<Long, Integer> decrements);
+
+    /**
+     * Returns those of the given orders that were committed.
+     */
+    Set<Long> writtenOrders(Collection<Long> orderIds);
+}
@@ -0,0 +1,252 @@
+package com.example.demo.inventory;
+
+import com.example.demo.concurrency.StripedCounter;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Keeps available stock of every product touched since startup in memory, so checkout reserves units
+ * with CAS operations instead of locking product rows.
+ * <p>
+ * A reservation is taken per cart line, prepared with its order id just before the order transaction commits,
+ * then committed once it has or released when it rolls back. Committed units are written behind to
+ * {@code products.stock} in coalesced batches. On startup, live reservations and unflushed commits are
+ * replayed from the {@link ReservationJournal}, with prepared ones that never settled counted as committed if
+ * their order exists; counters are then rebuilt lazily as database stock minus those outstanding units.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "app.inventory", name = "reservations-enabled", havingValue = "true")
+@EnableConfigurationProperties(InventoryProperties.class)
+public class StockReservationEngine {
+
+    private final StockLedger ledger;
+    private final InventoryProperties properties;
+    private final ReservationJournal journal;
+
+    private final ConcurrentHashMap<Long, StripedCounter> counters = new ConcurrentHashMap<>();
+    // Database stock each loaded counter was last based on, less what has been flushed since; guarded by ledgerLock
+    private final Map<Long, Integer> baseStock = new HashMap<>();
+    private final ConcurrentHashMap<UUID, Reservation> reservations = new ConcurrentHashMap<>();
+    // Reservations whose order is committing; still held in reservations, but no longer left to expire
+    private final ConcurrentHashMap<UUID, ReservationJournal.Prepared> prepared = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Reservation> committed = new ConcurrentLinkedQueue<>();
+
+    // Held while loading a counter or writing a batch, so a load never misses units that are mid-flush
+    private final ReentrantLock ledgerLock = new ReentrantLock();
+
+    public StockReservationEngine(StockLedger ledger, InventoryProperties properties) {
+        this.ledger = ledger;
+        this.properties = properties;
+        this.journal = new ReservationJournal(Path.of(properties.getJournalPath()));
+
+        ReservationJournal.Recovered recovered = journal.recover(ledger::writtenOrders);
+        recovered.active().forEach(r -> reservations.put(r.id(), r));
+        committed.addAll(recovered.committed());
+        if (!recovered.active().isEmpty() || !recovered.committed().isEmpty()) {
+            log.info("Recovered {} active reservations and {} unflushed commits from {}",
+                    recovered.active().size(), recovered.committed().size(), properties.getJournalPath());
+        }
+    }
+
+    /**
+     * Holds {@code quantity} units of a product, or returns {@code null} when not enough are available.
+     */
+    public Reservation reserve(Long productId, int quantity) {
+        if (!counterFor(productId).tryAcquire(quantity)) {
+            return null;
+        }
+        Reservation reservation = new Reservation(UUID.randomUUID(), productId, quantity,
+                Instant.now().plus(properties.getReservationTtl()));
+        reservations.put(reservation.id(), reservation);
+        journal.reserved(reservation);
+        return reservation;
+    }
+
+    /**
+     * Reserves every line or none of them. Lines are taken in product id order.
+     *
+     * @return the reservations, or {@code null} with nothing held if any product is short
+     */
+    public List<Reservation> reserveAll(Map<Long, Integer> quantities) {
+        List<Reservation> taken = new ArrayList<>(quantities.size());
+        for (Long productId : quantities.keySet().stream().sorted().toList()) {
+            Reservation reservation = reserve(productId, quantities.get(productId));
+            if (reservation == null) {
+                release(taken);
+                return null;
+            }
+            taken.add(reservation);
+        }
+        return taken;
+    }
+
+    /**
+     * Records on disk that the reservations belong to {@code orderId}, whose transaction is about to commit, so
+     * that a crash after the order commits and before {@link #commit} still leaves its units outstanding.
+     */
+    public void prepare(Collection<Reservation> toPrepare, Long orderId) {
+        toPrepare.forEach(r -> prepared.put(r.id(), new ReservationJournal.Prepared(r, orderId)));
+        journal.prepared(toPrepare, orderId);
+    }
+
+    /**
+     * Makes the reservations permanent and queues their units for the next write-behind batch.
+     */
+    public void commit(Collection<Reservation> toCommit) {
+        for (Reservation reservation : toCommit) {
+            // Queued before removal so a concurrent counter load sees the units in one place or the other
+            committed.add(reservation);
+            prepared.remove(reservation.id());
+            if (reservations.remove(reservation.id()) == null) {
+                log.warn("Committed reservation {} had already expired; product {} may be oversold by {}",
+                        reservation.id(), reservation.productId(), reservation.quantity());
+                counterFor(reservation.productId()).tryAcquire(reservation.quantity());
+            }
+        }
+        journal.committed(toCommit);
+    }
+
+    public void release(Collection<Reservation> toRelease) {
+        for (Reservation reservation : toRelease) {
+            prepared.remove(reservation.id());
+            if (reservations.remove(reservation.id()) != null) {
+                counterFor(reservation.productId()).release(reservation.quantity());
+                journal.released(reservation.id());
+            }
+        }
+    }
+
+    public int available(Long productId) {
+        return counterFor(productId).available();
+    }
+
+    /**
+     * Moves a loaded counter in place by however far the product's stock was changed outside the engine. The
+     * change is measured against the stock the counter was based on, so reservations taken or released while
+     * it runs are neither read nor disturbed.
+     */
+    public void recount(Long productId) {
+        // Waits for a load in progress, which may have read the stock from before the change
+        counters.computeIfPresent(productId, (id, counter) -> {
+            ledgerLock.lock();
+            try {
+                int stock = ledger.loadStock(id);
+                counter.adjust(stock - baseStock.put(id, stock));
+            } finally {
+                ledgerLock.unlock();
+            }
+            return counter;
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${app.inventory.expiry-check-ms:1000}")
+    public void expireReservations() {
+        Instant now = Instant.now();
+        List<Reservation> expired = reservations.values().stream()
+                .filter(r -> r.expiresAt().isBefore(now) && !prepared.containsKey(r.id()))
+                .toList();
+        if (!expired.isEmpty()) {
+            log.info("Releasing {} expired stock reservations", expired.size());
+            release(expired);
+        }
+    }
+
+    /**
+     * Writes committed units to the database, one coalesced decrement per product, then compacts the journal
+     * once it has outgrown its threshold.
+     */
+    @Scheduled(fixedDelayString = "${app.inventory.flush-interval-ms:200}")
+    public void flush() {
+        ledgerLock.lock();
+        try {
+            writeBehind();
+            journal.compact(properties.getJournalCompactionThreshold().toBytes(), () ->
+                    new ReservationJournal.Recovered(List.copyOf(reservations.values()), List.copyOf(prepared.values()),
+                            List.copyOf(committed)));
+        } finally {
+            ledgerLock.unlock();
+        }
+    }
+
+    private void writeBehind() {
+        journal.writePending();
+        List<Reservation> batch = new ArrayList<>();
+        Reservation next;
+        while ((next = committed.poll()) != null) {
+            batch.add(next);
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        Map<Long, Integer> decrements = new HashMap<>();
+        batch.forEach(r -> decrements.merge(r.productId(), r.quantity(), Integer::sum));
+
+        try {
+            ledger.applyDecrements(decrements);
+        } catch (RuntimeException e) {
+            log.warn("Stock write-behind failed for {} products, retrying next cycle", decrements.size(), e);
+            committed.addAll(batch);
+            return;
+        }
+        decrements.forEach((id, quantity) -> baseStock.computeIfPresent(id, (k, stock) -> Math.max(0, stock - quantity)));
+        // A crash before this line replays the batch and decrements twice; that can only undersell
+        journal.flushed(batch);
+        journal.sync();
+    }
+
+    @PreDestroy
+    public void shutdown() throws IOException {
+        flush();
+        journal.close();
+    }
+
+    private StripedCounter counterFor(Long productId) {
+        StripedCounter counter = counters.get(productId);
+        return counter != null ? counter : counters.computeIfAbsent(productId, this::loadCounter);
+    }
+
+    private StripedCounter loadCounter(Long productId) {
+        ledgerLock.lock();
+        try {
+            int stock = ledger.loadStock(productId);
+            baseStock.put(productId, stock);
+            return new StripedCounter(properties.getStripes(), Math.max(0, stock - outstanding(productId)));
+        } finally {
+            ledgerLock.unlock();
+        }
+    }
+
+    // Reservations before commits, since commit queues a reservation before removing it
+    private int outstanding(Long productId) {
+        return sumFor(productId, reservations.values()) + sumFor(productId, committed);
+    }
+
+    private static int sumFor(Long productId, Collection<Reservation> source) {
+        int sum = 0;
+        for (Reservation reservation : source) {
+            if (reservation.productId().equals(productId)) {
+                sum += reservation.quantity();
+            }
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.demo.metrics;
+
+import io.jsonwebtoken.ExpiredJwtException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+/**
+ * Counters for outcomes on the request hot path. Every tag combination is registered up front, so counting is
+ * a single add with no lookup or allocation.
+ */
+@Component
+public class HotPathMetrics {
+
+    private final Counter jwtExpired;
+    private final Counter jwtInvalid;
+    private final Counter jwtRevoked;
+    private final Counter stockRejectedInCart;
+    private final Counter stockRejectedAtCheckout;
+    private final Counter couponApplied;
+    private final Counter couponInvalid;
+    private final Counter loginThrottledByUsername;
+    private final Counter loginThrottledByAddress;
+    private final Counter loginShed;
+    private final Counter unknownUsernameSkipped;
+
+    public HotPathMetrics(MeterRegistry meterRegistry) {
+        this.jwtExpired = jwtRejected(meterRegistry, "expired");
+        this.jwtInvalid = jwtRejected(meterRegistry, "invalid");
+        this.jwtRevoked = jwtRejected(meterRegistry, "revoked");
+        this.stockRejectedInCart = stockRejected(meterRegistry, "cart");
+        this.stockRejectedAtCheckout = stockRejected(meterRegistry, "checkout");
+        this.couponApplied = couponLookup(meterRegistry, "applied");
+        this.couponInvalid = couponLookup(meterRegistry, "invalid");
+        this.loginThrottledByUsername = loginThrottled(meterRegistry, "username");
+        this.loginThrottledByAddress = loginThrottled(meterRegistry, "address");
+        this.loginShed = loginThrottled(meterRegistry, "overloaded");
+        this.unknownUsernameSkipped = Counter.builder("auth.unknown.usernames")
+                .description("Sign-ins for usernames the filter shows do not exist, answered without a query")
+                .register(meterRegistry);
+    }
+
+    public void jwtRejected(Exception cause) {
+        (cause instanceof ExpiredJwtException ? jwtExpired : jwtInvalid).increment();
+    }
+
+    public void jwtRevoked() {
+        jwtRevoked.increment();
+    }
+
+    public void stockRejectedInCart() {
+        stockRejectedInCart.increment();
+    }
+
+    public void stockRejectedAtCheckout() {
+        stockRejectedAtCheckout.increment();
+    }
+
+    public void couponLookup(boolean applied) {
+        (applied ? couponApplied : couponInvalid).increment();
+    }
+
+    public void loginThrottled(boolean byUsername) {
+        (byUsername ? loginThrottledByUsername : loginThrottledByAddress).increment();
+    }
+
+    public void passwordHashShed() {
+        loginShed.increment();
+    }
+
+    public void unknownUsernameSkipped() {
+        unknownUsernameSkipped.increment();
+    }
+
+    private static Counter jwtRejected(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("jwt.rejected")
+                .description("Bearer tokens that failed verification; the request continues unauthenticated")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    private static Counter stockRejected(MeterRegistry meterRegistry, String stage) {
+        return Counter.builder("stock.insufficient")
+                .description("Cart changes and checkouts refused for lack of stock")
+                .tag("stage", stage)
+                .register(meterRegistry);
+    }
+
+    private static Counter couponLookup(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("coupon.lookups")
+                .description("Coupon codes looked up at checkout")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private static Counter loginThrottled(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("auth.throttled")
+                .description("Sign-ins refused by the rate limits, and password hashes shed while the hashing queue was full")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+}
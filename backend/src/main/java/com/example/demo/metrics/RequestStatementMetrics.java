@@ -0,0 +1,72 @@
+package com.example.demo.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.Ordered;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Records how many JDBC statements each request prepares, as {@code jdbc.statements.per.request} tagged with
+ * the matched URI pattern. Statements are counted by {@link StatementCountingDataSource} into a per-thread
+ * counter that is reused from request to request; work done on other threads, such as the async part of a
+ * streamed response or a write-behind flush, is not attributed to the request.
+ */
+public class RequestStatementMetrics extends OncePerRequestFilter implements Ordered {
+
+    private static final int OUTSIDE_REQUEST = -1;
+    private static final ThreadLocal<int[]> STATEMENTS = ThreadLocal.withInitial(() -> new int[]{OUTSIDE_REQUEST});
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, DistributionSummary> summaries = new ConcurrentHashMap<>();
+
+    public RequestStatementMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    static void statementPrepared() {
+        int[] statements = STATEMENTS.get();
+        if (statements[0] != OUTSIDE_REQUEST) {
+            statements[0]++;
+        }
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        int[] statements = STATEMENTS.get();
+        statements[0] = 0;
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            summaryFor(request).record(statements[0]);
+            statements[0] = OUTSIDE_REQUEST;
+        }
+    }
+
+    private DistributionSummary summaryFor(HttpServletRequest request) {
+        String uri = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE) instanceof String pattern
+                ? pattern
+                : "UNKNOWN";
+        DistributionSummary summary = summaries.get(uri);
+        return summary != null ? summary : summaries.computeIfAbsent(uri, u -> DistributionSummary
+                .builder("jdbc.statements.per.request")
+                .description("JDBC statements prepared while serving a request")
+                .baseUnit("statements")
+                .tag("uri", u)
+                .register(meterRegistry));
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.demo.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times every call to a service method as {@code service.method}, tagged with class, method and outcome.
+ * The timers of a method are registered on its first call and looked up by {@link Method} afterwards, so
+ * recording a call allocates nothing.
+ */
+class ServiceMethodTimer implements MethodInterceptor {
+
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+    private final Map<Method, Timers> timers = new ConcurrentHashMap<>();
+
+    ServiceMethodTimer(ObjectProvider<MeterRegistry> meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        Timers timers = timersFor(invocation);
+        long started = System.nanoTime();
+        try {
+            Object result = invocation.proceed();
+            timers.success().record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            return result;
+        } catch (Throwable e) {
+            timers.error().record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            throw e;
+        }
+    }
+
+    private Timers timersFor(MethodInvocation invocation) {
+        Timers existing = timers.get(invocation.getMethod());
+        if (existing != null) {
+            return existing;
+        }
+        return timers.computeIfAbsent(invocation.getMethod(), method -> {
+            String className = AopUtils.getTargetClass(invocation.getThis()).getSimpleName();
+            return new Timers(timer(className, method, "success"), timer(className, method, "error"));
+        });
+    }
+
+    private Timer timer(String className, Method method, String outcome) {
+        return Timer.builder("service.method")
+                .description("Time spent in service methods, including their transactions")
+                .tag("class", className)
+                .tag("method", method.getName())
+                .tag("outcome", outcome)
+                .register(meterRegistry.getObject());
+    }
+
+    private record Timers(Timer success, Timer error) {
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.demo.outbox;
+
+import com.example.demo.entity.OrderEvent;
+
+/**
+ * An event leased to a relay for one delivery attempt; {@code attempts} includes this one.
+ */
+public record ClaimedEvent(Long id, OrderEvent.Type type, String payload, int attempts) {
+}
@@ -0,0 +1,9 @@
+package com.example.demo.outbox;
+
+import java.time.LocalDateTime;
+
+/**
+ * A delivery that threw. The event is retried at {@code retryAt} unless {@code giveUp} is set.
+ */
+public record DeliveryFailure(Long id, boolean giveUp, LocalDateTime retryAt, String error) {
+}
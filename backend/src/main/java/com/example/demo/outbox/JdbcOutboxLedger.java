@@ -0,0 +1,74 @@
+package com.example.demo.outbox;
+
+import com.example.demo.entity.OrderEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Every method is a single auto-committed statement, so no transaction or row lock is held while handlers run.
+ */
+@Component
+@RequiredArgsConstructor
+public class JdbcOutboxLedger implements OutboxLedger {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public List<ClaimedEvent> claim(int limit, LocalDateTime now, LocalDateTime leaseUntil) {
+        // RETURNING yields rows in no particular order, so they are sorted once leased
+        return jdbcTemplate.query("""
+                        WITH leased AS (
+                            UPDATE order_events SET attempts = attempts + 1, next_attempt_at = ?
+                            WHERE id IN (SELECT id FROM order_events
+                                         WHERE status = 'PENDING' AND next_attempt_at <= ?
+                                         ORDER BY id LIMIT ?
+                                         FOR UPDATE SKIP LOCKED)
+                            RETURNING id, type, payload, attempts
+                        )
+                        SELECT id, type, payload, attempts FROM leased ORDER BY id
+                        """,
+                (rs, rowNum) -> new ClaimedEvent(rs.getLong("id"), OrderEvent.Type.valueOf(rs.getString("type")),
+                        rs.getString("payload"), rs.getInt("attempts")),
+                Timestamp.valueOf(leaseUntil), Timestamp.valueOf(now), limit);
+    }
+
+    @Override
+    public void markProcessed(Collection<Long> ids, LocalDateTime processedAt) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        Long[] idArray = ids.toArray(Long[]::new);
+        jdbcTemplate.update(con -> {
+            PreparedStatement ps = con.prepareStatement(
+                    "UPDATE order_events SET status = 'PROCESSED', processed_at = ?, last_error = NULL WHERE id = ANY (?)");
+            ps.setTimestamp(1, Timestamp.valueOf(processedAt));
+            ps.setArray(2, con.createArrayOf("bigint", idArray));
+            return ps;
+        });
+    }
+
+    @Override
+    public void markFailed(Collection<DeliveryFailure> failures) {
+        if (failures.isEmpty()) {
+            return;
+        }
+        List<Object[]> args = new ArrayList<>(failures.size());
+        failures.forEach(f -> args.add(new Object[]{f.giveUp() ? "FAILED" : "PENDING", Timestamp.valueOf(f.retryAt()),
+                f.error(), f.id()}));
+        jdbcTemplate.batchUpdate("UPDATE order_events SET status = ?, next_attempt_at = ?, last_error = ? WHERE id = ?", args);
+    }
+
+    @Override
+    public int deleteProcessedBefore(LocalDateTime cutoff) {
+        return jdbcTemplate.update("DELETE FROM order_events WHERE status = 'PROCESSED' AND processed_at < ?",
+                Timestamp.valueOf(cutoff));
+    }
+}
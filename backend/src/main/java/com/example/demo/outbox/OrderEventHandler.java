@@ -0,0 +1,13 @@
+package com.example.demo.outbox;
+
+/**
+ * Side effect of an order that runs after checkout has committed, off the request path. Every handler bean is
+ * called by the {@link OutboxRelay}.
+ * <p>
+ * Delivery is at least once: an event is delivered again, to every handler, if any handler throws or the
+ * process dies before the event is settled, so handlers must tolerate repeats.
+ */
+public interface OrderEventHandler {
+
+    void onOrderPlaced(OrderPlaced event);
+}
@@ -0,0 +1,54 @@
+package com.example.demo.outbox;
+
+import com.example.demo.entity.Order;
+import com.example.demo.entity.OrderEvent;
+import com.example.demo.entity.Product;
+import com.example.demo.repository.OrderEventRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Records order events in the transaction that makes the change, so an event exists exactly when its change
+ * was committed.
+ */
+@Component
+@RequiredArgsConstructor
+public class OrderOutbox {
+
+    private final OrderEventRepository orderEventRepository;
+    private final JsonMapper jsonMapper;
+
+    /**
+     * Queues an {@code ORDER_PLACED} event; inserted with the order's own statements at flush.
+     *
+     * @param products        the products of the order's lines, by id
+     * @param couponProductId the only product the order's coupon applies to, or null when it applies to every line
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void orderPlaced(Order order, Map<Long, Product> products, Long couponProductId) {
+        boolean discounted = order.getDiscount() != null && order.getDiscount().signum() > 0;
+        OrderPlaced payload = new OrderPlaced(order.getId(), order.getUserId(), order.getCreatedAt(),
+                order.getTotalAmount(), order.getDiscount(), order.getFinalAmount(), order.getCouponCode(),
+                order.getItems().stream()
+                        .map(item -> new OrderPlaced.Line(item.getProductId(),
+                                products.get(item.getProductId()).getSellerId(),
+                                item.getQuantity(), item.getPriceAtPurchase(),
+                                discounted && (couponProductId == null || couponProductId.equals(item.getProductId()))))
+                        .toList());
+
+        LocalDateTime now = LocalDateTime.now();
+        OrderEvent event = new OrderEvent();
+        event.setOrderId(order.getId());
+        event.setType(OrderEvent.Type.ORDER_PLACED);
+        event.setPayload(jsonMapper.writeValueAsString(payload));
+        event.setNextAttemptAt(now);
+        event.setCreatedAt(now);
+        orderEventRepository.save(event);
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.demo.outbox;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Payload of an {@code ORDER_PLACED} event: the order as committed, with the seller of every line.
+ */
+public record OrderPlaced(
+        Long orderId,
+        Long userId,
+        LocalDateTime placedAt,
+        BigDecimal totalAmount,
+        BigDecimal discount,
+        BigDecimal finalAmount,
+        String couponCode,
+        List<Line> lines) {
+
+    /**
+     * @param discounted whether the order's discount applies to this line, false for lines a product coupon does
+     *                   not cover; null in events recorded before this was tracked, which count as discounted
+     */
+    public record Line(Long productId, Long sellerId, int quantity, BigDecimal unitPrice, Boolean discounted) {
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.demo.outbox;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Durable outbox rows the relay claims and settles.
+ */
+public interface OutboxLedger {
+
+    /**
+     * Leases up to {@code limit} pending events due by {@code now}, oldest first, by moving their due time to
+     * {@code leaseUntil} and counting the attempt. Events another relay is claiming at the same time are skipped.
+     */
+    List<ClaimedEvent> claim(int limit, LocalDateTime now, LocalDateTime leaseUntil);
+
+    void markProcessed(Collection<Long> ids, LocalDateTime processedAt);
+
+    /**
+     * Reschedules failed events, or marks them {@code FAILED} when they are not to be retried.
+     */
+    void markFailed(Collection<DeliveryFailure> failures);
+
+    int deleteProcessedBefore(LocalDateTime cutoff);
+}
@@ -0,0 +1,43 @@
+package com.example.demo.outbox;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "app.outbox")
+public class OutboxProperties {
+
+    /**
+     * Deliver events from this node; turn off to leave delivery to other nodes.
+     */
+    private boolean relayEnabled = true;
+
+    /**
+     * Events claimed per poll.
+     */
+    private int batchSize = 100;
+
+    /**
+     * A claimed event not settled within this time is delivered again, e.g. after the relay's node died.
+     */
+    private Duration lease = Duration.ofMinutes(1);
+
+    /**
+     * Delay before the first retry of a failed delivery; doubles with every further attempt.
+     */
+    private Duration retryBackoff = Duration.ofSeconds(1);
+
+    private Duration maxRetryBackoff = Duration.ofMinutes(5);
+
+    /**
+     * Deliveries after which an event is marked FAILED and no longer retried.
+     */
+    private int maxAttempts = 10;
+
+    /**
+     * Processed events are deleted after this long.
+     */
+    private Duration retention = Duration.ofDays(7);
+}
@@ -0,0 +1,152 @@
+package com.example.demo.outbox;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Delivers outbox events to every {@link OrderEventHandler}.
+ * <p>
+ * Each poll leases a batch of due events with {@code FOR UPDATE SKIP LOCKED}, so relays on several nodes share
+ * the backlog without blocking one another, and hands each event to its own virtual thread. Handlers run outside
+ * any transaction; once the batch is done, successes and failures are settled with one statement each. A failed
+ * event is retried with exponential backoff until {@link OutboxProperties#getMaxAttempts() maxAttempts}, and an
+ * event whose relay died is delivered again when its lease runs out, so handlers must tolerate duplicates.
+ */
+@Slf4j
+@Component
+@EnableConfigurationProperties(OutboxProperties.class)
+@ConditionalOnProperty(prefix = "app.outbox", name = "relay-enabled", havingValue = "true", matchIfMissing = true)
+public class OutboxRelay {
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final OutboxLedger ledger;
+    private final List<OrderEventHandler> handlers;
+    private final JsonMapper jsonMapper;
+    private final OutboxProperties properties;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final Counter delivered;
+    private final Counter failed;
+
+    public OutboxRelay(OutboxLedger ledger, List<OrderEventHandler> handlers, JsonMapper jsonMapper,
+                       OutboxProperties properties, MeterRegistry meterRegistry) {
+        this.ledger = ledger;
+        this.handlers = handlers;
+        this.jsonMapper = jsonMapper;
+        this.properties = properties;
+        this.delivered = Counter.builder("outbox.events").tag("outcome", "delivered").register(meterRegistry);
+        this.failed = Counter.builder("outbox.events").tag("outcome", "failed").register(meterRegistry);
+    }
+
+    /**
+     * Delivers due events, claiming batch after batch until one comes back short.
+     */
+    @Scheduled(fixedDelayString = "${app.outbox.poll-interval-ms:200}")
+    public void poll() {
+        int claimed;
+        do {
+            claimed = relayBatch();
+        } while (claimed == properties.getBatchSize());
+    }
+
+    @Scheduled(fixedDelayString = "${app.outbox.cleanup-interval-ms:3600000}")
+    public void deleteProcessed() {
+        int deleted = ledger.deleteProcessedBefore(LocalDateTime.now().minus(properties.getRetention()));
+        if (deleted > 0) {
+            log.info("Deleted {} processed order events", deleted);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // Waits for events in flight; anything not settled is delivered again after its lease
+        executor.close();
+    }
+
+    private int relayBatch() {
+        LocalDateTime now = LocalDateTime.now();
+        List<ClaimedEvent> events = ledger.claim(properties.getBatchSize(), now, now.plus(properties.getLease()));
+        if (events.isEmpty()) {
+            return 0;
+        }
+
+        List<Future<?>> deliveries = new ArrayList<>(events.size());
+        for (ClaimedEvent event : events) {
+            deliveries.add(executor.submit(() -> deliver(event)));
+        }
+
+        List<Long> processed = new ArrayList<>(events.size());
+        List<DeliveryFailure> failures = new ArrayList<>();
+        for (int i = 0; i < events.size(); i++) {
+            ClaimedEvent event = events.get(i);
+            try {
+                deliveries.get(i).get();
+                processed.add(event.id());
+            } catch (InterruptedException e) {
+                // Left claimed; the lease hands it to the next poll
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                failures.add(failure(event, cause));
+            }
+        }
+
+        LocalDateTime settledAt = LocalDateTime.now();
+        ledger.markProcessed(processed, settledAt);
+        ledger.markFailed(failures);
+        delivered.increment(processed.size());
+        failed.increment(failures.size());
+        return events.size();
+    }
+
+    private void deliver(ClaimedEvent event) {
+        switch (event.type()) {
+            case ORDER_PLACED -> {
+                OrderPlaced orderPlaced = jsonMapper.readValue(event.payload(), OrderPlaced.class);
+                for (OrderEventHandler handler : handlers) {
+                    handler.onOrderPlaced(orderPlaced);
+                }
+            }
+        }
+    }
+
+    private DeliveryFailure failure(ClaimedEvent event, Throwable cause) {
+        boolean giveUp = event.attempts() >= properties.getMaxAttempts();
+        if (giveUp) {
+            log.error("Giving up on order event {} after {} attempts", event.id(), event.attempts(), cause);
+        } else {
+            log.warn("Order event {} failed on attempt {}, retrying", event.id(), event.attempts(), cause);
+        }
+        String error = String.valueOf(cause);
+        if (error.length() > MAX_ERROR_LENGTH) {
+            error = error.substring(0, MAX_ERROR_LENGTH);
+        }
+        return new DeliveryFailure(event.id(), giveUp, LocalDateTime.now().plus(backoff(event.attempts())), error);
+    }
+
+    private Duration backoff(int attempts) {
+        Duration max = properties.getMaxRetryBackoff();
+        Duration delay = properties.getRetryBackoff();
+        for (int i = 1; i < attempts && delay.compareTo(max) < 0; i++) {
+            delay = delay.multipliedBy(2);
+        }
+        return delay.compareTo(max) < 0 ? delay : max;
+    }
+}
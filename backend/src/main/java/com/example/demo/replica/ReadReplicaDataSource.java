@@ -0,0 +1,39 @@
+package com.example.demo.replica;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * The read-only side of the primary's {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}:
+ * hands out a connection from whichever database the {@link ReplicaRouter} picks. The router is looked up on
+ * first use, since the primary is wrapped before the beans it depends on exist.
+ */
+class ReadReplicaDataSource extends AbstractDataSource {
+
+    private final DataSource primary;
+    private final ObjectProvider<ReplicaRouter> routerProvider;
+    private volatile ReplicaRouter router;
+
+    ReadReplicaDataSource(DataSource primary, ObjectProvider<ReplicaRouter> routerProvider) {
+        this.primary = primary;
+        this.routerProvider = routerProvider;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        ReplicaRouter current = router;
+        if (current == null) {
+            current = router = routerProvider.getObject();
+        }
+        return current.readConnection(primary);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return primary.getConnection(username, password);
+    }
+}
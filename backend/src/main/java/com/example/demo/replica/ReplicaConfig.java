@@ -0,0 +1,59 @@
+package com.example.demo.replica;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.jdbc.autoconfigure.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+/**
+ * Routes read-only transactions to replicas. The primary is wrapped in a {@link LazyConnectionDataSourceProxy},
+ * which defers taking a real connection until the first statement, by which time the transaction has marked
+ * the connection read-only; read-only connections then come from the {@link ReplicaRouter}. The wrapper is
+ * applied before any other {@link DataSource} post-processor, so statement counting and the concurrency limiter
+ * see replica reads as well.
+ * <p>
+ * With open-in-view, a request keeps the connection of its first transaction until it completes, so a request
+ * that reads in a read-only transaction and then writes must not rely on open-in-view to share a session.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "app.replicas", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(ReplicaProperties.class)
+public class ReplicaConfig {
+
+    @Bean
+    ReplicaRouter replicaRouter(ReplicaProperties properties, DataSourceProperties dataSourceProperties,
+                                MeterRegistry meterRegistry) {
+        return ReplicaRouter.create(properties, dataSourceProperties, meterRegistry);
+    }
+
+    @Bean
+    static ReplicaRoutingPostProcessor replicaRoutingPostProcessor(ObjectProvider<ReplicaRouter> router) {
+        return new ReplicaRoutingPostProcessor(router);
+    }
+
+    record ReplicaRoutingPostProcessor(ObjectProvider<ReplicaRouter> router) implements BeanPostProcessor, Ordered {
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (bean instanceof DataSource primary && !(bean instanceof LazyConnectionDataSourceProxy)) {
+                LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy(primary);
+                proxy.setReadOnlyDataSource(new ReadReplicaDataSource(primary, router));
+                return proxy;
+            }
+            return bean;
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.HIGHEST_PRECEDENCE;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.demo.replica;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.function.IntSupplier;
+
+/**
+ * One replica, with the lag and reachability last seen by the router's check.
+ */
+final class ReplicaPool {
+
+    private final String name;
+    private final DataSource dataSource;
+    private final IntSupplier load;
+
+    private volatile boolean up = true;
+    private volatile Duration lag = Duration.ZERO;
+
+    /**
+     * @param load connections in use or awaited, for least-loaded selection
+     */
+    ReplicaPool(String name, DataSource dataSource, IntSupplier load) {
+        this.name = name;
+        this.dataSource = dataSource;
+        this.load = load;
+    }
+
+    String name() {
+        return name;
+    }
+
+    DataSource dataSource() {
+        return dataSource;
+    }
+
+    Connection getConnection() throws SQLException {
+        return dataSource.getConnection();
+    }
+
+    int load() {
+        return load.getAsInt();
+    }
+
+    boolean usable(Duration maxLag) {
+        return up && lag.compareTo(maxLag) <= 0;
+    }
+
+    Duration lag() {
+        return lag;
+    }
+
+    boolean isUp() {
+        return up;
+    }
+
+    void reachable(Duration lag) {
+        this.lag = lag;
+        this.up = true;
+    }
+
+    void unreachable() {
+        this.up = false;
+    }
+}
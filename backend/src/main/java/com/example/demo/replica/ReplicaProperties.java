@@ -0,0 +1,65 @@
+package com.example.demo.replica;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ConfigurationProperties(prefix = "app.replicas")
+public class ReplicaProperties {
+
+    /**
+     * Send {@code @Transactional(readOnly = true)} work to the replicas below instead of the primary.
+     */
+    private boolean enabled = false;
+
+    private List<Node> nodes = new ArrayList<>();
+
+    /**
+     * How a replica is picked for each read-only transaction.
+     */
+    private Selection selection = Selection.ROUND_ROBIN;
+
+    /**
+     * Connections per replica pool.
+     */
+    private int poolSize = 10;
+
+    /**
+     * How long a replica connection may take before the read falls back to the primary.
+     */
+    private Duration connectionTimeout = Duration.ofSeconds(1);
+
+    /**
+     * After a user's own write commits, that user's reads stay on the primary for this long.
+     */
+    private Duration readYourWritesWindow = Duration.ofSeconds(5);
+
+    /**
+     * Replicas further behind the primary than this are skipped until they catch up.
+     */
+    private Duration maxLag = Duration.ofSeconds(1);
+
+    @Data
+    public static class Node {
+
+        private String url;
+
+        /**
+         * Defaults to {@code spring.datasource.username}.
+         */
+        private String username;
+
+        /**
+         * Defaults to {@code spring.datasource.password}.
+         */
+        private String password;
+    }
+
+    public enum Selection {
+        ROUND_ROBIN, LEAST_LOADED
+    }
+}
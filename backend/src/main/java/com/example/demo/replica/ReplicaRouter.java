@@ -0,0 +1,229 @@
+package com.example.demo.replica;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.jdbc.autoconfigure.DataSourceProperties;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.TransactionExecutionListener;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Picks the database for each read-only transaction started by application code, typically a
+ * {@code @Transactional(readOnly = true)} service method.
+ * <p>
+ * Reads go to a replica chosen round-robin or by fewest busy connections, except:
+ * <ul>
+ *   <li>a user whose own write committed within the read-your-writes window reads from the primary;</li>
+ *   <li>replicas that lag the primary by more than the configured maximum, or could not be reached, are
+ *       skipped until the next check sees them healthy, and with none left the primary serves the read.</li>
+ * </ul>
+ * Lag is checked every second by asking each replica how far its replay is behind. A replica that is not in
+ * recovery, such as a second standalone instance used for local testing, counts as not lagging.
+ * <p>
+ * Recent writers are recorded as a {@link TransactionExecutionListener}, which Spring Boot registers with the
+ * transaction manager. Writes made outside a request, or outside a Spring transaction, do not make anyone sticky.
+ */
+@Slf4j
+public class ReplicaRouter implements TransactionExecutionListener {
+
+    private static final String LAG_QUERY = """
+            SELECT CASE WHEN NOT pg_is_in_recovery() OR pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+                        ELSE coalesce(extract(epoch FROM now() - pg_last_xact_replay_timestamp()) * 1000, 0)
+                   END""";
+
+    private final List<ReplicaPool> replicas;
+    private final ReplicaProperties properties;
+    private final Supplier<Long> currentUser;
+
+    // User id -> System.nanoTime() at which the user's reads may go back to replicas
+    private final ConcurrentHashMap<Long, Long> recentWriters = new ConcurrentHashMap<>();
+    private final AtomicInteger next = new AtomicInteger();
+
+    private final Counter replicaReads;
+    private final Counter stickyReads;
+    private final Counter fallbackReads;
+
+    ReplicaRouter(List<ReplicaPool> replicas, ReplicaProperties properties, Supplier<Long> currentUser,
+                  MeterRegistry meterRegistry) {
+        this.replicas = List.copyOf(replicas);
+        this.properties = properties;
+        this.currentUser = currentUser;
+        this.replicaReads = readCounter(meterRegistry, "replica");
+        this.stickyReads = readCounter(meterRegistry, "primary-read-your-writes");
+        this.fallbackReads = readCounter(meterRegistry, "primary-fallback");
+    }
+
+    /**
+     * Builds a Hikari pool per configured replica, with credentials defaulting to the primary's.
+     */
+    static ReplicaRouter create(ReplicaProperties properties, DataSourceProperties primary, MeterRegistry meterRegistry) {
+        List<ReplicaPool> pools = new ArrayList<>();
+        for (int i = 0; i < properties.getNodes().size(); i++) {
+            ReplicaProperties.Node node = properties.getNodes().get(i);
+            HikariDataSource dataSource = new HikariDataSource();
+            dataSource.setPoolName("replica-" + (i + 1));
+            dataSource.setJdbcUrl(node.getUrl());
+            dataSource.setUsername(node.getUsername() != null ? node.getUsername() : primary.getUsername());
+            dataSource.setPassword(node.getPassword() != null ? node.getPassword() : primary.getPassword());
+            dataSource.setMaximumPoolSize(properties.getPoolSize());
+            dataSource.setConnectionTimeout(properties.getConnectionTimeout().toMillis());
+            dataSource.setReadOnly(true);
+            // Start even when a replica is down; reads fall back to the primary until it comes up
+            dataSource.setInitializationFailTimeout(-1);
+            dataSource.setMetricRegistry(meterRegistry);
+            pools.add(new ReplicaPool(dataSource.getPoolName(), dataSource, () -> busyConnections(dataSource)));
+        }
+        return new ReplicaRouter(pools, properties, ReplicaRouter::requestUser, meterRegistry);
+    }
+
+    /**
+     * Returns a connection for a read-only transaction, from a replica where possible.
+     */
+    Connection readConnection(DataSource primary) throws SQLException {
+        // Spring Data wraps repository calls made outside a transaction in read-only transactions of its own.
+        // Those come from caches and authentication, which must not see replica lag, so only read-only
+        // transactions started by application code are routed
+        String transaction = TransactionSynchronizationManager.getCurrentTransactionName();
+        if (transaction == null || transaction.startsWith("org.springframework.")) {
+            return primary.getConnection();
+        }
+
+        Long userId = currentUser.get();
+        if (userId != null && wroteRecently(userId)) {
+            stickyReads.increment();
+            return primary.getConnection();
+        }
+
+        for (int attempt = 0; attempt < replicas.size(); attempt++) {
+            ReplicaPool replica = select();
+            if (replica == null) {
+                break;
+            }
+            try {
+                Connection connection = replica.getConnection();
+                replicaReads.increment();
+                return connection;
+            } catch (SQLException e) {
+                log.warn("Replica {} unavailable, skipping it until it passes a health check: {}",
+                        replica.name(), e.getMessage());
+                replica.unreachable();
+            }
+        }
+        fallbackReads.increment();
+        return primary.getConnection();
+    }
+
+    private ReplicaPool select() {
+        int count = replicas.size();
+        int start = Math.floorMod(next.getAndIncrement(), Math.max(count, 1));
+        ReplicaPool chosen = null;
+        int chosenLoad = Integer.MAX_VALUE;
+        for (int n = 0; n < count; n++) {
+            ReplicaPool replica = replicas.get((start + n) % count);
+            if (!replica.usable(properties.getMaxLag())) {
+                continue;
+            }
+            if (properties.getSelection() == ReplicaProperties.Selection.ROUND_ROBIN) {
+                return replica;
+            }
+            int load = replica.load();
+            if (load < chosenLoad) {
+                chosen = replica;
+                chosenLoad = load;
+            }
+        }
+        return chosen;
+    }
+
+    private boolean wroteRecently(Long userId) {
+        Long until = recentWriters.get(userId);
+        if (until == null) {
+            return false;
+        }
+        if (System.nanoTime() - until < 0) {
+            return true;
+        }
+        recentWriters.remove(userId, until);
+        return false;
+    }
+
+    @Override
+    public void afterCommit(TransactionExecution transaction, Throwable commitFailure) {
+        if (commitFailure == null && !transaction.isReadOnly()) {
+            Long userId = currentUser.get();
+            if (userId != null) {
+                recentWriters.put(userId, System.nanoTime() + properties.getReadYourWritesWindow().toNanos());
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.replicas.lag-check-interval-ms:1000}")
+    public void checkReplicas() {
+        for (ReplicaPool replica : replicas) {
+            boolean wasUsable = replica.usable(properties.getMaxLag());
+            try (Connection connection = replica.getConnection();
+                 Statement statement = connection.createStatement();
+                 ResultSet rs = statement.executeQuery(LAG_QUERY)) {
+                rs.next();
+                replica.reachable(Duration.ofMillis(rs.getLong(1)));
+            } catch (SQLException | RuntimeException e) {
+                replica.unreachable();
+            }
+            boolean usable = replica.usable(properties.getMaxLag());
+            if (usable != wasUsable) {
+                log.info("Replica {} is now {}", replica.name(), usable ? "serving reads"
+                        : replica.isUp() ? "lagging by " + replica.lag().toMillis() + " ms" : "unreachable");
+            }
+        }
+        long now = System.nanoTime();
+        recentWriters.values().removeIf(until -> now - until >= 0);
+    }
+
+    @PreDestroy
+    public void close() {
+        replicas.forEach(replica -> {
+            if (replica.dataSource() instanceof HikariDataSource hikari) {
+                hikari.close();
+            }
+        });
+    }
+
+    private static Long requestUser() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        return attributes != null
+                && attributes.getAttribute("userId", RequestAttributes.SCOPE_REQUEST) instanceof Long userId
+                ? userId
+                : null;
+    }
+
+    private static int busyConnections(HikariDataSource dataSource) {
+        HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+        return pool == null ? 0 : pool.getActiveConnections() + pool.getThreadsAwaitingConnection();
+    }
+
+    private static Counter readCounter(MeterRegistry meterRegistry, String target) {
+        return Counter.builder("datasource.reads")
+                .description("Read-only transactions by the database that served them")
+                .tag("target", target)
+                .register(meterRegistry);
+    }
+}
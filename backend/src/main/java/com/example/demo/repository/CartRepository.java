@@ -1,15 +0,0 @@
-package com.example.demo.repository;
-
-import com.example.demo.entity.CartItem;
-import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.stereotype.Repository;
-
-import java.util.List;
-import java.util.Optional;
-
-@Repository
-public interface CartRepository extends JpaRepository<CartItem, Long> {
-    List<CartItem> findByUserId(Long userId);
-    Optional<CartItem> findByUserIdAndProductId(Long userId, Long productId);
-    void deleteByUserId(Long userId);
-}
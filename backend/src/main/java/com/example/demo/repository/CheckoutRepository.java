@@ -0,0 +1,59 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.OrderItem;
+import com.example.demo.metrics.HotPathMetrics;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Stock updates for checkout, issued as a plain JDBC batch so they bypass the loaded entities. The order
+ * itself is persisted through Hibernate, which batches its inserts. Must run inside the caller's transaction.
+ */
+@Repository
+@RequiredArgsConstructor
+public class CheckoutRepository {
+
+    private static final String DECREMENT_STOCK =
+            "UPDATE products SET stock = stock - ?, updated_at = ? WHERE id = ? AND stock >= ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final HotPathMetrics metrics;
+
+    /**
+     * Decrements stock for every item in one batch. A row only changes while it still has enough stock,
+     * so an item whose update count is zero means the order can no longer be filled.
+     */
+    public void decrementStock(List<OrderItem> items) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        int[] counts = jdbcTemplate.batchUpdate(DECREMENT_STOCK, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                OrderItem item = items.get(i);
+                ps.setInt(1, item.getQuantity());
+                ps.setTimestamp(2, now);
+                ps.setLong(3, item.getProductId());
+                ps.setInt(4, item.getQuantity());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return items.size();
+            }
+        });
+
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 0) {
+                metrics.stockRejectedAtCheckout();
+                throw new RuntimeException("Insufficient stock for product: " + items.get(i).getProductName());
+            }
+        }
+    }
+}
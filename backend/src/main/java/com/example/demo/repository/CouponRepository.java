@@ -4,9 +4,9 @@ import com.example.demo.entity.Coupon;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
-import java.util.Optional;
+import java.util.List;
 
 @Repository
 public interface CouponRepository extends JpaRepository<Coupon, Long> {
-    Optional<Coupon> findByCodeAndActiveTrue(String code);
+    List<Coupon> findAllByActiveTrue();
 }
@@ -0,0 +1,178 @@
+package com.example.demo.repository;
+
+import com.example.demo.dto.CursorPage;
+import com.example.demo.dto.OrderSummary;
+import com.example.demo.entity.Order;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * A buyer's orders, newest first, read as DTOs. Pages continue after the last row of the previous one on
+ * {@code (created_at, id)}, served by {@code idx_orders_user_created_at_id}, and load their items with one
+ * further {@code IN} query, so no page multiplies order rows by item rows in memory.
+ */
+@Repository
+@RequiredArgsConstructor
+public class OrderHistoryRepository {
+
+    private static final String ORDER_COLUMNS =
+            "o.id, o.total_amount, o.coupon_code, o.discount, o.final_amount, o.status, o.created_at";
+
+    private static final String ITEM_COLUMNS =
+            "i.order_id, i.product_id, i.product_name, i.quantity, i.price_at_purchase";
+
+    private static final int STREAM_FETCH_SIZE = 500;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public CursorPage<OrderSummary> findPage(Long userId, String cursor, int limit) {
+        MapSqlParameterSource params = new MapSqlParameterSource("userId", userId);
+        StringBuilder sql = new StringBuilder("SELECT " + ORDER_COLUMNS + " FROM orders o WHERE o.user_id = :userId");
+        if (cursor != null && !cursor.isBlank()) {
+            Cursor position = Cursor.decode(cursor);
+            sql.append(" AND (o.created_at, o.id) < (:cursorCreatedAt, :cursorId)");
+            params.addValue("cursorCreatedAt", position.createdAt());
+            params.addValue("cursorId", position.id());
+        }
+        // One extra row tells whether another page exists
+        sql.append(" ORDER BY o.created_at DESC, o.id DESC LIMIT :limit");
+        params.addValue("limit", limit + 1);
+
+        List<OrderSummary> orders = jdbcTemplate.query(sql.toString(), params,
+                (rs, rowNum) -> order(rs, new ArrayList<>()));
+        boolean more = orders.size() > limit;
+        if (more) {
+            orders = orders.subList(0, limit);
+        }
+        loadItems(orders);
+
+        if (!more) {
+            return new CursorPage<>(orders, null);
+        }
+        OrderSummary last = orders.get(orders.size() - 1);
+        return new CursorPage<>(List.copyOf(orders), Cursor.encode(last.createdAt(), last.id()));
+    }
+
+    /**
+     * Hands every order of the user to {@code sink}, newest first, as rows arrive from a server-side cursor;
+     * at most one order is held in memory at a time. Must run inside a transaction, without which the
+     * Postgres driver reads the whole result before returning the first row.
+     */
+    public void streamAll(Long userId, Consumer<OrderSummary> sink) {
+        String sql = "SELECT " + ORDER_COLUMNS + ", " + ITEM_COLUMNS
+                + " FROM orders o LEFT JOIN order_items i ON i.order_id = o.id"
+                + " WHERE o.user_id = ? ORDER BY o.created_at DESC, o.id DESC, i.id";
+
+        OrderAssembler assembler = new OrderAssembler(sink);
+        jdbcTemplate.getJdbcTemplate().query(con -> {
+            var statement = con.prepareStatement(sql);
+            statement.setFetchSize(STREAM_FETCH_SIZE);
+            statement.setLong(1, userId);
+            return statement;
+        }, assembler);
+        assembler.finish();
+    }
+
+    private void loadItems(List<OrderSummary> orders) {
+        if (orders.isEmpty()) {
+            return;
+        }
+        Map<Long, List<OrderSummary.Item>> itemsByOrder = new HashMap<>();
+        orders.forEach(order -> itemsByOrder.put(order.id(), order.items()));
+        jdbcTemplate.query("SELECT " + ITEM_COLUMNS + " FROM order_items i WHERE i.order_id IN (:orderIds) ORDER BY i.id",
+                new MapSqlParameterSource("orderIds", itemsByOrder.keySet()),
+                (RowCallbackHandler) rs -> itemsByOrder.get(rs.getLong("order_id")).add(item(rs)));
+    }
+
+    private static OrderSummary order(ResultSet rs, List<OrderSummary.Item> items) throws SQLException {
+        return new OrderSummary(
+                rs.getLong("id"),
+                rs.getBigDecimal("total_amount"),
+                rs.getString("coupon_code"),
+                rs.getBigDecimal("discount"),
+                rs.getBigDecimal("final_amount"),
+                Order.OrderStatus.valueOf(rs.getString("status")),
+                rs.getObject("created_at", LocalDateTime.class),
+                items
+        );
+    }
+
+    private static OrderSummary.Item item(ResultSet rs) throws SQLException {
+        return new OrderSummary.Item(
+                rs.getLong("product_id"),
+                rs.getString("product_name"),
+                rs.getInt("quantity"),
+                rs.getBigDecimal("price_at_purchase")
+        );
+    }
+
+    /**
+     * Folds consecutive joined rows of the same order into one summary and emits it once the next order starts.
+     */
+    private static final class OrderAssembler implements RowCallbackHandler {
+
+        private final Consumer<OrderSummary> sink;
+        private OrderSummary current;
+
+        OrderAssembler(Consumer<OrderSummary> sink) {
+            this.sink = sink;
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            long orderId = rs.getLong("id");
+            if (current == null || current.id() != orderId) {
+                finish();
+                current = order(rs, new ArrayList<>());
+            }
+            rs.getLong("order_id");
+            if (!rs.wasNull()) {
+                current.items().add(item(rs));
+            }
+        }
+
+        void finish() {
+            if (current != null) {
+                sink.accept(current);
+                current = null;
+            }
+        }
+    }
+
+    /**
+     * Opaque position in a user's history: the last order's creation time and id.
+     */
+    private record Cursor(LocalDateTime createdAt, Long id) {
+
+        static String encode(LocalDateTime createdAt, Long id) {
+            String raw = createdAt + "|" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static Cursor decode(String encoded) {
+            try {
+                String[] parts = new String(Base64.getUrlDecoder().decode(encoded), StandardCharsets.UTF_8).split("\\|");
+                if (parts.length != 2) {
+                    throw new IllegalArgumentException();
+                }
+                return new Cursor(LocalDateTime.parse(parts[0]), Long.parseLong(parts[1]));
+            } catch (RuntimeException e) {
+                throw new RuntimeException("Invalid cursor");
+            }
+        }
+    }
+}
@@ -4,13 +4,8 @@ import com.example.demo.entity.Order;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
-import java.util.List;
-
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long> {
-    @org.springframework.data.jpa.repository.EntityGraph(attributePaths = "items")
-    List<Order> findByUserIdOrderByCreatedAtDesc(Long userId);
-
     @org.springframework.data.jpa.repository.EntityGraph(attributePaths = "items")
     java.util.Optional<Order> findById(Long id);
 }
@@ -0,0 +1,165 @@
+package com.example.demo.repository;
+
+import com.example.demo.dto.CursorPage;
+import com.example.demo.dto.ProductCatalogQuery;
+import com.example.demo.dto.ProductSummary;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Keyset-paginated catalog reads. Each page continues strictly after the last row of the previous one on
+ * {@code (sort key, id)}, so the cost of a page does not depend on how deep it is or how large the table is.
+ * Backed by the composite indexes declared on {@link com.example.demo.entity.Product}.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ProductCatalogRepository {
+
+    private static final String SELECT =
+            "SELECT id, name, price, stock, image_url, seller_id, created_at FROM products";
+
+    private static final RowMapper<ProductSummary> ROW_MAPPER = (rs, rowNum) -> new ProductSummary(
+            rs.getLong("id"),
+            rs.getString("name"),
+            rs.getBigDecimal("price"),
+            rs.getInt("stock"),
+            rs.getString("image_url"),
+            rs.getLong("seller_id"),
+            rs.getObject("created_at", LocalDateTime.class)
+    );
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public CursorPage<ProductSummary> findPage(ProductCatalogQuery query) {
+        ProductCatalogQuery.Sort sort = query.getSort();
+        List<String> conditions = new ArrayList<>();
+        MapSqlParameterSource params = new MapSqlParameterSource();
+
+        if (query.getMinPrice() != null) {
+            conditions.add("price >= :minPrice");
+            params.addValue("minPrice", query.getMinPrice());
+        }
+        if (query.getMaxPrice() != null) {
+            conditions.add("price <= :maxPrice");
+            params.addValue("maxPrice", query.getMaxPrice());
+        }
+        if (query.getSellerId() != null) {
+            conditions.add("seller_id = :sellerId");
+            params.addValue("sellerId", query.getSellerId());
+        }
+        if (Boolean.TRUE.equals(query.getInStock())) {
+            conditions.add("stock > 0");
+        }
+        if (query.getCursor() != null && !query.getCursor().isBlank()) {
+            Cursor cursor = Cursor.decode(query.getCursor(), sort);
+            conditions.add(switch (sort) {
+                case NEWEST -> "(created_at, id) < (:cursorValue, :cursorId)";
+                case PRICE_ASC -> "(price, id) > (:cursorValue, :cursorId)";
+                case PRICE_DESC -> "(price, id) < (:cursorValue, :cursorId)";
+            });
+            params.addValue("cursorValue", cursor.value());
+            params.addValue("cursorId", cursor.id());
+        }
+
+        StringBuilder sql = new StringBuilder(SELECT);
+        if (!conditions.isEmpty()) {
+            sql.append(" WHERE ").append(String.join(" AND ", conditions));
+        }
+        sql.append(switch (sort) {
+            case NEWEST -> " ORDER BY created_at DESC, id DESC";
+            case PRICE_ASC -> " ORDER BY price ASC, id ASC";
+            case PRICE_DESC -> " ORDER BY price DESC, id DESC";
+        });
+        // One extra row tells whether another page exists
+        sql.append(" LIMIT :limit");
+        params.addValue("limit", query.getLimit() + 1);
+
+        List<ProductSummary> rows = jdbcTemplate.query(sql.toString(), params, ROW_MAPPER);
+        if (rows.size() <= query.getLimit()) {
+            return new CursorPage<>(rows, null);
+        }
+
+        List<ProductSummary> page = rows.subList(0, query.getLimit());
+        ProductSummary last = page.get(page.size() - 1);
+        return new CursorPage<>(List.copyOf(page), Cursor.encode(sort, sortValue(sort, last), last.id()));
+    }
+
+    /**
+     * Whether {@code product} belongs in {@code page} as it was read for {@code query}: it passes the filters and
+     * its sort position lies after the query's cursor and no further than the page's last row. Pages that
+     * a product does not fall in are unaffected by it, since the following page starts from a fixed cursor.
+     */
+    public static boolean covers(ProductCatalogQuery query, CursorPage<ProductSummary> page, ProductSummary product) {
+        if (query.getMinPrice() != null && product.price().compareTo(query.getMinPrice()) < 0
+                || query.getMaxPrice() != null && product.price().compareTo(query.getMaxPrice()) > 0
+                || query.getSellerId() != null && !query.getSellerId().equals(product.sellerId())
+                || Boolean.TRUE.equals(query.getInStock()) && product.stock() <= 0) {
+            return false;
+        }
+
+        ProductCatalogQuery.Sort sort = query.getSort();
+        if (query.getCursor() != null && !query.getCursor().isBlank()) {
+            Cursor cursor = Cursor.decode(query.getCursor(), sort);
+            if (listingOrder(sort, product, cursor.value(), cursor.id()) <= 0) {
+                return false;
+            }
+        }
+        if (page.nextCursor() == null) {
+            return true;
+        }
+        ProductSummary last = page.items().get(page.items().size() - 1);
+        return listingOrder(sort, product, sortValue(sort, last), last.id()) <= 0;
+    }
+
+    /**
+     * Compares {@code product} with a position in listing order: positive when it is listed after it.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static int listingOrder(ProductCatalogQuery.Sort sort, ProductSummary product, Object value, Long id) {
+        int cmp = ((Comparable) sortValue(sort, product)).compareTo(value);
+        if (cmp == 0) {
+            cmp = product.id().compareTo(id);
+        }
+        return sort == ProductCatalogQuery.Sort.PRICE_ASC ? cmp : -cmp;
+    }
+
+    private static Object sortValue(ProductCatalogQuery.Sort sort, ProductSummary product) {
+        return sort == ProductCatalogQuery.Sort.NEWEST ? product.createdAt() : product.price();
+    }
+
+    /**
+     * Opaque position in a sorted listing: the sort it belongs to, the last sort key and the last id.
+     */
+    private record Cursor(Object value, Long id) {
+
+        static String encode(ProductCatalogQuery.Sort sort, Object value, Long id) {
+            String raw = sort.name() + "|" + value + "|" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static Cursor decode(String encoded, ProductCatalogQuery.Sort sort) {
+            try {
+                String[] parts = new String(Base64.getUrlDecoder().decode(encoded), StandardCharsets.UTF_8).split("\\|");
+                if (parts.length != 3 || !parts[0].equals(sort.name())) {
+                    throw new IllegalArgumentException();
+                }
+                Object value = sort == ProductCatalogQuery.Sort.NEWEST
+                        ? LocalDateTime.parse(parts[1])
+                        : new BigDecimal(parts[1]);
+                return new Cursor(value, Long.parseLong(parts[2]));
+            } catch (RuntimeException e) {
+                throw new RuntimeException("Invalid cursor");
+            }
+        }
+    }
+}
@@ -0,0 +1,745 @@
+package com.example.demo.search;
+
+import com.example.demo.dto.ProductSearchResult;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * In-memory inverted index over product name and description, ranked with BM25. Name words count
+ * {@value #NAME_WEIGHT} times as much as description words.
+ * <p>
+ * Each product gets an ordinal in insertion order and posting lists keep ordinals ascending, so a query
+ * leapfrogs through its words' lists starting from the rarest and only scores products containing all of
+ * them. Each product's price and length sit side by side, so a candidate costs one cache miss to score and
+ * facet. A word far more common than the rarest one is instead probed per candidate: when it is in at least
+ * one product in {@value #DENSE_FRACTION}, through a bitmap of its products, and its frequency is only looked
+ * up for a product whose best possible score could still enter the results.
+ * <p>
+ * Re-indexing a product marks its postings dead in place and appends it under a new ordinal, and removing
+ * one marks them dead, so an edit never shifts a posting list. Once a quarter of the ordinals are dead the
+ * live ones are renumbered in order and every list is compacted in one pass.
+ * <p>
+ * A single common word can match most of the catalog, so each posting list also keeps its match count per
+ * price band and, per block of {@value #BLOCK_SIZE} postings, the highest frequency and shortest product.
+ * Unfiltered one-word queries then take their total and facets from the counts and skip every block whose
+ * best possible score cannot enter the current top results. A lone typed prefix does the same for each of its
+ * completions and merges their top results; its total walks the rarer completions against the most common
+ * one instead of marking every match in a bitmap.
+ * <p>
+ * Searches share a read lock; writes are rare and take the write lock.
+ */
+public class ProductSearchIndex {
+
+    static final int NAME_WEIGHT = 3;
+    static final int BLOCK_SIZE = 64;
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final int NO_MORE_DOCS = Integer.MAX_VALUE;
+
+    // A clause this many times longer than the leading one is probed per candidate instead of leapfrogged
+    private static final long PROBE_RATIO = 8;
+    // A word in at least one product in this many is probed through a bitmap, no larger than its posting list
+    static final int DENSE_FRACTION = 32;
+
+    // Dead ordinals at which, once they are also a quarter of all ordinals, the index is compacted
+    private static final int MIN_DEAD_TO_COMPACT = 1024;
+
+    // A short prefix can match thousands of words; only the most common of the first few are searched
+    private static final int MAX_PREFIX_SCAN = 1024;
+    private static final int MAX_PREFIX_TERMS = 16;
+
+    private static final BigDecimal[] PRICE_BANDS = {
+            BigDecimal.ZERO, BigDecimal.valueOf(25), BigDecimal.valueOf(50), BigDecimal.valueOf(100),
+            BigDecimal.valueOf(250), BigDecimal.valueOf(500), BigDecimal.valueOf(1000)
+    };
+    private static final double[] PRICE_BAND_FLOORS = Arrays.stream(PRICE_BANDS).mapToDouble(BigDecimal::doubleValue).toArray();
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final TreeMap<String, Postings> terms = new TreeMap<>();
+    private final Map<Long, Integer> ordinals = new HashMap<>();
+    // Indexed by ordinal; price and length are kept apart from Doc, at 2 * ordinal and 2 * ordinal + 1
+    private Doc[] docs = new Doc[1024];
+    private double[] stats = new double[2 * 1024];
+    private int nextOrdinal;
+    private int deadOrdinals;
+    private long totalLength;
+
+    private record Doc(Long id, String name, BigDecimal price, String imageUrl, String[] terms) {
+    }
+
+    private record ScoredDoc(int ordinal, double score) {
+    }
+
+    /**
+     * Adds the product, replacing any earlier version of it.
+     */
+    public void put(Long id, String name, String description, BigDecimal price, String imageUrl) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        Tokenizer.tokenize(name).forEach(token -> frequencies.merge(token, NAME_WEIGHT, Integer::sum));
+        Tokenizer.tokenize(description).forEach(token -> frequencies.merge(token, 1, Integer::sum));
+        int length = frequencies.values().stream().mapToInt(Integer::intValue).sum();
+
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+            int ordinal = nextOrdinal++;
+            if (ordinal == docs.length) {
+                docs = Arrays.copyOf(docs, docs.length * 2);
+                stats = Arrays.copyOf(stats, 2 * docs.length);
+            }
+            stats[2 * ordinal] = price.doubleValue();
+            stats[2 * ordinal + 1] = length;
+            int band = priceBand(price(ordinal));
+
+            String[] docTerms = new String[frequencies.size()];
+            int i = 0;
+            for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+                Postings postings = terms.computeIfAbsent(entry.getKey(), Postings::new);
+                postings.add(ordinal, entry.getValue(), length, band);
+                docTerms[i++] = postings.term; // the dictionary's copy, so each word is held once
+            }
+            docs[ordinal] = new Doc(id, name, price, imageUrl, docTerms);
+            ordinals.put(id, ordinal);
+            totalLength += length;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return ordinals.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds products containing every word of {@code text}; with {@code typeahead} the last word also matches
+     * longer words it is a prefix of.
+     */
+    public ProductSearchResult search(String text, boolean typeahead, BigDecimal minPrice, BigDecimal maxPrice, int limit) {
+        List<String> tokens = Tokenizer.tokenize(text);
+        int[] facetCounts = new int[PRICE_BANDS.length];
+        if (tokens.isEmpty()) {
+            return new ProductSearchResult(List.of(), 0, facets(facetCounts));
+        }
+
+        lock.readLock().lock();
+        try {
+            int docCount = ordinals.size();
+            Clause[] clauses = new Clause[tokens.size()];
+            for (int i = 0; i < tokens.size(); i++) {
+                boolean prefix = typeahead && i == tokens.size() - 1;
+                clauses[i] = prefix ? prefixClause(tokens.get(i), docCount) : termClause(tokens.get(i), docCount);
+                if (clauses[i] == null) {
+                    return new ProductSearchResult(List.of(), 0, facets(facetCounts));
+                }
+            }
+            double averageLength = (double) totalLength / docCount;
+            if (clauses.length == 1 && minPrice == null && maxPrice == null) {
+                if (clauses[0] instanceof TermClause term) {
+                    return singleTerm(term, averageLength, limit);
+                }
+                return singlePrefix((PrefixClause) clauses[0], averageLength, limit);
+            }
+            Arrays.sort(clauses, Comparator.comparingLong(Clause::cost));
+            int leapfrogged = 1;
+            while (leapfrogged < clauses.length && clauses[leapfrogged].cost() < clauses[0].cost() * PROBE_RATIO) {
+                leapfrogged++;
+            }
+
+            double min = minPrice == null ? Double.NEGATIVE_INFINITY : minPrice.doubleValue();
+            double max = maxPrice == null ? Double.POSITIVE_INFINITY : maxPrice.doubleValue();
+            PriorityQueue<ScoredDoc> top = topResults(limit);
+            int total = 0;
+
+            Clause lead = clauses[0];
+            int doc = lead.nextDoc(0);
+            candidates:
+            while (doc != NO_MORE_DOCS) {
+                for (int c = 1; c < leapfrogged; c++) {
+                    int other = clauses[c].nextDoc(doc);
+                    if (other != doc) {
+                        doc = other == NO_MORE_DOCS ? NO_MORE_DOCS : lead.nextDoc(other);
+                        continue candidates;
+                    }
+                }
+                for (int c = leapfrogged; c < clauses.length; c++) {
+                    if (!clauses[c].contains(doc)) {
+                        doc = lead.nextDoc(doc + 1);
+                        continue candidates;
+                    }
+                }
+
+                double price = price(doc);
+                facetCounts[priceBand(price)]++;
+                if (price >= min && price <= max) {
+                    total++;
+                    double norm = lengthNorm(length(doc), averageLength);
+                    double score = 0;
+                    for (int c = 0; c < leapfrogged; c++) {
+                        score += clauses[c].score(doc, norm);
+                    }
+                    if (leapfrogged < clauses.length) {
+                        double bound = score;
+                        for (int c = leapfrogged; c < clauses.length; c++) {
+                            bound += clauses[c].maxScore(norm);
+                        }
+                        if (top.size() == limit && bound <= top.peek().score()) {
+                            doc = lead.nextDoc(doc + 1);
+                            continue;
+                        }
+                        for (int c = leapfrogged; c < clauses.length; c++) {
+                            clauses[c].nextDoc(doc);
+                            score += clauses[c].score(doc, norm);
+                        }
+                    }
+                    offer(top, limit, doc, score);
+                }
+                doc = lead.nextDoc(doc + 1);
+            }
+            return new ProductSearchResult(hits(top), total, facets(facetCounts));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private ProductSearchResult singleTerm(TermClause term, double averageLength, int limit) {
+        Postings postings = term.postings;
+        PriorityQueue<ScoredDoc> top = topOf(term, averageLength, limit);
+        return new ProductSearchResult(hits(top), postings.live, facets(postings.bandCounts.clone()));
+    }
+
+    /**
+     * A product's score for a prefix is its best completion's, so the top results are among the top results of
+     * each completion on its own.
+     */
+    private ProductSearchResult singlePrefix(PrefixClause prefix, double averageLength, int limit) {
+        Map<Integer, Double> best = new TreeMap<>();
+        for (TermClause completion : prefix.completions) {
+            for (ScoredDoc scored : topOf(completion, averageLength, limit)) {
+                best.merge(scored.ordinal(), scored.score(), Math::max);
+            }
+        }
+        // Offered in ordinal order so ties are settled as a scan would settle them
+        PriorityQueue<ScoredDoc> top = topResults(limit);
+        best.forEach((doc, score) -> offer(top, limit, doc, score));
+
+        // The most common completion's products are already counted per band. The rarer ones add the products
+        // missing from its list, and a bitmap keeps them from counting a product twice among themselves
+        Postings first = prefix.completions[0].postings;
+        int total = first.live;
+        int[] facetCounts = first.bandCounts.clone();
+        long[] seen = new long[(nextOrdinal + 63) >>> 6];
+        for (int c = 1; c < prefix.completions.length; c++) {
+            Postings postings = prefix.completions[c].postings;
+            int inFirst = 0;
+            for (int i = 0; i < postings.size; i++) {
+                int doc = postings.docs[i];
+                if (postings.frequencies[i] == 0) {
+                    continue;
+                }
+                inFirst = first.advance(inFirst, doc);
+                if (inFirst < first.size && first.docs[inFirst] == doc && first.frequencies[inFirst] != 0) {
+                    continue;
+                }
+                long bit = 1L << doc;
+                if ((seen[doc >>> 6] & bit) == 0) {
+                    seen[doc >>> 6] |= bit;
+                    total++;
+                    facetCounts[priceBand(price(doc))]++;
+                }
+            }
+        }
+        return new ProductSearchResult(hits(top), total, facets(facetCounts));
+    }
+
+    /**
+     * Best products for one word, skipping every block whose best possible score cannot enter the results.
+     */
+    private PriorityQueue<ScoredDoc> topOf(TermClause term, double averageLength, int limit) {
+        Postings postings = term.postings;
+        PriorityQueue<ScoredDoc> top = topResults(limit);
+        for (int block = 0, start = 0; start < postings.size; block++, start += BLOCK_SIZE) {
+            if (top.size() == limit) {
+                double bound = term.bm25(postings.blockMaxFrequency[block],
+                        lengthNorm(postings.blockMinLength[block], averageLength));
+                if (bound <= top.peek().score()) {
+                    continue;
+                }
+            }
+            int end = Math.min(postings.size, start + BLOCK_SIZE);
+            for (int i = start; i < end; i++) {
+                if (postings.frequencies[i] != 0) {
+                    int doc = postings.docs[i];
+                    offer(top, limit, doc, term.bm25(postings.frequencies[i], lengthNorm(length(doc), averageLength)));
+                }
+            }
+        }
+        return top;
+    }
+
+    private static PriorityQueue<ScoredDoc> topResults(int limit) {
+        // Lowest score at the head; a later match that only ties it never displaces it
+        return new PriorityQueue<>(limit + 1,
+                Comparator.comparingDouble(ScoredDoc::score).thenComparingInt(ScoredDoc::ordinal));
+    }
+
+    private static void offer(PriorityQueue<ScoredDoc> top, int limit, int doc, double score) {
+        if (top.size() < limit) {
+            top.add(new ScoredDoc(doc, score));
+        } else if (score > top.peek().score()) {
+            top.poll();
+            top.add(new ScoredDoc(doc, score));
+        }
+    }
+
+    private List<ProductSearchResult.Hit> hits(PriorityQueue<ScoredDoc> top) {
+        ProductSearchResult.Hit[] hits = new ProductSearchResult.Hit[top.size()];
+        for (int i = hits.length - 1; i >= 0; i--) {
+            ScoredDoc scored = top.poll();
+            Doc d = docs[scored.ordinal()];
+            hits[i] = new ProductSearchResult.Hit(d.id(), d.name(), d.price(), d.imageUrl(), scored.score());
+        }
+        return List.of(hits);
+    }
+
+    private double price(int ordinal) {
+        return stats[2 * ordinal];
+    }
+
+    private int length(int ordinal) {
+        return (int) stats[2 * ordinal + 1];
+    }
+
+    private static double lengthNorm(int length, double averageLength) {
+        return K1 * (1 - B + B * length / averageLength);
+    }
+
+    /**
+     * Completes a partly typed word with indexed words, most common first.
+     */
+    public List<String> suggest(String prefix, int limit) {
+        List<String> tokens = Tokenizer.tokenize(prefix);
+        if (tokens.isEmpty()) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            return prefixMatches(tokens.get(tokens.size() - 1), limit).stream().map(p -> p.term).toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void removeLocked(Long id) {
+        Integer ordinal = ordinals.remove(id);
+        if (ordinal == null) {
+            return;
+        }
+        int band = priceBand(price(ordinal));
+        for (String term : docs[ordinal].terms()) {
+            Postings postings = terms.get(term);
+            postings.remove(ordinal, band);
+            if (postings.live == 0) {
+                terms.remove(term);
+            }
+        }
+        docs[ordinal] = null;
+        totalLength -= length(ordinal);
+        deadOrdinals++;
+        if (deadOrdinals >= MIN_DEAD_TO_COMPACT && deadOrdinals * 4L >= nextOrdinal) {
+            compact();
+        }
+    }
+
+    /**
+     * Renumbers the live products in their current order, so every posting list stays sorted, and drops the
+     * dead postings and ordinals.
+     */
+    private void compact() {
+        int[] renumbered = new int[nextOrdinal];
+        int live = 0;
+        for (int ordinal = 0; ordinal < nextOrdinal; ordinal++) {
+            if (docs[ordinal] != null) {
+                renumbered[ordinal] = live;
+                docs[live] = docs[ordinal];
+                stats[2 * live] = stats[2 * ordinal];
+                stats[2 * live + 1] = stats[2 * ordinal + 1];
+                live++;
+            }
+        }
+        int capacity = Math.max(1024, Integer.highestOneBit(Math.max(live, 1)) * 2);
+        if (capacity < docs.length) {
+            docs = Arrays.copyOf(docs, capacity);
+            stats = Arrays.copyOf(stats, 2 * capacity);
+        }
+        Arrays.fill(docs, live, Math.min(nextOrdinal, docs.length), null);
+        ordinals.replaceAll((id, ordinal) -> renumbered[ordinal]);
+        for (Postings postings : terms.values()) {
+            postings.compact(renumbered, this::length);
+        }
+        nextOrdinal = live;
+        deadOrdinals = 0;
+    }
+
+    /**
+     * Ordinals in use, live or dead; for tests.
+     */
+    int ordinalsInUse() {
+        lock.readLock().lock();
+        try {
+            return nextOrdinal;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Clause termClause(String term, int docCount) {
+        Postings postings = terms.get(term);
+        return postings == null ? null : new TermClause(postings, docCount);
+    }
+
+    private Clause prefixClause(String prefix, int docCount) {
+        List<Postings> matches = prefixMatches(prefix, MAX_PREFIX_TERMS);
+        if (matches.isEmpty()) {
+            return null;
+        }
+        if (matches.size() == 1) {
+            return new TermClause(matches.get(0), docCount);
+        }
+        return new PrefixClause(matches.stream().map(p -> new TermClause(p, docCount)).toArray(TermClause[]::new));
+    }
+
+    private List<Postings> prefixMatches(String prefix, int limit) {
+        List<Postings> matches = new ArrayList<>();
+        for (Postings postings : terms.subMap(prefix, prefix + Character.MAX_VALUE).values()) {
+            matches.add(postings);
+            if (matches.size() == MAX_PREFIX_SCAN) {
+                break;
+            }
+        }
+        matches.sort(Comparator.comparingInt((Postings p) -> p.live).reversed());
+        return matches.size() > limit ? matches.subList(0, limit) : matches;
+    }
+
+    private static int priceBand(double price) {
+        int band = 0;
+        while (band + 1 < PRICE_BAND_FLOORS.length && price >= PRICE_BAND_FLOORS[band + 1]) {
+            band++;
+        }
+        return band;
+    }
+
+    private static List<ProductSearchResult.PriceFacet> facets(int[] counts) {
+        List<ProductSearchResult.PriceFacet> facets = new ArrayList<>(counts.length);
+        for (int i = 0; i < counts.length; i++) {
+            BigDecimal to = i + 1 < PRICE_BANDS.length ? PRICE_BANDS[i + 1] : null;
+            facets.add(new ProductSearchResult.PriceFacet(PRICE_BANDS[i], to, counts[i]));
+        }
+        return facets;
+    }
+
+    /**
+     * Ordinals containing one word, ascending, with the word's weighted frequency in each, plus match counts
+     * per price band and score bounds per block. A removed posting keeps its slot with a frequency of zero
+     * until the index is compacted; block bounds may then overestimate, which only costs pruning.
+     */
+    private static final class Postings {
+
+        final String term;
+        int[] docs = new int[2];
+        int[] frequencies = new int[2];
+        // Slots used, dead ones included, and live postings among them
+        int size;
+        int live;
+        // Never lowered by a removal; compaction recomputes it
+        int maxFrequency;
+        final int[] bandCounts = new int[PRICE_BANDS.length];
+        int[] blockMaxFrequency = new int[1];
+        int[] blockMinLength = {Integer.MAX_VALUE};
+        // Live ordinals as a bitmap, built by the first search that probes this word and kept up to date by
+        // writes from then on
+        private volatile long[] members;
+
+        Postings(String term) {
+            this.term = term;
+        }
+
+        void add(int doc, int frequency, int length, int band) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            docs[size] = doc;
+            frequencies[size] = frequency;
+            bandCounts[band]++;
+            live++;
+            maxFrequency = Math.max(maxFrequency, frequency);
+            long[] bits = members;
+            if (bits != null) {
+                if (doc >>> 6 >= bits.length) {
+                    bits = Arrays.copyOf(bits, Math.max(bits.length * 2, (doc >>> 6) + 1));
+                    members = bits;
+                }
+                bits[doc >>> 6] |= 1L << doc;
+            }
+
+            int block = size / BLOCK_SIZE;
+            if (block == blockMaxFrequency.length) {
+                blockMaxFrequency = Arrays.copyOf(blockMaxFrequency, block * 2);
+                blockMinLength = Arrays.copyOf(blockMinLength, block * 2);
+            }
+            if (size % BLOCK_SIZE == 0) {
+                blockMaxFrequency[block] = frequency;
+                blockMinLength[block] = length;
+            } else {
+                blockMaxFrequency[block] = Math.max(blockMaxFrequency[block], frequency);
+                blockMinLength[block] = Math.min(blockMinLength[block], length);
+            }
+            size++;
+        }
+
+        void remove(int doc, int band) {
+            int index = Arrays.binarySearch(docs, 0, size, doc);
+            if (index < 0 || frequencies[index] == 0) {
+                return;
+            }
+            frequencies[index] = 0;
+            live--;
+            bandCounts[band]--;
+            long[] bits = members;
+            if (bits != null) {
+                bits[doc >>> 6] &= ~(1L << doc);
+            }
+        }
+
+        /**
+         * Drops dead postings, renumbers the rest and recomputes the block bounds.
+         */
+        void compact(int[] renumbered, IntUnaryOperator lengths) {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                if (frequencies[i] != 0) {
+                    docs[kept] = renumbered[docs[i]];
+                    frequencies[kept++] = frequencies[i];
+                }
+            }
+            size = kept;
+            members = null;
+            maxFrequency = 0;
+            for (int block = 0, start = 0; start < size; block++, start += BLOCK_SIZE) {
+                int maxFrequency = 0;
+                int minLength = Integer.MAX_VALUE;
+                for (int i = start, end = Math.min(size, start + BLOCK_SIZE); i < end; i++) {
+                    maxFrequency = Math.max(maxFrequency, frequencies[i]);
+                    minLength = Math.min(minLength, lengths.applyAsInt(docs[i]));
+                }
+                blockMaxFrequency[block] = maxFrequency;
+                blockMinLength[block] = minLength;
+                this.maxFrequency = Math.max(this.maxFrequency, maxFrequency);
+            }
+        }
+
+        long[] members() {
+            long[] bits = members;
+            if (bits == null) {
+                // Readers building it at once build the same bitmap; writers are shut out by the lock
+                bits = new long[size == 0 ? 1 : (docs[size - 1] >>> 6) + 1];
+                for (int i = 0; i < size; i++) {
+                    if (frequencies[i] != 0) {
+                        bits[docs[i] >>> 6] |= 1L << docs[i];
+                    }
+                }
+                members = bits;
+            }
+            return bits;
+        }
+
+        /**
+         * Index of the first ordinal at or after {@code from} that is {@code >= target}, galloping ahead
+         * so long skips cost a logarithmic number of probes.
+         */
+        int advance(int from, int target) {
+            if (from >= size || docs[from] >= target) {
+                return from;
+            }
+            int low = from;
+            int step = 1;
+            int high = from + 1;
+            while (high < size && docs[high] < target) {
+                low = high;
+                step <<= 1;
+                high = from + step;
+            }
+            int index = Arrays.binarySearch(docs, low + 1, Math.min(high, size), target);
+            return index >= 0 ? index : -index - 1;
+        }
+    }
+
+    private interface Clause {
+
+        /**
+         * Smallest matching ordinal {@code >= target}; targets never decrease between calls.
+         */
+        int nextDoc(int target);
+
+        /**
+         * BM25 contribution for the ordinal last returned by {@link #nextDoc}.
+         */
+        double score(int doc, double lengthNorm);
+
+        /**
+         * Whether the ordinal matches, for a clause probed per candidate; targets never decrease between calls.
+         */
+        boolean contains(int doc);
+
+        /**
+         * Highest BM25 contribution for a product of this length.
+         */
+        double maxScore(double lengthNorm);
+
+        long cost();
+    }
+
+    private static final class TermClause implements Clause {
+
+        private final Postings postings;
+        private final double idf;
+        private final boolean dense;
+        private int position;
+        private long[] members;
+
+        TermClause(Postings postings, int docCount) {
+            this.postings = postings;
+            this.idf = Math.log(1 + (docCount - postings.live + 0.5) / (postings.live + 0.5));
+            this.dense = (long) postings.live * DENSE_FRACTION >= docCount;
+        }
+
+        @Override
+        public int nextDoc(int target) {
+            position = postings.advance(position, target);
+            while (position < postings.size && postings.frequencies[position] == 0) {
+                position++;
+            }
+            return current();
+        }
+
+        int current() {
+            return position < postings.size ? postings.docs[position] : NO_MORE_DOCS;
+        }
+
+        @Override
+        public double score(int doc, double lengthNorm) {
+            return bm25(postings.frequencies[position], lengthNorm);
+        }
+
+        @Override
+        public boolean contains(int doc) {
+            if (!dense) {
+                return nextDoc(doc) == doc;
+            }
+            if (members == null) {
+                members = postings.members();
+            }
+            return doc >>> 6 < members.length && (members[doc >>> 6] & 1L << doc) != 0;
+        }
+
+        @Override
+        public double maxScore(double lengthNorm) {
+            return bm25(postings.maxFrequency, lengthNorm);
+        }
+
+        double bm25(int frequency, double lengthNorm) {
+            return idf * frequency * (K1 + 1) / (frequency + lengthNorm);
+        }
+
+        @Override
+        public long cost() {
+            return postings.live;
+        }
+    }
+
+    /**
+     * Matches any of several completions of a prefix, scoring a product by its best-matching completion.
+     */
+    private static final class PrefixClause implements Clause {
+
+        // Most common first
+        private final TermClause[] completions;
+
+        PrefixClause(TermClause[] completions) {
+            this.completions = completions;
+        }
+
+        @Override
+        public int nextDoc(int target) {
+            int next = NO_MORE_DOCS;
+            for (TermClause completion : completions) {
+                next = Math.min(next, completion.nextDoc(target));
+            }
+            return next;
+        }
+
+        @Override
+        public double score(int doc, double lengthNorm) {
+            double best = 0;
+            for (TermClause completion : completions) {
+                if (completion.current() == doc) {
+                    best = Math.max(best, completion.score(doc, lengthNorm));
+                }
+            }
+            return best;
+        }
+
+        @Override
+        public boolean contains(int doc) {
+            for (TermClause completion : completions) {
+                if (completion.contains(doc)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public double maxScore(double lengthNorm) {
+            double best = 0;
+            for (TermClause completion : completions) {
+                best = Math.max(best, completion.maxScore(lengthNorm));
+            }
+            return best;
+        }
+
+        @Override
+        public long cost() {
+            long cost = 0;
+            for (TermClause completion : completions) {
+                cost += completion.cost();
+            }
+            return cost;
+        }
+    }
+}
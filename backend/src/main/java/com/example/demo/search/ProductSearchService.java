@@ -0,0 +1,156 @@
+package com.example.demo.search;
+
+import com.example.demo.cache.CacheInvalidationBus;
+import com.example.demo.cache.ProductChangedEvent;
+import com.example.demo.cache.ProductsCreatedEvent;
+import com.example.demo.dto.ProductSearchQuery;
+import com.example.demo.dto.ProductSearchResult;
+import com.example.demo.dto.ProductSummary;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Keeps a {@link ProductSearchIndex} in step with the products table. The index is built in the background
+ * once the application is ready, then kept current from the same committed-change events that invalidate
+ * the product cache, so every node's index follows writes made on any node.
+ */
+@Slf4j
+@Service
+public class ProductSearchService implements CacheInvalidationBus.Listener {
+
+    private static final String SELECT = "SELECT id, name, description, price, image_url FROM products";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+
+    private volatile ProductSearchIndex index = new ProductSearchIndex();
+
+    // Products changed while a rebuild was reading the table; re-read once the new index is live
+    private final Set<Long> changedDuringRebuild = ConcurrentHashMap.newKeySet();
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    private volatile boolean rebuilding;
+
+    public ProductSearchService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                CacheInvalidationBus bus) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        bus.subscribe(this);
+    }
+
+    public ProductSearchResult search(ProductSearchQuery query) {
+        if (query.getMinPrice() != null && query.getMaxPrice() != null
+                && query.getMinPrice().compareTo(query.getMaxPrice()) > 0) {
+            throw new RuntimeException("Minimum price cannot exceed maximum price");
+        }
+        return index.search(query.getQ(), query.isTypeahead(), query.getMinPrice(), query.getMaxPrice(), query.getLimit());
+    }
+
+    public List<String> suggest(String prefix, int limit) {
+        return index.suggest(prefix, Math.min(Math.max(limit, 1), 20));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        Thread.ofPlatform().name("search-index-build").start(this::rebuild);
+    }
+
+    @Override
+    public void productChanged(ProductChangedEvent event) {
+        if (event.stockOnly()) {
+            return; // stock is not searchable and not part of a hit
+        }
+        if (rebuilding) {
+            changedDuringRebuild.add(event.productId());
+        }
+        if (event.after() == null) {
+            index.remove(event.productId());
+        } else {
+            reindex(event.productId());
+        }
+    }
+
+    /**
+     * Indexes a batch from the rows in the event, or, for a batch created on another node, from one read of
+     * all its ids.
+     */
+    @Override
+    public void productsCreated(ProductsCreatedEvent event) {
+        if (rebuilding) {
+            changedDuringRebuild.addAll(event.productIds());
+        }
+        if (event.idsOnly()) {
+            jdbcTemplate.query(SELECT + " WHERE id = ANY(?)", (RowCallbackHandler) rs -> index.put(rs.getLong("id"),
+                    rs.getString("name"), rs.getString("description"), rs.getBigDecimal("price"),
+                    rs.getString("image_url")), (Object) event.productIds().toArray(Long[]::new));
+            return;
+        }
+        ProductSearchIndex target = index;
+        for (int i = 0; i < event.products().size(); i++) {
+            ProductSummary product = event.products().get(i);
+            target.put(product.id(), product.name(), event.descriptions().get(i), product.price(), product.imageUrl());
+        }
+    }
+
+    @Override
+    public void resync() {
+        Thread.ofPlatform().name("search-index-build").start(this::rebuild);
+    }
+
+    /**
+     * Reads the whole table into a fresh index and swaps it in.
+     */
+    void rebuild() {
+        rebuildLock.lock();
+        try {
+            rebuilding = true;
+            long start = System.nanoTime();
+            ProductSearchIndex fresh = new ProductSearchIndex();
+            readOnlyTransaction.executeWithoutResult(status -> jdbcTemplate.query(con -> {
+                PreparedStatement statement = con.prepareStatement(SELECT);
+                statement.setFetchSize(1000); // stream rows instead of buffering the whole table
+                return statement;
+            }, (RowCallbackHandler) rs -> fresh.put(rs.getLong("id"), rs.getString("name"),
+                    rs.getString("description"), rs.getBigDecimal("price"), rs.getString("image_url"))));
+
+            index = fresh;
+            rebuilding = false;
+            for (Long productId : changedDuringRebuild) {
+                changedDuringRebuild.remove(productId);
+                reindex(productId);
+            }
+            log.info("Search index built with {} products in {} ms", fresh.size(), (System.nanoTime() - start) / 1_000_000);
+        } catch (RuntimeException e) {
+            rebuilding = false;
+            log.error("Search index build failed; search keeps serving the previous index", e);
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    private void reindex(Long productId) {
+        Boolean found = jdbcTemplate.query(SELECT + " WHERE id = ?", rs -> {
+            if (!rs.next()) {
+                return false;
+            }
+            index.put(rs.getLong("id"), rs.getString("name"), rs.getString("description"),
+                    rs.getBigDecimal("price"), rs.getString("image_url"));
+            return true;
+        }, productId);
+        if (!Boolean.TRUE.equals(found)) {
+            index.remove(productId);
+        }
+    }
+}
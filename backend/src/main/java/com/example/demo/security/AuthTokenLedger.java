@@ -0,0 +1,49 @@
+package com.example.demo.security;
+
+import com.example.demo.entity.User;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Durable refresh tokens and session revocations, keyed by token hash and session id.
+ */
+public interface AuthTokenLedger {
+
+    record Rotation(String familyId, Long userId, String username, User.Role role) {
+    }
+
+    record StoredRefreshToken(String familyId, boolean used) {
+    }
+
+    /**
+     * Revocations read in one sync, with the database time they were read at.
+     */
+    record RevocationBatch(Map<String, LocalDateTime> revoked, LocalDateTime readAt) {
+    }
+
+    void issueRefreshToken(String tokenHash, Long userId, String familyId, LocalDateTime expiresAt);
+
+    /**
+     * Marks the token used and stores its successor in the same family, in one statement, if the token is
+     * unused, unrevoked and unexpired.
+     */
+    Optional<Rotation> rotateRefreshToken(String tokenHash, String nextTokenHash, LocalDateTime expiresAt);
+
+    Optional<StoredRefreshToken> findRefreshToken(String tokenHash);
+
+    void revokeFamily(String familyId);
+
+    void revoke(String tokenId, LocalDateTime expiresAt);
+
+    /**
+     * Revocations recorded at or after {@code since} that have not expired; all of them when it is null.
+     */
+    RevocationBatch revokedSince(LocalDateTime since);
+
+    /**
+     * Deletes refresh tokens and revocations that expired before {@code now}.
+     */
+    int deleteExpired(LocalDateTime now);
+}
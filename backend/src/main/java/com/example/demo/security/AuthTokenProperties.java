@@ -0,0 +1,32 @@
+package com.example.demo.security;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "app.auth-tokens")
+public class AuthTokenProperties {
+
+    /**
+     * How long a refresh token stays usable; each refresh issues a new one with the full lifetime.
+     */
+    private Duration refreshTtl = Duration.ofDays(30);
+
+    /**
+     * Revocations are read again for this long after they were first seen, so one whose transaction
+     * committed late is not missed.
+     */
+    private Duration syncOverlap = Duration.ofSeconds(5);
+
+    /**
+     * Share of unrevoked tokens the in-memory filter sends on to the exact set.
+     */
+    private double falsePositiveRate = 0.001;
+
+    /**
+     * The filter is sized for twice the live revocations, and never for fewer than this.
+     */
+    private long minFilterCapacity = 10_000;
+}
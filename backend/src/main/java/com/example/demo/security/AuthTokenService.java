@@ -0,0 +1,125 @@
+package com.example.demo.security;
+
+import com.example.demo.dto.AuthResponse;
+import com.example.demo.entity.User;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.CredentialsExpiredException;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Issues short-lived access tokens with a refresh token, so clients stay signed in without sending their
+ * password again.
+ * <p>
+ * Each sign-in starts a session: a family of refresh tokens whose id every access token carries as its
+ * {@code sid} claim. A refresh token is exchanged once for a new pair. Presenting a token that was already
+ * exchanged means two parties hold it, so the whole session is revoked: its refresh tokens stop working and
+ * {@link TokenRevocationList} refuses its access tokens. Signing out does the same.
+ */
+@Slf4j
+@Component
+@EnableConfigurationProperties(AuthTokenProperties.class)
+public class AuthTokenService {
+
+    private static final int REFRESH_TOKEN_BYTES = 32;
+
+    private final AuthTokenLedger ledger;
+    private final TokenRevocationList revocations;
+    private final JwtUtil jwtUtil;
+    private final AuthTokenProperties properties;
+    private final SecureRandom random = new SecureRandom();
+
+    public AuthTokenService(AuthTokenLedger ledger, TokenRevocationList revocations, JwtUtil jwtUtil,
+                            AuthTokenProperties properties) {
+        this.ledger = ledger;
+        this.revocations = revocations;
+        this.jwtUtil = jwtUtil;
+        this.properties = properties;
+    }
+
+    public AuthResponse startSession(UserAccount account) {
+        String sessionId = UUID.randomUUID().toString();
+        String refreshToken = newRefreshToken();
+        ledger.issueRefreshToken(hash(refreshToken), account.id(), sessionId,
+                LocalDateTime.now().plus(properties.getRefreshTtl()));
+        return response(sessionId, refreshToken, account.id(), account.username(), account.role());
+    }
+
+    /**
+     * @throws CredentialsExpiredException when the token is unknown, expired, revoked or already exchanged
+     */
+    public AuthResponse refresh(String refreshToken) {
+        String tokenHash = hash(refreshToken);
+        String next = newRefreshToken();
+        Optional<AuthTokenLedger.Rotation> rotation = ledger.rotateRefreshToken(tokenHash, hash(next),
+                LocalDateTime.now().plus(properties.getRefreshTtl()));
+        if (rotation.isEmpty()) {
+            ledger.findRefreshToken(tokenHash)
+                    .filter(AuthTokenLedger.StoredRefreshToken::used)
+                    .ifPresent(replayed -> {
+                        log.warn("Refresh token of session {} was presented again, revoking the session",
+                                replayed.familyId());
+                        endSession(replayed.familyId());
+                    });
+            throw new CredentialsExpiredException("Refresh token is invalid or expired");
+        }
+        AuthTokenLedger.Rotation rotated = rotation.get();
+        return response(rotated.familyId(), next, rotated.userId(), rotated.username(), rotated.role());
+    }
+
+    /**
+     * Ends the session the refresh token belongs to; unknown tokens are ignored.
+     */
+    public void signOut(String refreshToken) {
+        ledger.findRefreshToken(hash(refreshToken))
+                .ifPresent(token -> endSession(token.familyId()));
+    }
+
+    @Scheduled(fixedDelayString = "${app.auth-tokens.cleanup-interval-ms:3600000}")
+    public void cleanup() {
+        int deleted = ledger.deleteExpired(LocalDateTime.now());
+        if (deleted > 0) {
+            log.info("Deleted {} expired refresh tokens and revocations", deleted);
+        }
+    }
+
+    private void endSession(String sessionId) {
+        ledger.revokeFamily(sessionId);
+        // Access tokens of the session issued up to now all expire by then
+        revocations.revoke(sessionId, LocalDateTime.now().plus(jwtUtil.getExpiration()));
+    }
+
+    private AuthResponse response(String sessionId, String refreshToken, Long userId, String username,
+                                  User.Role role) {
+        String accessToken = jwtUtil.generateToken(username, userId, role.name(), sessionId);
+        return new AuthResponse(accessToken, refreshToken, jwtUtil.getExpiration().toSeconds(), userId, username,
+                role.name());
+    }
+
+    private String newRefreshToken() {
+        byte[] bytes = new byte[REFRESH_TOKEN_BYTES];
+        random.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    // Only digests are stored, so a leaked table cannot be replayed; the tokens are random enough to need no salt
+    private static String hash(String refreshToken) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(refreshToken.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
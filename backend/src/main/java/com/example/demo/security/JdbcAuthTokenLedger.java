@@ -0,0 +1,92 @@
+package com.example.demo.security;
+
+import com.example.demo.entity.User;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+@Component
+@RequiredArgsConstructor
+public class JdbcAuthTokenLedger implements AuthTokenLedger {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void issueRefreshToken(String tokenHash, Long userId, String familyId, LocalDateTime expiresAt) {
+        jdbcTemplate.update("""
+                INSERT INTO refresh_tokens (token_hash, user_id, family_id, expires_at, created_at, revoked)
+                VALUES (?, ?, ?, ?, localtimestamp, false)
+                """, tokenHash, userId, familyId, Timestamp.valueOf(expiresAt));
+    }
+
+    @Override
+    public Optional<Rotation> rotateRefreshToken(String tokenHash, String nextTokenHash, LocalDateTime expiresAt) {
+        // The guarded UPDATE lets only one of two concurrent refreshes with the same token through
+        return jdbcTemplate.query("""
+                        WITH used AS (
+                            UPDATE refresh_tokens SET used_at = localtimestamp
+                            WHERE token_hash = ? AND used_at IS NULL AND NOT revoked AND expires_at > localtimestamp
+                            RETURNING user_id, family_id
+                        ), issued AS (
+                            INSERT INTO refresh_tokens (token_hash, user_id, family_id, expires_at, created_at, revoked)
+                            SELECT ?, user_id, family_id, ?, localtimestamp, false FROM used
+                            RETURNING user_id, family_id
+                        )
+                        SELECT i.family_id, u.id, u.username, u.role FROM issued i JOIN users u ON u.id = i.user_id
+                        """,
+                (rs, rowNum) -> new Rotation(rs.getString("family_id"), rs.getLong("id"), rs.getString("username"),
+                        User.Role.valueOf(rs.getString("role"))),
+                tokenHash, nextTokenHash, Timestamp.valueOf(expiresAt)).stream().findFirst();
+    }
+
+    @Override
+    public Optional<StoredRefreshToken> findRefreshToken(String tokenHash) {
+        return jdbcTemplate.query("SELECT family_id, used_at IS NOT NULL AS used FROM refresh_tokens WHERE token_hash = ?",
+                (rs, rowNum) -> new StoredRefreshToken(rs.getString("family_id"), rs.getBoolean("used")),
+                tokenHash).stream().findFirst();
+    }
+
+    @Override
+    public void revokeFamily(String familyId) {
+        jdbcTemplate.update("UPDATE refresh_tokens SET revoked = true WHERE family_id = ? AND NOT revoked", familyId);
+    }
+
+    @Override
+    public void revoke(String tokenId, LocalDateTime expiresAt) {
+        // revoked_at comes from the database clock, which every node's sync reads against
+        jdbcTemplate.update("""
+                INSERT INTO revoked_tokens (token_id, expires_at, revoked_at) VALUES (?, ?, localtimestamp)
+                ON CONFLICT (token_id) DO UPDATE SET expires_at = greatest(revoked_tokens.expires_at, excluded.expires_at)
+                """, tokenId, Timestamp.valueOf(expiresAt));
+    }
+
+    @Override
+    @Transactional
+    public RevocationBatch revokedSince(LocalDateTime since) {
+        LocalDateTime readAt = jdbcTemplate.queryForObject("SELECT localtimestamp", LocalDateTime.class);
+        Map<String, LocalDateTime> revoked = new HashMap<>();
+        jdbcTemplate.query("""
+                        SELECT token_id, expires_at FROM revoked_tokens
+                        WHERE revoked_at >= coalesce(?, '-infinity'::timestamp) AND expires_at > ?
+                        """,
+                (RowCallbackHandler) rs -> revoked.put(rs.getString(1), rs.getTimestamp(2).toLocalDateTime()),
+                since != null ? Timestamp.valueOf(since) : null, Timestamp.valueOf(readAt));
+        return new RevocationBatch(revoked, readAt);
+    }
+
+    @Override
+    @Transactional
+    public int deleteExpired(LocalDateTime now) {
+        Timestamp cutoff = Timestamp.valueOf(now);
+        return jdbcTemplate.update("DELETE FROM refresh_tokens WHERE expires_at < ?", cutoff)
+                + jdbcTemplate.update("DELETE FROM revoked_tokens WHERE expires_at < ?", cutoff);
+    }
+}
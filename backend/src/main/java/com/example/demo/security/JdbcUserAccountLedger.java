@@ -0,0 +1,50 @@
+package com.example.demo.security;
+
+import com.example.demo.entity.User;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+import java.util.function.ObjLongConsumer;
+
+@Component
+@RequiredArgsConstructor
+public class JdbcUserAccountLedger implements UserAccountLedger {
+
+    private static final int FETCH_SIZE = 10_000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public Optional<UserAccount> findByUsername(String username) {
+        return jdbcTemplate.query("SELECT id, username, password, role FROM users WHERE username = ?",
+                (rs, rowNum) -> new UserAccount(rs.getLong("id"), rs.getString("username"), rs.getString("password"),
+                        User.Role.valueOf(rs.getString("role"))),
+                username).stream().findFirst();
+    }
+
+    @Override
+    public long count() {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM users", Long.class);
+    }
+
+    // Not read-only, so the scan runs on the primary: a lagging replica would leave fresh users out of the filter.
+    // The transaction lets Postgres stream the rows through a cursor instead of buffering them all
+    @Override
+    @Transactional
+    public long forEachUsernameAfter(long afterId, ObjLongConsumer<String> action) {
+        long[] count = {0};
+        jdbcTemplate.query(connection -> {
+            var statement = connection.prepareStatement("SELECT username, id FROM users WHERE id > ?");
+            statement.setLong(1, afterId);
+            statement.setFetchSize(FETCH_SIZE);
+            return statement;
+        }, rs -> {
+            action.accept(rs.getString(1), rs.getLong(2));
+            count[0]++;
+        });
+        return count[0];
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.demo.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Cache of verified tokens keyed by the SHA-256 digest of the raw token, bounded by size with Caffeine's
+ * W-TinyLFU eviction, so tokens in active use outlive a burst of one-off ones.
+ * A hit skips the HMAC check and JSON parsing until the token's own expiry.
+ */
+@Component
+public class JwtClaimsCache {
+
+    private final JwtUtil jwtUtil;
+    private final int maxSize;
+    private final Cache<String, VerifiedToken> entries;
+
+    public JwtClaimsCache(JwtUtil jwtUtil, @Value("${spring.security.jwt.claims-cache-size:10000}") int maxSize) {
+        this.jwtUtil = jwtUtil;
+        this.maxSize = maxSize;
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(Math.max(maxSize, 0))
+                // Until the token's own expiry
+                .expireAfter(Expiry.creating((String key, VerifiedToken verified) -> {
+                    Duration left = Duration.between(Instant.now(), verified.expiresAt());
+                    return left.isNegative() ? Duration.ZERO : left;
+                }))
+                .build();
+    }
+
+    /**
+     * Returns the verified claims for the token, verifying it only on a cache miss.
+     * Invalid or expired tokens throw the same {@link io.jsonwebtoken.JwtException} as {@link JwtUtil#verify}.
+     */
+    public VerifiedToken resolve(String token) {
+        String key = digest(token);
+
+        VerifiedToken cached = entries.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        VerifiedToken verified = jwtUtil.verify(token);
+        if (maxSize > 0) {
+            entries.put(key, verified);
+        }
+        return verified;
+    }
+
+    public int size() {
+        // Eviction runs behind writes; settle it so the count is within the bound
+        entries.cleanUp();
+        return (int) entries.estimatedSize();
+    }
+
+    public void clear() {
+        entries.invalidateAll();
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.demo.security;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Data
+@ConfigurationProperties(prefix = "spring.security.jwt")
+public class JwtProperties {
+
+    /**
+     * Secret of the key new tokens are signed with.
+     */
+    private String secret;
+
+    private Long expiration;
+
+    /**
+     * Written to the {@code kid} header of every issued token.
+     */
+    private String keyId = "primary";
+
+    /**
+     * Keys that are no longer used for signing but still verify tokens issued before a rotation, by {@code kid}.
+     */
+    private Map<String, String> retiredKeys = new HashMap<>();
+}
@@ -1,49 +1,120 @@
 package com.example.demo.security;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Header;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.ProtectedHeader;
 import io.jsonwebtoken.security.Keys;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.time.Duration;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @Component
 public class JwtUtil {
     
-    @Value("${spring.security.jwt.secret}")
-    private String secret;
+    private final long expiration;
+    private final String keyId;
+    private final SecretKey signingKey;
+    private final Map<String, SecretKey> verificationKeys;
     
-    @Value("${spring.security.jwt.expiration}")
-    private Long expiration;
+    // JwtParser is immutable and thread-safe, so one instance serves every request
+    private final JwtParser parser;
     
-    private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes());
+    public JwtUtil(JwtProperties properties) {
+        this.expiration = properties.getExpiration();
+        this.keyId = properties.getKeyId();
+        this.signingKey = toKey(properties.getSecret());
+        
+        Map<String, SecretKey> keys = new HashMap<>();
+        properties.getRetiredKeys().forEach((kid, secret) -> keys.put(kid, toKey(secret)));
+        keys.put(keyId, signingKey);
+        this.verificationKeys = Map.copyOf(keys);
+        
+        this.parser = Jwts.parser()
+                .keyLocator(this::locateKey)
+                .build();
+    }
+    
+    private static SecretKey toKey(String secret) {
+        return Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    private Key locateKey(Header header) {
+        if (!(header instanceof ProtectedHeader protectedHeader)) {
+            throw new JwtException("Unsigned tokens are not accepted");
+        }
+        String kid = protectedHeader.getKeyId();
+        if (kid == null) {
+            // Tokens issued before key ids were introduced
+            return signingKey;
+        }
+        SecretKey key = verificationKeys.get(kid);
+        if (key == null) {
+            throw new JwtException("Unknown signing key: " + kid);
+        }
+        return key;
+    }
+    
+    public Duration getExpiration() {
+        return Duration.ofMillis(expiration);
     }
     
     public String generateToken(String username, Long userId, String role) {
+        return generateToken(username, userId, role, null);
+    }
+    
+    /**
+     * Issues an access token for the given session, which is revoked as a whole through its {@code sid} claim.
+     */
+    public String generateToken(String username, Long userId, String role, String sessionId) {
         Map<String, Object> claims = new HashMap<>();
         claims.put("userId", userId);
         claims.put("role", role);
+        if (sessionId != null) {
+            claims.put("sid", sessionId);
+        }
         
         return Jwts.builder()
+                .header().keyId(keyId).and()
                 .claims(claims)
                 .subject(username)
                 .issuedAt(new Date())
                 .expiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSigningKey())
+                .signWith(signingKey)
                 .compact();
     }
     
     public Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+        return parser.parseSignedClaims(token).getPayload();
+    }
+    
+    /**
+     * Parses and verifies the token a single time and returns every claim the filter needs.
+     */
+    public VerifiedToken verify(String token) {
+        Claims claims = extractAllClaims(token);
+        if (claims.getSubject() == null || claims.getExpiration() == null) {
+            throw new JwtException("Token is missing subject or expiration");
+        }
+        String role = claims.get("role", String.class);
+        return new VerifiedToken(
+                claims.getSubject(),
+                claims.get("userId", Long.class),
+                role,
+                claims.get("sid", String.class),
+                claims.getExpiration().toInstant(),
+                List.of(new SimpleGrantedAuthority("ROLE_" + role))
+        );
     }
     
     public String extractUsername(String token) {
@@ -0,0 +1,52 @@
+package com.example.demo.security;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "app.login-rate-limit")
+public class LoginRateLimitProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * Attempts against one username, whatever address they come from; slows guessing one account's password.
+     */
+    private Bucket username = new Bucket(10, Duration.ofSeconds(6));
+
+    /**
+     * Attempts from one client address, whatever username they name; slows credential stuffing.
+     */
+    private Bucket address = new Bucket(50, Duration.ofSeconds(1));
+
+    private int stripes = 16;
+
+    /**
+     * Buckets kept per stripe and limit; the least recently used are dropped beyond this.
+     */
+    private int maxKeysPerStripe = 10_000;
+
+    @Data
+    public static class Bucket {
+
+        /**
+         * Attempts allowed in a burst.
+         */
+        private int capacity;
+
+        /**
+         * Time to regain one attempt.
+         */
+        private Duration refillPeriod;
+
+        public Bucket() {
+        }
+
+        public Bucket(int capacity, Duration refillPeriod) {
+            this.capacity = capacity;
+            this.refillPeriod = refillPeriod;
+        }
+    }
+}
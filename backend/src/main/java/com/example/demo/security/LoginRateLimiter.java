@@ -0,0 +1,65 @@
+package com.example.demo.security;
+
+import com.example.demo.concurrency.StripedTokenBuckets;
+import com.example.demo.metrics.HotPathMetrics;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token buckets per username and per client address in front of sign-in, checked before any password is
+ * hashed so refused attempts cost no BCrypt work. Buckets are kept in this node's memory.
+ */
+@Component
+@EnableConfigurationProperties(LoginRateLimitProperties.class)
+public class LoginRateLimiter {
+
+    private final boolean enabled;
+    private final StripedTokenBuckets byUsername;
+    private final StripedTokenBuckets byAddress;
+    private final HotPathMetrics metrics;
+
+    public LoginRateLimiter(LoginRateLimitProperties properties, HotPathMetrics metrics) {
+        this.enabled = properties.isEnabled();
+        this.byUsername = buckets(properties.getUsername(), properties);
+        this.byAddress = buckets(properties.getAddress(), properties);
+        this.metrics = metrics;
+    }
+
+    /**
+     * Takes one attempt from the address's and the username's bucket.
+     *
+     * @throws LoginThrottledException with 429 when either has none left
+     */
+    public void acquire(String username, String clientAddress) {
+        if (!enabled) {
+            return;
+        }
+        long now = System.nanoTime();
+        long wait = byAddress.tryAcquire(clientAddress, now);
+        if (wait > 0) {
+            metrics.loginThrottled(false);
+            throw throttled(wait);
+        }
+        // Case-folded so variants of one name share a bucket
+        wait = byUsername.tryAcquire(username.toLowerCase(Locale.ROOT), now);
+        if (wait > 0) {
+            metrics.loginThrottled(true);
+            throw throttled(wait);
+        }
+    }
+
+    private static LoginThrottledException throttled(long waitNanos) {
+        long seconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+        return new LoginThrottledException(HttpStatus.TOO_MANY_REQUESTS, seconds,
+                "Too many sign-in attempts, please retry in " + seconds + " s");
+    }
+
+    private static StripedTokenBuckets buckets(LoginRateLimitProperties.Bucket bucket, LoginRateLimitProperties properties) {
+        return new StripedTokenBuckets(bucket.getCapacity(), bucket.getRefillPeriod(), properties.getStripes(),
+                properties.getMaxKeysPerStripe());
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.demo.security;
+
+import lombok.Getter;
+import org.springframework.http.HttpStatus;
+
+/**
+ * A sign-in refused before its password was checked: 429 when a rate limit ran out, 503 when password hashing
+ * is saturated. {@code retryAfterSeconds} is when trying again may succeed.
+ */
+@Getter
+public class LoginThrottledException extends RuntimeException {
+
+    private final HttpStatus status;
+    private final long retryAfterSeconds;
+
+    public LoginThrottledException(HttpStatus status, long retryAfterSeconds, String message) {
+        super(message);
+        this.status = status;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
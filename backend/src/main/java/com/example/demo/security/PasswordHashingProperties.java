@@ -0,0 +1,42 @@
+package com.example.demo.security;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "app.password-hashing")
+public class PasswordHashingProperties {
+
+    /**
+     * BCrypt cost for new hashes; 0 to measure this machine at startup and pick the cost nearest
+     * {@code targetLatency}. Pin it when nodes differ, since every node upgrades hashes to its own cost.
+     */
+    private int strength = 0;
+
+    private Duration targetLatency = Duration.ofMillis(100);
+
+    /**
+     * Bounds for a measured cost. Stored hashes below the cost in use are rehashed at the next sign-in;
+     * hashes above it are left alone.
+     */
+    private int minStrength = 10;
+
+    private int maxStrength = 14;
+
+    /**
+     * Threads that hash passwords; 0 for half the cores, leaving the rest to other requests.
+     */
+    private int threads = 0;
+
+    /**
+     * Hashes waiting for a thread beyond which new ones are refused with 503; 0 for eight per thread.
+     */
+    private int maxQueueDepth = 0;
+
+    /**
+     * Longest a request waits for its hash, queueing included, before it is answered with 503.
+     */
+    private Duration maxWait = Duration.ofSeconds(2);
+}
@@ -0,0 +1,159 @@
+package com.example.demo.security;
+
+import com.example.demo.metrics.HotPathMetrics;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * BCrypt run on a small fixed pool of its own threads, so a burst of sign-ins can use only the cores given
+ * to it and other requests keep the rest. Hashes wait in a bounded queue; once it is full, further requests
+ * are shed at once with 503 instead of queueing behind work they would time out on anyway.
+ * <p>
+ * The cost is measured at startup unless configured. {@link #upgradeEncoding} reports hashes made at a lower
+ * cost, which Spring Security's authentication provider then rehashes on a successful sign-in.
+ */
+@Slf4j
+public class ThrottledPasswordEncoder implements PasswordEncoder, AutoCloseable {
+
+    private static final String CALIBRATION_PASSWORD = "calibration-password";
+
+    private final BCryptPasswordEncoder delegate;
+    private final ThreadPoolExecutor executor;
+    private final long maxWaitNanos;
+    private final HotPathMetrics metrics;
+
+    ThrottledPasswordEncoder(BCryptPasswordEncoder delegate, int threads, int maxQueueDepth, Duration maxWait,
+                             HotPathMetrics metrics) {
+        this.delegate = delegate;
+        this.maxWaitNanos = maxWait.toNanos();
+        this.metrics = metrics;
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(maxQueueDepth),
+                Thread.ofPlatform().name("password-hash-", 0).daemon().factory(),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    public static ThrottledPasswordEncoder create(PasswordHashingProperties properties, HotPathMetrics metrics,
+                                                  MeterRegistry meterRegistry) {
+        int strength = properties.getStrength() > 0 ? properties.getStrength() : calibrate(properties);
+        int threads = properties.getThreads() > 0
+                ? properties.getThreads()
+                : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        int maxQueueDepth = properties.getMaxQueueDepth() > 0 ? properties.getMaxQueueDepth() : threads * 8;
+
+        ThrottledPasswordEncoder encoder = new ThrottledPasswordEncoder(new BCryptPasswordEncoder(strength), threads,
+                maxQueueDepth, properties.getMaxWait(), metrics);
+        Gauge.builder("auth.password.hashing.queue", encoder.executor, e -> e.getQueue().size())
+                .description("Password hashes waiting for a hashing thread")
+                .register(meterRegistry);
+        log.info("Hashing passwords with BCrypt cost {} on {} threads, shedding beyond {} queued", strength, threads,
+                maxQueueDepth);
+        return encoder;
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return run(() -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return run(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    int queued() {
+        return executor.getQueue().size();
+    }
+
+    int active() {
+        return executor.getActiveCount();
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private <T> T run(Callable<T> hash) {
+        Future<T> result;
+        try {
+            result = executor.submit(hash);
+        } catch (RejectedExecutionException e) {
+            metrics.passwordHashShed();
+            throw overloaded();
+        }
+        try {
+            return result.get(maxWaitNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            result.cancel(false);
+            metrics.passwordHashShed();
+            throw overloaded();
+        } catch (InterruptedException e) {
+            result.cancel(false);
+            Thread.currentThread().interrupt();
+            throw overloaded();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private static LoginThrottledException overloaded() {
+        return new LoginThrottledException(HttpStatus.SERVICE_UNAVAILABLE, 1,
+                "Too many sign-ins right now, please retry");
+    }
+
+    /**
+     * Times a few hashes at the minimum cost and raises the cost while a hash would still fit the target.
+     */
+    static int calibrate(PasswordHashingProperties properties) {
+        BCryptPasswordEncoder probe = new BCryptPasswordEncoder(properties.getMinStrength());
+        probe.encode(CALIBRATION_PASSWORD); // warm-up
+        long fastest = Long.MAX_VALUE;
+        for (int i = 0; i < 3; i++) {
+            long start = System.nanoTime();
+            probe.encode(CALIBRATION_PASSWORD);
+            fastest = Math.min(fastest, System.nanoTime() - start);
+        }
+        int strength = strengthFor(fastest, properties.getMinStrength(), properties.getTargetLatency(),
+                properties.getMaxStrength());
+        log.info("BCrypt cost {} takes {} ms here; using cost {} for a {} ms target", properties.getMinStrength(),
+                fastest / 1_000_000, strength, properties.getTargetLatency().toMillis());
+        return strength;
+    }
+
+    /**
+     * The highest cost from {@code minStrength} up whose hash time stays within the target, given that each
+     * step of cost doubles the work.
+     */
+    static int strengthFor(long nanosAtMinStrength, int minStrength, Duration targetLatency, int maxStrength) {
+        int strength = minStrength;
+        long nanos = nanosAtMinStrength;
+        while (strength < maxStrength && nanos * 2 <= targetLatency.toNanos()) {
+            nanos *= 2;
+            strength++;
+        }
+        return strength;
+    }
+}
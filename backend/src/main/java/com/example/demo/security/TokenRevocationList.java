@@ -0,0 +1,121 @@
+package com.example.demo.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Revoked sessions, checked for every authenticated request without touching the database. A Bloom filter
+ * answers for nearly every token in a few nanoseconds; the few it cannot rule out are confirmed against the
+ * exact set.
+ * <p>
+ * Both are kept in sync with the {@code revoked_tokens} table every second, reading rows recorded since the
+ * previous sync by the database clock. Revocations made on this node apply at once; those made on another
+ * node apply here within one sync. Entries are dropped once every access token they match has expired.
+ */
+@Slf4j
+@Component
+public class TokenRevocationList {
+
+    private final AuthTokenLedger ledger;
+    private final AuthTokenProperties properties;
+
+    // Session id -> when its last access token expires
+    private final ConcurrentHashMap<String, LocalDateTime> revoked = new ConcurrentHashMap<>();
+    private volatile BloomFilter filter;
+
+    // Held to add to the filter or replace it, so an addition is never lost to a rebuild
+    private final ReentrantLock filterLock = new ReentrantLock();
+    private LocalDateTime syncedUpTo;
+
+    public TokenRevocationList(AuthTokenLedger ledger, AuthTokenProperties properties) {
+        this.ledger = ledger;
+        this.properties = properties;
+        this.filter = new BloomFilter(properties.getMinFilterCapacity(), properties.getFalsePositiveRate());
+    }
+
+    public boolean isRevoked(VerifiedToken token) {
+        String sessionId = token.sessionId();
+        return sessionId != null && filter.mightContain(sessionId) && revoked.containsKey(sessionId);
+    }
+
+    /**
+     * Refuses every access token of the session until {@code until}, on every node.
+     */
+    public void revoke(String sessionId, LocalDateTime until) {
+        ledger.revoke(sessionId, until);
+        remember(sessionId, until);
+    }
+
+    public int size() {
+        return revoked.size();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        sync();
+    }
+
+    @Scheduled(fixedDelayString = "${app.auth-tokens.sync-interval-ms:1000}")
+    public synchronized void sync() {
+        try {
+            LocalDateTime since = syncedUpTo != null ? syncedUpTo.minus(properties.getSyncOverlap()) : null;
+            AuthTokenLedger.RevocationBatch batch = ledger.revokedSince(since);
+            batch.revoked().forEach(this::remember);
+            if (syncedUpTo == null) {
+                log.info("Loaded {} revoked sessions", batch.revoked().size());
+            }
+            syncedUpTo = batch.readAt();
+        } catch (RuntimeException e) {
+            log.warn("Could not sync revoked sessions, retrying next cycle", e);
+        }
+    }
+
+    /**
+     * Forgets revocations whose tokens have all expired and rebuilds the filter without them.
+     */
+    @Scheduled(fixedDelayString = "${app.auth-tokens.cleanup-interval-ms:3600000}")
+    public void purge() {
+        LocalDateTime now = LocalDateTime.now();
+        filterLock.lock();
+        try {
+            if (revoked.values().removeIf(until -> until.isBefore(now))) {
+                rebuild();
+            }
+        } finally {
+            filterLock.unlock();
+        }
+    }
+
+    private void remember(String sessionId, LocalDateTime until) {
+        filterLock.lock();
+        try {
+            LocalDateTime previous = revoked.get(sessionId);
+            if (previous == null) {
+                filter.add(sessionId);
+                revoked.put(sessionId, until);
+                if (revoked.size() > filter.capacity()) {
+                    rebuild();
+                }
+            } else if (until.isAfter(previous)) {
+                revoked.put(sessionId, until);
+            }
+        } finally {
+            filterLock.unlock();
+        }
+    }
+
+    // Called with filterLock held. Checks against the old filter go on until the new one is swapped in
+    private void rebuild() {
+        BloomFilter rebuilt = new BloomFilter(Math.max(properties.getMinFilterCapacity(), revoked.size() * 2L),
+                properties.getFalsePositiveRate());
+        revoked.keySet().forEach(rebuilt::add);
+        filter = rebuilt;
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.demo.security;
+
+import com.example.demo.entity.User;
+
+/**
+ * The parts of a user that sign-in needs, cached by {@link UserAccountCache}.
+ */
+public record UserAccount(Long id, String username, String password, User.Role role) {
+
+    public static UserAccount of(User user) {
+        return new UserAccount(user.getId(), user.getUsername(), user.getPassword(), user.getRole());
+    }
+}
@@ -0,0 +1,198 @@
+package com.example.demo.security;
+
+import com.example.demo.metrics.HotPathMetrics;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.BitSet;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Looks up accounts for sign-in. Accounts are cached for a short TTL, published as {@code cache.*} meters
+ * tagged {@code users}, and a Bloom filter of every username answers lookups for names that do not exist
+ * without a query.
+ * <p>
+ * Registrations on this node go into the filter at once. Every few seconds the user count is compared with
+ * the users this node knows of, and when they differ only users with an id above the highest one seen are
+ * read, so a user registered on another node may be refused here until the next check. Ids come from a
+ * sequence in blocks per node, so a user can commit under an id below that; while the count still differs,
+ * each check also re-reads a look-back window of ids below it, doubling the window every time. The filter is
+ * rebuilt from every username only when it outgrows its capacity. Users are never deleted, so the filter
+ * never has to forget a name.
+ */
+@Slf4j
+@Component
+@EnableConfigurationProperties(UserCacheProperties.class)
+public class UserAccountCache {
+
+    // The first look-back, one id block of the users sequence
+    private static final long MIN_LOOK_BACK = 50;
+
+    private final UserAccountLedger ledger;
+    private final UserCacheProperties properties;
+    private final HotPathMetrics metrics;
+    private final Cache<String, UserAccount> accounts;
+
+    // Null until first built, which lets every lookup through
+    private volatile BloomFilter usernames;
+    // Ids of the users read into the filter, so re-read ones are not counted twice; guarded by this
+    private BitSet knownIds = new BitSet();
+    private long knownUsers;
+    private long lastSeenId;
+    private long lookBack;
+
+    // Registrations hold the read lock; a rebuild takes the write lock to start collecting names registered
+    // during its scan, and again to add them to the new filter and swap it in
+    private final ReentrantReadWriteLock filterLock = new ReentrantReadWriteLock();
+    private Queue<String> registeredDuringRebuild;
+
+    public UserAccountCache(UserAccountLedger ledger, UserCacheProperties properties, HotPathMetrics metrics,
+                            MeterRegistry meterRegistry) {
+        this.ledger = ledger;
+        this.properties = properties;
+        this.metrics = metrics;
+        this.accounts = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxSize())
+                .expireAfterWrite(properties.getTtl())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, accounts, "users");
+    }
+
+    public Optional<UserAccount> find(String username) {
+        if (!properties.isEnabled()) {
+            return ledger.findByUsername(username);
+        }
+        BloomFilter filter = usernames;
+        if (filter != null && !filter.mightContain(username)) {
+            metrics.unknownUsernameSkipped();
+            return Optional.empty();
+        }
+        // Unknown names the filter let through are not cached
+        return Optional.ofNullable(accounts.get(username, key -> ledger.findByUsername(key).orElse(null)));
+    }
+
+    /**
+     * Makes a user committed on this node known to the filter.
+     */
+    public void registered(UserAccount account) {
+        filterLock.readLock().lock();
+        try {
+            BloomFilter filter = usernames;
+            if (filter != null) {
+                filter.add(account.username());
+            }
+            // Counted when the next check reads it
+            if (registeredDuringRebuild != null) {
+                registeredDuringRebuild.add(account.username());
+            }
+        } finally {
+            filterLock.readLock().unlock();
+        }
+        accounts.invalidate(account.username());
+    }
+
+    public void changed(String username) {
+        accounts.invalidate(username);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        refresh();
+    }
+
+    /**
+     * Reads users added since the last check, or rebuilds the filter if it would hold more names than it was
+     * sized for.
+     */
+    @Scheduled(fixedDelayString = "${app.user-cache.refresh-interval-ms:5000}",
+            initialDelayString = "${app.user-cache.refresh-interval-ms:5000}")
+    public void refresh() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        try {
+            long count = ledger.count();
+            BloomFilter current = usernames;
+            if (current == null || count > current.capacity()) {
+                rebuild(count);
+            } else {
+                catchUp(current, count);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not refresh the username filter, keeping the current one", e);
+        }
+    }
+
+    private synchronized void catchUp(BloomFilter filter, long count) {
+        if (knownUsers >= count) {
+            lookBack = 0;
+            return;
+        }
+        long read = ledger.forEachUsernameAfter(Math.max(0, lastSeenId - lookBack),
+                (username, id) -> learn(filter, username, id));
+        // Users committed during the read can leave the count ahead again; the next check reads them
+        lookBack = knownUsers >= count ? 0 : Math.max(MIN_LOOK_BACK, lookBack * 2);
+        log.debug("Read {} users into the sign-in filter, {} of {} known", read, knownUsers, count);
+    }
+
+    private void learn(BloomFilter filter, String username, long id) {
+        int bit = Math.toIntExact(id);
+        if (!knownIds.get(bit)) {
+            knownIds.set(bit);
+            filter.add(username);
+            knownUsers++;
+        }
+        lastSeenId = Math.max(lastSeenId, id);
+    }
+
+    private synchronized void rebuild(long count) {
+        filterLock.writeLock().lock();
+        try {
+            registeredDuringRebuild = new ConcurrentLinkedQueue<>();
+        } finally {
+            filterLock.writeLock().unlock();
+        }
+
+        BloomFilter filter = new BloomFilter(Math.max(properties.getMinFilterCapacity(), count * 2),
+                properties.getFalsePositiveRate());
+        BitSet previousIds = knownIds;
+        long previousUsers = knownUsers;
+        long previousLastSeen = lastSeenId;
+        knownIds = new BitSet();
+        knownUsers = 0;
+        lastSeenId = 0;
+        long scanned = -1;
+        try {
+            scanned = ledger.forEachUsernameAfter(0, (username, id) -> learn(filter, username, id));
+        } finally {
+            filterLock.writeLock().lock();
+            try {
+                registeredDuringRebuild.forEach(filter::add);
+                registeredDuringRebuild = null;
+                if (scanned >= 0) {
+                    usernames = filter;
+                    lookBack = 0;
+                } else {
+                    knownIds = previousIds;
+                    knownUsers = previousUsers;
+                    lastSeenId = previousLastSeen;
+                }
+            } finally {
+                filterLock.writeLock().unlock();
+            }
+        }
+        log.info("Loaded {} usernames into the sign-in filter ({} KB)", scanned, filter.sizeInBytes() / 1024);
+    }
+}
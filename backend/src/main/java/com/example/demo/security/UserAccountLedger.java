@@ -0,0 +1,19 @@
+package com.example.demo.security;
+
+import java.util.Optional;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Durable users as read by {@link UserAccountCache}.
+ */
+public interface UserAccountLedger {
+
+    Optional<UserAccount> findByUsername(String username);
+
+    long count();
+
+    /**
+     * Streams the username and id of every user with an id above {@code afterId}; returns how many there were.
+     */
+    long forEachUsernameAfter(long afterId, ObjLongConsumer<String> action);
+}
@@ -0,0 +1,34 @@
+package com.example.demo.security;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "app.user-cache")
+public class UserCacheProperties {
+
+    /**
+     * Serve sign-in lookups from the cache and the username filter; off, every lookup queries {@code users}.
+     */
+    private boolean enabled = true;
+
+    /**
+     * How long a loaded account is trusted. Changes made on this node invalidate it at once; this bounds how
+     * long a change made on another node goes unseen.
+     */
+    private Duration ttl = Duration.ofSeconds(30);
+
+    private long maxSize = 10_000;
+
+    /**
+     * Share of unknown usernames the filter lets through to the database.
+     */
+    private double falsePositiveRate = 0.01;
+
+    /**
+     * The filter is sized for twice the users it is built from, and never for fewer than this.
+     */
+    private long minFilterCapacity = 10_000;
+}
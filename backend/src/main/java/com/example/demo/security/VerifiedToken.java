@@ -0,0 +1,18 @@
+package com.example.demo.security;
+
+import org.springframework.security.core.GrantedAuthority;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Claims of a token whose signature has already been checked, so callers never need to parse it again.
+ * {@code sessionId} is null for tokens issued before sessions were introduced.
+ */
+public record VerifiedToken(String username, Long userId, String role, String sessionId, Instant expiresAt,
+                            List<GrantedAuthority> authorities) {
+
+    public boolean isExpired(Instant now) {
+        return !expiresAt.isAfter(now);
+    }
+}
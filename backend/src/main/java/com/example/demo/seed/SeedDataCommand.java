@@ -0,0 +1,27 @@
+package com.example.demo.seed;
+
+import com.example.demo.DemoApplication;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Loads seed data without starting the web server, then exits:
+ * <pre>
+ * ./mvnw spring-boot:run -Dspring-boot.run.main-class=com.example.demo.seed.SeedDataCommand \
+ *     -Dspring-boot.run.arguments="--app.seed.buyers=200000 --app.seed.orders-per-buyer=10"
+ * </pre>
+ * The schema is recreated on every start by default, so start the server afterwards with
+ * {@code DDL_AUTO=none} to keep the data.
+ */
+public class SeedDataCommand {
+
+    public static void main(String[] args) {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(DemoApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("seed")
+                .run(args);
+        System.exit(SpringApplication.exit(context));
+    }
+}
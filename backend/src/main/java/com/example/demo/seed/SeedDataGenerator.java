@@ -0,0 +1,390 @@
+package com.example.demo.seed;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bulk load of realistic volumes for performance work: sellers with their products, buyers with carts and a
+ * skewed order history. Rows are streamed into Postgres with {@code COPY} by one loader per partition, each on
+ * its own connection and slice of sellers and buyers. Ids are assigned up front from deterministic per-row
+ * random streams, so partitions never coordinate and the same seed always produces the same data.
+ * Runs after the demo data when the {@code seed} profile is active, or on its own through
+ * {@link SeedDataCommand}. Meant for an otherwise idle database.
+ * <p>
+ * Seeded orders count as placed and relayed long ago: their sales are written to {@code seller_daily_rollups}
+ * as the analytics engine would have counted them, and no {@code order_events} rows are created, so the outbox
+ * relay does not replay a year of history into handlers that have already seen it.
+ */
+@Slf4j
+@Component
+@Profile("seed")
+@RequiredArgsConstructor
+@EnableConfigurationProperties(SeedProperties.class)
+public class SeedDataGenerator implements CommandLineRunner {
+
+    static final String USERNAME_PREFIX = "seed-";
+
+    private static final String[] ADJECTIVES = {"Compact", "Wireless", "Ergonomic", "Portable", "Premium", "Smart",
+            "Classic", "Rugged", "Slim", "Quiet", "Solar", "Modular", "Vintage", "Foldable", "Heated", "Magnetic"};
+    private static final String[] NOUNS = {"Laptop", "Mouse", "Keyboard", "Headphones", "Monitor", "Lamp", "Backpack",
+            "Speaker", "Charger", "Camera", "Kettle", "Chair", "Watch", "Router", "Blender", "Drone", "Tent", "Jacket"};
+    private static final int HISTORY_SECONDS = 365 * 24 * 3600;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final PasswordEncoder passwordEncoder;
+    private final SeedProperties properties;
+
+    @Override
+    public void run(String... args) throws Exception {
+        generate();
+    }
+
+    public void generate() throws InterruptedException, ExecutionException {
+        if (Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM users WHERE username LIKE ?)", Boolean.class, USERNAME_PREFIX + "%"))) {
+            log.info("Seed data already present; skipping");
+            return;
+        }
+
+        Plan plan = plan();
+        int partitions = properties.getPartitions() > 0
+                ? properties.getPartitions()
+                : Runtime.getRuntime().availableProcessors();
+        log.info("Seeding {} sellers x {} products, {} buyers with ~{} cart lines and {} orders, in {} partitions",
+                properties.getSellers(), properties.getProductsPerSeller(), properties.getBuyers(),
+                properties.getCartLinesPerBuyer(), plan.orderStart()[properties.getBuyers()], partitions);
+
+        long started = System.nanoTime();
+        AtomicLong rows = new AtomicLong();
+        List<Future<?>> loads = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(partitions, Thread.ofPlatform().name("seed-", 0).factory());
+        try {
+            for (int p = 0; p < partitions; p++) {
+                int partition = p;
+                loads.add(executor.submit(() -> {
+                    loadPartition(plan, partition, partitions, rows);
+                    return null;
+                }));
+            }
+            for (Future<?> load : loads) {
+                load.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        for (String table : List.of("users", "products", "orders", "order_items")) {
+            // pooled-lo: the next nextval is the first id of the next block handed out
+            jdbcTemplate.execute("SELECT setval('" + table + "_seq', (SELECT max(id) + 1 FROM " + table + "), false)");
+        }
+        rows.addAndGet(rollUpOrders(plan));
+        jdbcTemplate.execute("ANALYZE users, products, cart_items, orders, order_items, seller_daily_rollups");
+
+        double seconds = (System.nanoTime() - started) / 1e9;
+        log.info("Seeded {} rows in {}s ({} rows/s); every seed user's password is 'password'",
+                rows.get(), String.format("%.1f", seconds), String.format("%,.0f", rows.get() / seconds));
+    }
+
+    /**
+     * Adds the seeded orders to the daily rollups, splitting each order's discount over its lines in proportion
+     * to their revenue, with the cents lost to rounding going to the first lines, as
+     * {@code SellerAnalyticsEngine.shareDiscount} does.
+     */
+    private long rollUpOrders(Plan plan) {
+        return jdbcTemplate.update("""
+                INSERT INTO seller_daily_rollups (seller_id, product_id, sale_date, units, revenue, discount)
+                SELECT seller_id, product_id, sale_date, sum(quantity), sum(revenue) / 100,
+                       sum(share + CASE WHEN position <= order_discount - shared THEN 1 ELSE 0 END) / 100
+                FROM (
+                    SELECT *, sum(share) OVER (PARTITION BY order_id) AS shared
+                    FROM (
+                        SELECT *, floor(order_discount * revenue / order_revenue) AS share
+                        FROM (
+                            SELECT o.id AS order_id, p.seller_id, i.product_id, o.created_at::date AS sale_date,
+                                   i.quantity, i.quantity * i.price_at_purchase * 100 AS revenue,
+                                   least(o.discount, o.total_amount) * 100 AS order_discount,
+                                   sum(i.quantity * i.price_at_purchase) OVER (PARTITION BY o.id) * 100 AS order_revenue,
+                                   row_number() OVER (PARTITION BY o.id ORDER BY i.id) AS position
+                            FROM orders o
+                            JOIN order_items i ON i.order_id = o.id
+                            JOIN products p ON p.id = i.product_id
+                            WHERE o.id > ?
+                        ) line
+                    ) shares
+                ) lines
+                GROUP BY seller_id, product_id, sale_date
+                """, plan.orderBase());
+    }
+
+    private Plan plan() {
+        long[] orderStart = new long[properties.getBuyers() + 1];
+        long[] itemStart = new long[properties.getBuyers() + 1];
+        for (int buyer = 0; buyer < properties.getBuyers(); buyer++) {
+            orderStart[buyer + 1] = orderStart[buyer] + orderCount(buyer);
+            itemStart[buyer + 1] = itemStart[buyer];
+            for (long order = orderStart[buyer]; order < orderStart[buyer + 1]; order++) {
+                itemStart[buyer + 1] += orderLineCount(random(3, order));
+            }
+        }
+        return new Plan(
+                reserveIds("users"),
+                reserveIds("products"),
+                reserveIds("orders"),
+                reserveIds("order_items"),
+                (long) properties.getSellers() * properties.getProductsPerSeller(),
+                orderStart,
+                itemStart,
+                // One hash for everyone; hashing per user would dominate the load time
+                passwordEncoder.encode("password"),
+                LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS));
+    }
+
+    /**
+     * Id after which the seed rows of a table are numbered. Taken from the table's sequence so blocks already
+     * handed to Hibernate, such as the one used for the demo data, stay below it.
+     */
+    private long reserveIds(String table) {
+        return jdbcTemplate.queryForObject(
+                "SELECT greatest(nextval('" + table + "_seq') - 1, (SELECT coalesce(max(id), 0) FROM " + table + "))",
+                Long.class);
+    }
+
+    private void loadPartition(Plan plan, int partition, int partitions, AtomicLong rows)
+            throws SQLException, IOException {
+        int sellersFrom = slice(properties.getSellers(), partition, partitions);
+        int sellersTo = slice(properties.getSellers(), partition + 1, partitions);
+        int buyersFrom = slice(properties.getBuyers(), partition, partitions);
+        int buyersTo = slice(properties.getBuyers(), partition + 1, partitions);
+
+        try (Connection connection = dataSource.getConnection()) {
+            PGConnection pg = connection.unwrap(PGConnection.class);
+
+            rows.addAndGet(copy(pg, "users (id, username, email, password, role)", out -> {
+                for (int seller = sellersFrom; seller < sellersTo; seller++) {
+                    String name = USERNAME_PREFIX + "seller-" + seller;
+                    row(out, plan.sellerId(seller), name, name + "@seed.test", plan.passwordHash(), "SELLER");
+                }
+                for (int buyer = buyersFrom; buyer < buyersTo; buyer++) {
+                    String name = USERNAME_PREFIX + "buyer-" + buyer;
+                    row(out, plan.buyerId(buyer, properties), name, name + "@seed.test", plan.passwordHash(), "BUYER");
+                }
+                return (sellersTo - sellersFrom) + (buyersTo - buyersFrom);
+            }));
+
+            rows.addAndGet(copy(pg, "products (id, name, description, price, stock, image_url, seller_id, created_at, updated_at)", out -> {
+                long count = 0;
+                for (int seller = sellersFrom; seller < sellersTo; seller++) {
+                    for (int i = 0; i < properties.getProductsPerSeller(); i++) {
+                        long product = (long) seller * properties.getProductsPerSeller() + i;
+                        SplittableRandom random = random(1, product);
+                        LocalDateTime createdAt = plan.pastTime(random);
+                        row(out, plan.productId(product), productName(product),
+                                "Generated " + productName(product).toLowerCase() + " for load testing.",
+                                money(priceCents(product)), random.nextInt(0, 500), null,
+                                plan.sellerId(seller), createdAt, createdAt);
+                        count++;
+                    }
+                }
+                return count;
+            }));
+
+            rows.addAndGet(copy(pg, "cart_items (user_id, product_id, quantity)", out -> {
+                long count = 0;
+                for (int buyer = buyersFrom; buyer < buyersTo; buyer++) {
+                    SplittableRandom random = random(2, buyer);
+                    int lines = Math.min(random.nextInt(0, 2 * properties.getCartLinesPerBuyer() + 1), (int) plan.products());
+                    Set<Long> products = new LinkedHashSet<>();
+                    while (products.size() < lines) {
+                        products.add(popularProduct(random, plan.products()));
+                    }
+                    for (long product : products) {
+                        row(out, plan.buyerId(buyer, properties), plan.productId(product), random.nextInt(1, 4));
+                        count++;
+                    }
+                }
+                return count;
+            }));
+
+            rows.addAndGet(copy(pg, "orders (id, user_id, total_amount, coupon_code, discount, final_amount, status, created_at)", out -> {
+                long count = 0;
+                for (int buyer = buyersFrom; buyer < buyersTo; buyer++) {
+                    for (long order = plan.orderStart()[buyer]; order < plan.orderStart()[buyer + 1]; order++) {
+                        SplittableRandom random = random(3, order);
+                        long total = 0;
+                        for (OrderLine line : orderLines(random, plan.products())) {
+                            total += priceCents(line.product()) * line.quantity();
+                        }
+                        boolean coupon = random.nextInt(10) == 0;
+                        long discount = coupon ? Math.min(1000, total) : 0;
+                        row(out, plan.orderId(order), plan.buyerId(buyer, properties), money(total),
+                                coupon ? "SAVE10" : null, money(discount), money(total - discount),
+                                random.nextInt(20) == 0 ? "CANCELLED" : "COMPLETED", plan.pastTime(random));
+                        count++;
+                    }
+                }
+                return count;
+            }));
+
+            rows.addAndGet(copy(pg, "order_items (id, order_id, product_id, product_name, quantity, price_at_purchase)", out -> {
+                long item = plan.itemStart()[buyersFrom];
+                for (long order = plan.orderStart()[buyersFrom]; order < plan.orderStart()[buyersTo]; order++) {
+                    // Same stream as the order row, so items add up to its total
+                    for (OrderLine line : orderLines(random(3, order), plan.products())) {
+                        row(out, plan.itemId(item++), plan.orderId(order), plan.productId(line.product()),
+                                productName(line.product()), line.quantity(), money(priceCents(line.product())));
+                    }
+                }
+                return item - plan.itemStart()[buyersFrom];
+            }));
+        }
+        log.info("Partition {} done", partition);
+    }
+
+    private int orderCount(int buyer) {
+        // Exponential around the mean: most buyers have a few orders, some have hundreds
+        return (int) (-Math.log(1 - random(4, buyer).nextDouble()) * properties.getOrdersPerBuyer());
+    }
+
+    private int orderLineCount(SplittableRandom random) {
+        return random.nextInt(1, 2 * properties.getItemsPerOrder());
+    }
+
+    private List<OrderLine> orderLines(SplittableRandom random, long products) {
+        int count = orderLineCount(random);
+        List<OrderLine> lines = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            lines.add(new OrderLine(popularProduct(random, products), random.nextInt(1, 4)));
+        }
+        return lines;
+    }
+
+    /**
+     * Skewed towards a small set of best sellers, scattered across sellers.
+     */
+    private static long popularProduct(SplittableRandom random, long products) {
+        long rank = (long) (products * Math.pow(random.nextDouble(), 3));
+        return Math.floorMod(rank * 2_654_435_761L, products);
+    }
+
+    private String productName(long product) {
+        SplittableRandom random = random(5, product);
+        return ADJECTIVES[random.nextInt(ADJECTIVES.length)] + " " + NOUNS[random.nextInt(NOUNS.length)] + " " + product;
+    }
+
+    private long priceCents(long product) {
+        // Log-uniform between $1 and $2,000
+        return Math.round(100 * Math.exp(random(6, product).nextDouble() * Math.log(2000)));
+    }
+
+    private SplittableRandom random(int stream, long index) {
+        return randomStream(properties.getRandomSeed() * 31 + stream, index);
+    }
+
+    private static SplittableRandom randomStream(long stream, long index) {
+        return new SplittableRandom(stream * 0x9E3779B97F4A7C15L + index);
+    }
+
+    private static int slice(int total, int partition, int partitions) {
+        return (int) ((long) total * partition / partitions);
+    }
+
+    private static String money(long cents) {
+        return cents / 100 + "." + (cents % 100 < 10 ? "0" : "") + cents % 100;
+    }
+
+    private static long copy(PGConnection connection, String target, RowSource source) throws SQLException, IOException {
+        PGCopyOutputStream stream = new PGCopyOutputStream(connection, "COPY " + target + " FROM STDIN", BUFFER_SIZE);
+        try {
+            Writer out = new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8), BUFFER_SIZE);
+            long rows = source.write(out);
+            out.flush();
+            stream.endCopy();
+            return rows;
+        } catch (IOException | RuntimeException e) {
+            if (stream.isActive()) {
+                stream.cancelCopy();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Writes one row in COPY text format; none of the generated values contain tabs, newlines or backslashes.
+     */
+    private static void row(Writer out, Object... columns) throws IOException {
+        for (int i = 0; i < columns.length; i++) {
+            if (i > 0) {
+                out.write('\t');
+            }
+            out.write(columns[i] == null ? "\\N" : columns[i].toString());
+        }
+        out.write('\n');
+    }
+
+    @FunctionalInterface
+    private interface RowSource {
+        long write(Writer out) throws IOException;
+    }
+
+    private record OrderLine(long product, int quantity) {
+    }
+
+    private record Plan(long userBase, long productBase, long orderBase, long itemBase, long products,
+                        long[] orderStart, long[] itemStart, String passwordHash, LocalDateTime now) {
+
+        long sellerId(int seller) {
+            return userBase + seller + 1;
+        }
+
+        long buyerId(int buyer, SeedProperties properties) {
+            return userBase + properties.getSellers() + buyer + 1;
+        }
+
+        long productId(long product) {
+            return productBase + product + 1;
+        }
+
+        long orderId(long order) {
+            return orderBase + order + 1;
+        }
+
+        long itemId(long item) {
+            return itemBase + item + 1;
+        }
+
+        LocalDateTime pastTime(SplittableRandom random) {
+            return now.minusSeconds(random.nextInt(HISTORY_SECONDS));
+        }
+    }
+}
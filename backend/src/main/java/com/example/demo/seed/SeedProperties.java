@@ -0,0 +1,40 @@
+package com.example.demo.seed;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "app.seed")
+public class SeedProperties {
+
+    private int sellers = 100;
+
+    private int productsPerSeller = 1000;
+
+    private int buyers = 10_000;
+
+    /**
+     * Average lines in each buyer's cart.
+     */
+    private int cartLinesPerBuyer = 3;
+
+    /**
+     * Average orders per buyer; counts are skewed so a few buyers have long histories.
+     */
+    private int ordersPerBuyer = 20;
+
+    /**
+     * Average items per order.
+     */
+    private int itemsPerOrder = 3;
+
+    /**
+     * Loaders running at once, each on its own connection; 0 uses one per core.
+     */
+    private int partitions = 0;
+
+    /**
+     * Same seed, same data.
+     */
+    private long randomSeed = 42;
+}
@@ -2,56 +2,106 @@ package com.example.demo.service;
 
 import com.example.demo.dto.AuthResponse;
 import com.example.demo.dto.LoginRequest;
+import com.example.demo.dto.RefreshRequest;
 import com.example.demo.dto.RegisterRequest;
 import com.example.demo.entity.User;
 import com.example.demo.repository.UserRepository;
-import com.example.demo.security.JwtUtil;
+import com.example.demo.security.AuthTokenService;
+import com.example.demo.security.LoginRateLimiter;
+import com.example.demo.security.UserAccount;
+import com.example.demo.security.UserAccountCache;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class AuthService {
     
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
-    private final JwtUtil jwtUtil;
+    private final AuthTokenService authTokens;
     private final AuthenticationManager authenticationManager;
+    private final LoginRateLimiter loginRateLimiter;
+    private final UserAccountCache userAccounts;
     
+    /**
+     * Inserts the user in one statement and lets the unique constraints catch a taken username or email,
+     * rather than checking each first.
+     */
     public AuthResponse register(RegisterRequest request) {
-        if (userRepository.existsByUsername(request.getUsername())) {
-            throw new RuntimeException("Username already exists");
-        }
-        if (userRepository.existsByEmail(request.getEmail())) {
-            throw new RuntimeException("Email already exists");
-        }
-        
         User user = new User();
         user.setUsername(request.getUsername());
         user.setEmail(request.getEmail());
         user.setPassword(passwordEncoder.encode(request.getPassword()));
         user.setRole(request.getRole());
         
-        user = userRepository.save(user);
-        
-        String token = jwtUtil.generateToken(user.getUsername(), user.getId(), user.getRole().name());
+        try {
+            user = userRepository.saveAndFlush(user);
+        } catch (DataIntegrityViolationException e) {
+            throw duplicate(request, e);
+        }
+        UserAccount account = UserAccount.of(user);
+        userAccounts.registered(account);
         
-        return new AuthResponse(token, user.getId(), user.getUsername(), user.getRole().name());
+        return authTokens.startSession(account);
     }
     
-    public AuthResponse login(LoginRequest request) {
+    /**
+     * Checks the rate limits before the password, so throttled attempts cost no hashing.
+     */
+    public AuthResponse login(LoginRequest request, String clientAddress) {
+        loginRateLimiter.acquire(request.getUsername(), clientAddress);
         authenticationManager.authenticate(
                 new UsernamePasswordAuthenticationToken(request.getUsername(), request.getPassword())
         );
         
-        User user = userRepository.findByUsername(request.getUsername())
+        UserAccount user = userAccounts.find(request.getUsername())
                 .orElseThrow(() -> new RuntimeException("User not found"));
         
-        String token = jwtUtil.generateToken(user.getUsername(), user.getId(), user.getRole().name());
-        
-        return new AuthResponse(token, user.getId(), user.getUsername(), user.getRole().name());
+        return authTokens.startSession(user);
+    }
+    
+    /**
+     * Exchanges a refresh token for a new pair; no password check, so no hashing.
+     */
+    public AuthResponse refresh(RefreshRequest request) {
+        return authTokens.refresh(request.getRefreshToken());
+    }
+    
+    public void logout(RefreshRequest request) {
+        authTokens.signOut(request.getRefreshToken());
+    }
+
+    /**
+     * Names the value that was taken. When the violated constraint is not one of the named ones, as in a
+     * database whose constraints were never renamed, the two values are looked up instead. The driver's
+     * message is never passed on, since it would reach the client with the SQL in it.
+     */
+    private RuntimeException duplicate(RegisterRequest request, DataIntegrityViolationException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation) {
+                if (User.USERNAME_CONSTRAINT.equals(violation.getConstraintName())) {
+                    return new RuntimeException("Username already exists");
+                }
+                if (User.EMAIL_CONSTRAINT.equals(violation.getConstraintName())) {
+                    return new RuntimeException("Email already exists");
+                }
+            }
+        }
+        if (userRepository.existsByUsername(request.getUsername())) {
+            return new RuntimeException("Username already exists");
+        }
+        if (userRepository.existsByEmail(request.getEmail())) {
+            return new RuntimeException("Email already exists");
+        }
+        log.warn("Registration rejected by the database", e);
+        return new RuntimeException("Registration failed");
     }
 }
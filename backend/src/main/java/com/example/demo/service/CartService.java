@@ -1,85 +1,80 @@
 package com.example.demo.service;
 
+import com.example.demo.cache.ProductCache;
+import com.example.demo.cart.CartStore;
+import com.example.demo.dto.CartEntry;
+import com.example.demo.dto.CartLine;
 import com.example.demo.dto.CartRequest;
-import com.example.demo.entity.CartItem;
+import com.example.demo.dto.ProductSummary;
 import com.example.demo.entity.Product;
-import com.example.demo.repository.CartRepository;
-import com.example.demo.repository.ProductRepository;
+import com.example.demo.inventory.StockReservationEngine;
+import com.example.demo.metrics.HotPathMetrics;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 
 @Service
 @RequiredArgsConstructor
 public class CartService {
     
-    private final CartRepository cartRepository;
-    private final ProductRepository productRepository;
+    private final CartStore cartStore;
+    private final ProductCache productCache;
+    private final Optional<StockReservationEngine> reservationEngine;
+    private final HotPathMetrics metrics;
     
-    public List<CartItem> getCart(Long userId) {
-        return cartRepository.findByUserId(userId);
+    public List<CartEntry> getCart(Long userId) {
+        List<CartLine> lines = cartStore.getLines(userId);
+        List<CartEntry> entries = new ArrayList<>(lines.size());
+        for (CartLine line : lines) {
+            ProductSummary product = productCache.findProduct(line.productId()).map(ProductSummary::from).orElse(null);
+            entries.add(new CartEntry(line.productId(), line.quantity(), product));
+        }
+        return entries;
     }
     
-    @Transactional
-    public CartItem addToCart(Long userId, CartRequest request) {
-        Product product = productRepository.findById(request.getProductId())
+    public CartEntry addToCart(Long userId, CartRequest request) {
+        Product product = productCache.findProduct(request.getProductId())
                 .orElseThrow(() -> new RuntimeException("Product not found"));
         
-        if (product.getStock() < request.getQuantity()) {
+        if (availableStock(product) < request.getQuantity()) {
+            metrics.stockRejectedInCart();
             throw new RuntimeException("Insufficient stock");
         }
         
-        // Check if item already exists in cart
-        return cartRepository.findByUserIdAndProductId(userId, request.getProductId())
-                .map(existingItem -> {
-                    existingItem.setQuantity(existingItem.getQuantity() + request.getQuantity());
-                    return cartRepository.save(existingItem);
-                })
-                .orElseGet(() -> {
-                    CartItem newItem = new CartItem();
-                    newItem.setUserId(userId);
-                    newItem.setProductId(request.getProductId());
-                    newItem.setQuantity(request.getQuantity());
-                    return cartRepository.save(newItem);
-                });
+        int quantity = cartStore.addQuantity(userId, product.getId(), request.getQuantity());
+        return new CartEntry(product.getId(), quantity, ProductSummary.from(product));
     }
     
-    @Transactional
-    public CartItem updateQuantity(Long cartItemId, Integer quantity, Long userId) {
-        CartItem cartItem = cartRepository.findById(cartItemId)
-                .orElseThrow(() -> new RuntimeException("Cart item not found"));
-        
-        if (!cartItem.getUserId().equals(userId)) {
-            throw new RuntimeException("Unauthorized");
-        }
-        
-        Product product = productRepository.findById(cartItem.getProductId())
+    public CartEntry updateQuantity(Long productId, Integer quantity, Long userId) {
+        Product product = productCache.findProduct(productId)
                 .orElseThrow(() -> new RuntimeException("Product not found"));
         
-        if (product.getStock() < quantity) {
+        if (availableStock(product) < quantity) {
+            metrics.stockRejectedInCart();
             throw new RuntimeException("Insufficient stock");
         }
         
-        cartItem.setQuantity(quantity);
-        return cartRepository.save(cartItem);
+        if (!cartStore.setQuantity(userId, productId, quantity)) {
+            throw new RuntimeException("Cart item not found");
+        }
+        return new CartEntry(productId, quantity, ProductSummary.from(product));
     }
     
-    @Transactional
-    public void removeFromCart(Long cartItemId, Long userId) {
-        CartItem cartItem = cartRepository.findById(cartItemId)
-                .orElseThrow(() -> new RuntimeException("Cart item not found"));
-        
-        if (!cartItem.getUserId().equals(userId)) {
-            throw new RuntimeException("Unauthorized");
+    public void removeFromCart(Long productId, Long userId) {
+        if (!cartStore.remove(userId, productId)) {
+            throw new RuntimeException("Cart item not found");
         }
-        
-        cartRepository.delete(cartItem);
     }
     
-    @Transactional
+    // Stock not yet held by other checkouts when the reservation engine is on
+    private int availableStock(Product product) {
+        return reservationEngine.map(engine -> engine.available(product.getId())).orElse(product.getStock());
+    }
+    
     public void clearCart(Long userId) {
-        cartRepository.deleteByUserId(userId);
+        cartStore.clear(userId);
     }
 }
@@ -1,58 +1,105 @@
 package com.example.demo.service;
 
+import com.example.demo.cache.ProductChangedEvent;
+import com.example.demo.cart.CartStore;
+import com.example.demo.coupon.CouponEngine;
+import com.example.demo.coupon.CouponRedemption;
+import com.example.demo.dto.CartLine;
 import com.example.demo.dto.CheckoutRequest;
+import com.example.demo.dto.CursorPage;
+import com.example.demo.dto.OrderHistoryQuery;
+import com.example.demo.dto.OrderSummary;
 import com.example.demo.entity.*;
-import com.example.demo.repository.CartRepository;
-import com.example.demo.repository.CouponRepository;
+import com.example.demo.inventory.Reservation;
+import com.example.demo.inventory.StockReservationEngine;
+import com.example.demo.metrics.HotPathMetrics;
+import com.example.demo.outbox.OrderOutbox;
+import com.example.demo.repository.CheckoutRepository;
+import com.example.demo.repository.OrderHistoryRepository;
 import com.example.demo.repository.OrderRepository;
 import com.example.demo.repository.ProductRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class OrderService {
     
     private final OrderRepository orderRepository;
-    private final CartRepository cartRepository;
-    private final CouponRepository couponRepository;
+    private final OrderHistoryRepository orderHistoryRepository;
+    private final CartStore cartStore;
+    private final CouponEngine couponEngine;
     private final ProductRepository productRepository;
+    private final CheckoutRepository checkoutRepository;
+    private final Optional<StockReservationEngine> reservationEngine;
+    private final ApplicationEventPublisher eventPublisher;
+    private final OrderOutbox outbox;
+    private final HotPathMetrics metrics;
     
     @Transactional
     public Order checkout(Long userId, CheckoutRequest request) {
-        List<CartItem> cartItems = cartRepository.findByUserId(userId);
+        List<CartLine> cartLines = cartStore.getLines(userId);
         
-        if (cartItems.isEmpty()) {
+        if (cartLines.isEmpty()) {
             throw new RuntimeException("Cart is empty");
         }
         
-        // Calculate total amount
-        BigDecimal totalAmount = BigDecimal.ZERO;
-        for (CartItem item : cartItems) {
-            Product product = productRepository.findById(item.getProductId())
-                    .orElseThrow(() -> new RuntimeException("Product not found: " + item.getProductId()));
+        // Load every product in the cart with a single query; rows are only locked when stock lives in the database
+        List<Long> productIds = cartLines.stream().map(CartLine::productId).toList();
+        List<Product> loaded = reservationEngine.isPresent()
+                ? productRepository.findAllById(productIds)
+                : productRepository.findAllByIdForUpdate(productIds);
+        Map<Long, Product> products = loaded.stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        
+        // Build order items at current prices
+        List<OrderItem> orderItems = new ArrayList<>(cartLines.size());
+        for (CartLine line : cartLines) {
+            Product product = products.get(line.productId());
+            if (product == null) {
+                throw new RuntimeException("Product not found: " + line.productId());
+            }
             
-            if (product.getStock() < item.getQuantity()) {
+            if (reservationEngine.isEmpty() && product.getStock() < line.quantity()) {
+                metrics.stockRejectedAtCheckout();
                 throw new RuntimeException("Insufficient stock for product: " + product.getName());
             }
             
-            totalAmount = totalAmount.add(product.getPrice().multiply(BigDecimal.valueOf(item.getQuantity())));
+            OrderItem orderItem = new OrderItem();
+            orderItem.setProductId(product.getId());
+            orderItem.setProductName(product.getName());
+            orderItem.setQuantity(line.quantity());
+            orderItem.setPriceAtPurchase(product.getPrice());
+            orderItems.add(orderItem);
         }
+        BigDecimal totalAmount = totalAmount(orderItems);
         
         // Apply coupon if provided
         BigDecimal discount = BigDecimal.ZERO;
         String couponCode = null;
+        Long couponProductId = null;
         
         if (request.getCouponCode() != null && !request.getCouponCode().trim().isEmpty()) {
-            Coupon coupon = couponRepository.findByCodeAndActiveTrue(request.getCouponCode())
-                    .orElseThrow(() -> new RuntimeException("Invalid or inactive coupon code"));
+            CouponRedemption redemption = couponEngine.redeem(request.getCouponCode(), orderItems, totalAmount);
+            settleCoupon(redemption);
             
-            discount = coupon.getDiscountAmount();
-            couponCode = coupon.getCode();
+            discount = redemption.discount();
+            couponCode = redemption.code();
+            couponProductId = redemption.productId();
         }
         
         BigDecimal finalAmount = totalAmount.subtract(discount);
@@ -68,39 +115,112 @@ public class OrderService {
         order.setDiscount(discount);
         order.setFinalAmount(finalAmount);
         order.setStatus(Order.OrderStatus.COMPLETED);
+        order.setCreatedAt(LocalDateTime.now());
         
-        order = orderRepository.save(order);
-        
-        // Create order items and update stock
-        for (CartItem item : cartItems) {
-            Product product = productRepository.findById(item.getProductId()).get();
-            
-            OrderItem orderItem = new OrderItem();
+        for (OrderItem orderItem : orderItems) {
             orderItem.setOrder(order);
-            orderItem.setProductId(product.getId());
-            orderItem.setProductName(product.getName());
-            orderItem.setQuantity(item.getQuantity());
-            orderItem.setPriceAtPurchase(product.getPrice());
-            
-            order.getItems().add(orderItem);
-            
-            // Update stock
-            product.setStock(product.getStock() - item.getQuantity());
-            productRepository.save(product);
+        }
+        order.setItems(orderItems);
+        
+        if (reservationEngine.isPresent()) {
+            reserveStock(reservationEngine.get(), order);
+        } else {
+            // Update stock in one batch, guarded by stock >= quantity
+            checkoutRepository.decrementStock(orderItems);
+            products.keySet().forEach(id -> eventPublisher.publishEvent(ProductChangedEvent.stockChanged(id)));
         }
         
-        order = orderRepository.save(order);
+        // Ids come from pooled sequences, so the order and all of its items go out as one insert batch each at flush
+        orderRepository.save(order);
+        outbox.orderPlaced(order, products, couponProductId);
         
-        // Clear cart
-        cartRepository.deleteByUserId(userId);
+        // The cart lives outside this transaction, so only empty it once the order is committed
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                cartStore.clear(userId);
+            }
+        });
         
         return order;
     }
     
-    public List<Order> getOrderHistory(Long userId) {
-        return orderRepository.findByUserIdOrderByCreatedAtDesc(userId);
+    /**
+     * Sum of price times quantity over the items, at the scale of the prices.
+     */
+    public static BigDecimal totalAmount(List<OrderItem> items) {
+        BigDecimal total = BigDecimal.ZERO;
+        for (OrderItem item : items) {
+            total = total.add(item.getPriceAtPurchase().multiply(BigDecimal.valueOf(item.getQuantity())));
+        }
+        return total;
+    }
+    
+    /**
+     * Keeps the coupon use taken for the order if the transaction commits and hands it back otherwise.
+     */
+    private void settleCoupon(CouponRedemption redemption) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    couponEngine.commit(redemption);
+                } else {
+                    couponEngine.release(redemption);
+                }
+            }
+        });
+    }
+    
+    /**
+     * Holds stock in memory for the order, records the reservations under the order's id on disk before the
+     * transaction commits, and settles them once it finishes.
+     */
+    private void reserveStock(StockReservationEngine engine, Order order) {
+        List<OrderItem> orderItems = order.getItems();
+        Map<Long, Integer> quantities = orderItems.stream()
+                .collect(Collectors.toMap(OrderItem::getProductId, OrderItem::getQuantity, Integer::sum));
+        
+        List<Reservation> reservations = engine.reserveAll(quantities);
+        if (reservations == null) {
+            metrics.stockRejectedAtCheckout();
+            String shortProduct = orderItems.stream()
+                    .filter(item -> engine.available(item.getProductId()) < quantities.get(item.getProductId()))
+                    .map(OrderItem::getProductName)
+                    .findFirst()
+                    .orElse("unknown");
+            throw new RuntimeException("Insufficient stock for product: " + shortProduct);
+        }
+        
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                // The id was assigned when the order was saved
+                engine.prepare(reservations, order.getId());
+            }
+            
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    engine.commit(reservations);
+                } else {
+                    engine.release(reservations);
+                }
+            }
+        });
+    }
+    
+    @Transactional(readOnly = true)
+    public CursorPage<OrderSummary> getOrderHistory(Long userId, OrderHistoryQuery query) {
+        return orderHistoryRepository.findPage(userId, query.getCursor(), query.getLimit());
+    }
+    
+    @Transactional(readOnly = true)
+    public void streamOrderHistory(Long userId, Consumer<OrderSummary> sink) {
+        orderHistoryRepository.streamAll(userId, sink);
     }
     
+    @Transactional(readOnly = true)
     public Order getOrderById(Long orderId, Long userId) {
         Order order = orderRepository.findById(orderId)
                 .orElseThrow(() -> new RuntimeException("Order not found"));
@@ -1,29 +1,47 @@
 package com.example.demo.service;
 
+import com.example.demo.cache.ProductCache;
+import com.example.demo.cache.ProductChangedEvent;
+import com.example.demo.dto.CursorPage;
+import com.example.demo.dto.ProductCatalogQuery;
 import com.example.demo.dto.ProductRequest;
+import com.example.demo.dto.ProductSummary;
 import com.example.demo.entity.Product;
+import com.example.demo.inventory.StockReservationEngine;
 import com.example.demo.repository.ProductRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.List;
+import java.util.Optional;
 
 @Service
 @RequiredArgsConstructor
 public class ProductService {
     
     private final ProductRepository productRepository;
+    private final ProductCache productCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Optional<StockReservationEngine> reservationEngine;
     
-    public List<Product> getAllProducts() {
-        return productRepository.findAll();
+    public CursorPage<ProductSummary> getCatalogPage(ProductCatalogQuery query) {
+        if (query.getMinPrice() != null && query.getMaxPrice() != null
+                && query.getMinPrice().compareTo(query.getMaxPrice()) > 0) {
+            throw new RuntimeException("Minimum price cannot exceed maximum price");
+        }
+        return productCache.getPage(query);
     }
     
     public Product getProductById(Long id) {
-        return productRepository.findById(id)
+        return productCache.findProduct(id)
                 .orElseThrow(() -> new RuntimeException("Product not found"));
     }
     
+    @Transactional(readOnly = true)
     public List<Product> getProductsBySeller(Long sellerId) {
         return productRepository.findBySellerId(sellerId);
     }
@@ -38,34 +56,59 @@ public class ProductService {
         product.setSellerId(sellerId);
         product.setImageUrl(request.getImageUrl());
         
-        return productRepository.save(product);
+        Product saved = productRepository.save(product);
+        eventPublisher.publishEvent(ProductChangedEvent.created(ProductSummary.from(saved)));
+        return saved;
     }
     
     @Transactional
     public Product updateProduct(Long id, ProductRequest request, Long sellerId) {
-        Product product = getProductById(id);
+        Product product = loadForUpdate(id);
         
         if (!product.getSellerId().equals(sellerId)) {
             throw new RuntimeException("You can only update your own products");
         }
         
+        ProductSummary before = ProductSummary.from(product);
         product.setName(request.getName());
         product.setDescription(request.getDescription());
         product.setPrice(request.getPrice());
         product.setStock(request.getStock());
         product.setImageUrl(request.getImageUrl());
         
-        return productRepository.save(product);
+        recountStockAfterCommit(id);
+        Product saved = productRepository.save(product);
+        eventPublisher.publishEvent(ProductChangedEvent.updated(before, ProductSummary.from(saved)));
+        return saved;
     }
     
     @Transactional
     public void deleteProduct(Long id, Long sellerId) {
-        Product product = getProductById(id);
+        Product product = loadForUpdate(id);
         
         if (!product.getSellerId().equals(sellerId)) {
             throw new RuntimeException("You can only delete your own products");
         }
         
+        recountStockAfterCommit(id);
         productRepository.delete(product);
+        eventPublisher.publishEvent(ProductChangedEvent.deleted(ProductSummary.from(product)));
+    }
+    
+    // Writes start from the database row, never from the shared cached instance
+    private Product loadForUpdate(Long id) {
+        return productRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Product not found"));
+    }
+    
+    // The seller set stock directly, so the in-memory counter is recounted from the new value
+    private void recountStockAfterCommit(Long productId) {
+        reservationEngine.ifPresent(engine -> TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        engine.recount(productId);
+                    }
+                }));
     }
 }
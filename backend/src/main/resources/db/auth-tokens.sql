@@ -0,0 +1,22 @@
+-- Creates the refresh token and revocation tables in a database created before them (DDL_AUTO=none). Run once:
+--   psql -d ecommerce -f src/main/resources/db/auth-tokens.sql
+
+CREATE TABLE IF NOT EXISTS refresh_tokens (
+    token_hash varchar(64)  PRIMARY KEY,
+    user_id    bigint       NOT NULL,
+    family_id  varchar(36)  NOT NULL,
+    expires_at timestamp(6) NOT NULL,
+    created_at timestamp(6) NOT NULL,
+    used_at    timestamp(6),
+    revoked    boolean      NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_refresh_tokens_family_id ON refresh_tokens (family_id);
+
+CREATE TABLE IF NOT EXISTS revoked_tokens (
+    token_id   varchar(36)  PRIMARY KEY,
+    expires_at timestamp(6) NOT NULL,
+    revoked_at timestamp(6) NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_revoked_tokens_revoked_at ON revoked_tokens (revoked_at);
@@ -0,0 +1,22 @@
+-- Adds the rule columns coupons gained with the in-memory coupon engine to a database created before them
+-- (DDL_AUTO=none). Existing coupons become unlimited fixed-amount coupons, as they were. Run once:
+--   psql -d ecommerce -f src/main/resources/db/coupon-rules.sql
+
+BEGIN;
+
+ALTER TABLE coupons
+    ADD COLUMN IF NOT EXISTS type varchar(255) NOT NULL DEFAULT 'FIXED',
+    ADD COLUMN IF NOT EXISTS percent_off numeric(5, 2),
+    ADD COLUMN IF NOT EXISTS max_discount numeric(10, 2),
+    ADD COLUMN IF NOT EXISTS min_spend numeric(10, 2),
+    ADD COLUMN IF NOT EXISTS product_id bigint,
+    ADD COLUMN IF NOT EXISTS usage_limit integer,
+    ADD COLUMN IF NOT EXISTS times_used integer NOT NULL DEFAULT 0,
+    ADD COLUMN IF NOT EXISTS starts_at timestamp(6),
+    ADD COLUMN IF NOT EXISTS ends_at timestamp(6),
+    ADD COLUMN IF NOT EXISTS updated_at timestamp(6);
+
+ALTER TABLE coupons ALTER COLUMN discount_amount DROP NOT NULL;
+UPDATE coupons SET updated_at = now() WHERE updated_at IS NULL;
+
+COMMIT;
@@ -0,0 +1,15 @@
+-- Creates the table behind Idempotency-Key checkouts in a database created before it (DDL_AUTO=none). Run once:
+--   psql -d ecommerce -f src/main/resources/db/idempotency-keys.sql
+
+CREATE TABLE IF NOT EXISTS idempotency_keys (
+    id           bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id      bigint       NOT NULL,
+    idem_key     varchar(255) NOT NULL,
+    request_hash varchar(64)  NOT NULL,
+    response     bytea,
+    created_at   timestamp(6) NOT NULL,
+    expires_at   timestamp(6) NOT NULL,
+    CONSTRAINT uk_idempotency_keys_user_key UNIQUE (user_id, idem_key)
+);
+
+CREATE INDEX IF NOT EXISTS idx_idempotency_keys_expires_at ON idempotency_keys (expires_at);
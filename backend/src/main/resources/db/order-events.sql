@@ -0,0 +1,19 @@
+-- Creates the order outbox in a database created before it (DDL_AUTO=none). Run once:
+--   psql -d ecommerce -f src/main/resources/db/order-events.sql
+
+CREATE SEQUENCE IF NOT EXISTS order_events_seq INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS order_events (
+    id              bigint        PRIMARY KEY,
+    order_id        bigint        NOT NULL,
+    type            varchar(255)  NOT NULL CHECK (type IN ('ORDER_PLACED')),
+    payload         jsonb         NOT NULL,
+    status          varchar(255)  NOT NULL CHECK (status IN ('PENDING', 'PROCESSED', 'FAILED')),
+    attempts        integer       NOT NULL,
+    next_attempt_at timestamp(6)  NOT NULL,
+    created_at      timestamp(6)  NOT NULL,
+    processed_at    timestamp(6),
+    last_error      varchar(1000)
+);
+
+CREATE INDEX IF NOT EXISTS idx_order_events_status_next_attempt_at ON order_events (status, next_attempt_at);
@@ -0,0 +1,28 @@
+-- Moves ids of a database created before pooled sequences (DDL_AUTO=none) from identity columns to the
+-- sequences Hibernate now allocates from in blocks of 50. Run once with the application stopped:
+--   psql -d ecommerce -f src/main/resources/db/pooled-sequences.sql
+-- cart_items keeps its identity column; it is only written over JDBC.
+
+BEGIN;
+
+CREATE SEQUENCE IF NOT EXISTS users_seq INCREMENT BY 50;
+SELECT setval('users_seq', (SELECT coalesce(max(id), 0) + 1 FROM users), false);
+ALTER TABLE users ALTER COLUMN id DROP IDENTITY IF EXISTS;
+
+CREATE SEQUENCE IF NOT EXISTS products_seq INCREMENT BY 50;
+SELECT setval('products_seq', (SELECT coalesce(max(id), 0) + 1 FROM products), false);
+ALTER TABLE products ALTER COLUMN id DROP IDENTITY IF EXISTS;
+
+CREATE SEQUENCE IF NOT EXISTS coupons_seq INCREMENT BY 50;
+SELECT setval('coupons_seq', (SELECT coalesce(max(id), 0) + 1 FROM coupons), false);
+ALTER TABLE coupons ALTER COLUMN id DROP IDENTITY IF EXISTS;
+
+CREATE SEQUENCE IF NOT EXISTS orders_seq INCREMENT BY 50;
+SELECT setval('orders_seq', (SELECT coalesce(max(id), 0) + 1 FROM orders), false);
+ALTER TABLE orders ALTER COLUMN id DROP IDENTITY IF EXISTS;
+
+CREATE SEQUENCE IF NOT EXISTS order_items_seq INCREMENT BY 50;
+SELECT setval('order_items_seq', (SELECT coalesce(max(id), 0) + 1 FROM order_items), false);
+ALTER TABLE order_items ALTER COLUMN id DROP IDENTITY IF EXISTS;
+
+COMMIT;
@@ -0,0 +1,32 @@
+-- Creates the seller analytics rollups in a database created before them (DDL_AUTO=none) and fills them from
+-- the orders placed so far. Run once, before starting the application on the new version:
+--   psql -d ecommerce -f src/main/resources/db/seller-daily-rollups.sql
+-- Order discounts are shared over lines by revenue, rounded to the cent per line, so the backfilled discount
+-- can differ from live counting by a cent per order.
+
+BEGIN;
+
+CREATE TABLE IF NOT EXISTS seller_daily_rollups (
+    seller_id  bigint         NOT NULL,
+    product_id bigint         NOT NULL,
+    sale_date  date           NOT NULL,
+    units      bigint         NOT NULL,
+    revenue    numeric(14, 2) NOT NULL,
+    discount   numeric(14, 2) NOT NULL,
+    PRIMARY KEY (seller_id, product_id, sale_date)
+);
+
+CREATE INDEX IF NOT EXISTS idx_seller_daily_rollups_sale_date ON seller_daily_rollups (sale_date);
+
+INSERT INTO seller_daily_rollups (seller_id, product_id, sale_date, units, revenue, discount)
+SELECT p.seller_id, oi.product_id, o.created_at::date, sum(oi.quantity),
+       sum(oi.price_at_purchase * oi.quantity),
+       coalesce(sum(round(least(o.discount, o.total_amount) * oi.price_at_purchase * oi.quantity
+                          / nullif(o.total_amount, 0), 2)), 0)
+FROM orders o
+JOIN order_items oi ON oi.order_id = o.id
+JOIN products p ON p.id = oi.product_id
+GROUP BY p.seller_id, oi.product_id, o.created_at::date
+ON CONFLICT DO NOTHING;
+
+COMMIT;
@@ -0,0 +1,26 @@
+-- Renames the unique constraints on users.username and users.email in a database created before they were named
+-- (DDL_AUTO=none), where Hibernate gave them generated UK... names. Registration reads these names to say which
+-- of the two is taken. Run once:
+--   psql -d ecommerce -f src/main/resources/db/user-unique-constraints.sql
+
+DO $$
+DECLARE
+    target record;
+    existing text;
+BEGIN
+    FOR target IN SELECT * FROM (VALUES ('username', 'users_username_key'), ('email', 'users_email_key')) AS t(col, name)
+    LOOP
+        SELECT c.conname INTO existing
+        FROM pg_constraint c
+        JOIN pg_attribute a ON a.attrelid = c.conrelid AND a.attnum = c.conkey[1]
+        WHERE c.conrelid = 'users'::regclass AND c.contype = 'u'
+          AND array_length(c.conkey, 1) = 1 AND a.attname = target.col;
+
+        IF existing IS NULL THEN
+            EXECUTE format('ALTER TABLE users ADD CONSTRAINT %I UNIQUE (%I)', target.name, target.col);
+        ELSIF existing <> target.name THEN
+            EXECUTE format('ALTER TABLE users RENAME CONSTRAINT %I TO %I', existing, target.name);
+        END IF;
+    END LOOP;
+END
+$$;
@@ -0,0 +1,52 @@
+package com.example.demo.analytics;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Rollup rows held in a map; {@link #failNextApply()} makes the next write throw.
+ */
+class InMemoryRollupLedger implements RollupLedger {
+
+    private record Key(long sellerId, long productId, LocalDate saleDate) {
+    }
+
+    private final Map<Key, RollupRow> rows = new TreeMap<>(
+            Comparator.comparingLong(Key::sellerId).thenComparingLong(Key::productId).thenComparing(Key::saleDate));
+    final List<List<RollupRow>> applied = new ArrayList<>();
+    private boolean failNext;
+
+    synchronized InMemoryRollupLedger with(RollupRow row) {
+        rows.put(new Key(row.sellerId(), row.productId(), row.saleDate()), row);
+        return this;
+    }
+
+    synchronized void failNextApply() {
+        failNext = true;
+    }
+
+    synchronized RollupRow row(long sellerId, long productId, LocalDate saleDate) {
+        return rows.get(new Key(sellerId, productId, saleDate));
+    }
+
+    @Override
+    public synchronized List<RollupRow> loadSince(LocalDate from) {
+        return rows.values().stream().filter(r -> !r.saleDate().isBefore(from)).toList();
+    }
+
+    @Override
+    public synchronized void apply(List<RollupRow> increments) {
+        if (failNext) {
+            failNext = false;
+            throw new IllegalStateException("Database unavailable");
+        }
+        applied.add(increments);
+        increments.forEach(r -> rows.merge(new Key(r.sellerId(), r.productId(), r.saleDate()), r,
+                (a, b) -> new RollupRow(a.sellerId(), a.productId(), a.saleDate(), a.units() + b.units(),
+                        a.revenueCents() + b.revenueCents(), a.discountCents() + b.discountCents())));
+    }
+}
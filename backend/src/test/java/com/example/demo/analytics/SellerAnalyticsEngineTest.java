@@ -0,0 +1,147 @@
+package com.example.demo.analytics;
+
+import com.example.demo.dto.SellerAnalytics;
+import com.example.demo.outbox.OrderPlaced;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SellerAnalyticsEngineTest {
+
+    private static final long SELLER = 2L;
+    private static final long OTHER_SELLER = 3L;
+    private static final LocalDate TODAY = LocalDate.now();
+
+    private final InMemoryRollupLedger ledger = new InMemoryRollupLedger();
+
+    @Test
+    void countsUnitsRevenueAndSharedDiscountPerDayAndProduct() {
+        SellerAnalyticsEngine engine = engine(new AnalyticsProperties());
+
+        // 10.00 off 300.00 falls 2/3 on the first line and 1/3 on the second; the odd cent goes to the first
+        engine.onOrderPlaced(order(1L, TODAY, "10.00", line(10L, SELLER, 2, "100.00"), line(11L, SELLER, 1, "100.00")));
+        engine.onOrderPlaced(order(2L, TODAY.minusDays(1), "0", line(10L, SELLER, 1, "100.00"),
+                line(20L, OTHER_SELLER, 5, "1.00")));
+
+        SellerAnalytics analytics = engine.analytics(SELLER, 7);
+        assertThat(analytics.totals().units()).isEqualTo(4);
+        assertThat(analytics.totals().revenue()).isEqualByComparingTo("400.00");
+        assertThat(analytics.totals().discount()).isEqualByComparingTo("10.00");
+        assertThat(analytics.totals().netRevenue()).isEqualByComparingTo("390.00");
+        assertThat(analytics.days()).hasSize(7);
+        assertThat(analytics.days().getLast().figures().units()).isEqualTo(3);
+        assertThat(analytics.days().get(5).figures().units()).isEqualTo(1);
+        assertThat(analytics.products()).extracting(SellerAnalytics.ProductFigures::productId).containsExactly(10L, 11L);
+        assertThat(analytics.products().getFirst().figures().discount()).isEqualByComparingTo("6.67");
+        assertThat(analytics.products().getLast().figures().discount()).isEqualByComparingTo("3.33");
+    }
+
+    @Test
+    void productCouponIsChargedOnlyToTheSellerOfThatProduct() {
+        SellerAnalyticsEngine engine = engine(new AnalyticsProperties());
+
+        // 5.00 off product 10 only, in an order that also holds another seller's far larger line
+        engine.onOrderPlaced(order(1L, TODAY, "5.00", line(10L, SELLER, 1, "20.00"),
+                undiscountedLine(20L, OTHER_SELLER, 3, "100.00"), line(10L, SELLER, 1, "20.00")));
+
+        SellerAnalytics seller = engine.analytics(SELLER, 1);
+        assertThat(seller.totals().discount()).isEqualByComparingTo("5.00");
+        assertThat(seller.totals().netRevenue()).isEqualByComparingTo("35.00");
+        SellerAnalytics other = engine.analytics(OTHER_SELLER, 1);
+        assertThat(other.totals().discount()).isEqualByComparingTo("0.00");
+        assertThat(other.totals().netRevenue()).isEqualByComparingTo("300.00");
+    }
+
+    @Test
+    void redeliveredOrderIsCountedOnce() {
+        SellerAnalyticsEngine engine = engine(new AnalyticsProperties());
+        OrderPlaced order = order(1L, TODAY, "0", line(10L, SELLER, 2, "5.00"));
+
+        engine.onOrderPlaced(order);
+        engine.onOrderPlaced(order);
+
+        assertThat(engine.analytics(SELLER, 1).totals().units()).isEqualTo(2);
+    }
+
+    @Test
+    void flushWritesOneIncrementPerProductDayAndRetriesAfterAFailure() {
+        SellerAnalyticsEngine engine = engine(new AnalyticsProperties());
+        engine.onOrderPlaced(order(1L, TODAY, "0", line(10L, SELLER, 2, "5.00")));
+        engine.onOrderPlaced(order(2L, TODAY, "0", line(10L, SELLER, 3, "5.00")));
+
+        ledger.failNextApply();
+        engine.flush();
+        assertThat(ledger.row(SELLER, 10L, TODAY)).isNull();
+
+        engine.onOrderPlaced(order(3L, TODAY, "0", line(10L, SELLER, 1, "5.00")));
+        engine.flush();
+        assertThat(ledger.applied).singleElement().satisfies(batch -> assertThat(batch).hasSize(1));
+        assertThat(ledger.row(SELLER, 10L, TODAY).units()).isEqualTo(6);
+        assertThat(ledger.row(SELLER, 10L, TODAY).revenueCents()).isEqualTo(3000);
+
+        engine.flush();
+        assertThat(ledger.applied).hasSize(1);
+        assertThat(engine.analytics(SELLER, 1).totals().units()).isEqualTo(6);
+    }
+
+    @Test
+    void reloadPicksUpOtherNodesAndKeepsUnwrittenIncrements() {
+        SellerAnalyticsEngine engine = engine(new AnalyticsProperties());
+        engine.onOrderPlaced(order(1L, TODAY, "0", line(10L, SELLER, 2, "5.00")));
+
+        // Written by another node since this one loaded
+        ledger.with(new RollupRow(SELLER, 10L, TODAY, 4, 2000, 0));
+        engine.reload();
+        assertThat(engine.analytics(SELLER, 1).totals().units()).isEqualTo(6);
+
+        engine.flush();
+        engine.reload();
+        assertThat(engine.analytics(SELLER, 1).totals().units()).isEqualTo(6);
+    }
+
+    @Test
+    void readsOnlyTheRequestedDaysAndGrowsPastItsInitialCapacity() {
+        AnalyticsProperties properties = new AnalyticsProperties();
+        properties.setInitialCapacity(4);
+        ledger.with(new RollupRow(SELLER, 10L, TODAY.minusDays(30), 100, 100, 0));
+        SellerAnalyticsEngine engine = engine(properties);
+
+        IntStream.range(0, 200).forEach(i ->
+                engine.onOrderPlaced(order(i + 1L, TODAY.minusDays(i % 3), "0", line(100L + i, SELLER, 1, "1.00"))));
+
+        assertThat(engine.analytics(SELLER, 1).totals().units()).isEqualTo(67);
+        assertThat(engine.analytics(SELLER, 3).totals().units()).isEqualTo(200);
+        assertThat(engine.analytics(SELLER, 31).totals().units()).isEqualTo(300);
+        assertThat(engine.analytics(OTHER_SELLER, 31).products()).isEmpty();
+        assertThatThrownBy(() -> engine.analytics(SELLER, properties.getWindowDays() + 1))
+                .hasMessageContaining("between 1 and");
+    }
+
+    private SellerAnalyticsEngine engine(AnalyticsProperties properties) {
+        SellerAnalyticsEngine engine = new SellerAnalyticsEngine(ledger, properties);
+        engine.warmUp();
+        return engine;
+    }
+
+    private static OrderPlaced order(Long orderId, LocalDate day, String discount, OrderPlaced.Line... lines) {
+        BigDecimal total = List.of(lines).stream()
+                .map(l -> l.unitPrice().multiply(BigDecimal.valueOf(l.quantity())))
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        BigDecimal off = new BigDecimal(discount);
+        return new OrderPlaced(orderId, 1L, day.atTime(12, 0), total, off, total.subtract(off), null, List.of(lines));
+    }
+
+    private static OrderPlaced.Line line(Long productId, Long sellerId, int quantity, String price) {
+        return new OrderPlaced.Line(productId, sellerId, quantity, new BigDecimal(price), true);
+    }
+
+    private static OrderPlaced.Line undiscountedLine(Long productId, Long sellerId, int quantity, String price) {
+        return new OrderPlaced.Line(productId, sellerId, quantity, new BigDecimal(price), false);
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.demo.benchmark;
+
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compares a JMH JSON result file with a stored baseline and exits with status 1 when any benchmark got
+ * slower by more than the threshold. Run by the {@code benchmark} profile after the suites:
+ * <pre>
+ * ./mvnw -Pbenchmark verify                                  # compare with benchmarks/baseline.json
+ * ./mvnw -Pbenchmark verify -Djmh.baseline.update=true       # record this run as the new baseline
+ * </pre>
+ * A slowdown only counts when it also exceeds the combined error of both scores, so noisy results do not
+ * fail the build. Baselines are only comparable on the machine they were recorded on.
+ */
+public class BenchmarkRegressionCheck {
+
+    private static final JsonMapper JSON = JsonMapper.builder().build();
+
+    public static void main(String[] args) throws IOException {
+        Path result = Path.of(args[0]);
+        Path baseline = Path.of(args[1]);
+        double threshold = Double.parseDouble(args[2]);
+        boolean update = args.length > 3 && Boolean.parseBoolean(args[3]);
+
+        if (!Files.exists(result)) {
+            System.out.println("No JMH result at " + result + "; nothing to compare");
+            return;
+        }
+        if (update) {
+            Files.createDirectories(baseline.toAbsolutePath().getParent());
+            Files.copy(result, baseline, StandardCopyOption.REPLACE_EXISTING);
+            System.out.println("Recorded " + result + " as the baseline at " + baseline);
+            return;
+        }
+        if (!Files.exists(baseline)) {
+            System.out.println("No baseline at " + baseline + "; record one with -Djmh.baseline.update=true");
+            return;
+        }
+
+        List<Comparison> comparisons = compare(read(baseline), read(result), threshold);
+        comparisons.forEach(c -> System.out.println(c.describe()));
+        long regressions = comparisons.stream().filter(Comparison::regressed).count();
+        if (regressions > 0) {
+            System.out.printf("%d benchmark(s) regressed by more than %.0f%%%n", regressions, threshold * 100);
+            System.exit(1);
+        }
+        System.out.printf("No regressions beyond %.0f%% against %s%n", threshold * 100, baseline);
+    }
+
+    static List<Comparison> compare(Map<String, Score> baseline, Map<String, Score> current, double threshold) {
+        List<Comparison> comparisons = new ArrayList<>();
+        current.forEach((key, score) -> comparisons.add(new Comparison(key, baseline.get(key), score, threshold)));
+        return comparisons;
+    }
+
+    static Map<String, Score> read(Path file) throws IOException {
+        Map<String, Score> scores = new LinkedHashMap<>();
+        for (JsonNode run : JSON.readTree(file.toFile())) {
+            Map<String, String> params = new TreeMap<>();
+            JsonNode paramsNode = run.path("params");
+            paramsNode.propertyNames().forEach(name -> params.put(name, paramsNode.get(name).asString()));
+
+            String benchmark = run.get("benchmark").asString();
+            String key = benchmark.substring(benchmark.lastIndexOf('.', benchmark.lastIndexOf('.') - 1) + 1)
+                    + (params.isEmpty() ? "" : " " + params);
+            JsonNode metric = run.get("primaryMetric");
+            scores.put(key, new Score(run.get("mode").asString(), metric.get("score").asDouble(),
+                    metric.path("scoreError").asDouble(0), metric.get("scoreUnit").asString()));
+        }
+        return scores;
+    }
+
+    record Score(String mode, double score, double error, String unit) {
+
+        boolean higherIsBetter() {
+            return mode.equals("thrpt");
+        }
+    }
+
+    record Comparison(String key, Score baseline, Score current, double threshold) {
+
+        /**
+         * Fractional slowdown against the baseline; negative when faster.
+         */
+        double slowdown() {
+            double change = (current.score() - baseline.score()) / baseline.score();
+            return current.higherIsBetter() ? -change : change;
+        }
+
+        boolean comparable() {
+            return baseline != null && baseline.mode().equals(current.mode()) && baseline.unit().equals(current.unit());
+        }
+
+        boolean regressed() {
+            if (!comparable()) {
+                return false;
+            }
+            double noise = finite(baseline.error()) + finite(current.error());
+            return slowdown() > threshold && Math.abs(current.score() - baseline.score()) > noise;
+        }
+
+        String describe() {
+            if (!comparable()) {
+                return String.format("  new       %-60s %12.3f %s", key, current.score(), current.unit());
+            }
+            String status = regressed() ? "REGRESSED" : slowdown() < -threshold ? "faster" : "ok";
+            return String.format("  %-9s %-60s %12.3f -> %12.3f %s (%+.1f%%)", status, key,
+                    baseline.score(), current.score(), current.unit(), slowdown() * 100);
+        }
+
+        private static double finite(double value) {
+            return Double.isFinite(value) ? value : 0;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.benchmark.BenchmarkRegressionCheck.Comparison;
+import com.example.demo.benchmark.BenchmarkRegressionCheck.Score;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BenchmarkRegressionCheckTest {
+
+    @Test
+    void slowdownDirectionFollowsTheMode() {
+        List<Comparison> comparisons = BenchmarkRegressionCheck.compare(
+                Map.of("a", new Score("thrpt", 1000, 10, "ops/ms"), "b", new Score("avgt", 100, 1, "ns/op")),
+                Map.of("a", new Score("thrpt", 800, 10, "ops/ms"), "b", new Score("avgt", 80, 1, "ns/op")),
+                0.10);
+
+        assertThat(comparisons).filteredOn(Comparison::regressed).extracting(Comparison::key).containsExactly("a");
+    }
+
+    @Test
+    void differencesWithinTheErrorOrWithoutBaselineDoNotFail() {
+        List<Comparison> comparisons = BenchmarkRegressionCheck.compare(
+                Map.of("noisy", new Score("avgt", 100, 15, "us/op")),
+                Map.of("noisy", new Score("avgt", 125, 15, "us/op"), "added", new Score("avgt", 5, Double.NaN, "us/op")),
+                0.10);
+
+        assertThat(comparisons).noneMatch(Comparison::regressed);
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.security.AuthTokenProperties;
+import com.example.demo.security.InMemoryAuthTokenLedger;
+import com.example.demo.security.JwtProperties;
+import com.example.demo.security.JwtUtil;
+import com.example.demo.security.TokenRevocationList;
+
+/**
+ * Builds beans outside a Spring context with the same settings as application.yml.
+ */
+final class BenchmarkSupport {
+
+    static final String SECRET = "404E635266556A586E3272357538782F413F4428472B4B6250645367566B5970";
+    static final long EXPIRATION = 86_400_000L;
+
+    private BenchmarkSupport() {
+    }
+
+    static JwtProperties jwtProperties() {
+        JwtProperties properties = new JwtProperties();
+        properties.setSecret(SECRET);
+        properties.setExpiration(EXPIRATION);
+        return properties;
+    }
+
+    static JwtUtil jwtUtil() {
+        return new JwtUtil(jwtProperties());
+    }
+
+    static TokenRevocationList revocationList() {
+        return new TokenRevocationList(new InMemoryAuthTokenLedger(), new AuthTokenProperties());
+    }
+}
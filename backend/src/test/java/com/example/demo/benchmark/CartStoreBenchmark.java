@@ -0,0 +1,90 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.cart.CartProperties;
+import com.example.demo.cart.InMemoryCartLedger;
+import com.example.demo.cart.InMemoryCartStore;
+import com.example.demo.dto.CartLine;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cart operations against the in-memory store across many buyers, with the write-behind flush running
+ * every 500 ms in the background as it does in the application.
+ * <pre>
+ * ./mvnw -Pbenchmark verify -Djmh.includes=CartStoreBenchmark
+ * </pre>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class CartStoreBenchmark {
+
+    private static final int PRODUCTS = 10_000;
+    private static final int LINES = 5;
+
+    @Param({"1000", "100000"})
+    public int buyers;
+
+    private InMemoryCartStore store;
+    private ScheduledExecutorService flusher;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        store = new InMemoryCartStore(new InMemoryCartLedger(), new CartProperties());
+        for (long buyer = 1; buyer <= buyers; buyer++) {
+            for (int line = 0; line < LINES; line++) {
+                store.addQuantity(buyer, productOf(buyer, line), 1);
+            }
+        }
+        store.flush();
+        flusher = Executors.newSingleThreadScheduledExecutor();
+        flusher.scheduleWithFixedDelay(store::flush, 500, 500, TimeUnit.MILLISECONDS);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        flusher.shutdownNow();
+    }
+
+    @Benchmark
+    public int add() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long buyer = 1L + random.nextInt(buyers);
+        return store.addQuantity(buyer, productOf(buyer, random.nextInt(LINES)), 1);
+    }
+
+    @Benchmark
+    public boolean update() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long buyer = 1L + random.nextInt(buyers);
+        return store.setQuantity(buyer, productOf(buyer, random.nextInt(LINES)), 2);
+    }
+
+    @Benchmark
+    public boolean addThenRemove() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long buyer = 1L + random.nextInt(buyers);
+        Long product = PRODUCTS + productOf(buyer, 0);
+        store.addQuantity(buyer, product, 1);
+        return store.remove(buyer, product);
+    }
+
+    @Benchmark
+    public List<CartLine> getLines() {
+        return store.getLines(1L + ThreadLocalRandom.current().nextInt(buyers));
+    }
+
+    // Each buyer keeps the same few products in its cart, so carts stay realistically small
+    private static Long productOf(long buyer, int line) {
+        return (buyer + line) % PRODUCTS;
+    }
+}
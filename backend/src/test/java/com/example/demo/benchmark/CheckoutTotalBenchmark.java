@@ -0,0 +1,57 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.entity.OrderItem;
+import com.example.demo.service.OrderService;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the checkout total across cart sizes. {@code unscaledCents} sums the same prices as longs, as a
+ * floor for what {@code BigDecimal} arithmetic adds.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CheckoutTotalBenchmark {
+
+    @Param({"1", "10", "30", "100"})
+    public int cartSize;
+
+    private List<OrderItem> items;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        items = new ArrayList<>(cartSize);
+        for (int i = 0; i < cartSize; i++) {
+            OrderItem item = new OrderItem();
+            item.setProductId((long) i);
+            item.setProductName("Product " + i);
+            item.setQuantity(1 + random.nextInt(5));
+            item.setPriceAtPurchase(BigDecimal.valueOf(100 + random.nextInt(100_000), 2));
+            items.add(item);
+        }
+    }
+
+    @Benchmark
+    public BigDecimal totalAmount() {
+        return OrderService.totalAmount(items);
+    }
+
+    @Benchmark
+    public long unscaledCents() {
+        long total = 0;
+        for (OrderItem item : items) {
+            total += item.getPriceAtPurchase().unscaledValue().longValue() * item.getQuantity();
+        }
+        return total;
+    }
+}
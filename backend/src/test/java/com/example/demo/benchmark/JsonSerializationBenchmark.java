@@ -0,0 +1,96 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.dto.CursorPage;
+import com.example.demo.dto.ProductSummary;
+import com.example.demo.entity.Order;
+import com.example.demo.entity.OrderItem;
+import com.example.demo.entity.Product;
+import org.openjdk.jmh.annotations.*;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Response serialization for the heaviest payloads: a product detail, a catalog page, and an order whose
+ * size follows {@code items}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonSerializationBenchmark {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+    private JsonMapper jsonMapper;
+    private Product product;
+    private CursorPage<ProductSummary> page;
+
+    @Setup
+    public void setUp() {
+        jsonMapper = JsonMapper.builder().build();
+        product = product(1L);
+
+        List<ProductSummary> summaries = new ArrayList<>();
+        for (long id = 1; id <= 20; id++) {
+            summaries.add(ProductSummary.from(product(id)));
+        }
+        page = new CursorPage<>(summaries, "TkVXRVNUfDIwMjQtMDEtMDFUMTI6MDB8MjA");
+    }
+
+    @Benchmark
+    public byte[] productDetail() {
+        return jsonMapper.writeValueAsBytes(product);
+    }
+
+    @Benchmark
+    public byte[] catalogPage() {
+        return jsonMapper.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public byte[] order(OrderState state) {
+        return jsonMapper.writeValueAsBytes(state.order);
+    }
+
+    @State(Scope.Benchmark)
+    public static class OrderState {
+
+        @Param({"1", "10", "50"})
+        public int items;
+
+        private Order order;
+
+        @Setup
+        public void setUp() {
+            order = new Order();
+            order.setId(1L);
+            order.setUserId(1L);
+            order.setStatus(Order.OrderStatus.COMPLETED);
+            order.setCreatedAt(NOW);
+            for (int i = 0; i < items; i++) {
+                OrderItem item = new OrderItem();
+                item.setId((long) i);
+                item.setOrder(order);
+                item.setProductId((long) i);
+                item.setProductName("Product " + i);
+                item.setQuantity(2);
+                item.setPriceAtPurchase(new BigDecimal("19.99"));
+                order.getItems().add(item);
+            }
+            order.setTotalAmount(new BigDecimal("19.99").multiply(BigDecimal.valueOf(2L * items)));
+            order.setFinalAmount(order.getTotalAmount());
+        }
+    }
+
+    private static Product product(long id) {
+        return new Product(id, "Product " + id, "A sturdy, well reviewed product with a longer description. ".repeat(4),
+                new BigDecimal("19.99"), 100, "/images/products/" + id + ".png", 2L, NOW, NOW);
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.metrics.HotPathMetrics;
+import com.example.demo.security.JwtAuthenticationFilter;
+import com.example.demo.security.JwtClaimsCache;
+import com.example.demo.security.JwtUtil;
+import com.example.demo.security.TokenRevocationList;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the original filter, which re-parsed the token for every claim, with the parse-once
+ * path with and without the verified-claims cache.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtAuthenticationFilterBenchmark {
+
+    private OncePerRequestFilter legacyFilter;
+    private JwtAuthenticationFilter parseOnceFilter;
+    private JwtAuthenticationFilter cachedFilter;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        JwtUtil jwtUtil = BenchmarkSupport.jwtUtil();
+        token = jwtUtil.generateToken("buyer", 1L, "BUYER");
+
+        legacyFilter = new LegacyJwtAuthenticationFilter(jwtUtil);
+        HotPathMetrics metrics = new HotPathMetrics(new SimpleMeterRegistry());
+        TokenRevocationList revocations = BenchmarkSupport.revocationList();
+        parseOnceFilter = new JwtAuthenticationFilter(new JwtClaimsCache(jwtUtil, 0), revocations, metrics);
+        cachedFilter = new JwtAuthenticationFilter(new JwtClaimsCache(jwtUtil, 10_000), revocations, metrics);
+    }
+
+    @Benchmark
+    public Object legacy() throws Exception {
+        return run(legacyFilter);
+    }
+
+    @Benchmark
+    public Object parseOnce() throws Exception {
+        return run(parseOnceFilter);
+    }
+
+    @Benchmark
+    public Object parseOnceCached() throws Exception {
+        return run(cachedFilter);
+    }
+
+    private Object run(OncePerRequestFilter filter) throws ServletException, IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/cart");
+        request.addHeader("Authorization", "Bearer " + token);
+        try {
+            filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+            return request.getAttribute("userId");
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    /**
+     * The filter as it was before claims were verified once: every accessor re-parses the token.
+     */
+    static class LegacyJwtAuthenticationFilter extends OncePerRequestFilter {
+
+        private final JwtUtil jwtUtil;
+
+        LegacyJwtAuthenticationFilter(JwtUtil jwtUtil) {
+            this.jwtUtil = jwtUtil;
+        }
+
+        @Override
+        protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+                throws ServletException, IOException {
+            String token = request.getHeader("Authorization").substring(7);
+            String username = jwtUtil.extractUsername(token);
+            String role = jwtUtil.extractRole(token);
+
+            if (username != null && SecurityContextHolder.getContext().getAuthentication() == null
+                    && jwtUtil.validateToken(token, username)) {
+                UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
+                        username, null, Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + role)));
+                authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                SecurityContextHolder.getContext().setAuthentication(authToken);
+                request.setAttribute("userId", jwtUtil.extractUserId(token));
+            }
+            filterChain.doFilter(request, response);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.security.JwtUtil;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token issue/parse throughput with key material and parser built once, against the old per-call
+ * {@code Keys.hmacShaKeyFor} and {@code Jwts.parser().build()}, with several threads hitting the same instance.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class JwtUtilBenchmark {
+
+    private JwtUtil jwtUtil;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtUtil = BenchmarkSupport.jwtUtil();
+        token = jwtUtil.generateToken("buyer", 1L, "BUYER");
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtUtil.generateToken("buyer", 1L, "BUYER");
+    }
+
+    @Benchmark
+    public Claims extractAllClaims() {
+        return jwtUtil.extractAllClaims(token);
+    }
+
+    @Benchmark
+    public String legacyGenerateToken() {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("userId", 1L);
+        claims.put("role", "BUYER");
+
+        return Jwts.builder()
+                .claims(claims)
+                .subject("buyer")
+                .issuedAt(new Date())
+                .expiration(new Date(System.currentTimeMillis() + BenchmarkSupport.EXPIRATION))
+                .signWith(Keys.hmacShaKeyFor(BenchmarkSupport.SECRET.getBytes()))
+                .compact();
+    }
+
+    @Benchmark
+    public Claims legacyExtractAllClaims() {
+        return Jwts.parser()
+                .verifyWith(Keys.hmacShaKeyFor(BenchmarkSupport.SECRET.getBytes()))
+                .build()
+                .parseSignedClaims(token)
+                .getPayload();
+    }
+}
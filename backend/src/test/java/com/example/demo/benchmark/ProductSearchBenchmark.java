@@ -0,0 +1,161 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.dto.ProductSearchResult;
+import com.example.demo.search.ProductSearchIndex;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Search latency over a synthetic catalog whose words follow a Zipf distribution, so "common" matches a large
+ * share of products and "rare" only a handful, the way real product text does.
+ * <pre>
+ * ./mvnw -Pbenchmark verify -Djmh.includes=ProductSearchBenchmark
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+@State(Scope.Benchmark)
+public class ProductSearchBenchmark {
+
+    private static final int VOCABULARY = 50_000;
+    private static final int NAME_WORDS = 3;
+    private static final int DESCRIPTION_WORDS = 12;
+
+    @Param({"100000", "1000000"})
+    public int products;
+
+    private ProductSearchIndex index;
+    private String[] words;
+    private String commonWord;
+    private String midWord;
+    private String rareWord;
+
+    @Setup(Level.Trial)
+    public void buildIndex() {
+        Random random = new Random(42);
+        words = vocabulary(random);
+        commonWord = words[0];
+        midWord = words[200];
+        rareWord = words[20_000];
+
+        double[] cumulative = zipfCumulative(VOCABULARY);
+        index = new ProductSearchIndex();
+        StringBuilder text = new StringBuilder();
+        for (long id = 1; id <= products; id++) {
+            String name = sentence(random, cumulative, NAME_WORDS, text);
+            String description = sentence(random, cumulative, DESCRIPTION_WORDS, text);
+            BigDecimal price = BigDecimal.valueOf(100 + random.nextInt(150_000), 2);
+            index.put(id, name, description, price, null);
+        }
+    }
+
+    @Benchmark
+    public ProductSearchResult rareWord() {
+        return index.search(rareWord, false, null, null, 20);
+    }
+
+    @Benchmark
+    public ProductSearchResult midWord() {
+        return index.search(midWord, false, null, null, 20);
+    }
+
+    @Benchmark
+    public ProductSearchResult commonWord() {
+        return index.search(commonWord, false, null, null, 20);
+    }
+
+    @Benchmark
+    public ProductSearchResult commonAndRareWords() {
+        return index.search(commonWord + " " + rareWord, false, null, null, 20);
+    }
+
+    @Benchmark
+    public ProductSearchResult midAndCommonWords() {
+        return index.search(midWord + " " + commonWord, false, null, null, 20);
+    }
+
+    @Benchmark
+    public ProductSearchResult midWordPriceRange() {
+        return index.search(midWord, false, BigDecimal.valueOf(50), BigDecimal.valueOf(250), 20);
+    }
+
+    @Benchmark
+    public ProductSearchResult typeaheadPrefix() {
+        return index.search(midWord + " " + words[1].substring(0, 3), true, null, null, 20);
+    }
+
+    @Benchmark
+    public ProductSearchResult typeaheadCommonPrefix() {
+        return index.search(words[1].substring(0, 3), true, null, null, 20);
+    }
+
+    @Benchmark
+    public Object suggest() {
+        return index.suggest(words[5].substring(0, 2), 8);
+    }
+
+    /**
+     * Re-indexes one product with new text, including the dead-slot compaction it periodically triggers.
+     */
+    @Benchmark
+    public void edit(EditState edit) {
+        long id = 1 + edit.random.nextInt(products);
+        index.put(id, sentence(edit.random, edit.cumulative, NAME_WORDS, edit.text),
+                sentence(edit.random, edit.cumulative, DESCRIPTION_WORDS, edit.text), BigDecimal.TEN, null);
+    }
+
+    @State(Scope.Thread)
+    public static class EditState {
+        final Random random = new Random(7);
+        final double[] cumulative = zipfCumulative(VOCABULARY);
+        final StringBuilder text = new StringBuilder();
+    }
+
+    private static String[] vocabulary(Random random) {
+        Set<String> unique = new HashSet<>();
+        String[] words = new String[VOCABULARY];
+        int n = 0;
+        while (n < VOCABULARY) {
+            int length = 4 + random.nextInt(6);
+            StringBuilder word = new StringBuilder(length);
+            for (int i = 0; i < length; i++) {
+                word.append((char) ('a' + random.nextInt(26)));
+            }
+            if (unique.add(word.toString())) {
+                words[n++] = word.toString();
+            }
+        }
+        return words;
+    }
+
+    private static double[] zipfCumulative(int size) {
+        double[] cumulative = new double[size];
+        double sum = 0;
+        for (int rank = 0; rank < size; rank++) {
+            sum += 1.0 / (rank + 1);
+            cumulative[rank] = sum;
+        }
+        for (int rank = 0; rank < size; rank++) {
+            cumulative[rank] /= sum;
+        }
+        return cumulative;
+    }
+
+    private String sentence(Random random, double[] cumulative, int count, StringBuilder text) {
+        text.setLength(0);
+        for (int i = 0; i < count; i++) {
+            int rank = Arrays.binarySearch(cumulative, random.nextDouble());
+            text.append(words[rank >= 0 ? rank : Math.min(-rank - 1, VOCABULARY - 1)]).append(' ');
+        }
+        return text.toString();
+    }
+}
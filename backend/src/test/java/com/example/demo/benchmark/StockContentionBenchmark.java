@@ -0,0 +1,109 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.inventory.InMemoryStockLedger;
+import com.example.demo.inventory.InventoryProperties;
+import com.example.demo.inventory.Reservation;
+import com.example.demo.inventory.StockReservationEngine;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A flash sale: thousands of virtual threads each try to buy one unit of the same SKU, which only has
+ * stock for half of them. Measures the wall time to settle every buyer.
+ * <p>
+ * {@code rowLock} models the database path, where every buyer serializes on the product row for the
+ * duration of its update round trip ({@code rowLockHoldMicros}).
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StockContentionBenchmark {
+
+    private static final Long SKU = 1L;
+
+    @Param({"1000", "5000", "10000"})
+    public int buyers;
+
+    @Param({"100"})
+    public int rowLockHoldMicros;
+
+    private Path journalDir;
+    private StockReservationEngine engine;
+    private ReentrantLock rowLock;
+    private int rowStock;
+
+    @Setup(Level.Trial)
+    public void createJournalDir() throws IOException {
+        journalDir = Files.createTempDirectory("stock-bench");
+    }
+
+    @Setup(Level.Invocation)
+    public void setUp() throws IOException {
+        Files.deleteIfExists(journalDir.resolve("stock.journal"));
+        InventoryProperties properties = new InventoryProperties();
+        properties.setReservationsEnabled(true);
+        properties.setJournalPath(journalDir.resolve("stock.journal").toString());
+        engine = new StockReservationEngine(new InMemoryStockLedger().with(SKU, buyers / 2), properties);
+        engine.available(SKU);
+
+        rowLock = new ReentrantLock();
+        rowStock = buyers / 2;
+    }
+
+    @TearDown(Level.Invocation)
+    public void tearDown() throws IOException {
+        engine.shutdown();
+    }
+
+    @Benchmark
+    public int reservationEngine() {
+        AtomicInteger sold = new AtomicInteger();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < buyers; i++) {
+                executor.submit(() -> {
+                    Reservation reservation = engine.reserve(SKU, 1);
+                    if (reservation != null) {
+                        engine.commit(List.of(reservation));
+                        sold.incrementAndGet();
+                    }
+                });
+            }
+        }
+        return sold.get();
+    }
+
+    @Benchmark
+    public int rowLock() {
+        AtomicInteger sold = new AtomicInteger();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < buyers; i++) {
+                executor.submit(() -> {
+                    rowLock.lock();
+                    try {
+                        LockSupport.parkNanos(rowLockHoldMicros * 1_000L);
+                        if (rowStock > 0) {
+                            rowStock--;
+                            sold.incrementAndGet();
+                        }
+                    } finally {
+                        rowLock.unlock();
+                    }
+                });
+            }
+        }
+        return sold.get();
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.security.TokenRevocationList;
+import com.example.demo.security.VerifiedToken;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the revocation check the JWT filter makes on every request, with many sessions revoked. A token
+ * of a live session is ruled out by the Bloom filter alone; a revoked one is also confirmed in the exact set.
+ * <pre>
+ * ./mvnw -Pbenchmark verify -Djmh.includes=TokenRevocationListBenchmark
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TokenRevocationListBenchmark {
+
+    private static final int TOKENS = 1000;
+
+    @Param({"1000", "100000"})
+    public int revokedSessions;
+
+    private TokenRevocationList revocations;
+    private VerifiedToken[] live;
+    private VerifiedToken[] revoked;
+
+    @Setup
+    public void setUp() {
+        revocations = BenchmarkSupport.revocationList();
+        LocalDateTime until = LocalDateTime.now().plusHours(1);
+        revoked = new VerifiedToken[TOKENS];
+        for (int i = 0; i < revokedSessions; i++) {
+            String sessionId = UUID.randomUUID().toString();
+            revocations.revoke(sessionId, until);
+            if (i < TOKENS) {
+                revoked[i] = token(sessionId);
+            }
+        }
+        live = new VerifiedToken[TOKENS];
+        for (int i = 0; i < TOKENS; i++) {
+            live[i] = token(UUID.randomUUID().toString());
+        }
+    }
+
+    @Benchmark
+    public boolean liveSession() {
+        return revocations.isRevoked(live[ThreadLocalRandom.current().nextInt(TOKENS)]);
+    }
+
+    @Benchmark
+    public boolean revokedSession() {
+        return revocations.isRevoked(revoked[ThreadLocalRandom.current().nextInt(TOKENS)]);
+    }
+
+    private static VerifiedToken token(String sessionId) {
+        return new VerifiedToken("buyer", 1L, "BUYER", sessionId, Instant.MAX, List.of());
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.demo.bulk;
+
+import com.example.demo.dto.ProductRequest;
+import com.example.demo.dto.ProductSummary;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps inserted products in a list; refuses any batch holding a product named {@link #REFUSED_NAME}, the way
+ * the database refuses a batch with one bad row.
+ */
+class InMemoryProductImportLedger implements ProductImportLedger {
+
+    static final String REFUSED_NAME = "refused";
+
+    final List<ProductSummary> products = new ArrayList<>();
+    final List<Integer> batchSizes = new ArrayList<>();
+    private final AtomicLong ids = new AtomicLong();
+
+    @Override
+    public synchronized List<ProductSummary> insert(Long sellerId, List<ProductRequest> batch) {
+        if (batch.stream().anyMatch(p -> REFUSED_NAME.equals(p.getName()))) {
+            throw new IllegalStateException("ERROR: value refused\n  Detail: row was refused");
+        }
+        List<ProductSummary> stored = batch.stream()
+                .map(p -> new ProductSummary(ids.incrementAndGet(), p.getName(), p.getPrice(), p.getStock(),
+                        p.getImageUrl(), sellerId, LocalDateTime.now()))
+                .toList();
+        products.addAll(stored);
+        batchSizes.add(batch.size());
+        return stored;
+    }
+}
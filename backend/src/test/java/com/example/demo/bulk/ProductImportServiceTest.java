@@ -0,0 +1,146 @@
+package com.example.demo.bulk;
+
+import com.example.demo.cache.ProductsCreatedEvent;
+import com.example.demo.dto.ProductImportStatus;
+import com.example.demo.dto.ProductSummary;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.transaction.support.TransactionOperations;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ProductImportServiceTest {
+
+    private static final Long SELLER = 2L;
+
+    private final InMemoryProductImportLedger ledger = new InMemoryProductImportLedger();
+    private final List<Object> events = new ArrayList<>();
+    private final ProductImportProperties properties = new ProductImportProperties();
+    private ProductImportService service;
+
+    @AfterEach
+    void shutDown() {
+        if (service != null) {
+            service.shutdown();
+        }
+    }
+
+    @Test
+    void importsValidCsvRowsInBatchesAndReportsTheRest() throws IOException {
+        properties.setBatchSize(2);
+        ProductImportStatus status = run(ProductFileFormat.CSV, """
+                name,price,stock,description,image_url
+                Desk lamp,19.99,10,"Warm light, dimmable",
+                ,5.00,1,missing name,
+                Mug,-1,3,,
+                Chair,abc,3,,
+                "Quoted ""name""\",7.50,4,"two
+                lines",/uploads/a.jpg
+
+                Short row,1.00
+                Pen,1.20,100,,
+                Notebook,3,50,,
+                """);
+
+        assertThat(status.state()).isEqualTo(ProductImportStatus.State.COMPLETED);
+        assertThat(status.rowsRead()).isEqualTo(8);
+        assertThat(status.imported()).isEqualTo(4);
+        assertThat(status.rejected()).isEqualTo(4);
+        assertThat(status.errors()).extracting(ProductImportStatus.RowError::row).containsExactly(2L, 3L, 4L, 6L);
+        assertThat(status.errors().getFirst().message()).isEqualTo("Product name is required");
+        assertThat(status.errors().get(2).message()).startsWith("Price is not a number");
+        assertThat(ledger.batchSizes).containsExactly(2, 2);
+        assertThat(ledger.products).extracting(ProductSummary::name)
+                .containsExactly("Desk lamp", "Quoted \"name\"", "Pen", "Notebook");
+        assertThat(ledger.products.get(1).imageUrl()).isEqualTo("/uploads/a.jpg");
+        // One event per committed batch rather than per product
+        assertThat(events).hasSize(2).allSatisfy(e -> assertThat(((ProductsCreatedEvent) e).products()).hasSize(2));
+        assertThat(((ProductsCreatedEvent) events.getFirst()).descriptions())
+                .containsExactly("Warm light, dimmable", "two\nlines");
+    }
+
+    @Test
+    void rowsOfARefusedBatchAreRetriedOneByOne() throws IOException {
+        properties.setBatchSize(10);
+        ProductImportStatus status = run(ProductFileFormat.NDJSON, """
+                {"name":"First","price":1.00,"stock":1}
+                {"name":"refused","price":2.00,"stock":1}
+                {"name":"Third","price":3.00,"stock":1}
+                {"name":"Broken",
+                """);
+
+        assertThat(status.imported()).isEqualTo(2);
+        assertThat(status.errors()).extracting(ProductImportStatus.RowError::row).containsExactlyInAnyOrder(2L, 4L);
+        assertThat(status.errors()).anySatisfy(e -> assertThat(e.message()).isEqualTo("ERROR: value refused"));
+        assertThat(status.errors()).anySatisfy(e -> assertThat(e.message()).startsWith("Invalid JSON"));
+        assertThat(ledger.products).extracting(ProductSummary::name).containsExactly("First", "Third");
+    }
+
+    @Test
+    void csvWithoutARequiredColumnFailsTheImport() throws IOException {
+        ProductImportStatus status = run(ProductFileFormat.CSV, "name,price\nLamp,1.00\n");
+
+        assertThat(status.state()).isEqualTo(ProductImportStatus.State.FAILED);
+        assertThat(status.message()).contains("stock");
+        assertThat(ledger.products).isEmpty();
+    }
+
+    @Test
+    void uploadRunsInTheBackgroundAndIsOnlyVisibleToItsSeller() throws InterruptedException {
+        ProductImportService service = service();
+        MockMultipartFile file = new MockMultipartFile("file", "catalog.ndjson", "application/octet-stream",
+                "{\"name\":\"Lamp\",\"price\":9.99,\"stock\":2}\n".getBytes(StandardCharsets.UTF_8));
+
+        ProductImportStatus started = service.start(SELLER, file, null);
+        ProductImportStatus status = started;
+        for (int i = 0; i < 100 && status.state() == ProductImportStatus.State.RUNNING; i++) {
+            Thread.sleep(20);
+            status = service.status(SELLER, started.id());
+        }
+
+        assertThat(status.state()).isEqualTo(ProductImportStatus.State.COMPLETED);
+        assertThat(status.format()).isEqualTo("NDJSON");
+        assertThat(status.bytesRead()).isEqualTo(status.totalBytes());
+        assertThat(status.imported()).isEqualTo(1);
+        assertThatThrownBy(() -> service.status(99L, started.id())).hasMessage("Import not found");
+        assertThatThrownBy(() -> service.start(SELLER, file, "xml")).hasMessageContaining("Unsupported format");
+    }
+
+    @Test
+    void csvFieldsSurviveWritingAndReading() throws IOException {
+        StringBuilder out = new StringBuilder();
+        Csv.appendRecord(out, 1L, "Lamp, \"large\"", "line one\nline two", null, "");
+
+        assertThat(Csv.readRecord(new StringReader(out.toString())))
+                .containsExactly("1", "Lamp, \"large\"", "line one\nline two", "", "");
+    }
+
+    private ProductImportStatus run(ProductFileFormat format, String content) throws IOException {
+        Path file = Files.createTempFile("product-import-test-", format.extension());
+        Files.writeString(file, content);
+        ProductImportJob job = new ProductImportJob(SELLER, file.getFileName().toString(), format, Files.size(file),
+                properties.getMaxReportedErrors());
+        service().run(job, file);
+        assertThat(file).doesNotExist();
+        return job.status();
+    }
+
+    private ProductImportService service() {
+        service = new ProductImportService(ledger, JsonMapper.builder().build(),
+                Validation.buildDefaultValidatorFactory().getValidator(), TransactionOperations.withoutTransaction(),
+                events::add, properties);
+        return service;
+    }
+}
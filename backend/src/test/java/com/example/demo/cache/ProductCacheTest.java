@@ -0,0 +1,153 @@
+package com.example.demo.cache;
+
+import com.example.demo.dto.CursorPage;
+import com.example.demo.dto.ProductCatalogQuery;
+import com.example.demo.dto.ProductSummary;
+import com.example.demo.repository.ProductCatalogRepository;
+import com.example.demo.repository.ProductRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ProductCacheTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+    private ProductCatalogRepository catalogRepository;
+    private LoopbackInvalidationBus bus;
+    private ProductCache cache;
+
+    @BeforeEach
+    void setUp() {
+        catalogRepository = mock(ProductCatalogRepository.class);
+        bus = new LoopbackInvalidationBus();
+        cache = new ProductCache(mock(ProductRepository.class), catalogRepository, bus,
+                new CacheProperties(), new SimpleMeterRegistry());
+    }
+
+    @Test
+    void stockChangeOnlyDropsPagesListingTheProduct() {
+        ProductCatalogQuery sellerTwo = query(q -> q.setSellerId(2L));
+        ProductCatalogQuery sellerThree = query(q -> q.setSellerId(3L));
+        cached(sellerTwo, new CursorPage<>(List.of(product(1L, "10.00", 2L, NOW)), null));
+        cached(sellerThree, new CursorPage<>(List.of(product(9L, "10.00", 3L, NOW)), null));
+
+        bus.publish(ProductChangedEvent.stockChanged(1L));
+
+        cache.getPage(sellerTwo);
+        cache.getPage(sellerThree);
+        verify(catalogRepository, times(2)).findPage(sellerTwo);
+        verify(catalogRepository, times(1)).findPage(sellerThree);
+    }
+
+    @Test
+    void priceChangeDropsPagesTheProductMovesInto() {
+        ProductCatalogQuery cheap = query(q -> {
+            q.setMaxPrice(new BigDecimal("50"));
+            q.setSort(ProductCatalogQuery.Sort.PRICE_ASC);
+        });
+        ProductCatalogQuery premium = query(q -> {
+            q.setMinPrice(new BigDecimal("100"));
+            q.setSort(ProductCatalogQuery.Sort.PRICE_ASC);
+        });
+        cached(cheap, new CursorPage<>(List.of(product(5L, "20.00", 2L, NOW)), null));
+        cached(premium, new CursorPage<>(List.of(product(6L, "150.00", 2L, NOW)), null));
+
+        bus.publish(ProductChangedEvent.updated(product(1L, "80.00", 2L, NOW), product(1L, "40.00", 2L, NOW)));
+
+        cache.getPage(cheap);
+        cache.getPage(premium);
+        verify(catalogRepository, times(2)).findPage(cheap);
+        verify(catalogRepository, times(1)).findPage(premium);
+    }
+
+    @Test
+    void newProductOnlyDropsPageCoveringItsPosition() {
+        ProductCatalogQuery firstPage = query(q -> q.setLimit(2));
+        cached(firstPage, new CursorPage<>(List.of(
+                product(3L, "10.00", 2L, NOW),
+                product(2L, "10.00", 2L, NOW.minusHours(1))), "next"));
+
+        // Older than the last row shown, so it lands on a later page
+        bus.publish(ProductChangedEvent.created(product(4L, "10.00", 2L, NOW.minusHours(2))));
+        cache.getPage(firstPage);
+        verify(catalogRepository, times(1)).findPage(firstPage);
+
+        bus.publish(ProductChangedEvent.created(product(5L, "10.00", 2L, NOW.plusMinutes(1))));
+        cache.getPage(firstPage);
+        verify(catalogRepository, times(2)).findPage(firstPage);
+    }
+
+    @Test
+    void createdBatchDropsPagesOnceAndSparesOtherSellers() {
+        ProductCatalogQuery everyone = query(q -> q.setLimit(2));
+        ProductCatalogQuery sellerTwo = query(q -> q.setSellerId(2L));
+        ProductCatalogQuery sellerThree = query(q -> q.setSellerId(3L));
+        cached(everyone, new CursorPage<>(List.of(product(1L, "10.00", 3L, NOW)), null));
+        cached(sellerTwo, new CursorPage<>(List.of(product(2L, "10.00", 2L, NOW)), null));
+        cached(sellerThree, new CursorPage<>(List.of(product(3L, "10.00", 3L, NOW)), null));
+
+        bus.publish(ProductsCreatedEvent.of(List.of(product(4L, "10.00", 2L, NOW), product(5L, "20.00", 2L, NOW)),
+                Arrays.asList(null, "Second")));
+        cache.getPage(everyone);
+        cache.getPage(sellerTwo);
+        cache.getPage(sellerThree);
+        verify(catalogRepository, times(2)).findPage(everyone);
+        verify(catalogRepository, times(2)).findPage(sellerTwo);
+        verify(catalogRepository, times(1)).findPage(sellerThree);
+
+        // Heard from another node by id alone, so every page may be stale
+        bus.publish(ProductsCreatedEvent.ofIds(List.of(6L)));
+        cache.getPage(sellerThree);
+        verify(catalogRepository, times(2)).findPage(sellerThree);
+    }
+
+    @Test
+    void stockChangeDuringPageLoadOnlySpoilsPagesListingTheProduct() {
+        ProductCatalogQuery sellerTwo = query(q -> q.setSellerId(2L));
+        ProductCatalogQuery sellerThree = query(q -> q.setSellerId(3L));
+        when(catalogRepository.findPage(sellerTwo)).thenAnswer(invocation -> {
+            bus.publish(ProductChangedEvent.stockChanged(1L));
+            return new CursorPage<>(List.of(product(1L, "10.00", 2L, NOW)), null);
+        });
+        when(catalogRepository.findPage(sellerThree)).thenAnswer(invocation -> {
+            bus.publish(ProductChangedEvent.stockChanged(1L));
+            return new CursorPage<>(List.of(product(9L, "10.00", 3L, NOW)), null);
+        });
+
+        cache.getPage(sellerTwo);
+        cache.getPage(sellerThree);
+        cache.getPage(sellerThree);
+        verify(catalogRepository, times(1)).findPage(sellerTwo);
+        verify(catalogRepository, times(1)).findPage(sellerThree);
+
+        cache.getPage(sellerTwo);
+        verify(catalogRepository, times(2)).findPage(sellerTwo);
+    }
+
+    private void cached(ProductCatalogQuery query, CursorPage<ProductSummary> page) {
+        when(catalogRepository.findPage(query)).thenReturn(page);
+        cache.getPage(query);
+    }
+
+    private static ProductCatalogQuery query(Consumer<ProductCatalogQuery> customizer) {
+        ProductCatalogQuery query = new ProductCatalogQuery();
+        customizer.accept(query);
+        return query;
+    }
+
+    private static ProductSummary product(Long id, String price, Long sellerId, LocalDateTime createdAt) {
+        return new ProductSummary(id, "Product " + id, new BigDecimal(price), 10, null, sellerId, createdAt);
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.demo.cart;
+
+import com.example.demo.dto.CartLine;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Stand-in for the cart_items table that counts the round trips made against it.
+ */
+public class InMemoryCartLedger implements CartLedger {
+
+    private final Map<Long, List<CartLine>> carts = new ConcurrentHashMap<>();
+    private final AtomicInteger loads = new AtomicInteger();
+    private final AtomicInteger writes = new AtomicInteger();
+    private volatile boolean failing;
+
+    public InMemoryCartLedger with(Long userId, CartLine... lines) {
+        carts.put(userId, List.of(lines));
+        return this;
+    }
+
+    public List<CartLine> persisted(Long userId) {
+        return carts.getOrDefault(userId, List.of());
+    }
+
+    public int loads() {
+        return loads.get();
+    }
+
+    public int writes() {
+        return writes.get();
+    }
+
+    public void failing(boolean failing) {
+        this.failing = failing;
+    }
+
+    @Override
+    public List<CartLine> load(Long userId) {
+        loads.incrementAndGet();
+        return persisted(userId);
+    }
+
+    @Override
+    public void replaceCarts(Map<Long, List<CartLine>> replacements) {
+        if (failing) {
+            throw new IllegalStateException("database unavailable");
+        }
+        writes.incrementAndGet();
+        replacements.forEach((userId, lines) -> {
+            if (lines.isEmpty()) {
+                carts.remove(userId);
+            } else {
+                carts.put(userId, List.copyOf(lines));
+            }
+        });
+    }
+}
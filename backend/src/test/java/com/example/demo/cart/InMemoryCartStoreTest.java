@@ -0,0 +1,75 @@
+package com.example.demo.cart;
+
+import com.example.demo.dto.CartLine;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InMemoryCartStoreTest {
+
+    @Test
+    void loadsOnceAndWritesManyEditsAsOneBatch() {
+        InMemoryCartLedger ledger = new InMemoryCartLedger().with(1L, new CartLine(10L, 1));
+        InMemoryCartStore store = new InMemoryCartStore(ledger, properties(Duration.ofMinutes(30)));
+
+        store.addQuantity(1L, 10L, 2);
+        store.addQuantity(1L, 20L, 1);
+        store.setQuantity(1L, 20L, 5);
+        store.addQuantity(2L, 30L, 1);
+        store.remove(2L, 30L);
+        assertThat(store.getLines(1L)).containsExactly(new CartLine(10L, 3), new CartLine(20L, 5));
+        assertThat(ledger.writes()).isZero();
+
+        store.flush();
+
+        assertThat(ledger.loads()).isEqualTo(2);
+        assertThat(ledger.writes()).isEqualTo(1);
+        assertThat(ledger.persisted(1L)).containsExactly(new CartLine(10L, 3), new CartLine(20L, 5));
+        assertThat(ledger.persisted(2L)).isEmpty();
+    }
+
+    @Test
+    void failedFlushIsRetriedAndCartStaysResident() {
+        InMemoryCartLedger ledger = new InMemoryCartLedger();
+        InMemoryCartStore store = new InMemoryCartStore(ledger, properties(Duration.ZERO));
+        store.addQuantity(1L, 10L, 2);
+
+        ledger.failing(true);
+        store.flush();
+        assertThat(store.residentCarts()).isEqualTo(1);
+
+        ledger.failing(false);
+        store.flush();
+        assertThat(ledger.persisted(1L)).containsExactly(new CartLine(10L, 2));
+        assertThat(store.residentCarts()).isZero();
+
+        // Evicted carts come back from the ledger
+        assertThat(store.getLines(1L)).containsExactly(new CartLine(10L, 2));
+    }
+
+    @Test
+    void concurrentAddsToOneCartAreNotLost() {
+        InMemoryCartLedger ledger = new InMemoryCartLedger();
+        InMemoryCartStore store = new InMemoryCartStore(ledger, properties(Duration.ofMinutes(30)));
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 1_000; i++) {
+                executor.submit(() -> store.addQuantity(1L, 10L, 1));
+            }
+        }
+        store.flush();
+
+        assertThat(ledger.persisted(1L)).containsExactly(new CartLine(10L, 1_000));
+    }
+
+    private static CartProperties properties(Duration idleEviction) {
+        CartProperties properties = new CartProperties();
+        properties.setShards(4);
+        properties.setIdleEviction(idleEviction);
+        return properties;
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.demo.concurrency;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ConcurrencyLimitedDataSourceTest {
+
+    @Test
+    void closingReleasesThePermitOnce() throws Exception {
+        DatabaseConcurrencyLimiter limiter = limiter(1, 10, Duration.ofMillis(50));
+        Connection target = mock(Connection.class);
+        DataSource dataSource = new ConcurrencyLimitedDataSource(dataSourceReturning(target), limiter);
+
+        Connection connection = dataSource.getConnection();
+        assertThat(limiter.active()).isEqualTo(1);
+        assertThatThrownBy(dataSource::getConnection).isInstanceOf(SQLTransientConnectionException.class);
+
+        connection.close();
+        connection.close();
+        verify(target, times(1)).close();
+        assertThat(limiter.active()).isZero();
+        dataSource.getConnection().close();
+    }
+
+    @Test
+    void waitersGetConnectionsAsTheyAreReturned() throws Exception {
+        DatabaseConcurrencyLimiter limiter = limiter(2, 100, Duration.ofSeconds(10));
+        DataSource dataSource = new ConcurrencyLimitedDataSource(dataSourceReturning(mock(Connection.class)), limiter);
+        CountDownLatch release = new CountDownLatch(1);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 50; i++) {
+                executor.submit(() -> {
+                    try (Connection ignored = dataSource.getConnection()) {
+                        assertThat(limiter.active()).isLessThanOrEqualTo(2);
+                        release.await();
+                    }
+                    return null;
+                });
+            }
+            while (limiter.waiting() < 48) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+        }
+        assertThat(limiter.active()).isZero();
+    }
+
+    @Test
+    void rejectsAtOnceWhenTheWaitQueueIsFull() throws Exception {
+        DatabaseConcurrencyLimiter limiter = limiter(1, 1, Duration.ofSeconds(10));
+        DataSource dataSource = new ConcurrencyLimitedDataSource(dataSourceReturning(mock(Connection.class)), limiter);
+        Connection held = dataSource.getConnection();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<Connection> waiter = executor.submit(() -> dataSource.getConnection());
+            while (limiter.waiting() < 1) {
+                Thread.sleep(5);
+            }
+
+            long start = System.nanoTime();
+            assertThatThrownBy(dataSource::getConnection).isInstanceOf(SQLTransientConnectionException.class);
+            assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(1));
+
+            held.close();
+            waiter.get().close();
+        }
+    }
+
+    private static DatabaseConcurrencyLimiter limiter(int maxConcurrency, int maxWaiting, Duration acquireTimeout) {
+        DatabaseLimiterProperties properties = new DatabaseLimiterProperties();
+        properties.setMaxConcurrency(maxConcurrency);
+        properties.setMaxWaiting(maxWaiting);
+        properties.setAcquireTimeout(acquireTimeout);
+        return new DatabaseConcurrencyLimiter(properties, new SimpleMeterRegistry());
+    }
+
+    private static DataSource dataSourceReturning(Connection connection) throws Exception {
+        DataSource dataSource = mock(DataSource.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        return dataSource;
+    }
+}
@@ -0,0 +1,279 @@
+package com.example.demo.coupon;
+
+import com.example.demo.entity.Coupon;
+import com.example.demo.entity.OrderItem;
+import com.example.demo.metrics.HotPathMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CouponEngineTest {
+
+    private static final List<OrderItem> CART = List.of(item(1L, "100.00", 1), item(2L, "25.00", 2));
+    private static final BigDecimal TOTAL = new BigDecimal("150.00");
+
+    @Test
+    void fixedDiscountIsCappedAtTheOrderTotal() {
+        CouponEngine engine = engine(new InMemoryCouponLedger().with(coupon(1L, "BIG", "500.00")));
+
+        assertThat(engine.redeem("BIG", CART, TOTAL).discount()).isEqualByComparingTo("150.00");
+    }
+
+    @Test
+    void percentageDiscountIsRoundedAndCapped() {
+        Coupon percent = percentage(1L, "P15", "15.00");
+        Coupon capped = percentage(2L, "P50", "50.00");
+        capped.setMaxDiscount(new BigDecimal("40.00"));
+        CouponEngine engine = engine(new InMemoryCouponLedger().with(percent).with(capped));
+
+        assertThat(engine.redeem("P15", CART, new BigDecimal("33.33")).discount()).isEqualByComparingTo("5.00");
+        assertThat(engine.redeem("P50", CART, TOTAL).discount()).isEqualByComparingTo("40.00");
+    }
+
+    @Test
+    void perProductCouponDiscountsOnlyMatchingLines() {
+        Coupon coupon = percentage(1L, "MICE", "10.00");
+        coupon.setProductId(2L);
+        CouponEngine engine = engine(new InMemoryCouponLedger().with(coupon));
+
+        CouponRedemption redemption = engine.redeem("MICE", CART, TOTAL);
+        assertThat(redemption.discount()).isEqualByComparingTo("5.00");
+        assertThat(redemption.productId()).isEqualTo(2L);
+        assertThatThrownBy(() -> engine.redeem("MICE", List.of(item(1L, "100.00", 1)), new BigDecimal("100.00")))
+                .hasMessage("Coupon does not apply to any item in the cart");
+    }
+
+    @Test
+    void rejectsOrdersOutsideMinSpendOrTimeWindow() {
+        Coupon minSpend = coupon(1L, "MIN", "10.00");
+        minSpend.setMinSpend(new BigDecimal("200.00"));
+        Coupon expired = coupon(2L, "OLD", "10.00");
+        expired.setEndsAt(LocalDateTime.now().minusMinutes(1));
+        Coupon upcoming = coupon(3L, "SOON", "10.00");
+        upcoming.setStartsAt(LocalDateTime.now().plusDays(1));
+        CouponEngine engine = engine(new InMemoryCouponLedger().with(minSpend).with(expired).with(upcoming));
+
+        assertThatThrownBy(() -> engine.redeem("MIN", CART, TOTAL)).hasMessageContaining("minimum spend");
+        assertThatThrownBy(() -> engine.redeem("OLD", CART, TOTAL)).hasMessage("Coupon is not valid at this time");
+        assertThatThrownBy(() -> engine.redeem("SOON", CART, TOTAL)).hasMessage("Coupon is not valid at this time");
+        assertThatThrownBy(() -> engine.redeem("NOPE", CART, TOTAL)).hasMessage("Invalid or inactive coupon code");
+    }
+
+    @Test
+    void concurrentCheckoutsNeverExceedTheUsageLimit() {
+        Coupon coupon = coupon(1L, "LIMITED", "5.00");
+        coupon.setUsageLimit(100);
+        coupon.setTimesUsed(20);
+        InMemoryCouponLedger ledger = new InMemoryCouponLedger().with(coupon);
+        CouponEngine engine = engine(ledger);
+        Queue<CouponRedemption> won = new ConcurrentLinkedQueue<>();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 1_000; i++) {
+                executor.submit(() -> {
+                    try {
+                        CouponRedemption redemption = engine.redeem("LIMITED", CART, TOTAL);
+                        won.add(redemption);
+                        engine.commit(redemption);
+                    } catch (RuntimeException e) {
+                        assertThat(e).hasMessage("Coupon usage limit reached");
+                    }
+                });
+            }
+        }
+        engine.flush();
+
+        assertThat(won).hasSize(80);
+        assertThat(engine.remainingUses("LIMITED")).isZero();
+        assertThat(ledger.timesUsed(1L)).isEqualTo(100);
+        assertThat(ledger.batches()).containsExactly(Map.of(1L, 80));
+    }
+
+    @Test
+    void releasedUsesCanBeRedeemedAgain() {
+        Coupon coupon = coupon(1L, "ONCE", "5.00");
+        coupon.setUsageLimit(1);
+        CouponEngine engine = engine(new InMemoryCouponLedger().with(coupon));
+
+        CouponRedemption rolledBack = engine.redeem("ONCE", CART, TOTAL);
+        assertThatThrownBy(() -> engine.redeem("ONCE", CART, TOTAL)).hasMessage("Coupon usage limit reached");
+        engine.release(rolledBack);
+
+        engine.commit(engine.redeem("ONCE", CART, TOTAL));
+        assertThat(engine.remainingUses("ONCE")).isZero();
+    }
+
+    @Test
+    void reloadsWhenCouponsChangeWithoutLosingUnflushedOrInFlightUses() {
+        Coupon coupon = coupon(1L, "LIMITED", "5.00");
+        coupon.setUsageLimit(10);
+        InMemoryCouponLedger ledger = new InMemoryCouponLedger().with(coupon);
+        CouponEngine engine = engine(ledger);
+
+        engine.commit(engine.redeem("LIMITED", CART, TOTAL));
+        engine.redeem("LIMITED", CART, TOTAL); // still in flight
+
+        coupon.setUsageLimit(5);
+        ledger.with(coupon).with(coupon(2L, "NEW", "1.00"));
+        engine.refresh();
+
+        assertThat(engine.remainingUses("LIMITED")).isEqualTo(3);
+        assertThat(engine.redeem("NEW", CART, TOTAL).discount()).isEqualByComparingTo("1.00");
+    }
+
+    @Test
+    void useCommittedWhileTheIndexReloadsIsCountedOnce() {
+        Coupon coupon = coupon(1L, "LIMITED", "5.00");
+        coupon.setUsageLimit(3);
+        InMemoryCouponLedger ledger = new InMemoryCouponLedger().with(coupon);
+        CouponRedemption[] inFlight = new CouponRedemption[1];
+        CouponEngine[] engine = new CouponEngine[1];
+        engine[0] = engine(new InMemoryCouponLedger() {
+            @Override
+            public String fingerprint() {
+                return ledger.fingerprint();
+            }
+
+            @Override
+            public List<Coupon> loadActive() {
+                if (inFlight[0] != null) {
+                    engine[0].commit(inFlight[0]);
+                    inFlight[0] = null;
+                }
+                return ledger.loadActive();
+            }
+        });
+        inFlight[0] = engine[0].redeem("LIMITED", CART, TOTAL);
+
+        ledger.with(coupon);
+        engine[0].refresh();
+
+        assertThat(inFlight[0]).isNull();
+        assertThat(engine[0].remainingUses("LIMITED")).isEqualTo(2);
+    }
+
+    @Test
+    void reloadsDuringCheckoutsNeverExceedTheUsageLimit() throws Exception {
+        Coupon coupon = coupon(1L, "LIMITED", "5.00");
+        coupon.setUsageLimit(2_000);
+        InMemoryCouponLedger ledger = new InMemoryCouponLedger().with(coupon);
+        CouponEngine engine = engine(ledger);
+        AtomicInteger won = new AtomicInteger();
+        AtomicBoolean buying = new AtomicBoolean(true);
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(9)) {
+            List<Future<?>> buyers = IntStream.range(0, 8).<Future<?>>mapToObj(i -> executor.submit(() -> {
+                for (int attempt = 0; attempt < 1_000; attempt++) {
+                    CouponRedemption redemption;
+                    try {
+                        redemption = engine.redeem("LIMITED", CART, TOTAL);
+                    } catch (RuntimeException e) {
+                        continue;
+                    }
+                    if (attempt % 4 == 0) {
+                        engine.release(redemption);
+                    } else {
+                        won.incrementAndGet();
+                        engine.commit(redemption);
+                    }
+                }
+            })).toList();
+            Future<?> reloads = executor.submit(() -> {
+                while (buying.get()) {
+                    engine.flush();
+                    ledger.with(coupon);
+                    engine.refresh();
+                }
+            });
+            for (Future<?> buyer : buyers) {
+                buyer.get(60, TimeUnit.SECONDS);
+            }
+            buying.set(false);
+            reloads.get(60, TimeUnit.SECONDS);
+        }
+        engine.flush();
+
+        assertThat(won.get()).isLessThanOrEqualTo(2_000);
+        assertThat(ledger.timesUsed(1L)).isEqualTo(won.get());
+        assertThat(engine.remainingUses("LIMITED")).isEqualTo(2_000 - won.get());
+    }
+
+    @Test
+    void failedFlushIsRetried() {
+        InMemoryCouponLedger ledger = new InMemoryCouponLedger().with(coupon(1L, "SAVE", "5.00"));
+        boolean[] fail = {true};
+        CouponEngine engine = engine(new InMemoryCouponLedger() {
+            @Override
+            public String fingerprint() {
+                return ledger.fingerprint();
+            }
+
+            @Override
+            public List<Coupon> loadActive() {
+                return ledger.loadActive();
+            }
+
+            @Override
+            public void applyRedemptions(Map<Long, Integer> redemptions) {
+                if (fail[0]) {
+                    throw new IllegalStateException("database down");
+                }
+                ledger.applyRedemptions(redemptions);
+            }
+        });
+
+        engine.commit(engine.redeem("SAVE", CART, TOTAL));
+        engine.commit(engine.redeem("SAVE", CART, TOTAL));
+        engine.flush();
+        fail[0] = false;
+        engine.flush();
+
+        assertThat(ledger.timesUsed(1L)).isEqualTo(2);
+    }
+
+    private static CouponEngine engine(CouponLedger ledger) {
+        CouponProperties properties = new CouponProperties();
+        properties.setStripes(4);
+        return new CouponEngine(ledger, properties, new HotPathMetrics(new SimpleMeterRegistry()));
+    }
+
+    private static Coupon coupon(Long id, String code, String amount) {
+        Coupon coupon = new Coupon();
+        coupon.setId(id);
+        coupon.setCode(code);
+        coupon.setDiscountAmount(new BigDecimal(amount));
+        return coupon;
+    }
+
+    private static Coupon percentage(Long id, String code, String percentOff) {
+        Coupon coupon = coupon(id, code, "0");
+        coupon.setDiscountAmount(null);
+        coupon.setType(Coupon.DiscountType.PERCENTAGE);
+        coupon.setPercentOff(new BigDecimal(percentOff));
+        return coupon;
+    }
+
+    private static OrderItem item(Long productId, String price, int quantity) {
+        OrderItem item = new OrderItem();
+        item.setProductId(productId);
+        item.setPriceAtPurchase(new BigDecimal(price));
+        item.setQuantity(quantity);
+        return item;
+    }
+}
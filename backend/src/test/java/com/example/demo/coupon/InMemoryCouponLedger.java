@@ -0,0 +1,49 @@
+package com.example.demo.coupon;
+
+import com.example.demo.entity.Coupon;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Stand-in for the coupons table.
+ */
+public class InMemoryCouponLedger implements CouponLedger {
+
+    private final Map<Long, Coupon> coupons = new ConcurrentHashMap<>();
+    private final AtomicInteger version = new AtomicInteger();
+    private final List<Map<Long, Integer>> batches = new ArrayList<>();
+
+    public InMemoryCouponLedger with(Coupon coupon) {
+        coupons.put(coupon.getId(), coupon);
+        version.incrementAndGet();
+        return this;
+    }
+
+    public int timesUsed(Long couponId) {
+        return coupons.get(couponId).getTimesUsed();
+    }
+
+    public List<Map<Long, Integer>> batches() {
+        return batches;
+    }
+
+    @Override
+    public String fingerprint() {
+        return coupons.size() + ":" + version.get();
+    }
+
+    @Override
+    public List<Coupon> loadActive() {
+        return coupons.values().stream().filter(Coupon::getActive).toList();
+    }
+
+    @Override
+    public void applyRedemptions(Map<Long, Integer> redemptions) {
+        batches.add(Map.copyOf(redemptions));
+        redemptions.forEach((id, uses) -> coupons.get(id).setTimesUsed(coupons.get(id).getTimesUsed() + uses));
+    }
+}
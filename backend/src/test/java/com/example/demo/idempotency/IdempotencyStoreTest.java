@@ -0,0 +1,106 @@
+package com.example.demo.idempotency;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class IdempotencyStoreTest {
+
+    private final InMemoryIdempotencyLedger ledger = new InMemoryIdempotencyLedger();
+    private final IdempotencyStore store = store(ledger);
+    private final AtomicInteger runs = new AtomicInteger();
+
+    @Test
+    void retriesReplayTheFirstResponseWithoutRunningAgain() {
+        IdempotencyStore.Result first = store.execute(1L, "k1", "checkout:", () -> order());
+        IdempotencyStore.Result retry = store.execute(1L, "k1", "checkout:", () -> order());
+
+        assertThat(runs).hasValue(1);
+        assertThat(first.replayed()).isFalse();
+        assertThat(retry.replayed()).isTrue();
+        assertThat(retry.body()).isEqualTo(first.body());
+        assertThat(store.execute(2L, "k1", "checkout:", () -> order()).replayed()).isFalse();
+    }
+
+    @Test
+    void concurrentDuplicatesWaitForTheFirstResult() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Queue<String> bodies = new ConcurrentLinkedQueue<>();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 50; i++) {
+                executor.submit(() -> {
+                    IdempotencyStore.Result result = store.execute(1L, "k1", "checkout:", () -> {
+                        await(release);
+                        return order();
+                    });
+                    bodies.add(new String(result.body(), StandardCharsets.UTF_8));
+                });
+            }
+            Thread.sleep(200);
+            release.countDown();
+        }
+
+        assertThat(runs).hasValue(1);
+        assertThat(bodies).hasSize(50).containsOnly("{\"id\":1}");
+    }
+
+    @Test
+    void failedRequestsStoreNothingSoARetryRunsAgain() {
+        assertThatThrownBy(() -> store.execute(1L, "k1", "checkout:", () -> {
+            throw new RuntimeException("Cart is empty");
+        })).hasMessage("Cart is empty");
+        ledger.forget(1L, "k1"); // rolled back with the request's transaction
+
+        assertThat(store.execute(1L, "k1", "checkout:", () -> order()).replayed()).isFalse();
+        assertThat(runs).hasValue(1);
+    }
+
+    @Test
+    void refusesAKeyReusedForADifferentRequest() {
+        store.execute(1L, "k1", "checkout:SAVE10", () -> order());
+
+        assertThatThrownBy(() -> store.execute(1L, "k1", "checkout:SAVE50", () -> order()))
+                .isInstanceOfSatisfying(IdempotencyKeyException.class,
+                        e -> assertThat(e.getStatus()).isEqualTo(HttpStatus.UNPROCESSABLE_CONTENT));
+        assertThat(runs).hasValue(1);
+    }
+
+    @Test
+    void keysCompletedBeforeARestartAreReplayedFromTheLedger() {
+        store.execute(1L, "k1", "checkout:", () -> order());
+
+        IdempotencyStore restarted = store(ledger);
+        IdempotencyStore.Result retry = restarted.execute(1L, "k1", "checkout:", () -> order());
+
+        assertThat(retry.replayed()).isTrue();
+        assertThat(runs).hasValue(1);
+    }
+
+    private byte[] order() {
+        return ("{\"id\":" + runs.incrementAndGet() + "}").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static IdempotencyStore store(IdempotencyLedger ledger) {
+        return new IdempotencyStore(ledger, TransactionOperations.withoutTransaction(), new IdempotencyProperties());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
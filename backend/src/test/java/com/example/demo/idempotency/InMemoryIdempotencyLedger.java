@@ -0,0 +1,51 @@
+package com.example.demo.idempotency;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Stand-in for the idempotency_keys table. Without transactions, a claimed key stays claimed if its request
+ * fails, unlike the real table where the claim rolls back; tests release it with {@link #forget}.
+ */
+public class InMemoryIdempotencyLedger implements IdempotencyLedger {
+
+    private record Row(String requestHash, byte[] response, Instant expiresAt) {
+    }
+
+    private final Map<String, Row> rows = new ConcurrentHashMap<>();
+
+    public void forget(Long userId, String key) {
+        rows.remove(userId + ":" + key);
+    }
+
+    public int size() {
+        return rows.size();
+    }
+
+    @Override
+    public boolean claim(Long userId, String key, String requestHash, Instant now, Instant expiresAt) {
+        Row claimed = new Row(requestHash, null, expiresAt);
+        Row result = rows.compute(userId + ":" + key,
+                (k, existing) -> existing == null || existing.expiresAt().isBefore(now) ? claimed : existing);
+        return result == claimed;
+    }
+
+    @Override
+    public StoredResponse find(Long userId, String key) {
+        Row row = rows.get(userId + ":" + key);
+        return row == null ? null : new StoredResponse(row.requestHash(), row.response());
+    }
+
+    @Override
+    public void complete(Long userId, String key, byte[] response) {
+        rows.computeIfPresent(userId + ":" + key, (k, row) -> new Row(row.requestHash(), response, row.expiresAt()));
+    }
+
+    @Override
+    public int deleteExpired(Instant now) {
+        int before = rows.size();
+        rows.values().removeIf(row -> row.expiresAt().isBefore(now));
+        return before - rows.size();
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.demo.idempotency;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The ON CONFLICT claim against Postgres, including a second claim of a key whose first claim has not
+ * committed yet.
+ */
+@SpringBootTest(properties = "app.outbox.relay-enabled=false")
+class JdbcIdempotencyLedgerTest {
+
+    private static final Long USER_ID = 1L;
+    private static final Instant NOW = Instant.parse("2024-01-01T12:00:00Z");
+    private static final Duration TTL = Duration.ofHours(24);
+
+    @Autowired
+    private JdbcIdempotencyLedger ledger;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void keyIsClaimedOnceUntilItExpires() {
+        String key = UUID.randomUUID().toString();
+
+        assertThat(ledger.claim(USER_ID, key, "first", NOW, NOW.plus(TTL))).isTrue();
+        ledger.complete(USER_ID, key, "response".getBytes(StandardCharsets.UTF_8));
+        assertThat(ledger.claim(USER_ID, key, "second", NOW.plusSeconds(60), NOW.plus(TTL))).isFalse();
+        assertThat(ledger.find(USER_ID, key).requestHash()).isEqualTo("first");
+
+        // Another user's key of the same name is a different key
+        assertThat(ledger.claim(USER_ID + 1, key, "other", NOW, NOW.plus(TTL))).isTrue();
+
+        Instant later = NOW.plus(TTL).plusSeconds(1);
+        assertThat(ledger.claim(USER_ID, key, "third", later, later.plus(TTL))).isTrue();
+        StoredResponse taken = ledger.find(USER_ID, key);
+        assertThat(taken.requestHash()).isEqualTo("third");
+        assertThat(taken.body()).isNull();
+    }
+
+    @Test
+    void claimWaitsForAnUncommittedClaimOfTheSameKey() {
+        String committed = UUID.randomUUID().toString();
+        String rolledBack = UUID.randomUUID().toString();
+
+        assertThat(claimWhileAnotherClaimIsOpen(committed, true)).isFalse();
+        assertThat(claimWhileAnotherClaimIsOpen(rolledBack, false)).isTrue();
+        assertThat(ledger.find(USER_ID, rolledBack).requestHash()).isEqualTo("second");
+    }
+
+    /**
+     * Claims the key in a transaction, claims it again from another connection, checks that the second claim
+     * waits, then ends the first transaction and returns the second claim's outcome.
+     */
+    private boolean claimWhileAnotherClaimIsOpen(String key, boolean commit) {
+        CompletableFuture<Boolean> second = new CompletableFuture<>();
+        transactionTemplate.executeWithoutResult(status -> {
+            assertThat(ledger.claim(USER_ID, key, "first", NOW, NOW.plus(TTL))).isTrue();
+            CompletableFuture.supplyAsync(() -> ledger.claim(USER_ID, key, "second", NOW, NOW.plus(TTL)))
+                    .whenComplete((claimed, failure) -> {
+                        if (failure != null) {
+                            second.completeExceptionally(failure);
+                        } else {
+                            second.complete(claimed);
+                        }
+                    });
+            sleep(Duration.ofMillis(300));
+            assertThat(second).isNotDone();
+            if (!commit) {
+                status.setRollbackOnly();
+            }
+        });
+        return second.orTimeout(10, TimeUnit.SECONDS).join();
+    }
+
+    private static void sleep(Duration duration) {
+        try {
+            Thread.sleep(duration);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
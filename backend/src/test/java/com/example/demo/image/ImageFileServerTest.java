@@ -0,0 +1,136 @@
+package com.example.demo.image;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ImageFileServerTest {
+
+    private static final String HASH = "ab".repeat(32);
+
+    @TempDir
+    Path root;
+
+    private final byte[] content = new byte[1000];
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Arrays.fill(content, (byte) 7);
+        content[100] = 1;
+        Files.createDirectories(root.resolve("ab"));
+        Files.write(root.resolve("ab/" + HASH + ".png"), content);
+        Files.write(root.resolve("legacy_photo.jpg"), content);
+        Files.createDirectories(root.resolve(".incoming"));
+        Files.write(root.resolve(".incoming/upload-1.part"), content);
+    }
+
+    @Test
+    void contentAddressedFilesAreImmutableAndRevalidateByHash() throws IOException {
+        ImageFileServer server = server(DataSize.ofKilobytes(256));
+
+        MockHttpServletResponse first = get(server, "ab/" + HASH + ".png", null);
+        assertThat(first.getStatus()).isEqualTo(200);
+        assertThat(first.getContentAsByteArray()).isEqualTo(content);
+        assertThat(first.getHeader("ETag")).isEqualTo("\"" + HASH + "\"");
+        assertThat(first.getHeader("Cache-Control")).contains("immutable");
+        assertThat(first.getContentType()).isEqualTo("image/png");
+
+        MockHttpServletRequest revalidate = request("ab/" + HASH + ".png");
+        revalidate.addHeader("If-None-Match", "W/\"other\", \"" + HASH + "\"");
+        MockHttpServletResponse second = new MockHttpServletResponse();
+        server.serve("ab/" + HASH + ".png", revalidate, second);
+        assertThat(second.getStatus()).isEqualTo(304);
+        assertThat(second.getContentAsByteArray()).isEmpty();
+
+        assertThat(get(server, "legacy_photo.jpg", null).getHeader("Cache-Control")).doesNotContain("immutable");
+    }
+
+    @Test
+    void servesSingleRangesFromMemoryAndFromDisk() throws IOException {
+        for (DataSize cacheMaxFileSize : new DataSize[]{DataSize.ofKilobytes(256), DataSize.ofBytes(0)}) {
+            ImageFileServer server = server(cacheMaxFileSize);
+
+            MockHttpServletResponse middle = get(server, "ab/" + HASH + ".png", "bytes=100-109");
+            assertThat(middle.getStatus()).isEqualTo(206);
+            assertThat(middle.getHeader("Content-Range")).isEqualTo("bytes 100-109/1000");
+            assertThat(middle.getContentAsByteArray()).isEqualTo(Arrays.copyOfRange(content, 100, 110));
+
+            MockHttpServletResponse suffix = get(server, "ab/" + HASH + ".png", "bytes=-10");
+            assertThat(suffix.getHeader("Content-Range")).isEqualTo("bytes 990-999/1000");
+            assertThat(suffix.getContentAsByteArray()).hasSize(10);
+
+            assertThat(get(server, "ab/" + HASH + ".png", "bytes=1000-").getStatus()).isEqualTo(416);
+            assertThat(get(server, "ab/" + HASH + ".png", "bytes=0-1,5-6").getStatus()).isEqualTo(200);
+            assertThat(get(server, "ab/" + HASH + ".png", "bytes=9-3").getStatus()).isEqualTo(200);
+        }
+    }
+
+    @Test
+    void legacyFilesReplacedOrDeletedInPlaceAreNotServedFromTheCache() throws IOException {
+        for (DataSize cacheMaxFileSize : new DataSize[]{DataSize.ofKilobytes(256), DataSize.ofBytes(0)}) {
+            ImageFileServer server = server(cacheMaxFileSize);
+            Path legacy = root.resolve("legacy_photo.jpg");
+            Files.write(legacy, content);
+            FileTime written = Files.getLastModifiedTime(legacy);
+            String etag = get(server, "legacy_photo.jpg", null).getHeader("ETag");
+
+            byte[] replacement = Arrays.copyOf(content, 1200);
+            Files.write(legacy, replacement);
+            Files.setLastModifiedTime(legacy, FileTime.fromMillis(written.toMillis() + 1000));
+            MockHttpServletResponse replaced = get(server, "legacy_photo.jpg", null);
+            assertThat(replaced.getHeader("ETag")).isNotEqualTo(etag);
+            assertThat(replaced.getContentAsByteArray()).isEqualTo(replacement);
+
+            Files.delete(legacy);
+            assertThat(get(server, "legacy_photo.jpg", null).getStatus()).isEqualTo(404);
+        }
+    }
+
+    @Test
+    void hidesFilesOutsideTheStoreAndInProgressUploads() throws IOException {
+        ImageFileServer server = server(DataSize.ofKilobytes(256));
+
+        assertThat(get(server, ".incoming/upload-1.part", null).getStatus()).isEqualTo(404);
+        Path outside = root.resolveSibling(root.getFileName() + "-outside.jpg");
+        Files.write(outside, content);
+        try {
+            assertThat(get(server, "../" + outside.getFileName(), null).getStatus()).isEqualTo(404);
+        } finally {
+            Files.delete(outside);
+        }
+        assertThat(get(server, "ab/missing.png", null).getStatus()).isEqualTo(404);
+    }
+
+    private ImageFileServer server(DataSize cacheMaxFileSize) {
+        ImageProperties properties = new ImageProperties();
+        properties.setStorageDir(root.toString());
+        properties.setCacheMaxFileSize(cacheMaxFileSize);
+        return new ImageFileServer(properties, new SimpleMeterRegistry());
+    }
+
+    private static MockHttpServletResponse get(ImageFileServer server, String path, String range) throws IOException {
+        MockHttpServletRequest request = request(path);
+        if (range != null) {
+            request.addHeader("Range", range);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        server.serve(path, request, response);
+        return response;
+    }
+
+    private static MockHttpServletRequest request(String path) {
+        return new MockHttpServletRequest("GET", "/uploads/" + path);
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.demo.image;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ImageStorageTest {
+
+    @TempDir
+    Path root;
+
+    @Test
+    void identicalUploadsAreStoredOnceUnderTheirHash() throws IOException {
+        ImageStorage storage = new ImageStorage(properties());
+        byte[] png = png(40, 20);
+
+        StoredImage first = storage.store(new MockMultipartFile("file", "a.png", "image/png", png));
+        StoredImage second = storage.store(new MockMultipartFile("file", "../b.jpg", "image/jpeg", png));
+
+        assertThat(second).isEqualTo(first);
+        assertThat(first.format()).isEqualTo(ImageFormat.PNG);
+        assertThat(storage.publicPath(first.path()))
+                .isEqualTo("/uploads/" + first.hash().substring(0, 2) + "/" + first.hash() + ".png");
+        assertThat(Files.readAllBytes(first.path())).isEqualTo(png);
+        try (Stream<Path> files = Files.walk(root)) {
+            assertThat(files.filter(Files::isRegularFile)).containsExactly(first.path());
+        }
+    }
+
+    @Test
+    void rejectsContentThatIsNotAnImage() {
+        ImageStorage storage = new ImageStorage(properties());
+
+        assertThatThrownBy(() -> storage.store(
+                new MockMultipartFile("file", "x.png", "image/png", "<svg onload=alert(1)>".getBytes())))
+                .hasMessageContaining("Unsupported image type");
+    }
+
+    @Test
+    void rendersVariantsWithinTheirBoundsWithoutEnlarging() throws IOException {
+        ImageProperties properties = properties();
+        ImageStorage storage = new ImageStorage(properties);
+        ImageVariantGenerator generator = new ImageVariantGenerator(properties);
+        StoredImage image = storage.store(new MockMultipartFile("file", "a.png", "image/png", png(1000, 400)));
+
+        generator.render(image);
+
+        BufferedImage thumbnail = ImageIO.read(image.variantPath("thumbnail").toFile());
+        BufferedImage medium = ImageIO.read(image.variantPath("medium").toFile());
+        assertThat(thumbnail.getWidth()).isEqualTo(200);
+        assertThat(thumbnail.getHeight()).isEqualTo(80);
+        assertThat(medium.getWidth()).isEqualTo(600);
+        assertThat(ImageVariantGenerator.scale(thumbnail, 600, false).getWidth()).isEqualTo(200);
+    }
+
+    private ImageProperties properties() {
+        ImageProperties properties = new ImageProperties();
+        properties.setStorageDir(root.toString());
+        return properties;
+    }
+
+    private static byte[] png(int width, int height) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB), "png", out);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.demo.inventory;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Stand-in for the products table.
+ */
+public class InMemoryStockLedger implements StockLedger {
+
+    private final Map<Long, Integer> stock = new ConcurrentHashMap<>();
+    private final Set<Long> orders = ConcurrentHashMap.newKeySet();
+
+    public InMemoryStockLedger with(Long productId, int quantity) {
+        stock.put(productId, quantity);
+        return this;
+    }
+
+    public InMemoryStockLedger withOrder(Long orderId) {
+        orders.add(orderId);
+        return this;
+    }
+
+    public int stockOf(Long productId) {
+        return stock.getOrDefault(productId, 0);
+    }
+
+    @Override
+    public int loadStock(Long productId) {
+        return stockOf(productId);
+    }
+
+    @Override
+    public void applyDecrements(Map<Long, Integer> decrements) {
+        decrements.forEach((productId, quantity) -> stock.merge(productId, -quantity, Integer::sum));
+    }
+
+    @Override
+    public Set<Long> writtenOrders(Collection<Long> orderIds) {
+        return orderIds.stream().filter(orders::contains).collect(Collectors.toSet());
+    }
+}
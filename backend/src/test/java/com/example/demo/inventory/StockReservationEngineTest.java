@@ -0,0 +1,198 @@
+package com.example.demo.inventory;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StockReservationEngineTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void concurrentBuyersNeverOversell() {
+        InMemoryStockLedger ledger = new InMemoryStockLedger().with(1L, 100);
+        StockReservationEngine engine = new StockReservationEngine(ledger, properties());
+        Queue<Reservation> won = new ConcurrentLinkedQueue<>();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 2_000; i++) {
+                executor.submit(() -> {
+                    Reservation reservation = engine.reserve(1L, 1);
+                    if (reservation != null) {
+                        won.add(reservation);
+                        engine.commit(List.of(reservation));
+                    }
+                });
+            }
+        }
+        engine.flush();
+
+        assertThat(won).hasSize(100);
+        assertThat(engine.available(1L)).isZero();
+        assertThat(ledger.stockOf(1L)).isZero();
+    }
+
+    @Test
+    void recountsDuringCheckoutsNeverOversell() throws Exception {
+        InMemoryStockLedger ledger = new InMemoryStockLedger().with(1L, 2_000);
+        StockReservationEngine engine = new StockReservationEngine(ledger, properties());
+        AtomicInteger won = new AtomicInteger();
+        AtomicBoolean buying = new AtomicBoolean(true);
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(9)) {
+            List<Future<?>> buyers = IntStream.range(0, 8).<Future<?>>mapToObj(i -> executor.submit(() -> {
+                for (int attempt = 0; attempt < 1_000; attempt++) {
+                    Reservation reservation = engine.reserve(1L, 1);
+                    if (reservation != null) {
+                        won.incrementAndGet();
+                        if (attempt % 4 == 0) {
+                            engine.release(List.of(reservation));
+                            won.decrementAndGet();
+                        } else {
+                            engine.commit(List.of(reservation));
+                        }
+                    }
+                }
+            })).toList();
+            Future<?> recounts = executor.submit(() -> {
+                while (buying.get()) {
+                    engine.recount(1L);
+                    engine.flush();
+                }
+            });
+            for (Future<?> buyer : buyers) {
+                buyer.get(60, TimeUnit.SECONDS);
+            }
+            buying.set(false);
+            recounts.get(60, TimeUnit.SECONDS);
+        }
+        engine.flush();
+        engine.recount(1L);
+
+        assertThat(won.get()).isLessThanOrEqualTo(2_000);
+        assertThat(ledger.stockOf(1L)).isEqualTo(2_000 - won.get());
+        assertThat(engine.available(1L)).isEqualTo(2_000 - won.get());
+    }
+
+    @Test
+    void recountKeepsOutstandingUnitsOutOfTheNewStock() {
+        InMemoryStockLedger ledger = new InMemoryStockLedger().with(1L, 10);
+        StockReservationEngine engine = new StockReservationEngine(ledger, properties());
+        engine.reserve(1L, 3);
+        engine.commit(List.of(engine.reserve(1L, 2)));
+        engine.flush();
+        engine.commit(List.of(engine.reserve(1L, 1)));
+
+        // The seller restocks to 50 while 3 units are held and 1 sold unit is still unflushed
+        ledger.with(1L, 50);
+        engine.recount(1L);
+
+        assertThat(engine.available(1L)).isEqualTo(46);
+        engine.flush();
+        engine.recount(1L);
+        assertThat(engine.available(1L)).isEqualTo(46);
+    }
+
+    @Test
+    void reserveAllHoldsNothingWhenOneLineIsShort() {
+        InMemoryStockLedger ledger = new InMemoryStockLedger().with(1L, 5).with(2L, 1);
+        StockReservationEngine engine = new StockReservationEngine(ledger, properties());
+
+        assertThat(engine.reserveAll(Map.of(1L, 3, 2L, 2))).isNull();
+
+        assertThat(engine.available(1L)).isEqualTo(5);
+        assertThat(engine.available(2L)).isEqualTo(1);
+    }
+
+    @Test
+    void rebuildsOutstandingUnitsFromJournalAfterRestart() throws Exception {
+        InMemoryStockLedger ledger = new InMemoryStockLedger().with(1L, 10);
+        StockReservationEngine engine = new StockReservationEngine(ledger, properties());
+        Reservation held = engine.reserve(1L, 2);
+        Reservation sold = engine.reserve(1L, 3);
+        engine.commit(List.of(sold));
+        Reservation released = engine.reserve(1L, 4);
+        engine.release(List.of(released));
+        // Simulate a crash: nothing flushed, journal left as is
+
+        StockReservationEngine restarted = new StockReservationEngine(ledger, properties());
+
+        assertThat(held).isNotNull();
+        assertThat(restarted.available(1L)).isEqualTo(5);
+        restarted.flush();
+        assertThat(ledger.stockOf(1L)).isEqualTo(7);
+        assertThat(restarted.available(1L)).isEqualTo(5);
+    }
+
+    @Test
+    void flushCompactsAGrownJournalToTheLiveReservations() throws Exception {
+        InMemoryStockLedger ledger = new InMemoryStockLedger().with(1L, 1_000);
+        InventoryProperties properties = properties();
+        properties.setJournalCompactionThreshold(DataSize.ofKilobytes(4));
+        StockReservationEngine engine = new StockReservationEngine(ledger, properties);
+        for (int i = 0; i < 200; i++) {
+            engine.commit(List.of(engine.reserve(1L, 1)));
+        }
+
+        engine.flush();
+        assertThat(Files.size(Path.of(properties.getJournalPath()))).isZero();
+
+        Reservation held = engine.reserve(1L, 5);
+        engine.commit(List.of(engine.reserve(1L, 7)));
+        // Simulate a crash before the next flush
+
+        StockReservationEngine restarted = new StockReservationEngine(ledger, properties);
+        assertThat(held).isNotNull();
+        assertThat(ledger.stockOf(1L)).isEqualTo(800);
+        assertThat(restarted.available(1L)).isEqualTo(788);
+        restarted.flush();
+        assertThat(ledger.stockOf(1L)).isEqualTo(793);
+    }
+
+    @Test
+    void preparedReservationsAreSettledByWhetherTheirOrderWasWritten() {
+        InMemoryStockLedger ledger = new InMemoryStockLedger().with(1L, 10).withOrder(100L);
+        InventoryProperties properties = properties();
+        properties.setJournalCompactionThreshold(DataSize.ofBytes(1));
+        StockReservationEngine engine = new StockReservationEngine(ledger, properties);
+        Reservation written = engine.reserve(1L, 2);
+        engine.prepare(List.of(written), 100L);
+        Reservation rolledBack = engine.reserve(1L, 3);
+        engine.prepare(List.of(rolledBack), 200L);
+        Reservation held = engine.reserve(1L, 1);
+        // Compacted while both orders were committing, then a crash before either settled
+        engine.flush();
+
+        StockReservationEngine restarted = new StockReservationEngine(ledger, properties);
+
+        assertThat(held).isNotNull();
+        assertThat(restarted.available(1L)).isEqualTo(7);
+        restarted.flush();
+        assertThat(ledger.stockOf(1L)).isEqualTo(8);
+        assertThat(restarted.available(1L)).isEqualTo(7);
+    }
+
+    private InventoryProperties properties() {
+        InventoryProperties properties = new InventoryProperties();
+        properties.setReservationsEnabled(true);
+        properties.setJournalPath(tempDir.resolve("stock.journal").toString());
+        return properties;
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.demo.loadtest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Registration and sign-in throughput against a live backend. Start the backend with the rate limits off and
+ * a cheap BCrypt cost so the account lookups, not the hashing, are what is measured, once with the user cache
+ * and once without to compare:
+ * <pre>
+ * LOGIN_RATE_LIMIT_ENABLED=false BCRYPT_STRENGTH=4 USER_CACHE_ENABLED=true|false ./mvnw spring-boot:run
+ *
+ * ./mvnw test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.example.demo.loadtest.AuthLoadSimulation \
+ *     -Dexec.args="http://localhost:8080" -Dusers=2000 -Dlogins=20000 -Dunknown.share=0.2 -Dconcurrency=32
+ * </pre>
+ * Sign-ins go to random registered users, and the given share of them to usernames that do not exist.
+ */
+public class AuthLoadSimulation {
+
+    public static void main(String[] args) throws Exception {
+        String baseUrl = args.length > 0 ? args[0] : "http://localhost:8080";
+        int users = Integer.getInteger("users", 2_000);
+        int logins = Integer.getInteger("logins", 20_000);
+        double unknownShare = Double.parseDouble(System.getProperty("unknown.share", "0.2"));
+        int concurrency = Integer.getInteger("concurrency", 32);
+
+        ApiClient api = new ApiClient(baseUrl);
+        String runId = Long.toString(System.currentTimeMillis(), 36);
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+
+        LatencyRecorder registrations = new LatencyRecorder();
+        long elapsed = run(executor, concurrency, users, i -> {
+            long start = System.nanoTime();
+            try {
+                api.register("auth-" + runId + "-" + i, "BUYER");
+                registrations.record(System.nanoTime() - start);
+            } catch (Exception e) {
+                registrations.recordError();
+            }
+        });
+        report("register", registrations, elapsed);
+
+        LatencyRecorder known = new LatencyRecorder();
+        LatencyRecorder unknown = new LatencyRecorder();
+        elapsed = run(executor, concurrency, logins, i -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            boolean exists = random.nextDouble() >= unknownShare;
+            String username = exists
+                    ? "auth-" + runId + "-" + random.nextInt(users)
+                    : "missing-" + runId + "-" + i;
+            long start = System.nanoTime();
+            try {
+                api.login(username, "password");
+                known.record(System.nanoTime() - start);
+            } catch (Exception e) {
+                // Unknown users are refused with 401, which the client reports as an exception
+                if (exists) {
+                    known.recordError();
+                } else {
+                    unknown.record(System.nanoTime() - start);
+                }
+            }
+        });
+        System.out.printf("login     %,.0f/s%n", logins / (elapsed / 1e9));
+        System.out.printf("  known   %s%n", known.summary());
+        System.out.printf("  unknown %s%n", unknown.summary());
+
+        executor.shutdown();
+    }
+
+    private interface Step {
+        void run(int i);
+    }
+
+    private static long run(ExecutorService executor, int concurrency, int total, Step step) throws Exception {
+        long start = System.nanoTime();
+        List<Future<?>> workers = new ArrayList<>();
+        for (int w = 0; w < concurrency; w++) {
+            int worker = w;
+            workers.add(executor.submit(() -> {
+                for (int i = worker; i < total; i += concurrency) {
+                    step.run(i);
+                }
+                return null;
+            }));
+        }
+        for (Future<?> worker : workers) {
+            worker.get();
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static void report(String name, LatencyRecorder recorder, long elapsedNanos) {
+        System.out.printf("%-9s %,.0f/s  %s%n", name, recorder.count() / (elapsedNanos / 1e9), recorder.summary());
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.demo.loadtest;
+
+import tools.jackson.databind.JsonNode;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Arrays;
+
+/**
+ * Catalog latency as the products table grows, run against a live backend and its database:
+ * <pre>
+ * ./mvnw test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.example.demo.loadtest.CatalogScalingSimulation \
+ *     -Dexec.args="http://localhost:8080" -Drows=10000,100000,1000000 \
+ *     -Djdbc.url=jdbc:postgresql://localhost:5432/ecommerce -Djdbc.user=postgres -Djdbc.password=postgres
+ * </pre>
+ * At each size the table is topped up with generated products, then three reads are compared:
+ * loading every row the way the old unpaginated endpoint did, the first keyset page through the API,
+ * and a page {@code deep.pages} pages in. The old endpoint's cost is also shown as the bytes of the
+ * full result, which it had to hold on the heap before serializing.
+ */
+public class CatalogScalingSimulation {
+
+    public static void main(String[] args) throws Exception {
+        String baseUrl = args.length > 0 ? args[0] : "http://localhost:8080";
+        int[] sizes = Arrays.stream(System.getProperty("rows", "10000,100000,1000000").split(","))
+                .mapToInt(Integer::parseInt).toArray();
+        int samples = Integer.getInteger("samples", 50);
+        int deepPages = Integer.getInteger("deep.pages", 200);
+        int limit = 50;
+
+        ApiClient api = new ApiClient(baseUrl);
+        try (Connection connection = DriverManager.getConnection(
+                System.getProperty("jdbc.url", "jdbc:postgresql://localhost:5432/ecommerce"),
+                System.getProperty("jdbc.user", "postgres"),
+                System.getProperty("jdbc.password", "postgres"))) {
+
+            Long sellerId = selectLong(connection, "SELECT id FROM users WHERE username = 'seller'");
+            System.out.printf("Catalog reads, %d samples each, page size %d, deep page = page %d%n", samples, limit, deepPages);
+
+            for (int size : sizes) {
+                topUp(connection, sellerId, size);
+
+                LatencyRecorder fullScan = new LatencyRecorder();
+                long fullBytes = 0;
+                for (int i = 0; i < Math.max(1, samples / 10); i++) {
+                    long start = System.nanoTime();
+                    fullBytes = readAll(connection);
+                    fullScan.record(System.nanoTime() - start);
+                }
+
+                LatencyRecorder firstPage = new LatencyRecorder();
+                for (int i = 0; i < samples; i++) {
+                    long start = System.nanoTime();
+                    api.get("/api/products?limit=" + limit, null);
+                    firstPage.record(System.nanoTime() - start);
+                }
+
+                // Walk to the deep page once, then time re-reading it from its cursor
+                String cursor = null;
+                for (int page = 0; page < deepPages; page++) {
+                    JsonNode body = api.get(pagePath(limit, cursor), null);
+                    if (body.get("nextCursor").isNull()) {
+                        break;
+                    }
+                    cursor = body.get("nextCursor").asString();
+                }
+                LatencyRecorder deepPage = new LatencyRecorder();
+                for (int i = 0; i < samples; i++) {
+                    long start = System.nanoTime();
+                    api.get(pagePath(limit, cursor), null);
+                    deepPage.record(System.nanoTime() - start);
+                }
+
+                System.out.printf("%,10d rows%n", size);
+                System.out.printf("  full load  %s  ~%,d KB held%n", fullScan.summary(), fullBytes / 1024);
+                System.out.printf("  first page %s%n", firstPage.summary());
+                System.out.printf("  deep page  %s%n", deepPage.summary());
+            }
+        }
+    }
+
+    private static String pagePath(int limit, String cursor) {
+        return "/api/products?limit=" + limit
+                + (cursor == null ? "" : "&cursor=" + URLEncoder.encode(cursor, StandardCharsets.UTF_8));
+    }
+
+    private static void topUp(Connection connection, Long sellerId, int size) throws Exception {
+        long existing = selectLong(connection, "SELECT count(*) FROM products");
+        if (existing >= size) {
+            return;
+        }
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate("""
+                    INSERT INTO products (id, name, description, price, stock, seller_id, created_at, updated_at)
+                    SELECT nextval('products_seq'), 'Scaling product ' || g, repeat('Generated description. ', 20),
+                           round((random() * 1000 + 1)::numeric, 2), (random() * 100)::int, %d,
+                           now() - g * interval '1 second', now()
+                    FROM generate_series(%d, %d) g
+                    """.formatted(sellerId, existing + 1, size));
+            statement.execute("ANALYZE products");
+        }
+    }
+
+    private static long readAll(Connection connection) throws Exception {
+        long bytes = 0;
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT * FROM products")) {
+            int columns = rs.getMetaData().getColumnCount();
+            while (rs.next()) {
+                for (int c = 1; c <= columns; c++) {
+                    String value = rs.getString(c);
+                    bytes += value == null ? 0 : value.length();
+                }
+            }
+        }
+        return bytes;
+    }
+
+    private static long selectLong(Connection connection, String sql) throws Exception {
+        try (Statement statement = connection.createStatement(); ResultSet rs = statement.executeQuery(sql)) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+}
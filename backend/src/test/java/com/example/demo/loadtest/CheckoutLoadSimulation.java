@@ -0,0 +1,83 @@
+package com.example.demo.loadtest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Checkout latency against cart size, run against a live backend with the seeded seller account:
+ * <pre>
+ * ./mvnw test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.example.demo.loadtest.CheckoutLoadSimulation \
+ *     -Dexec.args="http://localhost:8080" -Dcart.sizes=1,5,10,30 -Dcheckouts=400 -Dconcurrency=16
+ * </pre>
+ * Every buyer fills its cart with a random subset of a shared product pool, so concurrent checkouts
+ * contend on the same rows the way a real catalog does. Only the checkout call itself is timed.
+ */
+public class CheckoutLoadSimulation {
+
+    public static void main(String[] args) throws Exception {
+        String baseUrl = args.length > 0 ? args[0] : "http://localhost:8080";
+        int[] cartSizes = Arrays.stream(System.getProperty("cart.sizes", "1,5,10,20,30").split(","))
+                .mapToInt(Integer::parseInt).toArray();
+        int checkouts = Integer.getInteger("checkouts", 200);
+        int concurrency = Integer.getInteger("concurrency", 16);
+
+        ApiClient api = new ApiClient(baseUrl);
+        String sellerToken = api.login("seller", "password");
+
+        int poolSize = Arrays.stream(cartSizes).max().orElse(1);
+        List<Long> productIds = new ArrayList<>();
+        for (int i = 0; i < poolSize; i++) {
+            productIds.add(api.post("/api/products", sellerToken, Map.of(
+                    "name", "Load test product " + i,
+                    "price", new BigDecimal("9.99"),
+                    "stock", 100_000_000)).get("id").asLong());
+        }
+
+        String runId = Long.toString(System.currentTimeMillis(), 36);
+        System.out.printf("Checkout latency, %d checkouts per cart size, %d concurrent buyers%n", checkouts, concurrency);
+
+        for (int cartSize : cartSizes) {
+            LatencyRecorder recorder = new LatencyRecorder();
+            ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+            List<Future<?>> buyers = new ArrayList<>();
+
+            for (int b = 0; b < concurrency; b++) {
+                String buyerName = "load-" + runId + "-" + cartSize + "-" + b;
+                int iterations = checkouts / concurrency;
+                buyers.add(executor.submit(() -> {
+                    String token = api.register(buyerName, "BUYER");
+                    List<Long> shuffled = new ArrayList<>(productIds);
+                    for (int i = 0; i < iterations; i++) {
+                        Collections.shuffle(shuffled);
+                        for (Long productId : shuffled.subList(0, cartSize)) {
+                            api.post("/api/cart", token, Map.of("productId", productId, "quantity", 1));
+                        }
+
+                        long start = System.nanoTime();
+                        try {
+                            api.post("/api/orders/checkout", token, Map.of());
+                            recorder.record(System.nanoTime() - start);
+                        } catch (Exception e) {
+                            recorder.recordError();
+                        }
+                    }
+                    return null;
+                }));
+            }
+
+            for (Future<?> buyer : buyers) {
+                buyer.get();
+            }
+            executor.shutdown();
+            System.out.printf("cart size %3d  %s%n", cartSize, recorder.summary());
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.demo.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Requests per second for uploaded images, to compare image serving implementations on the same files:
+ * <pre>
+ * ./mvnw test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.example.demo.loadtest.ImageServingSimulation \
+ *     -Dexec.args="http://localhost:8080 /uploads/0e/0ee1...jpg /uploads/0e/0ee1...-thumbnail.jpg" \
+ *     -Dclients=32 -Dseconds=15 -Dlabel=image-server
+ * </pre>
+ * Each path is run through three scenarios: plain downloads, revalidation with the validators of the first
+ * response (what a browser sends for a cached image), and the first 64 KB as a range request. Clients issue
+ * requests back to back for {@code seconds}, after {@code warmup} seconds of plain downloads; 200, 206 and 304
+ * count as served.
+ */
+public class ImageServingSimulation {
+
+    public static void main(String[] args) throws Exception {
+        String baseUrl = args.length > 0 ? args[0] : "http://localhost:8080";
+        List<String> paths = List.of(args).subList(Math.min(1, args.length), args.length);
+        if (paths.isEmpty()) {
+            throw new IllegalArgumentException("Pass the image paths to request after the base URL");
+        }
+        int clients = Integer.getInteger("clients", 32);
+        int seconds = Integer.getInteger("seconds", 15);
+        int warmup = Integer.getInteger("warmup", 5);
+        String label = System.getProperty("label", "server");
+
+        HttpClient http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        System.out.printf("%s: %d clients, %ds per scenario%n", label, clients, seconds);
+
+        for (String path : paths) {
+            URI uri = URI.create(baseUrl + path);
+            HttpResponse<byte[]> first = http.send(HttpRequest.newBuilder(uri).build(), HttpResponse.BodyHandlers.ofByteArray());
+            if (first.statusCode() != 200) {
+                throw new IllegalStateException(path + " returned " + first.statusCode());
+            }
+            System.out.printf("%s (%,d bytes) cache-control=%s etag=%s%n", path, first.body().length,
+                    first.headers().firstValue("Cache-Control").orElse("-"),
+                    first.headers().firstValue("ETag").orElse("-"));
+
+            run(http, clients, warmup, HttpRequest.newBuilder(uri).build());
+            System.out.printf("  %-10s %s%n", "full", run(http, clients, seconds, HttpRequest.newBuilder(uri).build()));
+            System.out.printf("  %-10s %s%n", "revalidate",
+                    run(http, clients, seconds, withValidators(HttpRequest.newBuilder(uri), first).build()));
+            System.out.printf("  %-10s %s%n", "range 64K",
+                    run(http, clients, seconds, HttpRequest.newBuilder(uri).header("Range", "bytes=0-65535").build()));
+        }
+        http.close();
+    }
+
+    private static HttpRequest.Builder withValidators(HttpRequest.Builder builder, HttpResponse<?> first) {
+        first.headers().firstValue("ETag").ifPresent(etag -> builder.header("If-None-Match", etag));
+        first.headers().firstValue("Last-Modified").ifPresent(date -> builder.header("If-Modified-Since", date));
+        return builder;
+    }
+
+    private static String run(HttpClient http, int clients, int seconds, HttpRequest request) {
+        LatencyRecorder recorder = new LatencyRecorder();
+        AtomicLong bytes = new AtomicLong();
+        AtomicLong notModified = new AtomicLong();
+        long deadline = System.nanoTime() + Duration.ofSeconds(seconds).toNanos();
+        long began = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < clients; c++) {
+                executor.submit(() -> {
+                    while (System.nanoTime() < deadline) {
+                        long sent = System.nanoTime();
+                        try {
+                            HttpResponse<byte[]> response = http.send(request, HttpResponse.BodyHandlers.ofByteArray());
+                            int status = response.statusCode();
+                            if (status == 200 || status == 206 || status == 304) {
+                                recorder.record(System.nanoTime() - sent);
+                                bytes.addAndGet(response.body().length);
+                                if (status == 304) {
+                                    notModified.incrementAndGet();
+                                }
+                            } else {
+                                recorder.recordError();
+                            }
+                        } catch (Exception e) {
+                            recorder.recordError();
+                        }
+                    }
+                    return null;
+                });
+            }
+        }
+        double elapsed = (System.nanoTime() - began) / 1e9;
+        return String.format("%s  %,8.0f req/s  %,7.1f MB/s  304s=%d", recorder.summary(),
+                recorder.count() / elapsed, bytes.get() / elapsed / (1 << 20), notModified.get());
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.demo.loadtest;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Throughput and latency with thousands of clients connected at once, to compare the platform-thread and
+ * virtual-thread request executors. Run it once against each mode of a live backend:
+ * <pre>
+ * VIRTUAL_THREADS=false ./mvnw spring-boot:run   # then, in another shell:
+ * ./mvnw test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.example.demo.loadtest.ThreadModelSimulation \
+ *     -Dexec.args="http://localhost:8080" -Dlabel=platform -Dconnections=1000,5000,10000
+ * VIRTUAL_THREADS=true ./mvnw spring-boot:run    # and repeat with -Dlabel=virtual
+ * </pre>
+ * Every client opens its own connection and issues {@code requests} calls to {@code path} (the buyer's
+ * order history by default, one JPA query per call) back to back. Responses with status 503 are counted
+ * as shed by the database limiter; other failures as errors.
+ */
+public class ThreadModelSimulation {
+
+    public static void main(String[] args) throws Exception {
+        String baseUrl = args.length > 0 ? args[0] : "http://localhost:8080";
+        int[] connectionCounts = Arrays.stream(System.getProperty("connections", "1000,5000,10000").split(","))
+                .mapToInt(Integer::parseInt).toArray();
+        int requests = Integer.getInteger("requests", 5);
+        String path = System.getProperty("path", "/api/orders");
+        String label = System.getProperty("label", "server");
+
+        ApiClient api = new ApiClient(baseUrl);
+        String token = api.login("buyer", "password");
+        System.out.printf("%s: %d requests per client to %s%n", label, requests, path);
+
+        for (int connections : connectionCounts) {
+            HttpClient http = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .connectTimeout(Duration.ofSeconds(30))
+                    .build();
+            ApiClient client = new ApiClient(baseUrl, http);
+            HttpRequest request = client.request(path, token).timeout(Duration.ofSeconds(120)).GET().build();
+
+            LatencyRecorder recorder = new LatencyRecorder();
+            AtomicInteger shed = new AtomicInteger();
+            CountDownLatch start = new CountDownLatch(1);
+            long began;
+            try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int c = 0; c < connections; c++) {
+                    clients.submit(() -> {
+                        start.await();
+                        for (int i = 0; i < requests; i++) {
+                            long sent = System.nanoTime();
+                            try {
+                                HttpResponse<Void> response = http.send(request, HttpResponse.BodyHandlers.discarding());
+                                if (response.statusCode() == 503) {
+                                    shed.incrementAndGet();
+                                } else if (response.statusCode() >= 300) {
+                                    recorder.recordError();
+                                } else {
+                                    recorder.record(System.nanoTime() - sent);
+                                }
+                            } catch (Exception e) {
+                                recorder.recordError();
+                            }
+                        }
+                        return null;
+                    });
+                }
+                began = System.nanoTime();
+                start.countDown();
+            }
+            double seconds = (System.nanoTime() - began) / 1e9;
+            http.close();
+
+            System.out.printf("%6d connections  %8.0f req/s  shed=%-5d %s%n",
+                    connections, recorder.count() / seconds, shed.get(), recorder.summary());
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.demo.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RequestStatementMetricsTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final RequestStatementMetrics filter = new RequestStatementMetrics(registry);
+
+    @Test
+    void countsStatementsPreparedWhileServingARequestUnderItsPattern() throws Exception {
+        DataSource dataSource = new StatementCountingDataSource(dataSourceReturning(mock(Connection.class)));
+
+        for (int statements : new int[]{3, 1}) {
+            MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/orders/42");
+            filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> {
+                req.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/orders/{id}");
+                try (Connection connection = dataSource.getConnection()) {
+                    for (int i = 0; i < statements; i++) {
+                        connection.prepareStatement("SELECT 1");
+                    }
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+        }
+
+        DistributionSummary summary = registry.get("jdbc.statements.per.request").tag("uri", "/api/orders/{id}").summary();
+        assertThat(summary.count()).isEqualTo(2);
+        assertThat(summary.totalAmount()).isEqualTo(4);
+        assertThat(summary.max()).isEqualTo(3);
+    }
+
+    @Test
+    void ignoresStatementsOutsideRequests() throws Exception {
+        DataSource dataSource = new StatementCountingDataSource(dataSourceReturning(mock(Connection.class)));
+        try (Connection connection = dataSource.getConnection()) {
+            connection.createStatement();
+        }
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/missing"), new MockHttpServletResponse(), (req, res) -> {
+        });
+
+        DistributionSummary unknown = registry.get("jdbc.statements.per.request").tag("uri", "UNKNOWN").summary();
+        assertThat(unknown.count()).isEqualTo(1);
+        assertThat(unknown.totalAmount()).isZero();
+    }
+
+    private static DataSource dataSourceReturning(Connection connection) throws Exception {
+        DataSource dataSource = mock(DataSource.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        return dataSource;
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.demo.outbox;
+
+import com.example.demo.entity.OrderEvent;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Outbox rows held in a map, claimed and settled with the same rules as {@link JdbcOutboxLedger}.
+ */
+class InMemoryOutboxLedger implements OutboxLedger {
+
+    private final Map<Long, OrderEvent> events = new TreeMap<>();
+    private long nextId = 1;
+
+    synchronized OrderEvent add(OrderEvent.Type type, String payload, LocalDateTime now) {
+        OrderEvent event = new OrderEvent();
+        event.setId(nextId++);
+        event.setType(type);
+        event.setPayload(payload);
+        event.setNextAttemptAt(now);
+        event.setCreatedAt(now);
+        events.put(event.getId(), event);
+        return event;
+    }
+
+    synchronized OrderEvent get(Long id) {
+        return events.get(id);
+    }
+
+    @Override
+    public synchronized List<ClaimedEvent> claim(int limit, LocalDateTime now, LocalDateTime leaseUntil) {
+        return events.values().stream()
+                .filter(e -> e.getStatus() == OrderEvent.Status.PENDING && !e.getNextAttemptAt().isAfter(now))
+                .limit(limit)
+                .map(e -> {
+                    e.setAttempts(e.getAttempts() + 1);
+                    e.setNextAttemptAt(leaseUntil);
+                    return new ClaimedEvent(e.getId(), e.getType(), e.getPayload(), e.getAttempts());
+                })
+                .toList();
+    }
+
+    @Override
+    public synchronized void markProcessed(Collection<Long> ids, LocalDateTime processedAt) {
+        ids.forEach(id -> {
+            OrderEvent event = events.get(id);
+            event.setStatus(OrderEvent.Status.PROCESSED);
+            event.setProcessedAt(processedAt);
+            event.setLastError(null);
+        });
+    }
+
+    @Override
+    public synchronized void markFailed(Collection<DeliveryFailure> failures) {
+        failures.forEach(f -> {
+            OrderEvent event = events.get(f.id());
+            event.setStatus(f.giveUp() ? OrderEvent.Status.FAILED : OrderEvent.Status.PENDING);
+            event.setNextAttemptAt(f.retryAt());
+            event.setLastError(f.error());
+        });
+    }
+
+    @Override
+    public synchronized int deleteProcessedBefore(LocalDateTime cutoff) {
+        int before = events.size();
+        events.values().removeIf(e -> e.getStatus() == OrderEvent.Status.PROCESSED && e.getProcessedAt().isBefore(cutoff));
+        return before - events.size();
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.demo.outbox;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * The lease statement against Postgres. Events here are created and due in 2000, so rows left pending by
+ * other tests, due now, are never among the ones claimed.
+ */
+@SpringBootTest(properties = "app.outbox.relay-enabled=false")
+class JdbcOutboxLedgerTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2000, 1, 2, 0, 0);
+    private static final LocalDateTime LEASE_UNTIL = NOW.plusMinutes(1);
+
+    @Autowired
+    private JdbcOutboxLedger ledger;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void deleteEarlierTestEvents() {
+        jdbcTemplate.update("DELETE FROM order_events WHERE created_at < ?", Timestamp.valueOf(NOW.plusYears(1)));
+    }
+
+    @Test
+    void claimLeasesDueEventsOldestFirstAndCountsTheAttempt() {
+        long first = insert("PENDING", NOW.minusDays(1));
+        long second = insert("PENDING", NOW.minusDays(1));
+        long third = insert("PENDING", NOW);
+        insert("PENDING", NOW.plusDays(30));
+        insert("PROCESSED", NOW.minusDays(1));
+
+        List<ClaimedEvent> claimed = ledger.claim(2, NOW, LEASE_UNTIL);
+
+        assertThat(claimed).extracting(ClaimedEvent::id).containsExactly(first, second);
+        assertThat(claimed).extracting(ClaimedEvent::attempts).containsOnly(1);
+        assertThat(nextAttemptAt(first)).isEqualTo(LEASE_UNTIL);
+        // Leased events are no longer due
+        assertThat(ledger.claim(10, NOW, LEASE_UNTIL)).extracting(ClaimedEvent::id).containsExactly(third);
+        assertThat(ledger.claim(10, LEASE_UNTIL, LEASE_UNTIL.plusMinutes(1)))
+                .extracting(ClaimedEvent::id, ClaimedEvent::attempts)
+                .containsExactly(tuple(first, 2), tuple(second, 2), tuple(third, 2));
+    }
+
+    @Test
+    void claimSkipsEventsAnotherRelayIsClaimingInsteadOfWaiting() throws Exception {
+        List<Long> ids = IntStream.range(0, 10).mapToObj(i -> insert("PENDING", NOW.minusDays(2))).toList();
+
+        List<ClaimedEvent> other = new ArrayList<>();
+        transactionTemplate.executeWithoutResult(status -> {
+            // Holds the row locks of its claim until this callback returns
+            other.addAll(ledger.claim(5, NOW, LEASE_UNTIL));
+            List<ClaimedEvent> concurrent = CompletableFuture.supplyAsync(() -> ledger.claim(5, NOW, LEASE_UNTIL))
+                    .orTimeout(10, TimeUnit.SECONDS)
+                    .join();
+            assertThat(concurrent).extracting(ClaimedEvent::id).containsExactlyElementsOf(ids.subList(5, 10));
+        });
+
+        assertThat(other).extracting(ClaimedEvent::id).containsExactlyElementsOf(ids.subList(0, 5));
+    }
+
+    @Test
+    void concurrentRelaysLeaseEachEventOnce() throws Exception {
+        List<Long> ids = IntStream.range(0, 400).mapToObj(i -> insert("PENDING", NOW.minusDays(1))).toList();
+
+        Set<Long> leased = ConcurrentHashMap.newKeySet();
+        List<Long> duplicates = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(4)) {
+            List<CompletableFuture<Void>> relays = IntStream.range(0, 4).mapToObj(r -> CompletableFuture.runAsync(() -> {
+                List<ClaimedEvent> batch;
+                while (!(batch = ledger.claim(7, NOW, LEASE_UNTIL)).isEmpty()) {
+                    for (ClaimedEvent event : batch) {
+                        if (!leased.add(event.id())) {
+                            synchronized (duplicates) {
+                                duplicates.add(event.id());
+                            }
+                        }
+                    }
+                }
+            }, executor)).toList();
+            CompletableFuture.allOf(relays.toArray(CompletableFuture[]::new)).get(60, TimeUnit.SECONDS);
+        }
+
+        assertThat(duplicates).isEmpty();
+        assertThat(leased).containsExactlyInAnyOrderElementsOf(ids);
+    }
+
+    private long insert(String status, LocalDateTime nextAttemptAt) {
+        return jdbcTemplate.queryForObject("""
+                        INSERT INTO order_events (id, order_id, type, payload, status, attempts, next_attempt_at, created_at)
+                        VALUES (nextval('order_events_seq'), 1, 'ORDER_PLACED', '{}'::jsonb, ?, 0, ?, ?)
+                        RETURNING id
+                        """,
+                Long.class, status, Timestamp.valueOf(nextAttemptAt), Timestamp.valueOf(nextAttemptAt));
+    }
+
+    private LocalDateTime nextAttemptAt(long id) {
+        return jdbcTemplate.queryForObject("SELECT next_attempt_at FROM order_events WHERE id = ?",
+                LocalDateTime.class, id);
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.demo.outbox;
+
+import com.example.demo.entity.OrderEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OutboxRelayTest {
+
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+    private final InMemoryOutboxLedger ledger = new InMemoryOutboxLedger();
+    private final OutboxProperties properties = new OutboxProperties();
+    private final List<OutboxRelay> relays = new ArrayList<>();
+
+    @AfterEach
+    void shutDown() {
+        relays.forEach(OutboxRelay::shutdown);
+    }
+
+    @Test
+    void deliversEveryPendingEventToEveryHandlerAcrossBatches() {
+        properties.setBatchSize(2);
+        RecordingOrderEventHandler first = new RecordingOrderEventHandler();
+        RecordingOrderEventHandler second = new RecordingOrderEventHandler();
+        List<OrderEvent> events = List.of(orderPlaced(1L), orderPlaced(2L), orderPlaced(3L));
+
+        relay(first, second).poll();
+
+        assertThat(first.received).extracting(OrderPlaced::orderId).containsExactlyInAnyOrder(1L, 2L, 3L);
+        assertThat(second.received).extracting(OrderPlaced::orderId).containsExactlyInAnyOrder(1L, 2L, 3L);
+        assertThat(events).allSatisfy(e -> assertThat(ledger.get(e.getId()).getStatus()).isEqualTo(OrderEvent.Status.PROCESSED));
+    }
+
+    @Test
+    void payloadSurvivesTheRoundTrip() {
+        RecordingOrderEventHandler handler = new RecordingOrderEventHandler();
+        orderPlaced(7L);
+
+        relay(handler).poll();
+
+        OrderPlaced received = handler.received.getFirst();
+        assertThat(received.finalAmount()).isEqualByComparingTo("90.00");
+        assertThat(received.lines()).singleElement().satisfies(line -> {
+            assertThat(line.sellerId()).isEqualTo(3L);
+            assertThat(line.quantity()).isEqualTo(2);
+            assertThat(line.discounted()).isTrue();
+        });
+    }
+
+    @Test
+    void failedDeliveryIsRetriedAfterItsBackoff() {
+        properties.setRetryBackoff(Duration.ofHours(1));
+        properties.setMaxRetryBackoff(Duration.ofHours(2));
+        RecordingOrderEventHandler handler = new RecordingOrderEventHandler(1);
+        OrderEvent event = orderPlaced(1L);
+        OutboxRelay relay = relay(handler);
+
+        relay.poll();
+        OrderEvent stored = ledger.get(event.getId());
+        assertThat(stored.getStatus()).isEqualTo(OrderEvent.Status.PENDING);
+        assertThat(stored.getLastError()).contains("Handler unavailable");
+        assertThat(stored.getNextAttemptAt()).isAfter(LocalDateTime.now().plusMinutes(59));
+
+        relay.poll();
+        assertThat(handler.received).isEmpty();
+
+        stored.setNextAttemptAt(LocalDateTime.now());
+        relay.poll();
+        assertThat(handler.received).hasSize(1);
+        assertThat(stored.getStatus()).isEqualTo(OrderEvent.Status.PROCESSED);
+        assertThat(stored.getAttempts()).isEqualTo(2);
+    }
+
+    @Test
+    void eventIsMarkedFailedAfterMaxAttempts() {
+        properties.setMaxAttempts(2);
+        properties.setRetryBackoff(Duration.ZERO);
+        OrderEvent event = orderPlaced(1L);
+        OutboxRelay relay = relay(new RecordingOrderEventHandler(5));
+
+        relay.poll();
+        relay.poll();
+        relay.poll();
+
+        assertThat(ledger.get(event.getId()).getStatus()).isEqualTo(OrderEvent.Status.FAILED);
+        assertThat(ledger.get(event.getId()).getAttempts()).isEqualTo(2);
+    }
+
+    @Test
+    void claimedEventIsNotDeliveredAgainUntilItsLeaseRunsOut() {
+        OrderEvent event = orderPlaced(1L);
+        LocalDateTime now = LocalDateTime.now();
+        // Another relay claimed the event and died before settling it
+        ledger.claim(10, now, now.plus(properties.getLease()));
+        RecordingOrderEventHandler handler = new RecordingOrderEventHandler();
+        OutboxRelay relay = relay(handler);
+
+        relay.poll();
+        assertThat(handler.received).isEmpty();
+
+        ledger.get(event.getId()).setNextAttemptAt(now);
+        relay.poll();
+        assertThat(handler.received).hasSize(1);
+    }
+
+    private OutboxRelay relay(OrderEventHandler... handlers) {
+        OutboxRelay relay = new OutboxRelay(ledger, List.of(handlers), jsonMapper, properties, new SimpleMeterRegistry());
+        relays.add(relay);
+        return relay;
+    }
+
+    private OrderEvent orderPlaced(Long orderId) {
+        OrderPlaced payload = new OrderPlaced(orderId, 1L, LocalDateTime.now(), new BigDecimal("100.00"),
+                new BigDecimal("10.00"), new BigDecimal("90.00"), "SAVE10",
+                List.of(new OrderPlaced.Line(5L, 3L, 2, new BigDecimal("50.00"), true)));
+        return ledger.add(OrderEvent.Type.ORDER_PLACED, jsonMapper.writeValueAsString(payload), LocalDateTime.now());
+    }
+}
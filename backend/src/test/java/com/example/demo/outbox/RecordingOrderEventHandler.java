@@ -0,0 +1,30 @@
+package com.example.demo.outbox;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps every event it receives, failing the first {@code failures} deliveries it is given.
+ */
+class RecordingOrderEventHandler implements OrderEventHandler {
+
+    final List<OrderPlaced> received = new CopyOnWriteArrayList<>();
+    private final AtomicInteger failures;
+
+    RecordingOrderEventHandler() {
+        this(0);
+    }
+
+    RecordingOrderEventHandler(int failures) {
+        this.failures = new AtomicInteger(failures);
+    }
+
+    @Override
+    public void onOrderPlaced(OrderPlaced event) {
+        if (failures.getAndDecrement() > 0) {
+            throw new IllegalStateException("Handler unavailable");
+        }
+        received.add(event);
+    }
+}
@@ -0,0 +1,159 @@
+package com.example.demo.replica;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ReplicaRouterTest {
+
+    private DataSource primary;
+    private final ReplicaProperties properties = new ReplicaProperties();
+    private final AtomicReference<Long> currentUser = new AtomicReference<>();
+
+    @BeforeEach
+    void startReadOnlyServiceTransaction() throws Exception {
+        primary = dataSource("primary");
+        TransactionSynchronizationManager.setCurrentTransactionName("com.example.demo.service.OrderService.getOrderHistory");
+    }
+
+    @AfterEach
+    void endTransaction() {
+        TransactionSynchronizationManager.setCurrentTransactionName(null);
+    }
+
+    @Test
+    void roundRobinSpreadsReadsOverReplicas() throws Exception {
+        ReplicaRouter router = router(replica("r1", 0), replica("r2", 0));
+
+        assertThat(List.of(read(router), read(router), read(router), read(router)))
+                .containsExactlyInAnyOrder("r1", "r1", "r2", "r2");
+    }
+
+    @Test
+    void leastLoadedPicksTheReplicaWithFewestBusyConnections() throws Exception {
+        properties.setSelection(ReplicaProperties.Selection.LEAST_LOADED);
+        ReplicaRouter router = router(replica("r1", 5), replica("r2", 1), replica("r3", 3));
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(read(router)).isEqualTo("r2");
+        }
+    }
+
+    @Test
+    void usersReadTheirOwnWritesFromThePrimaryForAShortWindow() throws Exception {
+        properties.setReadYourWritesWindow(Duration.ofMillis(200));
+        ReplicaRouter router = router(replica("r1", 0));
+
+        currentUser.set(7L);
+        router.afterCommit(transaction(true), null);
+        assertThat(read(router)).isEqualTo("r1");
+        router.afterCommit(transaction(false), null);
+        assertThat(read(router)).isEqualTo("primary");
+
+        currentUser.set(8L);
+        assertThat(read(router)).isEqualTo("r1");
+
+        Thread.sleep(250);
+        currentUser.set(7L);
+        assertThat(read(router)).isEqualTo("r1");
+    }
+
+    @Test
+    void laggingReplicasAreSkippedUntilTheyCatchUp() throws Exception {
+        ReplicaPool r1 = replica("r1", 0);
+        ReplicaPool r2 = replica("r2", 0);
+        ReplicaRouter router = router(r1, r2);
+
+        lagOf(r1, 5_000);
+        lagOf(r2, 0);
+        router.checkReplicas();
+        assertThat(List.of(read(router), read(router), read(router))).containsOnly("r2");
+
+        lagOf(r2, 5_000);
+        router.checkReplicas();
+        assertThat(read(router)).isEqualTo("primary");
+
+        lagOf(r1, 200);
+        router.checkReplicas();
+        assertThat(read(router)).isEqualTo("r1");
+    }
+
+    @Test
+    void unreachableReplicasFallBackToThePrimary() throws Exception {
+        DataSource down = mock(DataSource.class);
+        when(down.getConnection()).thenThrow(new SQLException("Connection refused"));
+        ReplicaRouter router = router(new ReplicaPool("down", down, () -> 0), replica("r2", 0));
+
+        assertThat(List.of(read(router), read(router))).containsOnly("r2");
+
+        ReplicaRouter onlyDown = router(new ReplicaPool("down", down, () -> 0));
+        assertThat(read(onlyDown)).isEqualTo("primary");
+    }
+
+    @Test
+    void springDataReadsOutsideServiceTransactionsStayOnThePrimary() throws Exception {
+        ReplicaRouter router = router(replica("r1", 0));
+
+        TransactionSynchronizationManager.setCurrentTransactionName(
+                "org.springframework.data.jpa.repository.support.SimpleJpaRepository.findById");
+        assertThat(read(router)).isEqualTo("primary");
+    }
+
+    private ReplicaRouter router(ReplicaPool... replicas) {
+        return new ReplicaRouter(List.of(replicas), properties, currentUser::get, new SimpleMeterRegistry());
+    }
+
+    private String read(ReplicaRouter router) throws SQLException {
+        return router.readConnection(primary).getCatalog();
+    }
+
+    private static ReplicaPool replica(String name, int load) throws SQLException {
+        AtomicInteger busy = new AtomicInteger(load);
+        return new ReplicaPool(name, dataSource(name), busy::get);
+    }
+
+    private static DataSource dataSource(String name) throws SQLException {
+        Connection connection = mock(Connection.class);
+        when(connection.getCatalog()).thenReturn(name);
+        DataSource dataSource = mock(DataSource.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        return dataSource;
+    }
+
+    private static void lagOf(ReplicaPool replica, long millis) throws SQLException {
+        Connection connection = replica.getConnection();
+        Statement statement = mock(Statement.class);
+        ResultSet rs = mock(ResultSet.class);
+        when(connection.createStatement()).thenReturn(statement);
+        when(statement.executeQuery(anyString())).thenReturn(rs);
+        when(rs.next()).thenReturn(true);
+        when(rs.getLong(1)).thenReturn(millis);
+    }
+
+    private static TransactionExecution transaction(boolean readOnly) {
+        return new TransactionExecution() {
+            @Override
+            public boolean isReadOnly() {
+                return readOnly;
+            }
+        };
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.demo.repository;
+
+import com.example.demo.dto.CursorPage;
+import com.example.demo.dto.OrderSummary;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Keyset pages and the streamed history against Postgres. Orders here belong to a user id no account has, and
+ * are deleted before each test.
+ */
+@SpringBootTest(properties = "app.outbox.relay-enabled=false")
+class OrderHistoryRepositoryTest {
+
+    private static final Long USER_ID = 900_001L;
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 1, 1, 12, 0, 0, 123_456_000);
+
+    @Autowired
+    private OrderHistoryRepository repository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void deleteEarlierTestOrders() {
+        jdbcTemplate.update("DELETE FROM order_items WHERE order_id IN (SELECT id FROM orders WHERE user_id = ?)", USER_ID);
+        jdbcTemplate.update("DELETE FROM orders WHERE user_id = ?", USER_ID);
+    }
+
+    @Test
+    void cursorsWalkTheWholeHistoryNewestFirst() {
+        List<Long> newestFirst = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            long id = insertOrder(NOW.minusMinutes(i));
+            insertItems(id, i % 3);
+            newestFirst.add(id);
+        }
+
+        List<OrderSummary> walked = walk(3);
+
+        assertThat(walked).extracting(OrderSummary::id).containsExactlyElementsOf(newestFirst);
+        assertThat(walked).extracting(order -> order.items().size()).containsExactly(0, 1, 2, 0, 1, 2, 0);
+        // Sub-millisecond creation times survive the trip through the cursor
+        assertThat(walked.getFirst().createdAt()).isEqualTo(NOW);
+        assertThat(repository.findPage(USER_ID, null, 7).nextCursor()).isNull();
+        assertThatThrownBy(() -> repository.findPage(USER_ID, "not a cursor", 3))
+                .hasMessage("Invalid cursor");
+    }
+
+    @Test
+    void ordersCreatedInTheSameInstantAreNeitherRepeatedNorSkippedAcrossPages() {
+        long older = insertOrder(NOW.minusSeconds(1));
+        List<Long> sameInstant = IntStream.range(0, 7).mapToObj(i -> insertOrder(NOW)).toList();
+
+        List<OrderSummary> walked = walk(3);
+
+        List<Long> expected = new ArrayList<>(sameInstant.reversed());
+        expected.add(older);
+        assertThat(walked).extracting(OrderSummary::id).containsExactlyElementsOf(expected);
+    }
+
+    @Test
+    void streamedOrdersKeepItemsThatSpanFetchBatches() {
+        // 1200 joined rows come back in three fetches, splitting the large order's items across all of them
+        long small = insertOrder(NOW.minusMinutes(2));
+        List<Long> smallItems = insertItems(small, 300);
+        long large = insertOrder(NOW.minusMinutes(1));
+        List<Long> largeItems = insertItems(large, 899);
+        long empty = insertOrder(NOW);
+
+        List<OrderSummary> streamed = new ArrayList<>();
+        transactionTemplate.executeWithoutResult(status -> repository.streamAll(USER_ID, streamed::add));
+
+        assertThat(streamed).extracting(OrderSummary::id).containsExactly(empty, large, small);
+        assertThat(streamed.get(0).items()).isEmpty();
+        assertThat(streamed.get(1).items()).extracting(OrderSummary.Item::productId).containsExactlyElementsOf(largeItems);
+        assertThat(streamed.get(2).items()).extracting(OrderSummary.Item::productId).containsExactlyElementsOf(smallItems);
+    }
+
+    private List<OrderSummary> walk(int limit) {
+        List<OrderSummary> walked = new ArrayList<>();
+        String cursor = null;
+        do {
+            CursorPage<OrderSummary> page = repository.findPage(USER_ID, cursor, limit);
+            assertThat(page.items()).hasSizeLessThanOrEqualTo(limit);
+            walked.addAll(page.items());
+            cursor = page.nextCursor();
+        } while (cursor != null);
+        return walked;
+    }
+
+    private long insertOrder(LocalDateTime createdAt) {
+        return jdbcTemplate.queryForObject("""
+                        INSERT INTO orders (id, user_id, total_amount, discount, final_amount, status, created_at)
+                        VALUES (nextval('orders_seq'), ?, 10.00, 0, 10.00, 'COMPLETED', ?)
+                        RETURNING id
+                        """,
+                Long.class, USER_ID, Timestamp.valueOf(createdAt));
+    }
+
+    /**
+     * Adds {@code count} items to the order, each naming its position as the product id, and returns those ids
+     * in insertion order.
+     */
+    private List<Long> insertItems(long orderId, int count) {
+        List<Long> productIds = IntStream.rangeClosed(1, count).mapToObj(Long::valueOf).toList();
+        jdbcTemplate.batchUpdate("""
+                        INSERT INTO order_items (id, order_id, product_id, product_name, quantity, price_at_purchase)
+                        VALUES (nextval('order_items_seq'), ?, ?, 'Item', 1, ?)
+                        """,
+                productIds, 100, (statement, productId) -> {
+                    statement.setLong(1, orderId);
+                    statement.setLong(2, productId);
+                    statement.setBigDecimal(3, BigDecimal.ONE);
+                });
+        return productIds;
+    }
+}
@@ -0,0 +1,185 @@
+package com.example.demo.search;
+
+import com.example.demo.dto.ProductSearchResult;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class ProductSearchIndexTest {
+
+    @Test
+    void ranksNameMatchesAboveDescriptionMatchesAndRequiresEveryWord() {
+        ProductSearchIndex index = new ProductSearchIndex();
+        index.put(1L, "Mechanical Keyboard", "RGB backlit keys", new BigDecimal("79.99"), null);
+        index.put(2L, "Desk Mat", "Large mat that fits a keyboard and mouse", new BigDecimal("19.99"), null);
+        index.put(3L, "Wireless Mouse", "Ergonomic mouse", new BigDecimal("29.99"), null);
+
+        ProductSearchResult keyboard = index.search("keyboard", false, null, null, 10);
+        assertThat(keyboard.items()).extracting(ProductSearchResult.Hit::id).containsExactly(1L, 2L);
+
+        ProductSearchResult keyboardMouse = index.search("Keyboard, mouse", false, null, null, 10);
+        assertThat(keyboardMouse.items()).extracting(ProductSearchResult.Hit::id).containsExactly(2L);
+    }
+
+    @Test
+    void typeaheadMatchesLastWordAsPrefix() {
+        ProductSearchIndex index = new ProductSearchIndex();
+        index.put(1L, "Mechanical Keyboard", null, new BigDecimal("79.99"), null);
+        index.put(2L, "Mechanical Pencil", null, new BigDecimal("4.99"), null);
+
+        assertThat(index.search("mechanical key", false, null, null, 10).items()).isEmpty();
+        assertThat(index.search("mechanical key", true, null, null, 10).items())
+                .extracting(ProductSearchResult.Hit::id).containsExactly(1L);
+        assertThat(index.suggest("mech", 5)).containsExactly("mechanical");
+    }
+
+    @Test
+    void updatesAndRemovalsReplaceEarlierVersions() {
+        ProductSearchIndex index = new ProductSearchIndex();
+        index.put(1L, "USB-C Hub", null, new BigDecimal("49.99"), null);
+        index.put(1L, "Thunderbolt Dock", null, new BigDecimal("199.99"), null);
+
+        assertThat(index.search("hub", false, null, null, 10).total()).isZero();
+        assertThat(index.search("dock", false, null, null, 10).items())
+                .extracting(ProductSearchResult.Hit::name).containsExactly("Thunderbolt Dock");
+
+        index.remove(1L);
+        assertThat(index.search("dock", false, null, null, 10).total()).isZero();
+        assertThat(index.size()).isZero();
+    }
+
+    @Test
+    void countsPriceFacetsBeforeApplyingThePriceFilter() {
+        ProductSearchIndex index = new ProductSearchIndex();
+        index.put(1L, "Cable", null, new BigDecimal("9.99"), null);
+        index.put(2L, "Cable", null, new BigDecimal("30.00"), null);
+        index.put(3L, "Cable", null, new BigDecimal("1200.00"), null);
+
+        ProductSearchResult result = index.search("cable", false, new BigDecimal("25"), new BigDecimal("100"), 10);
+
+        assertThat(result.total()).isEqualTo(1);
+        assertThat(result.items()).extracting(ProductSearchResult.Hit::id).containsExactly(2L);
+        assertThat(result.priceFacets()).extracting(ProductSearchResult.PriceFacet::count)
+                .containsExactly(1, 1, 0, 0, 0, 0, 1);
+        assertThat(result.priceFacets().get(6).to()).isNull();
+    }
+
+    @Test
+    void singleWordShortcutAgreesWithFullScan() {
+        ProductSearchIndex index = new ProductSearchIndex();
+        Random random = new Random(7);
+        String[] words = {"cable", "charger", "usb", "fast", "braided", "long"};
+        for (long id = 1; id <= 2_000; id++) {
+            StringBuilder description = new StringBuilder();
+            for (int i = 0, n = 1 + random.nextInt(12); i < n; i++) {
+                description.append(words[random.nextInt(words.length)]).append(' ');
+            }
+            index.put(id, words[random.nextInt(words.length)], description.toString(),
+                    BigDecimal.valueOf(random.nextInt(200_000), 2), null);
+        }
+        for (long id = 1; id <= 2_000; id += 7) {
+            index.remove(id);
+        }
+
+        // A zero price floor filters nothing but forces the scan that scores every match
+        ProductSearchResult shortcut = index.search("cable", false, null, null, 25);
+        ProductSearchResult scanned = index.search("cable", false, BigDecimal.ZERO, null, 25);
+
+        assertThat(shortcut.items()).isEqualTo(scanned.items());
+        assertThat(shortcut.total()).isEqualTo(scanned.total());
+        assertThat(shortcut.priceFacets()).isEqualTo(scanned.priceFacets());
+    }
+
+    @Test
+    void rareAndCommonWordScoresAddUp() {
+        ProductSearchIndex index = new ProductSearchIndex();
+        Random random = new Random(11);
+        for (long id = 1; id <= 3_000; id++) {
+            String description = "cable " + (id % 50 == 0 ? "braided " : "") + (random.nextBoolean() ? "cable" : "usb");
+            index.put(id, "Cable " + id, description, BigDecimal.valueOf(random.nextInt(200_000), 2), null);
+        }
+
+        ProductSearchResult both = index.search("braided cable", false, null, null, 100);
+        Map<Long, Double> braided = scores(index.search("braided", false, null, null, 100));
+        Map<Long, Double> cable = scores(index.search("cable", false, null, null, 3_000));
+
+        assertThat(both.total()).isEqualTo(60);
+        assertThat(both.items()).hasSize(60).allSatisfy(hit -> assertThat(hit.score())
+                .isCloseTo(braided.get(hit.id()) + cable.get(hit.id()), within(1e-9)));
+        assertThat(index.search("braided cable", false, null, null, 5).items())
+                .extracting(ProductSearchResult.Hit::score)
+                .containsExactlyElementsOf(both.items().subList(0, 5).stream().map(ProductSearchResult.Hit::score).toList());
+    }
+
+    @Test
+    void probedWordFollowsEditsMadeAfterItsFirstSearch() {
+        ProductSearchIndex index = new ProductSearchIndex();
+        for (long id = 1; id <= 3_000; id++) {
+            index.put(id, "Cable " + id, "cable " + (id % 50 == 0 ? "braided" : "usb"), BigDecimal.TEN, null);
+        }
+        assertThat(index.search("braided cable", false, null, null, 10).total()).isEqualTo(60);
+
+        index.put(50L, "Rope", "braided nylon", BigDecimal.TEN, null);
+        for (long id = 3_001; id <= 3_200; id++) {
+            index.put(id, "Cable " + id, "braided cable", BigDecimal.TEN, null);
+        }
+
+        ProductSearchResult result = index.search("braided cable", false, null, null, 300);
+        assertThat(result.total()).isEqualTo(259);
+        assertThat(result.items()).extracting(ProductSearchResult.Hit::id).doesNotContain(50L).contains(3_200L);
+    }
+
+    @Test
+    void lonePrefixMergesItsCompletionsLikeTheFullScan() {
+        ProductSearchIndex index = new ProductSearchIndex();
+        Random random = new Random(3);
+        String[] words = {"charger", "chair", "charcoal", "chart", "cable", "lamp"};
+        for (long id = 1; id <= 2_000; id++) {
+            StringBuilder description = new StringBuilder();
+            for (int i = 0, n = 1 + random.nextInt(6); i < n; i++) {
+                description.append(words[random.nextInt(words.length)]).append(' ');
+            }
+            index.put(id, words[random.nextInt(words.length)], description.toString(),
+                    BigDecimal.valueOf(random.nextInt(200_000), 2), null);
+        }
+        for (long id = 1; id <= 2_000; id += 7) {
+            index.remove(id);
+        }
+
+        ProductSearchResult merged = index.search("cha", true, null, null, 25);
+        ProductSearchResult scanned = index.search("cha", true, BigDecimal.ZERO, null, 25);
+
+        assertThat(merged.items()).isEqualTo(scanned.items());
+        assertThat(merged.total()).isEqualTo(scanned.total());
+        assertThat(merged.priceFacets()).isEqualTo(scanned.priceFacets());
+    }
+
+    @Test
+    void repeatedEditsReclaimOrdinalsAndKeepResults() {
+        ProductSearchIndex index = new ProductSearchIndex();
+        for (int round = 0; round < 100; round++) {
+            for (long id = 1; id <= 100; id++) {
+                index.put(id, "Lamp " + (round % 2 == 0 ? "brass" : "steel"), "desk light",
+                        BigDecimal.valueOf(10 + round), null);
+            }
+        }
+
+        assertThat(index.ordinalsInUse()).isLessThanOrEqualTo(100 + 2_048);
+        assertThat(index.size()).isEqualTo(100);
+        assertThat(index.search("steel lamp", false, null, null, 200).total()).isEqualTo(100);
+        assertThat(index.search("brass", false, null, null, 200).total()).isZero();
+        assertThat(index.search("light", false, new BigDecimal("109"), null, 200).items())
+                .hasSize(100).allSatisfy(hit -> assertThat(hit.price()).isEqualByComparingTo("109"));
+    }
+
+    private static Map<Long, Double> scores(ProductSearchResult result) {
+        return result.items().stream()
+                .collect(Collectors.toMap(ProductSearchResult.Hit::id, ProductSearchResult.Hit::score));
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.demo.security;
+
+import com.example.demo.dto.AuthResponse;
+import com.example.demo.entity.User;
+import com.example.demo.metrics.HotPathMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.CredentialsExpiredException;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AuthTokenServiceTest {
+
+    private static final UserAccount BUYER = new UserAccount(7L, "buyer", "{noop}password", User.Role.BUYER);
+
+    private final InMemoryAuthTokenLedger ledger = new InMemoryAuthTokenLedger().withUser(BUYER);
+    private final AuthTokenProperties properties = new AuthTokenProperties();
+    private final JwtUtil jwtUtil = jwtUtil();
+    private final TokenRevocationList revocations = new TokenRevocationList(ledger, properties);
+    private final AuthTokenService service = new AuthTokenService(ledger, revocations, jwtUtil, properties);
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void refreshIssuesANewPairInTheSameSession() {
+        AuthResponse signedIn = service.startSession(BUYER);
+        AuthResponse refreshed = service.refresh(signedIn.getRefreshToken());
+
+        VerifiedToken first = jwtUtil.verify(signedIn.getToken());
+        VerifiedToken second = jwtUtil.verify(refreshed.getToken());
+        assertThat(second.sessionId()).isEqualTo(first.sessionId()).isNotNull();
+        assertThat(second.userId()).isEqualTo(7L);
+        assertThat(refreshed.getRefreshToken()).isNotEqualTo(signedIn.getRefreshToken());
+        assertThat(refreshed.getExpiresIn()).isEqualTo(900);
+        assertThat(ledger.liveRefreshTokens()).isEqualTo(1);
+    }
+
+    @Test
+    void replayingAnExchangedRefreshTokenEndsTheSession() {
+        AuthResponse signedIn = service.startSession(BUYER);
+        AuthResponse refreshed = service.refresh(signedIn.getRefreshToken());
+        AuthResponse otherSession = service.startSession(BUYER);
+
+        assertThatThrownBy(() -> service.refresh(signedIn.getRefreshToken()))
+                .isInstanceOf(CredentialsExpiredException.class);
+
+        assertThatThrownBy(() -> service.refresh(refreshed.getRefreshToken()))
+                .isInstanceOf(CredentialsExpiredException.class);
+        assertThat(revocations.isRevoked(jwtUtil.verify(signedIn.getToken()))).isTrue();
+        assertThat(revocations.isRevoked(jwtUtil.verify(refreshed.getToken()))).isTrue();
+        assertThat(revocations.isRevoked(jwtUtil.verify(otherSession.getToken()))).isFalse();
+        assertThat(service.refresh(otherSession.getRefreshToken()).getToken()).isNotBlank();
+    }
+
+    @Test
+    void unknownRefreshTokensAreRefusedWithoutRevokingAnything() {
+        assertThatThrownBy(() -> service.refresh("not-a-token")).isInstanceOf(CredentialsExpiredException.class);
+        service.signOut("not-a-token");
+
+        assertThat(revocations.size()).isZero();
+    }
+
+    @Test
+    void revokedAccessTokenIsNotAuthenticatedByTheFilter() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        JwtAuthenticationFilter filter = new JwtAuthenticationFilter(new JwtClaimsCache(jwtUtil, 100), revocations,
+                new HotPathMetrics(registry));
+        AuthResponse signedIn = service.startSession(BUYER);
+
+        assertThat(authenticate(filter, signedIn.getToken())).isTrue();
+
+        service.signOut(signedIn.getRefreshToken());
+
+        assertThat(authenticate(filter, signedIn.getToken())).isFalse();
+        assertThat(registry.get("jwt.rejected").tag("reason", "revoked").counter().count()).isEqualTo(1);
+        assertThatThrownBy(() -> service.refresh(signedIn.getRefreshToken()))
+                .isInstanceOf(CredentialsExpiredException.class);
+    }
+
+    @Test
+    void revocationsOnAnotherNodeApplyAfterTheNextSync() {
+        TokenRevocationList otherNode = new TokenRevocationList(ledger, properties);
+        otherNode.warmUp();
+        AuthResponse signedIn = service.startSession(BUYER);
+        VerifiedToken token = jwtUtil.verify(signedIn.getToken());
+
+        service.signOut(signedIn.getRefreshToken());
+        assertThat(otherNode.isRevoked(token)).isFalse();
+
+        otherNode.sync();
+        assertThat(otherNode.isRevoked(token)).isTrue();
+    }
+
+    @Test
+    void expiredRevocationsArePurged() {
+        revocations.revoke("expired-session", LocalDateTime.now().minusSeconds(1));
+        revocations.revoke("live-session", LocalDateTime.now().plusMinutes(15));
+
+        revocations.purge();
+
+        assertThat(revocations.size()).isEqualTo(1);
+        assertThat(revocations.isRevoked(new VerifiedToken("buyer", 7L, "BUYER", "live-session", null, null)))
+                .isTrue();
+    }
+
+    private static boolean authenticate(JwtAuthenticationFilter filter, String token) throws Exception {
+        SecurityContextHolder.clearContext();
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/cart");
+        request.addHeader("Authorization", "Bearer " + token);
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        return SecurityContextHolder.getContext().getAuthentication() != null;
+    }
+
+    private static JwtUtil jwtUtil() {
+        JwtProperties properties = new JwtProperties();
+        properties.setSecret("404E635266556A586E3272357538782F413F4428472B4B6250645367566B5970");
+        properties.setExpiration(900_000L);
+        return new JwtUtil(properties);
+    }
+}
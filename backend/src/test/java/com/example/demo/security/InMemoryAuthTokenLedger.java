@@ -0,0 +1,95 @@
+package com.example.demo.security;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Stand-in for the refresh_tokens and revoked_tokens tables, with users added up front.
+ */
+public class InMemoryAuthTokenLedger implements AuthTokenLedger {
+
+    private static final class Token {
+        final Long userId;
+        final String familyId;
+        final LocalDateTime expiresAt;
+        boolean used;
+        boolean revoked;
+
+        Token(Long userId, String familyId, LocalDateTime expiresAt) {
+            this.userId = userId;
+            this.familyId = familyId;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private record Revocation(LocalDateTime expiresAt, LocalDateTime revokedAt) {
+    }
+
+    private final Map<Long, UserAccount> users = new HashMap<>();
+    private final Map<String, Token> tokens = new HashMap<>();
+    private final Map<String, Revocation> revocations = new HashMap<>();
+
+    public InMemoryAuthTokenLedger withUser(UserAccount account) {
+        users.put(account.id(), account);
+        return this;
+    }
+
+    public synchronized long liveRefreshTokens() {
+        return tokens.values().stream().filter(t -> !t.used && !t.revoked).count();
+    }
+
+    @Override
+    public synchronized void issueRefreshToken(String tokenHash, Long userId, String familyId, LocalDateTime expiresAt) {
+        tokens.put(tokenHash, new Token(userId, familyId, expiresAt));
+    }
+
+    @Override
+    public synchronized Optional<Rotation> rotateRefreshToken(String tokenHash, String nextTokenHash,
+                                                              LocalDateTime expiresAt) {
+        Token token = tokens.get(tokenHash);
+        if (token == null || token.used || token.revoked || !token.expiresAt.isAfter(LocalDateTime.now())) {
+            return Optional.empty();
+        }
+        token.used = true;
+        tokens.put(nextTokenHash, new Token(token.userId, token.familyId, expiresAt));
+        UserAccount user = users.get(token.userId);
+        return Optional.of(new Rotation(token.familyId, user.id(), user.username(), user.role()));
+    }
+
+    @Override
+    public synchronized Optional<StoredRefreshToken> findRefreshToken(String tokenHash) {
+        return Optional.ofNullable(tokens.get(tokenHash)).map(t -> new StoredRefreshToken(t.familyId, t.used));
+    }
+
+    @Override
+    public synchronized void revokeFamily(String familyId) {
+        tokens.values().stream().filter(t -> t.familyId.equals(familyId)).forEach(t -> t.revoked = true);
+    }
+
+    @Override
+    public synchronized void revoke(String tokenId, LocalDateTime expiresAt) {
+        revocations.put(tokenId, new Revocation(expiresAt, LocalDateTime.now()));
+    }
+
+    @Override
+    public synchronized RevocationBatch revokedSince(LocalDateTime since) {
+        LocalDateTime now = LocalDateTime.now();
+        Map<String, LocalDateTime> revoked = new HashMap<>();
+        revocations.forEach((id, r) -> {
+            if ((since == null || !r.revokedAt().isBefore(since)) && r.expiresAt().isAfter(now)) {
+                revoked.put(id, r.expiresAt());
+            }
+        });
+        return new RevocationBatch(revoked, now);
+    }
+
+    @Override
+    public synchronized int deleteExpired(LocalDateTime now) {
+        int before = tokens.size() + revocations.size();
+        tokens.values().removeIf(t -> t.expiresAt.isBefore(now));
+        revocations.values().removeIf(r -> r.expiresAt().isBefore(now));
+        return before - tokens.size() - revocations.size();
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.demo.security;
+
+import com.example.demo.entity.User;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Stand-in for the users table that counts the queries made against it.
+ */
+public class InMemoryUserAccountLedger implements UserAccountLedger {
+
+    private final Map<String, UserAccount> users = new ConcurrentHashMap<>();
+    private final AtomicLong ids = new AtomicLong();
+    private final AtomicInteger lookups = new AtomicInteger();
+    private final AtomicInteger scans = new AtomicInteger();
+    private final AtomicInteger rowsScanned = new AtomicInteger();
+
+    public UserAccount add(String username) {
+        return add(username, ids.incrementAndGet());
+    }
+
+    /**
+     * Adds a user under an id handed out earlier, as another node commits ids from its own block.
+     */
+    public UserAccount add(String username, long id) {
+        UserAccount account = new UserAccount(id, username, "{noop}password", User.Role.BUYER);
+        users.put(username, account);
+        ids.accumulateAndGet(id, Math::max);
+        return account;
+    }
+
+    public void setPassword(String username, String password) {
+        users.computeIfPresent(username, (name, a) -> new UserAccount(a.id(), name, password, a.role()));
+    }
+
+    public int lookups() {
+        return lookups.get();
+    }
+
+    /**
+     * Scans of the whole table.
+     */
+    public int scans() {
+        return scans.get();
+    }
+
+    public int rowsScanned() {
+        return rowsScanned.get();
+    }
+
+    @Override
+    public Optional<UserAccount> findByUsername(String username) {
+        lookups.incrementAndGet();
+        return Optional.ofNullable(users.get(username));
+    }
+
+    @Override
+    public long count() {
+        return users.size();
+    }
+
+    @Override
+    public long forEachUsernameAfter(long afterId, ObjLongConsumer<String> action) {
+        if (afterId <= 0) {
+            scans.incrementAndGet();
+        }
+        long count = 0;
+        for (UserAccount account : users.values()) {
+            if (account.id() > afterId) {
+                action.accept(account.username(), account.id());
+                count++;
+            }
+        }
+        rowsScanned.addAndGet((int) count);
+        return count;
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.demo.security;
+
+import com.example.demo.entity.User;
+import com.example.demo.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The refresh token rotation statement against Postgres.
+ */
+@SpringBootTest(properties = "app.outbox.relay-enabled=false")
+class JdbcAuthTokenLedgerTest {
+
+    @Autowired
+    private JdbcAuthTokenLedger ledger;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private User buyer;
+    private LocalDateTime expiresAt;
+
+    @BeforeEach
+    void setUp() {
+        buyer = userRepository.findByUsername("buyer").orElseThrow();
+        expiresAt = LocalDateTime.now().plusDays(1);
+    }
+
+    @Test
+    void rotationReplacesTheTokenWithASuccessorInTheSameFamily() {
+        String family = UUID.randomUUID().toString();
+        String token = hash();
+        String next = hash();
+        ledger.issueRefreshToken(token, buyer.getId(), family, expiresAt);
+
+        Optional<AuthTokenLedger.Rotation> rotation = ledger.rotateRefreshToken(token, next, expiresAt);
+
+        assertThat(rotation).contains(new AuthTokenLedger.Rotation(family, buyer.getId(), "buyer", buyer.getRole()));
+        assertThat(ledger.findRefreshToken(token)).contains(new AuthTokenLedger.StoredRefreshToken(family, true));
+        assertThat(ledger.findRefreshToken(next)).contains(new AuthTokenLedger.StoredRefreshToken(family, false));
+        assertThat(ledger.rotateRefreshToken(next, hash(), expiresAt)).isPresent();
+    }
+
+    @Test
+    void replayedTokenIsRefusedAndIssuesNothing() {
+        String family = UUID.randomUUID().toString();
+        String token = hash();
+        ledger.issueRefreshToken(token, buyer.getId(), family, expiresAt);
+        assertThat(ledger.rotateRefreshToken(token, hash(), expiresAt)).isPresent();
+
+        String replayed = hash();
+        assertThat(ledger.rotateRefreshToken(token, replayed, expiresAt)).isEmpty();
+        assertThat(ledger.findRefreshToken(replayed)).isEmpty();
+    }
+
+    @Test
+    void revokedAndExpiredTokensAreNotRotated() {
+        String revoked = hash();
+        String family = UUID.randomUUID().toString();
+        ledger.issueRefreshToken(revoked, buyer.getId(), family, expiresAt);
+        ledger.revokeFamily(family);
+        String expired = hash();
+        ledger.issueRefreshToken(expired, buyer.getId(), UUID.randomUUID().toString(), LocalDateTime.now().minusMinutes(1));
+
+        assertThat(ledger.rotateRefreshToken(revoked, hash(), expiresAt)).isEmpty();
+        assertThat(ledger.rotateRefreshToken(expired, hash(), expiresAt)).isEmpty();
+        assertThat(ledger.findRefreshToken(revoked)).contains(new AuthTokenLedger.StoredRefreshToken(family, false));
+    }
+
+    @Test
+    void concurrentRefreshesWithOneTokenLetExactlyOneThrough() throws Exception {
+        String token = hash();
+        ledger.issueRefreshToken(token, buyer.getId(), UUID.randomUUID().toString(), expiresAt);
+
+        List<Callable<Optional<AuthTokenLedger.Rotation>>> refreshes = IntStream.range(0, 8)
+                .<Callable<Optional<AuthTokenLedger.Rotation>>>mapToObj(i -> () -> ledger.rotateRefreshToken(token, hash(), expiresAt))
+                .toList();
+        long rotated;
+        try (ExecutorService executor = Executors.newFixedThreadPool(refreshes.size())) {
+            rotated = 0;
+            for (Future<Optional<AuthTokenLedger.Rotation>> outcome : executor.invokeAll(refreshes)) {
+                rotated += outcome.get().isPresent() ? 1 : 0;
+            }
+        }
+
+        assertThat(rotated).isEqualTo(1);
+    }
+
+    // Stands in for a SHA-256 hex digest
+    private static String hash() {
+        return (UUID.randomUUID().toString() + UUID.randomUUID()).replace("-", "");
+    }
+}
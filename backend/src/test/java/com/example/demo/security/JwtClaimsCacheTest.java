@@ -0,0 +1,72 @@
+package com.example.demo.security;
+
+import io.jsonwebtoken.JwtException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JwtClaimsCacheTest {
+
+    private JwtUtil jwtUtil;
+
+    @BeforeEach
+    void setUp() {
+        JwtProperties properties = new JwtProperties();
+        properties.setSecret("404E635266556A586E3272357538782F413F4428472B4B6250645367566B5970");
+        properties.setExpiration(60_000L);
+        jwtUtil = new JwtUtil(properties);
+    }
+
+    @Test
+    void resolvesClaimsAndReusesCachedEntry() {
+        JwtClaimsCache cache = new JwtClaimsCache(jwtUtil, 100);
+        String token = jwtUtil.generateToken("buyer", 7L, "BUYER");
+
+        VerifiedToken first = cache.resolve(token);
+        VerifiedToken second = cache.resolve(token);
+
+        assertThat(first.username()).isEqualTo("buyer");
+        assertThat(first.userId()).isEqualTo(7L);
+        assertThat(first.authorities()).extracting("authority").containsExactly("ROLE_BUYER");
+        assertThat(second).isSameAs(first);
+    }
+
+    @Test
+    void rejectsTamperedToken() {
+        JwtClaimsCache cache = new JwtClaimsCache(jwtUtil, 100);
+        String token = jwtUtil.generateToken("buyer", 7L, "BUYER");
+        cache.resolve(token);
+
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+
+        assertThatThrownBy(() -> cache.resolve(tampered)).isInstanceOf(JwtException.class);
+    }
+
+    @Test
+    void staysWithinMaxSize() {
+        JwtClaimsCache cache = new JwtClaimsCache(jwtUtil, 20);
+
+        for (long i = 0; i < 200; i++) {
+            cache.resolve(jwtUtil.generateToken("user" + i, i, "BUYER"));
+        }
+
+        assertThat(cache.size()).isLessThanOrEqualTo(20);
+    }
+
+    @Test
+    void tokenInUseOutlivesAFloodOfOneOffTokens() {
+        JwtClaimsCache cache = new JwtClaimsCache(jwtUtil, 20);
+        String inUse = jwtUtil.generateToken("buyer", 7L, "BUYER");
+        VerifiedToken first = cache.resolve(inUse);
+
+        for (long i = 0; i < 200; i++) {
+            cache.resolve(jwtUtil.generateToken("user" + i, i, "BUYER"));
+            cache.resolve(inUse);
+        }
+
+        assertThat(cache.resolve(inUse)).isSameAs(first);
+        assertThat(cache.size()).isLessThanOrEqualTo(20);
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.demo.security;
+
+import io.jsonwebtoken.JwtException;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JwtUtilTest {
+
+    private static final String OLD_SECRET = "404E635266556A586E3272357538782F413F4428472B4B6250645367566B5970";
+    private static final String NEW_SECRET = "6B5970404E635266556A586E3272357538782F413F4428472B4B625064536756";
+
+    @Test
+    void verifiesTokensSignedWithRetiredKeyAfterRotation() {
+        String issuedBeforeRotation = new JwtUtil(properties("2024-01", OLD_SECRET, Map.of())).generateToken("buyer", 1L, "BUYER");
+
+        JwtUtil rotated = new JwtUtil(properties("2024-02", NEW_SECRET, Map.of("2024-01", OLD_SECRET)));
+
+        assertThat(rotated.verify(issuedBeforeRotation).username()).isEqualTo("buyer");
+        assertThat(rotated.verify(rotated.generateToken("seller", 2L, "SELLER")).role()).isEqualTo("SELLER");
+    }
+
+    @Test
+    void rejectsTokensWithUnknownKeyId() {
+        String token = new JwtUtil(properties("2024-01", OLD_SECRET, Map.of())).generateToken("buyer", 1L, "BUYER");
+
+        JwtUtil rotated = new JwtUtil(properties("2024-02", NEW_SECRET, Map.of()));
+
+        assertThatThrownBy(() -> rotated.verify(token)).isInstanceOf(JwtException.class);
+    }
+
+    private static JwtProperties properties(String keyId, String secret, Map<String, String> retiredKeys) {
+        JwtProperties properties = new JwtProperties();
+        properties.setKeyId(keyId);
+        properties.setSecret(secret);
+        properties.setExpiration(60_000L);
+        properties.setRetiredKeys(retiredKeys);
+        return properties;
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.demo.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Sign-ins relayed by a proxy on the loopback address, as nginx relays them in the shipped setup. Each client
+ * named in X-Forwarded-For draws from its own address bucket, and hops it adds in front of its own address
+ * are not trusted.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "app.login-rate-limit.address.capacity=2",
+        "app.login-rate-limit.address.refill-period=1h"
+})
+class LoginRateLimitProxyTest {
+
+    private final HttpClient http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+    @LocalServerPort
+    private int port;
+
+    @Test
+    void clientsBehindTheProxyHaveTheirOwnAddressBuckets() throws Exception {
+        assertThat(login("first", "203.0.113.1")).isEqualTo(401);
+        assertThat(login("second", "203.0.113.1")).isEqualTo(401);
+        assertThat(login("third", "203.0.113.1")).isEqualTo(429);
+
+        assertThat(login("fourth", "203.0.113.2")).isEqualTo(401);
+    }
+
+    @Test
+    void addressesForgedInFrontOfTheClientsOwnAreIgnored() throws Exception {
+        assertThat(login("first", "198.51.100.1, 203.0.113.7")).isEqualTo(401);
+        assertThat(login("second", "198.51.100.2, 203.0.113.7")).isEqualTo(401);
+        assertThat(login("third", "198.51.100.3, 203.0.113.7")).isEqualTo(429);
+    }
+
+    private int login(String username, String forwardedFor) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/auth/login"))
+                .header("Content-Type", "application/json")
+                .header("X-Forwarded-For", forwardedFor)
+                .POST(HttpRequest.BodyPublishers.ofString(
+                        "{\"username\":\"proxied-" + username + "\",\"password\":\"password\"}"))
+                .build();
+        return http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+}
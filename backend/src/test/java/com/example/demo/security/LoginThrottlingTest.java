@@ -0,0 +1,175 @@
+package com.example.demo.security;
+
+import com.example.demo.concurrency.StripedTokenBuckets;
+import com.example.demo.metrics.HotPathMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LoginThrottlingTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final HotPathMetrics metrics = new HotPathMetrics(new SimpleMeterRegistry());
+    private final List<ThrottledPasswordEncoder> encoders = new ArrayList<>();
+
+    @AfterEach
+    void closeEncoders() {
+        encoders.forEach(ThrottledPasswordEncoder::close);
+    }
+
+    @Test
+    void bucketAllowsABurstThenOneAttemptPerRefillPeriod() {
+        StripedTokenBuckets buckets = new StripedTokenBuckets(3, Duration.ofSeconds(1), 4, 100);
+        long now = 1_000 * SECOND;
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(buckets.tryAcquire("alice", now)).isZero();
+        }
+        assertThat(buckets.tryAcquire("alice", now)).isEqualTo(SECOND);
+        assertThat(buckets.tryAcquire("bob", now)).isZero();
+
+        assertThat(buckets.tryAcquire("alice", now + SECOND / 2)).isEqualTo(SECOND / 2);
+        assertThat(buckets.tryAcquire("alice", now + SECOND)).isZero();
+        assertThat(buckets.tryAcquire("alice", now + SECOND)).isPositive();
+
+        // A long pause refills to capacity and no further
+        long later = now + 3_600 * SECOND;
+        for (int i = 0; i < 3; i++) {
+            assertThat(buckets.tryAcquire("alice", later)).isZero();
+        }
+        assertThat(buckets.tryAcquire("alice", later)).isPositive();
+    }
+
+    @Test
+    void rateLimiterRefusesByAddressAndByCaseFoldedUsername() {
+        LoginRateLimitProperties properties = new LoginRateLimitProperties();
+        properties.setUsername(new LoginRateLimitProperties.Bucket(2, Duration.ofMinutes(1)));
+        properties.setAddress(new LoginRateLimitProperties.Bucket(3, Duration.ofMinutes(1)));
+        LoginRateLimiter limiter = new LoginRateLimiter(properties, metrics);
+
+        limiter.acquire("Alice", "10.0.0.1");
+        limiter.acquire("alice", "10.0.0.2");
+        assertThatThrownBy(() -> limiter.acquire("ALICE", "10.0.0.3"))
+                .isInstanceOfSatisfying(LoginThrottledException.class, e -> {
+                    assertThat(e.getStatus()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+                    assertThat(e.getRetryAfterSeconds()).isEqualTo(60);
+                });
+
+        limiter.acquire("bob", "10.0.0.9");
+        limiter.acquire("carol", "10.0.0.9");
+        limiter.acquire("dave", "10.0.0.9");
+        assertThatThrownBy(() -> limiter.acquire("erin", "10.0.0.9"))
+                .isInstanceOf(LoginThrottledException.class);
+    }
+
+    @Test
+    void hashesBeyondTheQueueAreShedAtOnce() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        ThrottledPasswordEncoder encoder = encoder(blockingUntil(release), 1, 1, Duration.ofSeconds(10));
+
+        CompletableFuture<Boolean> running = CompletableFuture.supplyAsync(() -> encoder.matches("a", "b"));
+        awaitQueued(encoder, running, 0);
+        CompletableFuture<Boolean> queued = CompletableFuture.supplyAsync(() -> encoder.matches("a", "b"));
+        awaitQueued(encoder, queued, 1);
+
+        long start = System.nanoTime();
+        assertThatThrownBy(() -> encoder.matches("a", "b"))
+                .isInstanceOfSatisfying(LoginThrottledException.class,
+                        e -> assertThat(e.getStatus()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE));
+        assertThat(System.nanoTime() - start).isLessThan(TimeUnit.SECONDS.toNanos(1));
+
+        release.countDown();
+        assertThat(running.get(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(queued.get(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void hashNotDoneWithinMaxWaitIsAnsweredWith503() {
+        CountDownLatch release = new CountDownLatch(1);
+        ThrottledPasswordEncoder encoder = encoder(blockingUntil(release), 1, 4, Duration.ofMillis(50));
+        try {
+            assertThatThrownBy(() -> encoder.matches("a", "b"))
+                    .isInstanceOfSatisfying(LoginThrottledException.class,
+                            e -> assertThat(e.getStatus()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE));
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void calibrationPicksTheHighestCostWithinTheTarget() {
+        Duration target = Duration.ofMillis(100);
+
+        assertThat(ThrottledPasswordEncoder.strengthFor(TimeUnit.MILLISECONDS.toNanos(60), 10, target, 14)).isEqualTo(10);
+        assertThat(ThrottledPasswordEncoder.strengthFor(TimeUnit.MILLISECONDS.toNanos(20), 10, target, 14)).isEqualTo(12);
+        assertThat(ThrottledPasswordEncoder.strengthFor(TimeUnit.MICROSECONDS.toNanos(10), 10, target, 14)).isEqualTo(14);
+    }
+
+    @Test
+    void signInRehashesAPasswordStoredAtALowerCost() {
+        ThrottledPasswordEncoder encoder = encoder(new BCryptPasswordEncoder(5), 2, 4, Duration.ofSeconds(5));
+        String oldHash = new BCryptPasswordEncoder(4).encode("password");
+        AtomicReference<String> stored = new AtomicReference<>(oldHash);
+
+        DaoAuthenticationProvider provider = new DaoAuthenticationProvider(username ->
+                User.withUsername(username).password(stored.get()).roles("BUYER").build());
+        provider.setPasswordEncoder(encoder);
+        provider.setUserDetailsPasswordService((UserDetails user, String newPassword) -> {
+            stored.set(newPassword);
+            return User.withUserDetails(user).password(newPassword).build();
+        });
+
+        provider.authenticate(new UsernamePasswordAuthenticationToken("buyer", "password"));
+
+        assertThat(stored.get()).isNotEqualTo(oldHash).startsWith("$2a$05$");
+        assertThat(encoder.matches("password", stored.get())).isTrue();
+        assertThat(encoder.upgradeEncoding(stored.get())).isFalse();
+        assertThat(encoder.upgradeEncoding(new BCryptPasswordEncoder(6).encode("password"))).isFalse();
+    }
+
+    private ThrottledPasswordEncoder encoder(BCryptPasswordEncoder delegate, int threads, int queue, Duration maxWait) {
+        ThrottledPasswordEncoder encoder = new ThrottledPasswordEncoder(delegate, threads, queue, maxWait, metrics);
+        encoders.add(encoder);
+        return encoder;
+    }
+
+    private static BCryptPasswordEncoder blockingUntil(CountDownLatch release) {
+        return new BCryptPasswordEncoder(4) {
+            @Override
+            protected boolean matchesNonNull(String rawPassword, String encodedPassword) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return true;
+            }
+        };
+    }
+
+    private static void awaitQueued(ThrottledPasswordEncoder encoder, CompletableFuture<?> caller, int queued)
+            throws InterruptedException {
+        for (int i = 0; i < 200 && encoder.queued() + encoder.active() < queued + 1; i++) {
+            Thread.sleep(5);
+        }
+        assertThat(caller).isNotDone();
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.demo.security;
+
+import com.example.demo.metrics.HotPathMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UserAccountCacheTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final InMemoryUserAccountLedger ledger = new InMemoryUserAccountLedger();
+
+    @Test
+    void loadsEachAccountOnceUntilItChanges() {
+        ledger.add("alice");
+        UserAccountCache cache = cache(new UserCacheProperties());
+
+        assertThat(cache.find("alice")).isPresent();
+        assertThat(cache.find("alice")).isPresent();
+        assertThat(ledger.lookups()).isEqualTo(1);
+
+        ledger.setPassword("alice", "{noop}changed");
+        cache.changed("alice");
+
+        assertThat(cache.find("alice")).get().extracting(UserAccount::password).isEqualTo("{noop}changed");
+        assertThat(ledger.lookups()).isEqualTo(2);
+    }
+
+    @Test
+    void unknownUsernamesAreAnsweredWithoutAQuery() {
+        IntStream.range(0, 1_000).forEach(i -> ledger.add("user-" + i));
+        UserAccountCache cache = cache(new UserCacheProperties());
+
+        for (int i = 0; i < 1_000; i++) {
+            cache.find("nobody-" + i);
+        }
+
+        // The filter is sized for a 1% false positive rate
+        assertThat(ledger.lookups()).isLessThan(50);
+        assertThat(registry.get("auth.unknown.usernames").counter().count()).isGreaterThan(950);
+        assertThat(cache.find("user-42")).isPresent();
+    }
+
+    @Test
+    void registrationsOnThisNodeAreVisibleWithoutARebuild() {
+        ledger.add("alice");
+        UserAccountCache cache = cache(new UserCacheProperties());
+        assertThat(cache.find("bob")).isEmpty();
+
+        cache.registered(ledger.add("bob"));
+        cache.refresh();
+
+        assertThat(cache.find("bob")).isPresent();
+        assertThat(ledger.scans()).isEqualTo(1);
+    }
+
+    @Test
+    void usersAddedElsewhereAreFoundAfterTheNextRefresh() {
+        ledger.add("alice");
+        UserAccountCache cache = cache(new UserCacheProperties());
+
+        ledger.add("carol");
+        assertThat(cache.find("carol")).isEmpty();
+
+        cache.refresh();
+
+        assertThat(cache.find("carol")).isPresent();
+        assertThat(ledger.scans()).isEqualTo(1);
+        assertThat(ledger.rowsScanned()).isEqualTo(2);
+    }
+
+    @Test
+    void usersCommittedUnderEarlierIdsAreFoundByLookingBack() {
+        IntStream.rangeClosed(1, 200).forEach(i -> ledger.add("user-" + i, i));
+        IntStream.rangeClosed(251, 300).forEach(i -> ledger.add("user-" + i, i));
+        UserAccountCache cache = cache(new UserCacheProperties());
+
+        // Another node commits from the block of ids it was handed before the ones above
+        ledger.add("late", 201);
+        cache.refresh();
+        cache.refresh();
+        assertThat(cache.find("late")).isEmpty();
+        cache.refresh();
+
+        assertThat(cache.find("late")).isPresent();
+        assertThat(ledger.scans()).isEqualTo(1);
+        // Ids above 300, 250 and 200 after the first scan
+        assertThat(ledger.rowsScanned()).isEqualTo(250 + 0 + 50 + 51);
+
+        // Caught up, so the next check reads nothing
+        int rows = ledger.rowsScanned();
+        cache.refresh();
+        assertThat(ledger.rowsScanned()).isEqualTo(rows);
+    }
+
+    @Test
+    void disabledCacheQueriesEveryTime() {
+        ledger.add("alice");
+        UserCacheProperties properties = new UserCacheProperties();
+        properties.setEnabled(false);
+        UserAccountCache cache = cache(properties);
+
+        cache.find("alice");
+        cache.find("alice");
+        cache.find("nobody");
+
+        assertThat(ledger.lookups()).isEqualTo(3);
+        assertThat(ledger.scans()).isZero();
+    }
+
+    private UserAccountCache cache(UserCacheProperties properties) {
+        UserAccountCache cache = new UserAccountCache(ledger, properties, new HotPathMetrics(registry), registry);
+        cache.warmUp();
+        return cache;
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.demo.seed;
+
+import com.example.demo.entity.Order;
+import com.example.demo.entity.OrderItem;
+import com.example.demo.entity.Product;
+import com.example.demo.entity.User;
+import com.example.demo.repository.OrderRepository;
+import com.example.demo.repository.ProductRepository;
+import com.example.demo.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * A small seed against Postgres: what Hibernate inserts afterwards lands above the seeded ids, and the seeded
+ * orders are already counted in the sellers' rollups.
+ */
+@SpringBootTest(properties = "app.outbox.relay-enabled=false")
+class SeedDataGeneratorTest {
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Test
+    void seedsBelowTheSequencesAndRollsUpItsOrders() throws Exception {
+        SeedProperties properties = new SeedProperties();
+        properties.setSellers(3);
+        properties.setProductsPerSeller(20);
+        properties.setBuyers(12);
+        properties.setCartLinesPerBuyer(2);
+        properties.setOrdersPerBuyer(4);
+        properties.setPartitions(2);
+        new SeedDataGenerator(dataSource, jdbcTemplate, passwordEncoder, properties).generate();
+
+        for (String table : List.of("users", "products", "orders", "order_items")) {
+            long max = jdbcTemplate.queryForObject("SELECT max(id) FROM " + table, Long.class);
+            assertThat(jdbcTemplate.queryForObject("SELECT nextval('" + table + "_seq')", Long.class))
+                    .as(table).isGreaterThan(max);
+        }
+        // Enough saves to take fresh blocks from every sequence
+        for (int i = 0; i < 60; i++) {
+            saveOrder(saveProduct(saveUser(i)));
+        }
+
+        String rollups = " FROM seller_daily_rollups r JOIN users u ON u.id = r.seller_id";
+        String items = " FROM order_items i JOIN orders o ON o.id = i.order_id JOIN users u ON u.id = o.user_id";
+        assertThat(ofSeedUsers("SELECT sum(r.units)" + rollups)).isPositive()
+                .isEqualByComparingTo(ofSeedUsers("SELECT sum(i.quantity)" + items));
+        assertThat(ofSeedUsers("SELECT sum(r.revenue)" + rollups))
+                .isEqualByComparingTo(ofSeedUsers("SELECT sum(i.quantity * i.price_at_purchase)" + items));
+        assertThat(ofSeedUsers("SELECT sum(r.discount)" + rollups)).isPositive()
+                .isEqualByComparingTo(ofSeedUsers("SELECT sum(o.discount) FROM orders o JOIN users u ON u.id = o.user_id"));
+    }
+
+    private BigDecimal ofSeedUsers(String sql) {
+        return jdbcTemplate.queryForObject(sql + " WHERE u.username LIKE '" + SeedDataGenerator.USERNAME_PREFIX + "%'",
+                BigDecimal.class);
+    }
+
+    private User saveUser(int i) {
+        User user = new User();
+        user.setUsername("after-seed-" + i);
+        user.setEmail("after-seed-" + i + "@example.com");
+        user.setPassword("hash");
+        user.setRole(User.Role.SELLER);
+        return userRepository.save(user);
+    }
+
+    private Product saveProduct(User seller) {
+        Product product = new Product();
+        product.setName("After seed");
+        product.setPrice(BigDecimal.TEN);
+        product.setStock(1);
+        product.setSellerId(seller.getId());
+        return productRepository.save(product);
+    }
+
+    private void saveOrder(Product product) {
+        Order order = new Order();
+        order.setUserId(product.getSellerId());
+        order.setTotalAmount(BigDecimal.TEN);
+        order.setFinalAmount(BigDecimal.TEN);
+        OrderItem item = new OrderItem();
+        item.setOrder(order);
+        item.setProductId(product.getId());
+        item.setProductName(product.getName());
+        item.setQuantity(1);
+        item.setPriceAtPurchase(BigDecimal.TEN);
+        order.getItems().add(item);
+        orderRepository.save(order);
+    }
+}
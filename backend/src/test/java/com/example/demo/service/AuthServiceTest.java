@@ -0,0 +1,72 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.RegisterRequest;
+import com.example.demo.entity.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Duplicate registrations against Postgres, with the unique constraints named as the entity names them and
+ * with the generated names of a database created before that.
+ */
+@SpringBootTest(properties = "app.outbox.relay-enabled=false")
+class AuthServiceTest {
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void duplicateUsernameOrEmailIsNamed() {
+        String name = "dup-" + UUID.randomUUID();
+        authService.register(request(name, name + "@example.com"));
+
+        assertDuplicatesNamed(name);
+    }
+
+    @Test
+    void duplicatesAreNamedUnderGeneratedConstraintNamesAndAfterTheRename() throws Exception {
+        String name = "legacy-" + UUID.randomUUID();
+        authService.register(request(name, name + "@example.com"));
+        jdbcTemplate.execute("ALTER TABLE users RENAME CONSTRAINT " + User.USERNAME_CONSTRAINT + " TO uk_legacy_username");
+        jdbcTemplate.execute("ALTER TABLE users RENAME CONSTRAINT " + User.EMAIL_CONSTRAINT + " TO uk_legacy_email");
+        try {
+            assertDuplicatesNamed(name);
+        } finally {
+            jdbcTemplate.execute(Files.readString(Path.of("src/main/resources/db/user-unique-constraints.sql")));
+        }
+
+        assertThat(jdbcTemplate.queryForList(
+                "SELECT conname FROM pg_constraint WHERE conrelid = 'users'::regclass AND contype = 'u'", String.class))
+                .containsExactlyInAnyOrderElementsOf(List.of(User.USERNAME_CONSTRAINT, User.EMAIL_CONSTRAINT));
+        assertDuplicatesNamed(name);
+    }
+
+    private void assertDuplicatesNamed(String name) {
+        assertThatThrownBy(() -> authService.register(request(name, "other-" + name + "@example.com")))
+                .hasMessage("Username already exists");
+        assertThatThrownBy(() -> authService.register(request("other-" + name, name + "@example.com")))
+                .hasMessage("Email already exists");
+    }
+
+    private static RegisterRequest request(String username, String email) {
+        RegisterRequest request = new RegisterRequest();
+        request.setUsername(username);
+        request.setEmail(email);
+        request.setPassword("password");
+        request.setRole(User.Role.BUYER);
+        return request;
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.demo.service;
+
+import com.example.demo.cart.CartStore;
+import com.example.demo.dto.CheckoutRequest;
+import com.example.demo.entity.Product;
+import com.example.demo.repository.ProductRepository;
+import com.example.demo.repository.UserRepository;
+import com.example.demo.service.StatementCountingDataSource.Execution;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Guards the number of database round trips a checkout takes. A change that brings back one statement per
+ * cart line, such as an id strategy that defeats insert batching, makes the large cart cost more trips than
+ * the small one.
+ */
+@SpringBootTest(properties = "app.metrics.statements-per-request=false") // this test wraps the DataSource itself
+class CheckoutStatementCountTest {
+
+    private static final Pattern PARAMETER_LIST = Pattern.compile("\\(\\?(\\s*,\\s*\\?)*\\)");
+
+    @TestConfiguration
+    static class CountingConfig {
+
+        @Bean
+        static BeanPostProcessor statementCountingPostProcessor() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    if (bean instanceof DataSource dataSource && !(bean instanceof StatementCountingDataSource)) {
+                        return new StatementCountingDataSource(dataSource);
+                    }
+                    return bean;
+                }
+            };
+        }
+    }
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private CartStore cartStore;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Test
+    void roundTripsDoNotGrowWithTheNumberOfCartLines() {
+        Long buyerId = userRepository.findByUsername("buyer").orElseThrow().getId();
+        Long sellerId = userRepository.findByUsername("seller").orElseThrow().getId();
+        List<Product> products = productRepository.saveAll(IntStream.range(0, 30)
+                .mapToObj(i -> product("Statement count " + i, sellerId))
+                .toList());
+
+        // The first checkout loads the buyer's cart and takes the first block of order and item ids
+        checkout(buyerId, products.subList(0, 1));
+        List<Execution> small = checkout(buyerId, products.subList(0, 2));
+        List<Execution> large = checkout(buyerId, products);
+
+        assertThat(sqlOf(large)).isEqualTo(sqlOf(small));
+        assertThat(large.stream().filter(e -> e.insertsInto("orders")).map(Execution::rows))
+                .containsExactly(1);
+        assertThat(large.stream().filter(e -> e.insertsInto("order_items")).map(Execution::rows))
+                .containsExactly(products.size());
+    }
+
+    private List<Execution> checkout(Long buyerId, List<Product> products) {
+        products.forEach(product -> cartStore.addQuantity(buyerId, product.getId(), 1));
+        cartStore.getLines(buyerId);
+        return ((StatementCountingDataSource) dataSource)
+                .record(() -> orderService.checkout(buyerId, new CheckoutRequest()));
+    }
+
+    /**
+     * Statements in the order they were sent, with parameter lists of any length collapsed, leaving out
+     * sequence calls, which happen once per block of ids.
+     */
+    private static List<String> sqlOf(List<Execution> executions) {
+        return executions.stream()
+                .filter(e -> !e.allocatesIds())
+                .map(e -> PARAMETER_LIST.matcher(e.sql()).replaceAll("(?)"))
+                .toList();
+    }
+
+    private static Product product(String name, Long sellerId) {
+        Product product = new Product();
+        product.setName(name);
+        product.setDescription(name);
+        product.setPrice(new BigDecimal("10.00"));
+        product.setStock(1000);
+        product.setSellerId(sellerId);
+        return product;
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.demo.service;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Records the statements sent to the database while a piece of code runs on the calling thread, one entry per
+ * round trip: a JDBC batch is a single entry however many rows it carries. Work done on other threads, such as
+ * write-behind flushes, is not recorded.
+ */
+class StatementCountingDataSource extends DelegatingDataSource {
+
+    /**
+     * One round trip; {@code rows} is the number of parameter sets sent with it.
+     */
+    record Execution(String sql, int rows) {
+
+        boolean insertsInto(String table) {
+            return sql.toLowerCase().startsWith("insert into " + table + " ");
+        }
+
+        boolean allocatesIds() {
+            return sql.toLowerCase().contains("nextval(");
+        }
+    }
+
+    private final ThreadLocal<List<Execution>> recording = new ThreadLocal<>();
+
+    StatementCountingDataSource(DataSource target) {
+        super(target);
+    }
+
+    <T> List<Execution> record(Supplier<T> action) {
+        List<Execution> executions = new ArrayList<>();
+        recording.set(executions);
+        try {
+            action.get();
+        } finally {
+            recording.remove();
+        }
+        return executions;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return counting(obtainTargetDataSource().getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return counting(obtainTargetDataSource().getConnection(username, password));
+    }
+
+    private Connection counting(Connection target) {
+        return proxy(Connection.class, target, (proxy, method, args) -> {
+            Object result = invoke(target, method, args);
+            if (result instanceof Statement statement && method.getReturnType().isInterface()) {
+                String sql = args != null && args.length > 0 && args[0] instanceof String s ? s : null;
+                return counting(method.getReturnType(), statement, sql);
+            }
+            return result;
+        });
+    }
+
+    private Object counting(Class<?> type, Statement target, String preparedSql) {
+        List<String> batch = new ArrayList<>();
+        return proxy(type, target, (proxy, method, args) -> {
+            String name = method.getName();
+            String sql = args != null && args.length > 0 && args[0] instanceof String s ? s : preparedSql;
+            if (name.equals("addBatch")) {
+                batch.add(sql);
+            } else if (name.equals("clearBatch")) {
+                batch.clear();
+            } else if (name.equals("executeBatch") || name.equals("executeLargeBatch")) {
+                record(batch.isEmpty() ? preparedSql : batch.get(0), batch.size());
+                batch.clear();
+            } else if (name.startsWith("execute")) {
+                record(sql, 1);
+            }
+            return invoke(target, method, args);
+        });
+    }
+
+    private void record(String sql, int rows) {
+        List<Execution> executions = recording.get();
+        if (executions != null) {
+            executions.add(new Execution(sql, rows));
+        }
+    }
+
+    private static <T> T proxy(Class<T> type, Object target, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            // Statements are tracked in hash maps by Hibernate, so identity has to follow the proxy
+            if (method.getName().equals("equals") && method.getParameterCount() == 1) {
+                return proxy == args[0];
+            }
+            if (method.getName().equals("hashCode") && method.getParameterCount() == 0) {
+                return System.identityHashCode(proxy);
+            }
+            return handler.invoke(proxy, method, args);
+        }));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
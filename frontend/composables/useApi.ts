@@ -1,6 +1,9 @@
 import axios from 'axios'
 import { useAuthStore } from '~/stores/auth'
 
+// Shared by every client so concurrent 401s spend the refresh token once; reusing it would end the session
+let refreshing: Promise<string | null> | null = null
+
 export const useApi = () => {
     const config = useRuntimeConfig()
     const authStore = useAuthStore()
@@ -26,11 +29,38 @@ export const useApi = () => {
         }
     )
 
-    // Response interceptor for error handling
+    const refreshTokens = (): Promise<string | null> => {
+        if (!refreshing) {
+            const refreshToken = authStore.refreshToken
+            refreshing = axios
+                .post(`${config.public.apiBase}/auth/refresh`, { refreshToken })
+                .then((response) => {
+                    const { token, refreshToken: next, userId, username, role } = response.data
+                    authStore.setAuth(token, { userId, username, role }, next)
+                    return token as string
+                })
+                .catch(() => null)
+                .finally(() => {
+                    refreshing = null
+                })
+        }
+        return refreshing
+    }
+
+    // Response interceptor for error handling: an expired access token is renewed once, then the request retried
     api.interceptors.response.use(
         (response) => response,
-        (error) => {
+        async (error) => {
+            const request = error.config
             if (error.response?.status === 401) {
+                if (authStore.refreshToken && request && !request._retried && !request.url?.startsWith('/auth/')) {
+                    request._retried = true
+                    const token = await refreshTokens()
+                    if (token) {
+                        request.headers.Authorization = `Bearer ${token}`
+                        return api(request)
+                    }
+                }
                 authStore.logout()
                 navigateTo('/login')
             }
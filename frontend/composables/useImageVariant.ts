@@ -0,0 +1,23 @@
+// Uploads stored by content hash (/uploads/ab/<sha256>.<ext>) get resized variants beside them,
+// rendered in the background after upload; anything else is used as is.
+const CONTENT_ADDRESSED = /^(.*\/uploads\/[0-9a-f]{2}\/[0-9a-f]{64})\.(png|jpg|gif)$/
+
+export type ImageVariant = 'thumbnail' | 'medium'
+
+export const useImageVariant = () => {
+    const variantUrl = (url: string, variant: ImageVariant) => {
+        const match = CONTENT_ADDRESSED.exec(url)
+        if (!match) return url
+        return `${match[1]}-${variant}.${match[2] === 'jpg' ? 'jpg' : 'png'}`
+    }
+
+    // A variant that is not rendered yet 404s; show the original instead
+    const fallbackToOriginal = (event: Event, original: string) => {
+        const img = event.target as HTMLImageElement
+        if (img.dataset.fallback) return
+        img.dataset.fallback = 'original'
+        img.src = original
+    }
+
+    return { variantUrl, fallbackToOriginal }
+}
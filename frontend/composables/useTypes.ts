@@ -30,3 +30,35 @@ export interface Order {
     createdAt: string
     items?: OrderItem[]
 }
+
+// 商品列表摘要（不含描述）
+export interface ProductSummary {
+    id: number
+    name: string
+    price: number
+    stock: number
+    imageUrl?: string
+    sellerId: number
+    createdAt: string
+}
+
+// 游標分頁回應
+export interface CursorPage<T> {
+    items: T[]
+    nextCursor: string | null
+}
+
+// 搜尋結果
+export interface ProductSearchHit {
+    id: number
+    name: string
+    price: number
+    imageUrl?: string
+    score: number
+}
+
+export interface ProductSearchResult {
+    items: ProductSearchHit[]
+    total: number
+    priceFacets: { from: number, to: number | null, count: number }[]
+}
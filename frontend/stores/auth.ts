@@ -16,6 +16,7 @@ interface JwtPayload {
 export const useAuthStore = defineStore('auth', {
     state: () => ({
         token: null as string | null,
+        refreshToken: null as string | null,
         user: null as User | null
     }),
 
@@ -26,8 +27,9 @@ export const useAuthStore = defineStore('auth', {
     },
 
     actions: {
-        setAuth(token: string, user: User) {
+        setAuth(token: string, user: User, refreshToken: string | null = null) {
             this.token = token
+            this.refreshToken = refreshToken
             this.user = user
         },
 
@@ -48,6 +50,7 @@ export const useAuthStore = defineStore('auth', {
 
         logout() {
             this.token = null
+            this.refreshToken = null
             this.user = null
         },
 
@@ -56,7 +59,8 @@ export const useAuthStore = defineStore('auth', {
                 try {
                     const decoded = jwtDecode<JwtPayload>(this.token)
                     const now = Date.now() / 1000
-                    if (decoded.exp && decoded.exp < now) {
+                    // An expired access token is renewed on the next API call while a refresh token is held
+                    if (decoded.exp && decoded.exp < now && !this.refreshToken) {
                         this.logout()
                         return false
                     }